@@ -0,0 +1,25 @@
+package com.example.demo.DTOs;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchIssuanceItemDTO {
+    private int index;
+    private boolean success;
+    private String serialNumber;
+    private String certificate;
+    private String error;
+
+    public static BatchIssuanceItemDTO issued(int index, String serialNumber, String certificate) {
+        return new BatchIssuanceItemDTO(index, true, serialNumber, certificate, null);
+    }
+
+    public static BatchIssuanceItemDTO failed(int index, String error) {
+        return new BatchIssuanceItemDTO(index, false, null, null, error);
+    }
+}
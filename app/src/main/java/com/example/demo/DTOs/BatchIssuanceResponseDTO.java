@@ -0,0 +1,15 @@
+package com.example.demo.DTOs;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class BatchIssuanceResponseDTO {
+    private int total;
+    private int issued;
+    private int failed;
+    private List<BatchIssuanceItemDTO> results;
+}
@@ -0,0 +1,18 @@
+package com.example.demo.DTOs;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class CertificatePageDTO {
+    private List<CertificateResponseDTO> items;
+
+    // Absent on the last page
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+}
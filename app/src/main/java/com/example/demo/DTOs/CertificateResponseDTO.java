@@ -1,6 +1,7 @@
-
 package com.example.demo.DTOs;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -24,4 +25,8 @@ public class CertificateResponseDTO {
     private String notBefore;
     private String notAfter;
     private String status;
+
+    // Only filled in when the caller asks for it with ?include=pem
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String certificatePem;
 }
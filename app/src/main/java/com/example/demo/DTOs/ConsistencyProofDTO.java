@@ -0,0 +1,22 @@
+package com.example.demo.DTOs;
+
+import java.util.Base64;
+import java.util.List;
+
+import com.example.demo.services.TransparencyLogService.ConsistencyProof;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ConsistencyProofDTO {
+    private long firstTreeSize;
+    private long secondTreeSize;
+    private List<String> consistency;
+
+    public static ConsistencyProofDTO from(ConsistencyProof proof) {
+        return new ConsistencyProofDTO(proof.firstTreeSize(), proof.secondTreeSize(),
+                proof.proof().stream().map(Base64.getEncoder()::encodeToString).toList());
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.demo.DTOs;
+
+import java.util.Base64;
+import java.util.List;
+
+import com.example.demo.services.TransparencyLogService.InclusionProof;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class InclusionProofDTO {
+    private long leafIndex;
+    private long treeSize;
+    private List<String> auditPath;
+
+    public static InclusionProofDTO from(InclusionProof proof) {
+        return new InclusionProofDTO(proof.leafIndex(), proof.treeSize(),
+                proof.auditPath().stream().map(Base64.getEncoder()::encodeToString).toList());
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.demo.DTOs;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Outcome of a signature validation. The fixed outcomes are shared constants, so the hot path allocates nothing.
+ */
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SignatureValidationResponseDTO {
+
+    public static final SignatureValidationResponseDTO NOT_ISSUED_BY_CA =
+            new SignatureValidationResponseDTO(false, null, "Certificate was not issued by this CA", null);
+
+    public static final SignatureValidationResponseDTO REVOKED =
+            new SignatureValidationResponseDTO(false, null, "Certificate has been revoked", null);
+
+    public static final SignatureValidationResponseDTO SIGNATURE_INVALID =
+            new SignatureValidationResponseDTO(true, false, null, null);
+
+    public static final SignatureValidationResponseDTO VALID =
+            new SignatureValidationResponseDTO(true, true, null, null);
+
+    private final Boolean certificateValid;
+    private final Boolean signatureValid;
+    private final String message;
+    private final String error;
+
+    public static SignatureValidationResponseDTO error(String error) {
+        return new SignatureValidationResponseDTO(null, null, null, error);
+    }
+}
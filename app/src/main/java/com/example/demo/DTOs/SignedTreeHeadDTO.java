@@ -0,0 +1,28 @@
+package com.example.demo.DTOs;
+
+import java.util.Base64;
+
+import com.example.demo.services.TransparencyLogService.SignedTreeHead;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Signed tree head; the signature covers the RFC 6962 TreeHeadSignature of these values
+ */
+@Getter
+@AllArgsConstructor
+public class SignedTreeHeadDTO {
+    private long treeSize;
+    private long timestamp;
+    private String sha256RootHash;
+    private String treeHeadSignature;
+    private String signatureAlgorithm;
+
+    public static SignedTreeHeadDTO from(SignedTreeHead head) {
+        Base64.Encoder base64 = Base64.getEncoder();
+        return new SignedTreeHeadDTO(head.treeSize(), head.timestamp().toEpochMilli(),
+                base64.encodeToString(head.rootHash()), base64.encodeToString(head.signature()),
+                head.signatureAlgorithm());
+    }
+}
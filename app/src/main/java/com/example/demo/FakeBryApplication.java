@@ -2,8 +2,15 @@ package com.example.demo;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import com.example.demo.config.IssuanceProfileProperties;
+import com.example.demo.config.RateLimitProperties;
 
 @SpringBootApplication
+@EnableScheduling
+@EnableConfigurationProperties({IssuanceProfileProperties.class, RateLimitProperties.class})
 public class FakeBryApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,54 @@
+package com.example.demo.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Issuance profiles as configured under {@code ca.profiles.<name>.*}, selected per request with {@code ?profile=}
+ */
+@Data
+@ConfigurationProperties(prefix = "ca")
+public class IssuanceProfileProperties {
+
+    /**
+     * Profile used when the request names none
+     */
+    private String defaultProfile = "client-auth";
+
+    private Map<String, Profile> profiles = new LinkedHashMap<>();
+
+    @Data
+    public static class Profile {
+
+        private Duration validity = Duration.ofDays(365);
+
+        /**
+         * KeyUsage bit names, e.g. digitalSignature, keyEncipherment
+         */
+        private List<String> keyUsage = new ArrayList<>();
+
+        /**
+         * ExtendedKeyUsage purposes, e.g. serverAuth, clientAuth, codeSigning
+         */
+        private List<String> extendedKeyUsage = new ArrayList<>();
+
+        /**
+         * Certificate policy OIDs
+         */
+        private List<String> policies = new ArrayList<>();
+
+        /**
+         * SAN types that may be copied from the CSR: dns, ip, email, uri. Empty means no SANs.
+         */
+        private List<String> subjectAltNames = new ArrayList<>();
+
+        private boolean requireSubjectAltName;
+    }
+}
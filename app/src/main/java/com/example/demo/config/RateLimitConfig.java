@@ -0,0 +1,39 @@
+package com.example.demo.config;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class RateLimitConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private RateLimitProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * One interceptor per configured group, so Spring's own path matching picks the requests it applies to and
+     * the rest never touch a bucket
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        for (Map.Entry<String, RateLimitProperties.Endpoint> entry : properties.getEndpoints().entrySet()) {
+            RateLimitProperties.Endpoint endpoint = entry.getValue();
+            if (endpoint.getPath() == null || endpoint.getRate() <= 0 && endpoint.getPerClientRate() <= 0) {
+                continue;
+            }
+            registry.addInterceptor(new RateLimitInterceptor(entry.getKey(), endpoint, properties, meterRegistry))
+                    .addPathPatterns(endpoint.getPath());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.demo.config;
+
+import java.time.Duration;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import com.example.demo.exceptions.TooManyRequestsException;
+import com.example.demo.services.TokenBucket;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Token-bucket limits of one group of endpoints: a bucket per client, keyed by remote address, and one shared by
+ * all clients. Rejections surface as {@link TooManyRequestsException}, so they get the usual error body and a
+ * Retry-After header for when the bucket has a token again; the OCSP responder answers them with tryLater instead.
+ */
+class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final String name;
+    private final TokenBucket endpointBucket;
+    private final Cache<String, TokenBucket> clientBuckets;
+    private final RateLimitProperties.Endpoint limit;
+    private final Counter admitted;
+    private final Counter rejectedByClient;
+    private final Counter rejectedByEndpoint;
+
+    RateLimitInterceptor(String name, RateLimitProperties.Endpoint limit, RateLimitProperties properties,
+                         MeterRegistry meterRegistry) {
+        this.name = name;
+        this.limit = limit;
+        // Shared by every request thread, so striped; a client's own bucket sees little concurrency
+        this.endpointBucket = limit.getRate() > 0
+                ? new TokenBucket(limit.getRate(), limit.getBurst(), Runtime.getRuntime().availableProcessors())
+                : null;
+        this.clientBuckets = limit.getPerClientRate() > 0
+                ? Caffeine.newBuilder()
+                        .maximumSize(properties.getMaxClients())
+                        .expireAfterAccess(properties.getClientIdleTimeout())
+                        .build()
+                : null;
+        this.admitted = counter(meterRegistry, "admitted");
+        this.rejectedByClient = counter(meterRegistry, "rejected_client");
+        this.rejectedByEndpoint = counter(meterRegistry, "rejected_endpoint");
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        long now = System.nanoTime();
+        if (clientBuckets != null) {
+            TokenBucket bucket = clientBuckets.get(request.getRemoteAddr(),
+                    client -> new TokenBucket(limit.getPerClientRate(), limit.getPerClientBurst(), 1));
+            long wait = bucket.tryAcquire(now);
+            if (wait > 0) {
+                rejectedByClient.increment();
+                throw new TooManyRequestsException("Too many " + name + " requests from this client", Duration.ofNanos(wait));
+            }
+        }
+        if (endpointBucket != null) {
+            long wait = endpointBucket.tryAcquire(now);
+            if (wait > 0) {
+                rejectedByEndpoint.increment();
+                throw new TooManyRequestsException("Too many " + name + " requests, retry later", Duration.ofNanos(wait));
+            }
+        }
+        admitted.increment();
+        return true;
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("ca.ratelimit.requests")
+                .description("Requests checked against the token buckets of an endpoint group")
+                .tag("endpoint", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.demo.config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Token-bucket limits as configured under {@code ca.rate-limit.*}, one entry per group of endpoints
+ */
+@Data
+@ConfigurationProperties(prefix = "ca.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Clients without a request for this long lose their bucket, which is then full again on their next request
+     */
+    private Duration clientIdleTimeout = Duration.ofMinutes(10);
+
+    /**
+     * Upper bound on per-client buckets kept per endpoint; the least recently used go first
+     */
+    private long maxClients = 100_000;
+
+    private Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+
+    @Data
+    public static class Endpoint {
+
+        /**
+         * Ant-style path pattern, e.g. /api/issue-certificate
+         */
+        private String path;
+
+        /**
+         * Requests per second across all clients; 0 for no endpoint-wide limit
+         */
+        private double rate;
+
+        private int burst = 1;
+
+        /**
+         * Requests per second of a single client (remote address); 0 for no per-client limit
+         */
+        private double perClientRate;
+
+        private int perClientBurst = 1;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.demo.config;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import com.example.demo.entities.SerialBlock;
+import com.example.demo.repositories.SerialBlockRepository;
+import com.example.demo.services.AdaptiveConcurrencyLimiter;
+import com.example.demo.services.CaKeyMaterialProvider;
+import com.example.demo.services.IssuingCaSigningEngine;
+import com.example.demo.services.SerialNumberAllocator;
+
+@Configuration
+public class SigningConfig {
+
+    @Bean(destroyMethod = "close")
+    public SerialNumberAllocator serialNumberAllocator(
+            SerialBlockRepository serialBlockRepository,
+            MeterRegistry meterRegistry,
+            @Value("${ca.serial.prefetch:4096}") int prefetch,
+            @Value("${ca.node-id:local}") String nodeId) {
+
+        // One row per block of 2^32 serials, so the database is hit about once per instance start. Every instance
+        // issues from blocks of its own, so replicas never coordinate per serial
+        SerialNumberAllocator allocator = new SerialNumberAllocator(
+                () -> serialBlockRepository.save(new SerialBlock(LocalDateTime.now(), nodeId)).getId(), prefetch);
+        allocator.start();
+
+        Gauge.builder("ca.serial.prefetched", allocator, SerialNumberAllocator::available)
+                .description("Serial numbers generated ahead of demand")
+                .register(meterRegistry);
+        FunctionCounter.builder("ca.serial.misses", allocator, SerialNumberAllocator::misses)
+                .description("Issuances that found no prefetched serial and generated one inline")
+                .register(meterRegistry);
+
+        return allocator;
+    }
+
+    @Bean
+    public IssuingCaSigningEngine signingEngine(
+            CaKeyMaterialProvider caKeyMaterialProvider,
+            SerialNumberAllocator serialNumberAllocator,
+            MeterRegistry meterRegistry,
+            @Value("${ca.signing.pool.core-size:0}") int coreSize,
+            @Value("${ca.signing.pool.max-size:0}") int maxSize,
+            @Value("${ca.signing.pool.borrow-timeout:5s}") Duration borrowTimeout) {
+
+        // 0 means "size to the machine": one context per core, room for twice that under bursts.
+        // Sizes are per issuing CA; spreading issuance over intermediates does not shrink any one pool.
+        int cores = Runtime.getRuntime().availableProcessors();
+        int core = coreSize > 0 ? coreSize : cores;
+        int max = maxSize > 0 ? Math.max(maxSize, core) : core * 2;
+
+        IssuingCaSigningEngine signingEngine = new IssuingCaSigningEngine(caKeyMaterialProvider::hierarchy,
+                serialNumberAllocator, core, max, borrowTimeout);
+
+        Gauge.builder("ca.signing.pool.idle", signingEngine, IssuingCaSigningEngine::idleCount)
+                .description("Signing contexts waiting in the pools of all CAs")
+                .register(meterRegistry);
+        Gauge.builder("ca.signing.pool.created", signingEngine, IssuingCaSigningEngine::createdCount)
+                .description("Signing contexts currently in existence, idle or borrowed")
+                .register(meterRegistry);
+        Gauge.builder("ca.signing.pool.max", signingEngine, IssuingCaSigningEngine::maxSize)
+                .description("Upper bound on signing contexts across all CAs")
+                .register(meterRegistry);
+
+        return signingEngine;
+    }
+
+    @Bean
+    public AdaptiveConcurrencyLimiter signingLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${ca.signing.admission.initial-limit:0}") int initialLimit,
+            @Value("${ca.signing.admission.min-limit:0}") int minLimit,
+            @Value("${ca.signing.admission.max-limit:0}") int maxLimit,
+            @Value("${ca.signing.admission.max-queue:100}") int maxQueue,
+            @Value("${ca.signing.admission.max-wait:200ms}") Duration maxWait,
+            @Value("${ca.signing.admission.window:200ms}") Duration window,
+            @Value("${ca.signing.admission.latency-tolerance:1.5}") double tolerance) {
+
+        // Signing is pure CPU: below one caller per core the cores idle, well above it only latency grows
+        int cores = Runtime.getRuntime().availableProcessors();
+        int min = minLimit > 0 ? minLimit : cores;
+        int initial = Math.max(min, initialLimit > 0 ? initialLimit : cores);
+        int max = Math.max(initial, maxLimit > 0 ? maxLimit : cores * 4);
+
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(initial, min, max, maxQueue, maxWait,
+                window, tolerance);
+
+        Gauge.builder("ca.signing.admission.limit", limiter, AdaptiveConcurrencyLimiter::limit)
+                .description("Current adaptive limit on concurrent single issuances")
+                .register(meterRegistry);
+        Gauge.builder("ca.signing.admission.in-flight", limiter, AdaptiveConcurrencyLimiter::inFlight)
+                .description("Single issuances currently signing")
+                .register(meterRegistry);
+        Gauge.builder("ca.signing.admission.waiting", limiter, AdaptiveConcurrencyLimiter::waiting)
+                .description("Single issuances waiting for a slot")
+                .register(meterRegistry);
+        FunctionCounter.builder("ca.signing.admission.requests", limiter, AdaptiveConcurrencyLimiter::admittedCount)
+                .description("Single issuances through the concurrency limiter")
+                .tag("outcome", "admitted")
+                .register(meterRegistry);
+        FunctionCounter.builder("ca.signing.admission.requests", limiter, AdaptiveConcurrencyLimiter::queuedCount)
+                .description("Single issuances through the concurrency limiter")
+                .tag("outcome", "queued")
+                .register(meterRegistry);
+        FunctionCounter.builder("ca.signing.admission.requests", limiter, AdaptiveConcurrencyLimiter::rejectedCount)
+                .description("Single issuances through the concurrency limiter")
+                .tag("outcome", "rejected")
+                .register(meterRegistry);
+
+        return limiter;
+    }
+}
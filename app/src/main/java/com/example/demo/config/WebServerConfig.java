@@ -0,0 +1,18 @@
+package com.example.demo.config;
+
+import org.springframework.boot.web.embedded.tomcat.TomcatConnectorCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class WebServerConfig {
+
+    /**
+     * OCSP GET requests put URL-encoded base64 in the path, where '/' arrives as %2F; Tomcat rejects that by
+     * default. Passing it through untouched lets {@code OcspController} decode the path itself.
+     */
+    @Bean
+    public TomcatConnectorCustomizer encodedSolidusPassThrough() {
+        return connector -> connector.setEncodedSolidusHandling("passthrough");
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.demo.controllers;
+
+import java.security.cert.X509Certificate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.services.CaHierarchy;
+import com.example.demo.services.CaKeyMaterialProvider;
+
+/**
+ * Actuator endpoint ({@code /actuator/camaterial}) showing the loaded CA material and forcing a reload.
+ */
+@Component
+@Endpoint(id = "camaterial")
+public class CaKeyMaterialEndpoint {
+
+    @Autowired
+    private CaKeyMaterialProvider caKeyMaterialProvider;
+
+    @ReadOperation
+    public Map<String, Object> material() {
+        return describe(caKeyMaterialProvider.hierarchy());
+    }
+
+    @WriteOperation
+    public Map<String, Object> reload() {
+        return describe(caKeyMaterialProvider.reload());
+    }
+
+    private Map<String, Object> describe(CaHierarchy hierarchy) {
+        Map<String, Object> response = describe(hierarchy.root().certificate());
+        response.put("loadedAt", hierarchy.loadedAt());
+        response.put("issuers", hierarchy.issuerNames());
+
+        Map<String, Object> intermediates = new LinkedHashMap<>();
+        hierarchy.intermediates().forEach((name, material) -> intermediates.put(name, describe(material.certificate())));
+        response.put("intermediates", intermediates);
+        // Intermediates without a key here: their certificates still validate, but they issue nothing
+        response.put("validationOnly", hierarchy.chainIndex().intermediates().stream()
+                .filter(certificate -> hierarchy.intermediates().values().stream()
+                        .noneMatch(material -> material.certificate().equals(certificate)))
+                .map(certificate -> certificate.getSubjectX500Principal().toString())
+                .toList());
+        return response;
+    }
+
+    private Map<String, Object> describe(X509Certificate certificate) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("subject", certificate.getSubjectX500Principal().toString());
+        response.put("serialNumber", certificate.getSerialNumber());
+        response.put("notAfter", certificate.getNotAfter());
+        return response;
+    }
+}
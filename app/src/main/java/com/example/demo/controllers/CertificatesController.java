@@ -1,25 +1,50 @@
 package com.example.demo.controllers;
 
 
+import java.io.IOException;
 import java.security.cert.X509Certificate;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
-import com.example.demo.DTOs.CaCertificateInfoDTO;
+import com.example.demo.DTOs.BatchIssuanceResponseDTO;
+import com.example.demo.DTOs.CertificatePageDTO;
+import com.example.demo.DTOs.CertificateResponseDTO;
+import com.example.demo.DTOs.SignatureValidationResponseDTO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.context.request.WebRequest;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
-import com.example.demo.entities.Certificate;
 import com.example.demo.exceptions.CertificateNotFoundException;
+import com.example.demo.requests.CertificateSearchRequest;
+import com.example.demo.requests.RevocationRequest;
 import com.example.demo.requests.SignatureValidationRequest;
+import com.example.demo.services.BatchIssuanceService;
+import com.example.demo.services.BulkValidationService;
+import com.example.demo.services.CaDocumentService;
+import com.example.demo.services.CertificateSearchService;
 import com.example.demo.services.CertificatesService;
+import com.example.demo.services.CrlService;
+import com.example.demo.services.IssuanceDeduplicationService;
+import com.example.demo.services.RevocationReason;
+import com.example.demo.services.RevocationService;
 
 
 @RestController
@@ -27,43 +52,217 @@ import com.example.demo.services.CertificatesService;
 @org.springframework.web.bind.annotation.CrossOrigin(origins = {"http://localhost", "http://localhost:5173", "http://localhost:3000"})
 public class CertificatesController {
 
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String PKIX_CERT = "application/pkix-cert";
+    private static final String PKIX_CRL = "application/pkix-crl";
+    private static final String PEM_FILE = "application/x-pem-file";
 
     @Autowired
     private CertificatesService certificatesService;
 
-    @GetMapping("/ca-info")
-    public ResponseEntity<CaCertificateInfoDTO> getCaInfo() {
+    @Autowired
+    private IssuanceDeduplicationService issuanceDeduplicationService;
+
+    @Autowired
+    private BatchIssuanceService batchIssuanceService;
+
+    @Autowired
+    private BulkValidationService bulkValidationService;
+
+    @Autowired
+    private CertificateSearchService certificateSearchService;
+
+    @Autowired
+    private RevocationService revocationService;
+
+    @Autowired
+    private CrlService crlService;
+
+    @Autowired
+    private CaDocumentService caDocumentService;
+
+    @Value("${ca.crl.refresh-interval:60s}")
+    private Duration crlRefreshInterval;
 
-        CaCertificateInfoDTO caCertificateInfoDTO = certificatesService.getCaCertificate();
+    // CA files are only swapped by an operator; clients revalidate after this with a cheap conditional GET
+    @Value("${ca.documents.max-age:5m}")
+    private Duration caDocumentMaxAge;
 
-        return ResponseEntity.ok(caCertificateInfoDTO);
+    /**
+     * The root CA's details as JSON, encoded once; clients and nginx revalidate with If-None-Match
+     */
+    @GetMapping(value = "/ca-info", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getCaInfo(WebRequest webRequest) {
+
+        return caDocumentResponse(caDocumentService.info(), MediaType.APPLICATION_JSON_VALUE, webRequest);
+    }
+
+    @GetMapping(value = "/ca-certificate", produces = PEM_FILE)
+    public ResponseEntity<byte[]> getCaCertificatePem(WebRequest webRequest) {
+
+        return caDocumentResponse(caDocumentService.certificatePem(), PEM_FILE, webRequest);
+    }
+
+    @GetMapping(value = "/ca-certificate/der", produces = PKIX_CERT)
+    public ResponseEntity<byte[]> getCaCertificateDer(WebRequest webRequest) {
+
+        return caDocumentResponse(caDocumentService.certificateDer(), PKIX_CERT, webRequest);
+    }
+
+    /**
+     * Intermediates and root as a PEM bundle, for clients that need to build the chain of an issued certificate
+     */
+    @GetMapping(value = "/ca-chain", produces = PEM_FILE)
+    public ResponseEntity<byte[]> getCaChain(WebRequest webRequest) {
+
+        return caDocumentResponse(caDocumentService.chainPem(), PEM_FILE, webRequest);
+    }
+
+    private ResponseEntity<byte[]> caDocumentResponse(CaDocumentService.CaDocument document, String contentType,
+                                                      WebRequest webRequest) {
+        if (webRequest.checkNotModified(document.etag(), document.lastModified().toEpochMilli())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(contentType))
+                .eTag(document.etag())
+                .lastModified(document.lastModified())
+                .cacheControl(CacheControl.maxAge(caDocumentMaxAge).cachePublic())
+                .body(document.body());
+    }
+
+    /**
+     * Keyset-paginated search; pass the returned nextCursor back as ?cursor= to fetch the following page
+     */
+    @GetMapping("certificates")
+    public ResponseEntity<CertificatePageDTO> searchCertificates(CertificateSearchRequest request) {
+
+        return ResponseEntity.ok(certificateSearchService.search(request));
+    }
+
+    /**
+     * Same filters as the search, streaming every match as NDJSON instead of returning one page
+     */
+    @GetMapping(value = "certificates/export", produces = NDJSON)
+    public void exportCertificates(CertificateSearchRequest request, HttpServletResponse response) throws IOException {
+
+        response.setContentType(NDJSON);
+        certificateSearchService.export(request, response.getOutputStream());
     }
 
     @GetMapping("certificates/{serialNumber}")
-    public ResponseEntity<Certificate> getCertificate(@PathVariable String serialNumber) {
+    public ResponseEntity<CertificateResponseDTO> getCertificate(@PathVariable String serialNumber,
+                                                                 @RequestParam(required = false) String include) {
+
+        CertificateResponseDTO certificate = certificatesService.getCertificateBySerialNumber(serialNumber, "pem".equalsIgnoreCase(include));
+        return ResponseEntity.ok(certificate);
+
+    }
+
+    @GetMapping(value = "certificates/{serialNumber}/der", produces = PKIX_CERT)
+    public ResponseEntity<byte[]> getCertificateDer(@PathVariable String serialNumber) {
+
+        byte[] der = certificatesService.getCertificateDer(serialNumber);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(PKIX_CERT))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + serialNumber + ".cer\"")
+                .body(der);
+    }
+
+    @PostMapping("certificates/{serialNumber}/revoke")
+    public ResponseEntity<CertificateResponseDTO> revokeCertificate(@PathVariable String serialNumber,
+                                                                    @RequestBody(required = false) RevocationRequest request) {
+
+        revocationService.revoke(serialNumber, RevocationReason.parse(request == null ? null : request.getReason()));
+        return ResponseEntity.ok(certificatesService.getCertificateBySerialNumber(serialNumber, false));
+    }
+
+    /**
+     * Current CRL as DER. Served from the pre-built copy; clients revalidate with If-None-Match
+     */
+    @GetMapping(value = "/crl", produces = PKIX_CRL)
+    public ResponseEntity<byte[]> getCrl(WebRequest webRequest) {
 
-        Certificate certificateOpt = certificatesService.getCertificateBySerialNumber(serialNumber);
-        return ResponseEntity.ok(certificateOpt);
+        return crlResponse(crlService.current(), webRequest);
+    }
+
+    /**
+     * CRL of one CA of the hierarchy: {@code root} or the name of an intermediate
+     */
+    @GetMapping(value = "/crl/{caName}", produces = PKIX_CRL)
+    public ResponseEntity<byte[]> getCrl(@PathVariable String caName, WebRequest webRequest) {
+
+        CrlService.PublishedCrl crl = crlService.current(caName);
+        if (crl == null) {
+            throw new CertificateNotFoundException("No CRL for CA " + caName);
+        }
+        return crlResponse(crl, webRequest);
+    }
 
+    private ResponseEntity<byte[]> crlResponse(CrlService.PublishedCrl crl, WebRequest webRequest) {
+        if (webRequest.checkNotModified(crl.etag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(PKIX_CRL))
+                .eTag(crl.etag())
+                .lastModified(crl.thisUpdate())
+                .cacheControl(CacheControl.maxAge(crlRefreshInterval))
+                .body(crl.der());
     }
 
+    /**
+     * With an Idempotency-Key header, a retry returns the certificate of the first request (marked with
+     * Idempotent-Replayed: true) instead of issuing another one
+     */
     @PostMapping("/issue-certificate")
-    public ResponseEntity<Map<String, Object>> issueCertificate(@RequestBody String csrPem) {
+    public ResponseEntity<Map<String, Object>> issueCertificate(@RequestBody String csrPem,
+                                                                @RequestParam(required = false) String profile,
+                                                                @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
 
-        String certificate = certificatesService.issueCertificate(csrPem);
+        IssuanceDeduplicationService.Issued issued = issuanceDeduplicationService.issue(csrPem, profile, idempotencyKey);
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
-        response.put("certificate", certificate);
+        response.put("certificate", issued.certificatePem());
 
-        return ResponseEntity.ok(response);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (issued.replayed()) {
+            builder.header("Idempotent-Replayed", "true");
+        }
+        return builder.body(response);
+    }
+
+    @PostMapping(value = "/issue-certificates/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BatchIssuanceResponseDTO> issueCertificates(@RequestBody List<String> csrPems,
+                                                                      @RequestParam(required = false) String profile) {
+
+        return ResponseEntity.ok(batchIssuanceService.issueCertificates(csrPems, profile));
+    }
+
+    @PostMapping(value = "/issue-certificates/batch", consumes = {MediaType.TEXT_PLAIN_VALUE, "application/x-pem-file"})
+    public ResponseEntity<BatchIssuanceResponseDTO> issueCertificatesFromPemBundle(@RequestBody String csrPemBundle,
+                                                                                   @RequestParam(required = false) String profile) {
+
+        List<String> csrPems = batchIssuanceService.splitPemBundle(csrPemBundle);
+        return ResponseEntity.ok(batchIssuanceService.issueCertificates(csrPems, profile));
     }
 
     @PostMapping("/validate-signature")
-    public ResponseEntity<Map<String, Object>> validateSignature(@RequestBody SignatureValidationRequest request) {
+    public ResponseEntity<SignatureValidationResponseDTO> validateSignature(@RequestBody SignatureValidationRequest request) {
 
-        Map<String, Object> response = certificatesService.validateSignature(request);
+        SignatureValidationResponseDTO response = certificatesService.validateSignature(request);
 
         return ResponseEntity.ok(response);
 
     }
+
+    /**
+     * Validates an NDJSON body of {certificatePem, data, signature} lines, streaming one result line per input line
+     */
+    @PostMapping(value = "/validate-signatures/stream", consumes = NDJSON, produces = NDJSON)
+    public void validateSignatureStream(HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        response.setContentType(NDJSON);
+        bulkValidationService.validateStream(request.getInputStream(), response.getOutputStream());
+    }
 }
@@ -0,0 +1,96 @@
+package com.example.demo.controllers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriUtils;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import com.example.demo.exceptions.TooManyRequestsException;
+import com.example.demo.services.OcspCodec;
+import com.example.demo.services.OcspResponderService;
+import com.example.demo.services.OcspResponderService.OcspResponse;
+
+/**
+ * OCSP over HTTP (RFC 6960 appendix A). GET responses for nonce-less requests carry the RFC 5019 caching
+ * headers so nginx or any other proxy can serve repeats until nextUpdate.
+ * Failures are reported inside the OCSP response, always with HTTP 200, as the protocol expects.
+ */
+@RestController
+@RequestMapping("/ocsp")
+public class OcspController {
+
+    private static final String OCSP_REQUEST = "application/ocsp-request";
+    private static final String OCSP_RESPONSE = "application/ocsp-response";
+
+    @Autowired
+    private OcspResponderService ocspResponderService;
+
+    @PostMapping(consumes = OCSP_REQUEST, produces = OCSP_RESPONSE)
+    public ResponseEntity<byte[]> post(@RequestBody byte[] request) {
+
+        OcspResponse response = ocspResponderService.respond(request);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(OCSP_RESPONSE))
+                .body(response.der());
+    }
+
+    /**
+     * GET /ocsp/{url-encoded base64 DER request}. The base64 may contain '/', so the whole remaining path is taken
+     */
+    @GetMapping(value = "/**", produces = OCSP_RESPONSE)
+    public ResponseEntity<byte[]> get(HttpServletRequest servletRequest) {
+
+        String prefix = servletRequest.getContextPath() + "/ocsp/";
+        String encoded = servletRequest.getRequestURI().substring(prefix.length());
+
+        OcspResponse response;
+        try {
+            byte[] request = Base64.getDecoder().decode(UriUtils.decode(encoded, "UTF-8"));
+            response = ocspResponderService.respond(request);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(OCSP_RESPONSE))
+                    .body(OcspCodec.MALFORMED_REQUEST);
+        }
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().contentType(MediaType.parseMediaType(OCSP_RESPONSE));
+        if (response.cacheable()) {
+            Duration remaining = Duration.between(Instant.now(), response.nextUpdate());
+            builder.cacheControl(CacheControl.maxAge(remaining.isNegative() ? Duration.ZERO : remaining)
+                            .cachePublic().noTransform().mustRevalidate())
+                    .lastModified(response.thisUpdate())
+                    .eTag(response.etag())
+                    .headers(headers -> headers.setExpires(response.nextUpdate().atZone(ZoneOffset.UTC)));
+        }
+        return builder.body(response.der());
+    }
+
+    /**
+     * Rate-limit rejections, thrown by the interceptor before either handler runs: tryLater rather than the
+     * global handler's 429 with a JSON body, which an OCSP client cannot parse
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<byte[]> tooManyRequests(TooManyRequestsException ex) {
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(OCSP_RESPONSE))
+                .cacheControl(CacheControl.noStore())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(OcspCodec.TRY_LATER);
+    }
+}
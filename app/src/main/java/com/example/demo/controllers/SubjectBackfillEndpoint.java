@@ -0,0 +1,46 @@
+package com.example.demo.controllers;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.services.SubjectBackfillService;
+
+/**
+ * Actuator endpoint ({@code /actuator/subjectbackfill}) to start the subject column backfill and follow its progress.
+ */
+@Component
+@Endpoint(id = "subjectbackfill")
+public class SubjectBackfillEndpoint {
+
+    @Autowired
+    private SubjectBackfillService subjectBackfillService;
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("running", subjectBackfillService.isRunning());
+        subjectBackfillService.checkpoint().ifPresent(checkpoint -> {
+            response.put("lastId", checkpoint.getLastId());
+            response.put("processed", checkpoint.getProcessed());
+            response.put("updated", checkpoint.getUpdated());
+            response.put("completed", checkpoint.isCompleted());
+            response.put("updatedAt", checkpoint.getUpdatedAt());
+        });
+        return response;
+    }
+
+    @WriteOperation
+    public Map<String, Object> start(@Nullable Boolean restart) {
+        boolean started = subjectBackfillService.start(Boolean.TRUE.equals(restart));
+        Map<String, Object> response = status();
+        response.put("started", started);
+        return response;
+    }
+}
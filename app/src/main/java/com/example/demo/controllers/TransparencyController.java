@@ -0,0 +1,87 @@
+package com.example.demo.controllers;
+
+import java.net.URI;
+import java.util.Base64;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import com.example.demo.DTOs.ConsistencyProofDTO;
+import com.example.demo.DTOs.InclusionProofDTO;
+import com.example.demo.DTOs.SignedTreeHeadDTO;
+import com.example.demo.services.CertificatesService;
+import com.example.demo.services.TransparencyLogService;
+
+/**
+ * Read side of the issuance log, shaped after the RFC 6962 get-sth, get-proof-by-hash and get-sth-consistency
+ * calls. Hashes are base64; the leaf hash of a certificate is SHA-256 of 0x00 followed by its DER.
+ * Tree sizes default to the latest signed tree head.
+ * <p>
+ * Every node keeps its own log, so each response names the node it came from in {@code X-CA-Node}; behind the
+ * cluster nginx, {@code ?node=<id>} reaches a given node. A proof for a certificate issued by another node is
+ * redirected there.
+ */
+@RestController
+@RequestMapping("/api/transparency")
+@org.springframework.web.bind.annotation.CrossOrigin(origins = {"http://localhost", "http://localhost:5173", "http://localhost:3000"})
+public class TransparencyController {
+
+    private static final String NODE_HEADER = "X-CA-Node";
+
+    @Autowired
+    private TransparencyLogService transparencyLogService;
+
+    @Autowired
+    private CertificatesService certificatesService;
+
+    @GetMapping("/sth")
+    public ResponseEntity<SignedTreeHeadDTO> getSignedTreeHead() {
+        return ok(SignedTreeHeadDTO.from(transparencyLogService.signedTreeHead()));
+    }
+
+    @GetMapping("/proof-by-hash")
+    public ResponseEntity<InclusionProofDTO> getProofByHash(@RequestParam String hash,
+                                                            @RequestParam(name = "tree_size", required = false) Long treeSize) {
+        byte[] leafHash = Base64.getDecoder().decode(hash);
+        return ok(InclusionProofDTO.from(transparencyLogService.inclusionProof(leafHash, treeSize)));
+    }
+
+    @GetMapping("/certificates/{serialNumber}/proof")
+    public ResponseEntity<InclusionProofDTO> getProofForCertificate(@PathVariable String serialNumber,
+                                                                    @RequestParam(name = "tree_size", required = false) Long treeSize,
+                                                                    @RequestParam(required = false) String node) {
+        Optional<String> issuingNode = transparencyLogService.issuingNode(serialNumber);
+        // Only the issuing node's log has the leaf. A request that already named a node is answered here either
+        // way, so a node that cannot be reached never turns into a redirect loop
+        if (node == null && issuingNode.isPresent() && !issuingNode.get().equals(transparencyLogService.nodeId())) {
+            URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("node", issuingNode.get())
+                    .build()
+                    .toUri();
+            return ResponseEntity.status(HttpStatus.TEMPORARY_REDIRECT)
+                    .location(location)
+                    .header(NODE_HEADER, transparencyLogService.nodeId())
+                    .build();
+        }
+        byte[] der = certificatesService.getCertificateDer(serialNumber);
+        return ok(InclusionProofDTO.from(transparencyLogService.inclusionProofForCertificate(der, treeSize)));
+    }
+
+    @GetMapping("/consistency")
+    public ResponseEntity<ConsistencyProofDTO> getConsistencyProof(@RequestParam long first,
+                                                                   @RequestParam(required = false) Long second) {
+        return ok(ConsistencyProofDTO.from(transparencyLogService.consistencyProof(first, second)));
+    }
+
+    private <T> ResponseEntity<T> ok(T body) {
+        return ResponseEntity.ok().header(NODE_HEADER, transparencyLogService.nodeId()).body(body);
+    }
+}
@@ -2,20 +2,42 @@ package com.example.demo.entities;
 
 import java.time.LocalDateTime;
 
+import jakarta.persistence.Basic;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import jakarta.persistence.Lob;
+import jakarta.persistence.Index;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
+/**
+ * An issued certificate. The schema is owned by the Flyway migrations in {@code db/migration}: on Postgres the table
+ * is range-partitioned by {@code created_at}, so unique keys have to include it. Serial numbers are kept unique across
+ * partitions by the unpartitioned {@code serial_numbers} table, which an insert trigger fills (V5).
+ */
 @Entity
-@Table(name = "certificates")
+@Table(name = "certificates", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_certificates_serial_number", columnNames = {"serial_number", "created_at"})
+}, indexes = {
+        // Keyset pagination: every search orders by (not_after, id) or (created_at, id)
+        @Index(name = "idx_certificates_not_after_id", columnList = "not_after, id"),
+        @Index(name = "idx_certificates_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_certificates_status_not_after", columnList = "status, not_after, id"),
+        @Index(name = "idx_certificates_cn_not_after", columnList = "subject_common_name, not_after, id"),
+        @Index(name = "idx_certificates_org_not_after", columnList = "subject_organization_name, not_after, id"),
+        @Index(name = "idx_certificates_revoked_at", columnList = "revoked_at"),
+        // Expiry notices: only rows not yet notified are visited
+        @Index(name = "idx_certificates_status_notified_not_after", columnList = "status, expiry_notified_at, not_after")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -25,7 +47,7 @@ public class Certificate {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @Column(name = "serial_number", unique = true, nullable = false, length = 64)
+    @Column(name = "serial_number", nullable = false, length = 64)
     private String serialNumber;
     
     @Column(name = "version")
@@ -58,12 +80,13 @@ public class Certificate {
     @Column(name = "public_key_algorithm", length = 128)
     private String publicKeyAlgorithm;
     
-    @Column(name = "certificate_pem", nullable = false, columnDefinition = "TEXT")
-    private String certificatePem;
-    
-    @Lob
-    @Column(name = "certificate_blob", nullable = false)
-    private byte[] certificateBlob;
+    // The only stored encoding (bytea); PEM is rendered from it on demand. Only loaded when accessed
+    // (needs the bytecode enhancement set up in pom.xml)
+    @Basic(fetch = FetchType.LAZY)
+    @Column(name = "certificate_der", nullable = false, length = 65535)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private byte[] certificateDer;
     
     @Column(name = "not_before", nullable = false)
     private LocalDateTime notBefore;
@@ -76,6 +99,16 @@ public class Certificate {
     
     @Column(name = "status", nullable = false, length = 32)
     private String status = "ACTIVE";
+
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;
+
+    @Column(name = "revocation_reason", length = 32)
+    private String revocationReason;
+
+    // Set once the upcoming-expiry notice for this certificate has been published
+    @Column(name = "expiry_notified_at")
+    private LocalDateTime expiryNotifiedAt;
     
     @PrePersist
     protected void onCreate() {
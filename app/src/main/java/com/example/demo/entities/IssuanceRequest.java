@@ -0,0 +1,36 @@
+package com.example.demo.entities;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A deduplicated issuance: an Idempotency-Key or CSR fingerprint and the certificate issued for it. The row is
+ * inserted as a claim before signing, with no serial number, so only one instance signs for a given key; the
+ * serial is filled in once the certificate is stored.
+ */
+@Entity
+@Table(name = "issuance_requests")
+@Data
+@NoArgsConstructor
+public class IssuanceRequest {
+
+    @Id
+    @Column(name = "request_key", length = 160)
+    private String requestKey;
+
+    // SHA-256 of the CSR and profile, hex; a key reused for a different request is rejected
+    @Column(name = "request_fingerprint", nullable = false, length = 64)
+    private String requestFingerprint;
+
+    @Column(name = "serial_number", length = 64)
+    private String serialNumber;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
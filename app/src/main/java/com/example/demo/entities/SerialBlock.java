@@ -0,0 +1,38 @@
+package com.example.demo.entities;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A reserved block of certificate serial numbers; the generated id is the block's prefix in every serial it covers.
+ * Each block belongs to the instance that reserved it, so the prefix of any serial tells which node issued it.
+ */
+@Entity
+@Table(name = "serial_blocks")
+@Data
+@NoArgsConstructor
+public class SerialBlock {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "reserved_at", nullable = false)
+    private LocalDateTime reservedAt;
+
+    @Column(name = "node_id", length = 64)
+    private String nodeId;
+
+    public SerialBlock(LocalDateTime reservedAt, String nodeId) {
+        this.reservedAt = reservedAt;
+        this.nodeId = nodeId;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.demo.exceptions;
+
+/**
+ * The certificate was revoked before; revoking it again would not change its reason or date
+ */
+public class CertificateAlreadyRevokedException extends RuntimeException {
+    public CertificateAlreadyRevokedException(String message) {
+        super(message);
+    }
+}
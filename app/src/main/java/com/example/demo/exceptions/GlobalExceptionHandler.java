@@ -1,8 +1,15 @@
 package com.example.demo.exceptions;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
@@ -10,8 +17,12 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 @Slf4j
 public class GlobalExceptionHandler {
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @ExceptionHandler(CertificateNotFoundException.class)
     public ResponseEntity<ErrorResponse> handleCertificateNotFoundException (CertificateNotFoundException ex) {
+        countError(ex, HttpStatus.NOT_FOUND);
         ErrorResponse errorResponse = new ErrorResponse(
                 ex.getMessage(),
                 HttpStatus.NOT_FOUND
@@ -20,8 +31,51 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
     }
 
-    @ExceptionHandler(RuntimeException.class)
-    public ResponseEntity<ErrorResponse> handleRuntimeException (RuntimeException ex) {
+    @ExceptionHandler(IssuanceInProgressException.class)
+    public ResponseEntity<ErrorResponse> handleIssuanceInProgressException (IssuanceInProgressException ex) {
+        countError(ex, HttpStatus.CONFLICT);
+        ErrorResponse errorResponse = new ErrorResponse(
+                ex.getMessage(),
+                HttpStatus.CONFLICT
+        );
+
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ErrorResponse> handleTooManyRequestsException (TooManyRequestsException ex) {
+        countError(ex, HttpStatus.TOO_MANY_REQUESTS);
+        ErrorResponse errorResponse = new ErrorResponse(
+                ex.getMessage(),
+                HttpStatus.TOO_MANY_REQUESTS
+        );
+
+        // Whole seconds, rounded up so a client that waits exactly this long finds a token
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(errorResponse);
+    }
+
+    @ExceptionHandler(CertificateAlreadyRevokedException.class)
+    public ResponseEntity<ErrorResponse> handleCertificateAlreadyRevokedException (CertificateAlreadyRevokedException ex) {
+        countError(ex, HttpStatus.CONFLICT);
+        ErrorResponse errorResponse = new ErrorResponse(
+                ex.getMessage(),
+                HttpStatus.CONFLICT
+        );
+
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+
+    /**
+     * Malformed input: a CSR or certificate that does not parse, a request the profile refuses, a bad parameter.
+     * Anything else that escapes a controller is our fault and answered 500 below.
+     */
+    @ExceptionHandler({IllegalArgumentException.class, ConstraintViolationException.class,
+            HttpMessageNotReadableException.class, TypeMismatchException.class})
+    public ResponseEntity<ErrorResponse> handleBadRequest (Exception ex) {
+        countError(ex, HttpStatus.BAD_REQUEST);
         ErrorResponse errorResponse = new ErrorResponse(
                 ex.getMessage(),
                 HttpStatus.BAD_REQUEST
@@ -32,7 +86,19 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleAllUncaughtException(Exception ex) {
+        // Spring MVC's own exceptions carry their status: 400 for failed validation or a missing parameter,
+        // 404 for an unknown path, 405, 415...
+        if (ex instanceof org.springframework.web.ErrorResponse springError) {
+            HttpStatus status = HttpStatus.valueOf(springError.getStatusCode().value());
+            countError(ex, status);
+            String detail = springError.getBody().getDetail();
+            return ResponseEntity.status(status)
+                    .headers(springError.getHeaders())
+                    .body(new ErrorResponse(detail != null ? detail : status.getReasonPhrase(), status));
+        }
+
         log.error("An unexpected error occurred ", ex);
+        countError(ex, HttpStatus.INTERNAL_SERVER_ERROR);
 
 
         ErrorResponse errorResponse = new ErrorResponse(
@@ -43,4 +109,12 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
     }
 
+    private void countError(Exception ex, HttpStatus status) {
+        Counter.builder("ca.http.errors")
+                .description("Requests answered by the global exception handler")
+                .tag("exception", ex.getClass().getSimpleName())
+                .tag("status", String.valueOf(status.value()))
+                .register(meterRegistry)
+                .increment();
+    }
 }
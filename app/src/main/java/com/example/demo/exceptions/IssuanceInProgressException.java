@@ -0,0 +1,10 @@
+package com.example.demo.exceptions;
+
+/**
+ * A request with the same Idempotency-Key is still being signed; the client should retry later
+ */
+public class IssuanceInProgressException extends RuntimeException {
+    public IssuanceInProgressException(String message) {
+        super(message);
+    }
+}
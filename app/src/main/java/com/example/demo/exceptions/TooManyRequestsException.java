@@ -0,0 +1,19 @@
+package com.example.demo.exceptions;
+
+import java.time.Duration;
+
+import lombok.Getter;
+
+/**
+ * The request was shed by a rate or concurrency limit; the client should retry after {@link #getRetryAfter()}
+ */
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public TooManyRequestsException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.demo.repositories;
+
+import java.time.LocalDateTime;
+
+/**
+ * Closed projection over {@link com.example.demo.entities.Certificate} with everything but the encoded certificate,
+ * so metadata lookups select neither the PEM text nor the DER blob.
+ */
+public interface CertificateMetadata {
+
+    Long getId();
+
+    String getSerialNumber();
+
+    Integer getVersion();
+
+    String getSubjectCommonName();
+
+    String getSubjectOrganizationName();
+
+    String getSubjectOrganizationUnit();
+
+    String getSubjectCountry();
+
+    String getSubjectState();
+
+    String getSubjectLocality();
+
+    String getSubjectEmail();
+
+    LocalDateTime getNotBefore();
+
+    LocalDateTime getNotAfter();
+
+    LocalDateTime getCreatedAt();
+
+    String getStatus();
+}
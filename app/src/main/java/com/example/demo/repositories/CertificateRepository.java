@@ -1,16 +1,50 @@
 package com.example.demo.repositories;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.demo.entities.Certificate;
 
 @Repository
-public interface CertificateRepository extends JpaRepository<Certificate, Long> {
+public interface CertificateRepository extends JpaRepository<Certificate, Long>, CertificateRepositoryCustom {
 
     Certificate findBySerialNumber(String serialNumber);
 
+    Optional<CertificateMetadata> findMetadataBySerialNumber(String serialNumber);
+
+    @Query("select c.certificateDer from Certificate c where c.serialNumber = :serialNumber")
+    Optional<byte[]> findDerBySerialNumber(@Param("serialNumber") String serialNumber);
+
     boolean existsBySerialNumber(String serialNumber);
-} 
\ No newline at end of file
+
+    @Query("select c.serialNumber from Certificate c where c.serialNumber in :serialNumbers")
+    List<String> findExistingSerialNumbers(@Param("serialNumbers") Collection<String> serialNumbers);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            update Certificate c
+            set c.status = 'REVOKED', c.revokedAt = :revokedAt, c.revocationReason = :reason
+            where c.serialNumber = :serialNumber and c.status <> 'REVOKED'
+            """)
+    int revoke(@Param("serialNumber") String serialNumber, @Param("revokedAt") LocalDateTime revokedAt,
+               @Param("reason") String reason);
+
+    // revokedAt is null for certificates that are still good
+    @Query("select c.serialNumber as serialNumber, c.revokedAt as revokedAt, c.revocationReason as revocationReason, "
+            + "c.notAfter as notAfter from Certificate c where c.serialNumber = :serialNumber")
+    Optional<RevokedCertificate> findStatusBySerialNumber(@Param("serialNumber") String serialNumber);
+
+    @Query("select c.serialNumber as serialNumber, c.revokedAt as revokedAt, c.revocationReason as revocationReason, "
+            + "c.notAfter as notAfter from Certificate c where c.revokedAt >= :since")
+    List<RevokedCertificate> findRevokedSince(@Param("since") LocalDateTime since);
+}
@@ -0,0 +1,20 @@
+package com.example.demo.repositories;
+
+import java.util.List;
+
+import com.example.demo.entities.Certificate;
+
+public interface CertificateRepositoryCustom {
+
+    /**
+     * Inserts all certificates in one transaction using JDBC batching.
+     * Unlike {@code saveAll}, this is not limited by the IDENTITY key forcing one round-trip per row.
+     */
+    void insertAll(List<Certificate> certificates);
+
+    /**
+     * Returns up to {@code limit} rows matching the criteria, ordered by the sort key then id, starting after the
+     * keyset position in the criteria. Never uses OFFSET, so deep pages cost the same as the first one.
+     */
+    List<CertificateMetadata> search(CertificateSearchCriteria criteria, int limit);
+}
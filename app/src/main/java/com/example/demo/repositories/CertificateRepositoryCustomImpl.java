@@ -0,0 +1,143 @@
+package com.example.demo.repositories;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.entities.Certificate;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+public class CertificateRepositoryCustomImpl implements CertificateRepositoryCustom {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO certificates (
+                serial_number, version,
+                subject_common_name, subject_organization_name, subject_organization_unit,
+                subject_country, subject_state, subject_locality, subject_email,
+                signature_algorithm, public_key_algorithm,
+                certificate_der,
+                not_before, not_after, created_at, status
+            ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String SEARCH_SQL = """
+            SELECT id, serial_number, version,
+                   subject_common_name, subject_organization_name, subject_organization_unit,
+                   subject_country, subject_state, subject_locality, subject_email,
+                   not_before, not_after, created_at, status
+            FROM certificates
+            WHERE 1 = 1""";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${ca.batch.jdbc-batch-size:500}")
+    private int jdbcBatchSize;
+
+    @Override
+    @Transactional
+    public void insertAll(List<Certificate> certificates) {
+        LocalDateTime now = LocalDateTime.now();
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, certificates, jdbcBatchSize, (ps, certificate) -> {
+            if (certificate.getCreatedAt() == null) {
+                certificate.setCreatedAt(now);
+            }
+            ps.setString(1, certificate.getSerialNumber());
+            ps.setObject(2, certificate.getVersion());
+            ps.setString(3, certificate.getSubjectCommonName());
+            ps.setString(4, certificate.getSubjectOrganizationName());
+            ps.setString(5, certificate.getSubjectOrganizationUnit());
+            ps.setString(6, certificate.getSubjectCountry());
+            ps.setString(7, certificate.getSubjectState());
+            ps.setString(8, certificate.getSubjectLocality());
+            ps.setString(9, certificate.getSubjectEmail());
+            ps.setString(10, certificate.getSignatureAlgorithm());
+            ps.setString(11, certificate.getPublicKeyAlgorithm());
+            ps.setBytes(12, certificate.getCertificateDer());
+            ps.setTimestamp(13, Timestamp.valueOf(certificate.getNotBefore()));
+            ps.setTimestamp(14, Timestamp.valueOf(certificate.getNotAfter()));
+            ps.setTimestamp(15, Timestamp.valueOf(certificate.getCreatedAt()));
+            ps.setString(16, certificate.getStatus());
+        });
+    }
+
+    @Override
+    public List<CertificateMetadata> search(CertificateSearchCriteria criteria, int limit) {
+        StringBuilder sql = new StringBuilder(SEARCH_SQL);
+        List<Object> args = new ArrayList<>();
+
+        addFilter(sql, args, "subject_common_name = ?", criteria.getCommonName());
+        addFilter(sql, args, "subject_organization_name = ?", criteria.getOrganization());
+        addFilter(sql, args, "status = ?", criteria.getStatus());
+        addFilter(sql, args, "not_after >= ?", toTimestamp(criteria.getNotAfterFrom()));
+        addFilter(sql, args, "not_after < ?", toTimestamp(criteria.getNotAfterTo()));
+        addFilter(sql, args, "created_at >= ?", toTimestamp(criteria.getCreatedFrom()));
+        addFilter(sql, args, "created_at < ?", toTimestamp(criteria.getCreatedTo()));
+
+        // Column name comes from the enum, never from the request
+        String sortColumn = criteria.getSort().column();
+        if (criteria.getAfterId() != null) {
+            sql.append(" AND (").append(sortColumn).append(", id) > (?, ?)");
+            args.add(toTimestamp(criteria.getAfterValue()));
+            args.add(criteria.getAfterId());
+        }
+        sql.append(" ORDER BY ").append(sortColumn).append(", id LIMIT ?");
+        args.add(limit);
+
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new MetadataRow(
+                rs.getLong("id"),
+                rs.getString("serial_number"),
+                rs.getObject("version", Integer.class),
+                rs.getString("subject_common_name"),
+                rs.getString("subject_organization_name"),
+                rs.getString("subject_organization_unit"),
+                rs.getString("subject_country"),
+                rs.getString("subject_state"),
+                rs.getString("subject_locality"),
+                rs.getString("subject_email"),
+                rs.getTimestamp("not_before").toLocalDateTime(),
+                rs.getTimestamp("not_after").toLocalDateTime(),
+                rs.getTimestamp("created_at").toLocalDateTime(),
+                rs.getString("status")
+        ), args.toArray());
+    }
+
+    private static void addFilter(StringBuilder sql, List<Object> args, String condition, Object value) {
+        if (value != null) {
+            sql.append(" AND ").append(condition);
+            args.add(value);
+        }
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime value) {
+        return value == null ? null : Timestamp.valueOf(value);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class MetadataRow implements CertificateMetadata {
+        private final Long id;
+        private final String serialNumber;
+        private final Integer version;
+        private final String subjectCommonName;
+        private final String subjectOrganizationName;
+        private final String subjectOrganizationUnit;
+        private final String subjectCountry;
+        private final String subjectState;
+        private final String subjectLocality;
+        private final String subjectEmail;
+        private final LocalDateTime notBefore;
+        private final LocalDateTime notAfter;
+        private final LocalDateTime createdAt;
+        private final String status;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.demo.repositories;
+
+import java.time.LocalDateTime;
+
+import lombok.Data;
+
+/**
+ * Filters and keyset position for {@link CertificateRepositoryCustom#search}.
+ * Null fields are not filtered on; {@code afterValue}/{@code afterId} are the sort key and id of the last row
+ * of the previous page.
+ */
+@Data
+public class CertificateSearchCriteria {
+
+    public enum SortKey {
+        NOT_AFTER("not_after"),
+        CREATED_AT("created_at");
+
+        private final String column;
+
+        SortKey(String column) {
+            this.column = column;
+        }
+
+        public String column() {
+            return column;
+        }
+    }
+
+    private String commonName;
+    private String organization;
+    private String status;
+    private LocalDateTime notAfterFrom;
+    private LocalDateTime notAfterTo;
+    private LocalDateTime createdFrom;
+    private LocalDateTime createdTo;
+
+    private SortKey sort = SortKey.NOT_AFTER;
+    private LocalDateTime afterValue;
+    private Long afterId;
+}
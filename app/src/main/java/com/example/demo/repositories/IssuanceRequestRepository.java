@@ -0,0 +1,59 @@
+package com.example.demo.repositories;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.entities.IssuanceRequest;
+
+@Repository
+public interface IssuanceRequestRepository extends JpaRepository<IssuanceRequest, String> {
+
+    /**
+     * Inserts a claim; a plain insert (not save, which would merge) so a concurrent claim for the same key fails
+     * with a DataIntegrityViolationException
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            insert into issuance_requests (request_key, request_fingerprint, created_at)
+            values (:requestKey, :requestFingerprint, :createdAt)
+            """, nativeQuery = true)
+    void claim(@Param("requestKey") String requestKey, @Param("requestFingerprint") String requestFingerprint,
+               @Param("createdAt") LocalDateTime createdAt);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            update IssuanceRequest r set r.serialNumber = :serialNumber
+            where r.requestKey = :requestKey and r.createdAt = :claimedAt and r.serialNumber is null
+            """)
+    int complete(@Param("requestKey") String requestKey, @Param("claimedAt") LocalDateTime claimedAt,
+                 @Param("serialNumber") String serialNumber);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IssuanceRequest r where r.requestKey = :requestKey and r.createdAt = :claimedAt and r.serialNumber is null")
+    int deleteClaim(@Param("requestKey") String requestKey, @Param("claimedAt") LocalDateTime claimedAt);
+
+    // Only an unfinished claim: a completed row is never taken away from the request that owns it
+    @Transactional
+    @Modifying
+    @Query("delete from IssuanceRequest r where r.requestKey = :requestKey and r.serialNumber is null and r.createdAt < :claimedBefore")
+    int releaseClaim(@Param("requestKey") String requestKey, @Param("claimedBefore") LocalDateTime claimedBefore);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IssuanceRequest r where r.requestKey = :requestKey and r.createdAt < :createdBefore")
+    int deleteExpired(@Param("requestKey") String requestKey, @Param("createdBefore") LocalDateTime createdBefore);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IssuanceRequest r where r.createdAt < :createdBefore")
+    int deleteCreatedBefore(@Param("createdBefore") LocalDateTime createdBefore);
+}
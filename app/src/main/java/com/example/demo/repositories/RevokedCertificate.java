@@ -0,0 +1,17 @@
+package com.example.demo.repositories;
+
+import java.time.LocalDateTime;
+
+/**
+ * What the CRL and the revoked-serial index need to know about a revoked certificate.
+ */
+public interface RevokedCertificate {
+
+    String getSerialNumber();
+
+    LocalDateTime getRevokedAt();
+
+    String getRevocationReason();
+
+    LocalDateTime getNotAfter();
+}
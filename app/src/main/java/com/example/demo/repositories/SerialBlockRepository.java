@@ -0,0 +1,10 @@
+package com.example.demo.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.example.demo.entities.SerialBlock;
+
+@Repository
+public interface SerialBlockRepository extends JpaRepository<SerialBlock, Long> {
+}
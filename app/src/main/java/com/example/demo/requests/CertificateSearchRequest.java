@@ -0,0 +1,36 @@
+package com.example.demo.requests;
+
+import java.time.LocalDateTime;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import lombok.Data;
+
+/**
+ * Query parameters of {@code GET /api/certificates}. Date ranges are half-open: {@code from <= value < to}.
+ */
+@Data
+public class CertificateSearchRequest {
+
+    private String commonName;
+    private String organization;
+    private String status;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime notAfterFrom;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime notAfterTo;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdFrom;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdTo;
+
+    // notAfter (default) or createdAt
+    private String sort;
+
+    private String cursor;
+    private Integer limit;
+}
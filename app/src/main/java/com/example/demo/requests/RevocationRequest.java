@@ -0,0 +1,9 @@
+package com.example.demo.requests;
+
+import lombok.Data;
+
+@Data
+public class RevocationRequest {
+    // RFC 5280 reason name, e.g. keyCompromise; defaults to unspecified
+    private String reason;
+}
@@ -0,0 +1,223 @@
+package com.example.demo.services;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import com.example.demo.exceptions.TooManyRequestsException;
+
+/**
+ * Bounds how many callers run a CPU-bound stage at once, and sheds the excess with a
+ * {@link TooManyRequestsException} instead of letting it pile up on request threads.
+ * <p>
+ * A caller over the limit waits up to {@code maxWait} in a queue of at most {@code maxQueue}; when the queue is full
+ * it is rejected at once. The limit follows observed latency, in the manner of a gradient limiter: at the end of
+ * every window the window's average latency is compared with a baseline, the latency of an unloaded stage. Latency
+ * within {@code tolerance} of the baseline lets the limit grow by one; anything slower shrinks it in proportion,
+ * down to {@code minLimit}. The limit only grows while callers actually use it.
+ * <p>
+ * The baseline drops to any lower window average at once but rises only slowly, so a sustained overload cannot
+ * pass itself off as the new normal and talk the limit back up.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double SMOOTHING = 0.5;
+    private static final double BASELINE_RISE_WINDOWS = 1000;
+    private static final int MIN_WINDOW_SAMPLES = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final long maxWaitNanos;
+    private final long windowNanos;
+    private final double tolerance;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder windowLatency = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final AtomicInteger windowPeak = new AtomicInteger();
+    private final AtomicLong windowEnd;
+
+    // Only written by the caller that closes a window
+    private volatile double limit;
+    private volatile double baselineNanos;
+    private volatile double latencyNanos;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int maxQueue, Duration maxWait,
+                                      Duration window, double tolerance) {
+        if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit || maxQueue < 0 || tolerance < 1) {
+            throw new IllegalArgumentException("Concurrency limiter needs 1 <= minLimit <= initialLimit <= maxLimit, "
+                    + "maxQueue >= 0 and tolerance >= 1");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueue = maxQueue;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.windowNanos = window.toNanos();
+        this.tolerance = tolerance;
+        this.windowEnd = new AtomicLong(System.nanoTime() + windowNanos);
+    }
+
+    public <T> T execute(Supplier<T> work) {
+        acquire();
+        long start = System.nanoTime();
+        boolean completed = false;
+        try {
+            T result = work.get();
+            completed = true;
+            return result;
+        } finally {
+            release(completed ? System.nanoTime() - start : -1);
+        }
+    }
+
+    public int limit() {
+        return (int) limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public int waiting() {
+        return waiting.get();
+    }
+
+    /**
+     * Callers that ran without waiting
+     */
+    public long admittedCount() {
+        return admitted.sum();
+    }
+
+    /**
+     * Callers that ran after waiting for a slot
+     */
+    public long queuedCount() {
+        return queued.sum();
+    }
+
+    /**
+     * Callers turned away, because the queue was full or they waited {@code maxWait} in vain
+     */
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+
+    private void acquire() {
+        if (tryIncrement()) {
+            admitted.increment();
+            return;
+        }
+        if (waiting.incrementAndGet() > maxQueue) {
+            waiting.decrementAndGet();
+            throw reject();
+        }
+        lock.lock();
+        try {
+            long remaining = maxWaitNanos;
+            while (!tryIncrement()) {
+                if (remaining <= 0) {
+                    throw reject();
+                }
+                remaining = released.awaitNanos(remaining);
+            }
+            queued.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject();
+        } finally {
+            waiting.decrementAndGet();
+            lock.unlock();
+        }
+    }
+
+    private boolean tryIncrement() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        if (current + 1 > windowPeak.get()) {
+            windowPeak.accumulateAndGet(current + 1, Math::max);
+        }
+        return true;
+    }
+
+    /**
+     * @param latencyNanos -1 for work that failed, whose latency says nothing about load
+     */
+    private void release(long latencyNanos) {
+        inFlight.decrementAndGet();
+        if (waiting.get() > 0) {
+            lock.lock();
+            try {
+                released.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (latencyNanos >= 0) {
+            windowLatency.add(latencyNanos);
+            windowSamples.increment();
+            long now = System.nanoTime();
+            long end = windowEnd.get();
+            if (now - end >= 0 && windowSamples.sum() >= MIN_WINDOW_SAMPLES && windowEnd.compareAndSet(end, now + windowNanos)) {
+                updateLimit();
+            }
+        }
+    }
+
+    private void updateLimit() {
+        long samples = windowSamples.sumThenReset();
+        double average = (double) windowLatency.sumThenReset() / Math.max(1, samples);
+        int peak = windowPeak.getAndSet(inFlight.get());
+        latencyNanos = average;
+
+        double baseline = baselineNanos == 0 || average < baselineNanos
+                ? average
+                : baselineNanos + (average - baselineNanos) / BASELINE_RISE_WINDOWS;
+        baselineNanos = baseline;
+
+        double current = limit;
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * baseline / average));
+        // Room to find out whether more concurrency helps, but only while the current limit is in use
+        double headroom = peak >= current / 2 ? 1 : 0;
+        double target = current * gradient + headroom;
+        double next = current * (1 - SMOOTHING) + target * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+
+        if ((int) limit > (int) current && waiting.get() > 0) {
+            lock.lock();
+            try {
+                released.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private TooManyRequestsException reject() {
+        rejected.increment();
+        // Roughly how long the callers ahead need to clear; never less than the one second Retry-After can express
+        double perCaller = latencyNanos / Math.max(1, limit);
+        long retryAfter = Math.max(TimeUnit.SECONDS.toNanos(1), (long) (perCaller * (inFlight.get() + waiting.get())));
+        return new TooManyRequestsException("Signing is at capacity, retry later", Duration.ofNanos(retryAfter));
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.demo.services;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A Postgres session-level advisory lock, so a maintenance job runs on one instance at a time. The lock lives on a
+ * connection held for as long as the lock is, and goes away with that session if the instance dies. On databases
+ * without advisory locks (H2 in tests) the lock is always granted.
+ */
+@Slf4j
+final class AdvisoryLock implements AutoCloseable {
+
+    private final Connection connection;
+    private final long key;
+
+    private AdvisoryLock(Connection connection, long key) {
+        this.connection = connection;
+        this.key = key;
+    }
+
+    /**
+     * @return the held lock, or null if another session holds it
+     */
+    static AdvisoryLock tryAcquire(DataSource dataSource, long key) throws SQLException {
+        Connection connection = dataSource.getConnection();
+        try {
+            if (!"PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+                return new AdvisoryLock(connection, key);
+            }
+            try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+                statement.setLong(1, key);
+                try (ResultSet rs = statement.executeQuery()) {
+                    if (rs.next() && rs.getBoolean(1)) {
+                        return new AdvisoryLock(connection, key);
+                    }
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+        connection.close();
+        return null;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            if ("PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+                try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+                    statement.setLong(1, key);
+                    statement.execute();
+                }
+            }
+        } catch (SQLException e) {
+            // The pool would hand the still-locked session to someone else: drop the connection instead
+            log.warn("Releasing advisory lock {} failed, closing the session", key, e);
+            connection.abort(Runnable::run);
+        } finally {
+            connection.close();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.demo.services;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.DTOs.BatchIssuanceItemDTO;
+import com.example.demo.DTOs.BatchIssuanceResponseDTO;
+import com.example.demo.entities.Certificate;
+import com.example.demo.repositories.CertificateRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Issues many certificates per request: CSRs are parsed and signed in parallel on the crypto executor,
+ * then every successfully signed certificate is written in one batched insert.
+ */
+@Service
+@Slf4j
+public class BatchIssuanceService {
+
+    private static final Pattern PEM_BLOCK = Pattern.compile("-----BEGIN [^-]+-----.*?-----END [^-]+-----", Pattern.DOTALL);
+
+    @Autowired
+    private CertificatesService certificatesService;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private ThreadPoolTaskExecutor cryptoExecutor;
+
+    @Autowired
+    private CertificateMetrics metrics;
+
+    @Autowired
+    private WriteBehindService writeBehindService;
+
+    @Autowired
+    private TransparencyLogService transparencyLogService;
+
+    @Autowired
+    private IssuanceProfiles issuanceProfiles;
+
+    @Value("${ca.batch.max-size:1000}")
+    private int maxBatchSize;
+
+    /**
+     * Issues every CSR under the named profile ({@code null} for the default one)
+     */
+    public BatchIssuanceResponseDTO issueCertificates(List<String> csrPems, String profileName) {
+        if (csrPems == null || csrPems.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one CSR");
+        }
+        if (csrPems.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Batch must not exceed " + maxBatchSize + " CSRs");
+        }
+
+        IssuanceProfile profile = issuanceProfiles.resolve(profileName);
+
+        List<CompletableFuture<Certificate>> pending = new ArrayList<>(csrPems.size());
+        for (String csrPem : csrPems) {
+            pending.add(CompletableFuture.supplyAsync(() -> certificatesService.buildCertificate(csrPem, profile), cryptoExecutor));
+        }
+
+        BatchIssuanceItemDTO[] results = new BatchIssuanceItemDTO[csrPems.size()];
+        List<Certificate> signed = new ArrayList<>(csrPems.size());
+        List<Integer> signedIndexes = new ArrayList<>(csrPems.size());
+
+        for (int i = 0; i < pending.size(); i++) {
+            try {
+                signed.add(pending.get(i).join());
+                signedIndexes.add(i);
+            } catch (CompletionException e) {
+                results[i] = BatchIssuanceItemDTO.failed(i, e.getCause().getMessage());
+            }
+        }
+
+        if (!signed.isEmpty()) {
+            try {
+                transparencyLogService.append(signed);
+                if (writeBehindService.isEnabled()) {
+                    // One journal write and one fsync for the whole batch
+                    metrics.issueStage(CertificateMetrics.JOURNAL_APPEND).record(() -> writeBehindService.append(signed));
+                } else {
+                    metrics.issueStage(CertificateMetrics.DB_BATCH_SAVE).record(() -> certificateRepository.insertAll(signed));
+                }
+                for (int j = 0; j < signed.size(); j++) {
+                    Certificate certificate = signed.get(j);
+                    int index = signedIndexes.get(j);
+                    results[index] = BatchIssuanceItemDTO.issued(index, certificate.getSerialNumber(),
+                            CertificateCodec.encodeCertificatePem(certificate.getCertificateDer()));
+                }
+            } catch (DataAccessException | UncheckedIOException | IllegalStateException e) {
+                log.error("Saving a batch of {} certificates failed", signed.size(), e);
+                for (int index : signedIndexes) {
+                    results[index] = BatchIssuanceItemDTO.failed(index, "Failed to save certificate to database");
+                }
+            }
+        }
+
+        int issued = 0;
+        for (BatchIssuanceItemDTO result : results) {
+            if (result.isSuccess()) {
+                issued++;
+            }
+        }
+        return new BatchIssuanceResponseDTO(results.length, issued, results.length - issued, List.of(results));
+    }
+
+    /**
+     * Splits a body of concatenated PEM blocks into one string per block
+     */
+    public List<String> splitPemBundle(String bundle) {
+        List<String> blocks = new ArrayList<>();
+        if (bundle == null) {
+            return blocks;
+        }
+        Matcher matcher = PEM_BLOCK.matcher(bundle);
+        while (matcher.find()) {
+            blocks.add(matcher.group());
+        }
+        if (blocks.isEmpty() && !bundle.isBlank()) {
+            blocks.add(bundle);
+        }
+        return blocks;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.demo.services;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.DTOs.SignatureValidationResponseDTO;
+import com.example.demo.requests.SignatureValidationRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Validates an NDJSON stream of signature validation requests and writes one NDJSON result per input line,
+ * in input order. At most {@code window} lines are in flight at a time, so memory stays bounded by the window
+ * rather than by the size of the input.
+ */
+@Service
+public class BulkValidationService {
+
+    private static final int FLUSH_EVERY = 64;
+
+    @Autowired
+    private CertificatesService certificatesService;
+
+    @Autowired
+    private ThreadPoolTaskExecutor cryptoExecutor;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${ca.validation.stream.window:0}")
+    private int window;
+
+    public void validateStream(InputStream input, OutputStream output) throws IOException {
+        ObjectReader requestReader = objectMapper.readerFor(SignatureValidationRequest.class);
+        ObjectWriter resultWriter = objectMapper.writerFor(SignatureValidationResponseDTO.class);
+        int maxInFlight = window > 0 ? window : cryptoExecutor.getMaxPoolSize() * 4;
+
+        Deque<CompletableFuture<SignatureValidationResponseDTO>> inFlight = new ArrayDeque<>(maxInFlight);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        int written = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            inFlight.addLast(submit(line, requestReader));
+
+            if (inFlight.size() >= maxInFlight) {
+                writeResult(inFlight.removeFirst(), resultWriter, writer);
+                if (++written % FLUSH_EVERY == 0) {
+                    writer.flush();
+                }
+            }
+        }
+
+        while (!inFlight.isEmpty()) {
+            writeResult(inFlight.removeFirst(), resultWriter, writer);
+        }
+        writer.flush();
+    }
+
+    /**
+     * Decodes the JSON line on the reading thread and hands certificate resolution and the signature check
+     * to the crypto executor. Certificates repeated across lines come from the shared parsed-certificate cache.
+     */
+    private CompletableFuture<SignatureValidationResponseDTO> submit(String line, ObjectReader requestReader) {
+        SignatureValidationRequest request;
+        try {
+            request = requestReader.readValue(line);
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(SignatureValidationResponseDTO.error(e.getMessage()));
+        }
+
+        return CompletableFuture.supplyAsync(() -> certificatesService.validateSignature(request), cryptoExecutor);
+    }
+
+    private void writeResult(CompletableFuture<SignatureValidationResponseDTO> pending, ObjectWriter resultWriter,
+                             Writer writer) throws IOException {
+        SignatureValidationResponseDTO result;
+        try {
+            result = pending.join();
+        } catch (CompletionException e) {
+            result = SignatureValidationResponseDTO.error(e.getCause().getMessage());
+        }
+        writer.write(resultWriter.writeValueAsString(result));
+        writer.write('\n');
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.demo.services;
+
+import java.security.PublicKey;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.security.auth.x500.X500Principal;
+
+import org.bouncycastle.asn1.ASN1OctetString;
+import org.bouncycastle.asn1.x509.AuthorityKeyIdentifier;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.SubjectKeyIdentifier;
+import org.bouncycastle.cert.jcajce.JcaX509ExtensionUtils;
+
+/**
+ * Immutable index of the trust anchor and every intermediate CA, keyed by subject and by key identifier, with each
+ * intermediate's path up to the anchor built and verified once when the index is created. Building the chain of an
+ * end-entity certificate is then a map lookup on its AKI (or issuer name) plus one signature check.
+ */
+public final class CaChainIndex {
+
+    // Deeper hierarchies than this are a configuration mistake, not something to walk
+    private static final int MAX_DEPTH = 8;
+
+    /**
+     * A CA certificate and its verified path: the certificate itself first, the trust anchor last
+     */
+    private record Entry(X509Certificate certificate, List<X509Certificate> path) {
+    }
+
+    private final X509Certificate anchor;
+    private final List<X509Certificate> intermediates;
+    private final Map<X500Principal, List<Entry>> bySubject;
+    private final Map<String, List<Entry>> byKeyId;
+
+    private CaChainIndex(X509Certificate anchor, List<X509Certificate> intermediates,
+                         Map<X500Principal, List<Entry>> bySubject, Map<String, List<Entry>> byKeyId) {
+        this.anchor = anchor;
+        this.intermediates = intermediates;
+        this.bySubject = bySubject;
+        this.byKeyId = byKeyId;
+    }
+
+    /**
+     * Verifies every intermediate up to the anchor and indexes the result.
+     *
+     * @throws IllegalArgumentException if an intermediate does not chain to the anchor, is not a CA, is outside
+     *                                  its validity period or breaks a path length constraint
+     */
+    public static CaChainIndex build(X509Certificate anchor, Collection<X509Certificate> intermediates) {
+        if (anchor.getBasicConstraints() < 0) {
+            throw new IllegalArgumentException("Trust anchor " + anchor.getSubjectX500Principal() + " is not a CA");
+        }
+        Map<X500Principal, List<Entry>> bySubject = new HashMap<>();
+        Map<String, List<Entry>> byKeyId = new HashMap<>();
+        add(new Entry(anchor, List.of(anchor)), bySubject, byKeyId);
+
+        // Parents before children: keep linking whatever now has a verified issuer in the index
+        List<X509Certificate> pending = new ArrayList<>(intermediates);
+        List<X509Certificate> linked = new ArrayList<>(intermediates.size());
+        boolean progress = true;
+        while (!pending.isEmpty() && progress) {
+            progress = false;
+            for (var iterator = pending.iterator(); iterator.hasNext(); ) {
+                X509Certificate intermediate = iterator.next();
+                Entry parent = findIssuer(intermediate, bySubject, byKeyId);
+                if (parent != null) {
+                    add(link(intermediate, parent), bySubject, byKeyId);
+                    linked.add(intermediate);
+                    iterator.remove();
+                    progress = true;
+                }
+            }
+        }
+        if (!pending.isEmpty()) {
+            throw new IllegalArgumentException("Intermediate " + pending.get(0).getSubjectX500Principal()
+                    + " does not chain to " + anchor.getSubjectX500Principal());
+        }
+        return new CaChainIndex(anchor, List.copyOf(linked), freeze(bySubject), freeze(byKeyId));
+    }
+
+    public X509Certificate anchor() {
+        return anchor;
+    }
+
+    /**
+     * Builds the path from the given certificate to the trust anchor, checking the certificate's own signature
+     * against the indexed issuer; the links above it were verified when the index was built.
+     *
+     * @return the certificate followed by its issuers up to and including the anchor, or empty if it was not
+     * issued by any CA in this index
+     */
+    public Optional<List<X509Certificate>> buildChain(X509Certificate certificate) {
+        for (Entry candidate : candidates(certificate)) {
+            if (candidate.certificate().equals(certificate)) {
+                return Optional.of(candidate.path());
+            }
+            if (CertificateCodec.verifyCertificateChain(certificate, candidate.certificate())) {
+                List<X509Certificate> chain = new ArrayList<>(candidate.path().size() + 1);
+                chain.add(certificate);
+                chain.addAll(candidate.path());
+                return Optional.of(List.copyOf(chain));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Every indexed intermediate, each one after its issuer
+     */
+    public List<X509Certificate> intermediates() {
+        return intermediates;
+    }
+
+    private List<Entry> candidates(X509Certificate certificate) {
+        String authorityKeyId = authorityKeyId(certificate);
+        if (authorityKeyId != null) {
+            List<Entry> byKey = byKeyId.get(authorityKeyId);
+            if (byKey != null) {
+                return byKey;
+            }
+        }
+        return bySubject.getOrDefault(certificate.getIssuerX500Principal(), List.of());
+    }
+
+    private static Entry findIssuer(X509Certificate certificate, Map<X500Principal, List<Entry>> bySubject,
+                                    Map<String, List<Entry>> byKeyId) {
+        String authorityKeyId = authorityKeyId(certificate);
+        List<Entry> candidates = authorityKeyId != null && byKeyId.containsKey(authorityKeyId)
+                ? byKeyId.get(authorityKeyId)
+                : bySubject.getOrDefault(certificate.getIssuerX500Principal(), List.of());
+        for (Entry candidate : candidates) {
+            if (CertificateCodec.verifyCertificateChain(certificate, candidate.certificate())) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static Entry link(X509Certificate intermediate, Entry parent) {
+        String subject = intermediate.getSubjectX500Principal().toString();
+        if (intermediate.getBasicConstraints() < 0) {
+            throw new IllegalArgumentException("Intermediate " + subject + " is not a CA");
+        }
+        boolean[] keyUsage = intermediate.getKeyUsage();
+        if (keyUsage != null && (keyUsage.length <= 5 || !keyUsage[5])) {
+            throw new IllegalArgumentException("Intermediate " + subject + " may not sign certificates (keyCertSign)");
+        }
+        try {
+            intermediate.checkValidity();
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Intermediate " + subject + " is not valid now: " + e.getMessage(), e);
+        }
+        if (parent.path().size() >= MAX_DEPTH) {
+            throw new IllegalArgumentException("Intermediate " + subject + " is nested deeper than " + MAX_DEPTH);
+        }
+
+        List<X509Certificate> path = new ArrayList<>(parent.path().size() + 1);
+        path.add(intermediate);
+        path.addAll(parent.path());
+        // The CA at index i has the i intermediates before it below it, which its pathLenConstraint must allow (RFC 5280 4.2.1.9)
+        for (int i = 1; i < path.size(); i++) {
+            if (i > path.get(i).getBasicConstraints()) {
+                throw new IllegalArgumentException("Intermediate " + subject + " violates the path length constraint of "
+                        + path.get(i).getSubjectX500Principal());
+            }
+        }
+        return new Entry(intermediate, List.copyOf(path));
+    }
+
+    private static void add(Entry entry, Map<X500Principal, List<Entry>> bySubject, Map<String, List<Entry>> byKeyId) {
+        bySubject.computeIfAbsent(entry.certificate().getSubjectX500Principal(), s -> new ArrayList<>()).add(entry);
+        byKeyId.computeIfAbsent(subjectKeyId(entry.certificate()), k -> new ArrayList<>()).add(entry);
+    }
+
+    private static <K> Map<K, List<Entry>> freeze(Map<K, List<Entry>> index) {
+        Map<K, List<Entry>> frozen = new LinkedHashMap<>();
+        index.forEach((key, entries) -> frozen.put(key, List.copyOf(entries)));
+        return Map.copyOf(frozen);
+    }
+
+    /**
+     * The SKI extension, or the RFC 5280 method 1 hash of the key when the CA certificate has none; the latter is
+     * also what {@link CaKeyMaterial#authorityKeyIdentifier()} puts into issued certificates in that case
+     */
+    private static String subjectKeyId(X509Certificate certificate) {
+        byte[] extension = certificate.getExtensionValue(Extension.subjectKeyIdentifier.getId());
+        try {
+            byte[] keyId = extension != null
+                    ? SubjectKeyIdentifier.getInstance(ASN1OctetString.getInstance(extension).getOctets()).getKeyIdentifier()
+                    : computeKeyId(certificate.getPublicKey());
+            return HexFormat.of().formatHex(keyId);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Unreadable subject key identifier in "
+                    + certificate.getSubjectX500Principal() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static String authorityKeyId(X509Certificate certificate) {
+        byte[] extension = certificate.getExtensionValue(Extension.authorityKeyIdentifier.getId());
+        if (extension == null) {
+            return null;
+        }
+        try {
+            byte[] keyId = AuthorityKeyIdentifier.getInstance(ASN1OctetString.getInstance(extension).getOctets())
+                    .getKeyIdentifier();
+            return keyId == null ? null : HexFormat.of().formatHex(keyId);
+        } catch (RuntimeException e) {
+            // Malformed AKI: fall back to the issuer name, the signature check still decides
+            return null;
+        }
+    }
+
+    private static byte[] computeKeyId(PublicKey publicKey) throws Exception {
+        return new JcaX509ExtensionUtils().createSubjectKeyIdentifier(publicKey).getKeyIdentifier();
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.demo.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x500.style.BCStyle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.DTOs.CaCertificateInfoDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * The CA's public documents: the info JSON, the root certificate as PEM and DER and the chain bundle. Each is encoded
+ * once per CA hierarchy, so serving one costs no parsing or encoding, only a copy of bytes that never change.
+ * <p>
+ * ETags are a hash of the bytes, so they are strong and the same on every instance with the same CA files;
+ * Last-Modified is the newest notBefore of the certificates a document contains, for the same reason.
+ */
+@Service
+public class CaDocumentService {
+
+    public record CaDocument(byte[] body, String etag, Instant lastModified) {
+    }
+
+    private record Documents(CaHierarchy hierarchy, CaDocument info, CaDocument certificatePem,
+                             CaDocument certificateDer, CaDocument chainPem) {
+    }
+
+    @Autowired
+    private CaKeyMaterialProvider caKeyMaterialProvider;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private volatile Documents documents;
+
+    @PostConstruct
+    void init() {
+        documents = build(caKeyMaterialProvider.hierarchy());
+    }
+
+    public CaDocument info() {
+        return current().info();
+    }
+
+    public CaDocument certificatePem() {
+        return current().certificatePem();
+    }
+
+    public CaDocument certificateDer() {
+        return current().certificateDer();
+    }
+
+    /**
+     * PEM bundle of every intermediate, each after the CAs it issued, followed by the root
+     */
+    public CaDocument chainPem() {
+        return current().chainPem();
+    }
+
+    private Documents current() {
+        Documents current = documents;
+        CaHierarchy hierarchy = caKeyMaterialProvider.hierarchy();
+        if (current.hierarchy() != hierarchy) {
+            // The CA files were reloaded; whoever notices first encodes the new set
+            current = build(hierarchy);
+            documents = current;
+        }
+        return current;
+    }
+
+    private Documents build(CaHierarchy hierarchy) {
+        X509Certificate root = hierarchy.chainIndex().anchor();
+        List<X509Certificate> chain = new ArrayList<>(hierarchy.chainIndex().intermediates().reversed());
+        chain.add(root);
+
+        try {
+            byte[] rootDer = root.getEncoded();
+            StringBuilder bundle = new StringBuilder();
+            for (X509Certificate certificate : chain) {
+                bundle.append(CertificateCodec.encodeCertificatePem(certificate.getEncoded()));
+            }
+
+            return new Documents(hierarchy,
+                    document(objectMapper.writeValueAsBytes(info(root)), List.of(root)),
+                    document(CertificateCodec.encodeCertificatePem(rootDer).getBytes(StandardCharsets.US_ASCII), List.of(root)),
+                    document(rootDer, List.of(root)),
+                    document(bundle.toString().getBytes(StandardCharsets.US_ASCII), chain));
+        } catch (CertificateEncodingException | JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode the CA documents: " + e.getMessage(), e);
+        }
+    }
+
+    private static CaCertificateInfoDTO info(X509Certificate root) {
+        return new CaCertificateInfoDTO(
+                issuerName(root),
+                root.getSerialNumber(),
+                root.getNotBefore(),
+                root.getNotAfter(),
+                root.getSigAlgName()
+        );
+    }
+
+    /**
+     * The issuer's common name, or its whole DN when it has no CN or does not decompose, e.g. a country that is not
+     * a two-letter code: SubjectName holds issued subjects to that, a CA certificate brought from elsewhere need not be
+     */
+    private static String issuerName(X509Certificate root) {
+        X500Name issuer = X500Name.getInstance(root.getIssuerX500Principal().getEncoded());
+        if (issuer.getRDNs(BCStyle.CN).length > 0) {
+            try {
+                return SubjectName.of(issuer).commonName();
+            } catch (IllegalArgumentException e) {
+                // Fall through to the DN
+            }
+        }
+        return root.getIssuerX500Principal().getName();
+    }
+
+    private static CaDocument document(byte[] body, List<X509Certificate> certificates) {
+        Instant lastModified = certificates.stream()
+                .map(certificate -> certificate.getNotBefore().toInstant())
+                .max(Instant::compareTo)
+                .orElseThrow();
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return new CaDocument(body, "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"", lastModified);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.demo.services;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the whole CA: the root, the intermediates that hold a key and issue certificates, and the
+ * chain index used to validate certificates from any of them. Swapped as a whole on reload.
+ * Without issuing intermediates the root issues, as a single-tier CA does.
+ */
+public record CaHierarchy(
+        CaKeyMaterial root,
+        Map<String, CaKeyMaterial> intermediates,
+        CaChainIndex chainIndex,
+        Instant loadedAt
+) {
+
+    public static final String ROOT = "root";
+
+    /**
+     * Names of the CAs new certificates are spread across
+     */
+    public List<String> issuerNames() {
+        return intermediates.isEmpty() ? List.of(ROOT) : List.copyOf(intermediates.keySet());
+    }
+
+    /**
+     * Names of every CA that signs something here: the root first, then the issuing intermediates. Each publishes
+     * its own CRL and answers OCSP for its own certificates.
+     */
+    public List<String> signerNames() {
+        List<String> names = new ArrayList<>(intermediates.size() + 1);
+        names.add(ROOT);
+        names.addAll(intermediates.keySet());
+        return names;
+    }
+
+    /**
+     * @return the key material of the named CA, or null if it has no key here
+     */
+    public CaKeyMaterial signer(String name) {
+        return ROOT.equals(name) ? root : intermediates.get(name);
+    }
+}
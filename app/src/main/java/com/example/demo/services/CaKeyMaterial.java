@@ -0,0 +1,44 @@
+package com.example.demo.services;
+
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.cert.X509Certificate;
+import java.time.Instant;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.cert.jcajce.JcaX509ExtensionUtils;
+
+/**
+ * Immutable snapshot of the CA certificate and private key, parsed once and shared by every request.
+ * {@code signatureAlgorithm} is what everything issued by this CA is signed with (JCA name, e.g. SHA256withECDSA);
+ * {@code authorityKeyIdentifier} is the encoded extension every certificate and CRL from this CA carries.
+ */
+public record CaKeyMaterial(
+        X509Certificate certificate,
+        PrivateKey privateKey,
+        X500Name subject,
+        String signatureAlgorithm,
+        Extension authorityKeyIdentifier,
+        Instant loadedAt
+) {
+
+    /**
+     * Derives the subject and the authority key identifier from the certificate
+     */
+    public static CaKeyMaterial of(X509Certificate certificate, PrivateKey privateKey, String signatureAlgorithm) {
+        try {
+            X500Name subject = X500Name.getInstance(certificate.getSubjectX500Principal().getEncoded());
+            Extension authorityKeyIdentifier = new Extension(Extension.authorityKeyIdentifier, false,
+                    new JcaX509ExtensionUtils().createAuthorityKeyIdentifier(certificate).getEncoded());
+            return new CaKeyMaterial(certificate, privateKey, subject, signatureAlgorithm, authorityKeyIdentifier,
+                    Instant.now());
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Failed to derive CA identifiers: " + e.getMessage(), e);
+        }
+    }
+
+    public PublicKey publicKey() {
+        return certificate.getPublicKey();
+    }
+}
@@ -0,0 +1,306 @@
+package com.example.demo.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import javax.security.auth.x500.X500Principal;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Loads the root CA certificate and key, plus any intermediate CAs found in {@code ca.intermediates-path}, once and
+ * hands out the parsed {@link CaHierarchy}. An intermediate is a {@code <name>.crt} with an optional {@code <name>.key}
+ * next to it: with the key it issues certificates, without it it is only kept so that the certificates it issued
+ * still validate. The snapshot is swapped atomically when the files change on disk or when {@link #reload()} is
+ * called; a broken replacement, including an intermediate that does not chain to the root, is rejected and the
+ * previous hierarchy stays in use.
+ */
+@Component
+@Slf4j
+public class CaKeyMaterialProvider {
+
+    @Value("${ca.certificate-path:/certs/rootCA.crt}")
+    private Path certificatePath;
+
+    @Value("${ca.private-key-path:/certs/rootCA.key}")
+    private Path privateKeyPath;
+
+    // Blank or missing directory: single-tier, the root issues
+    @Value("${ca.intermediates-path:}")
+    private String intermediatesPath;
+
+    @Value("${ca.watch-enabled:true}")
+    private boolean watchEnabled;
+
+    // Empty means "derive from the key type" (see KeyAlgorithms)
+    @Value("${ca.signature-algorithm:}")
+    private String configuredSignatureAlgorithm;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final AtomicReference<CaHierarchy> hierarchy = new AtomicReference<>();
+
+    private Counter reloadFailures;
+
+    private WatchService watchService;
+
+    private Path intermediatesDirectory;
+
+    @PostConstruct
+    void init() {
+        try {
+            hierarchy.set(load());
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to load CA key material: " + e.getMessage(), e);
+        }
+        CaKeyMaterial root = hierarchy.get().root();
+        log.info("Loaded CA key material for {} ({}), issuing with {}", root.subject(), root.signatureAlgorithm(),
+                hierarchy.get().issuerNames());
+
+        Gauge.builder("ca.material.last.reload", hierarchy, h -> h.get().loadedAt().getEpochSecond())
+                .description("Epoch second at which the CA key material was last loaded")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        reloadFailures = Counter.builder("ca.material.reload.failures")
+                .description("CA key material reloads rejected because the files could not be parsed")
+                .register(meterRegistry);
+
+        if (watchEnabled) {
+            startWatcher();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    /**
+     * The root CA, which is also the trust anchor
+     */
+    public CaKeyMaterial current() {
+        return hierarchy.get().root();
+    }
+
+    public CaHierarchy hierarchy() {
+        return hierarchy.get();
+    }
+
+    /**
+     * Re-reads the CA files and swaps them in if they parse, every key matches its certificate and every
+     * intermediate chains to the root.
+     */
+    public CaHierarchy reload() {
+        CaHierarchy loaded;
+        try {
+            loaded = load();
+        } catch (Exception e) {
+            reloadFailures.increment();
+            throw new IllegalStateException("Failed to reload CA key material: " + e.getMessage(), e);
+        }
+        CaHierarchy previous = hierarchy.getAndSet(loaded);
+        log.info("Reloaded CA key material for {}, issuing with {}", loaded.root().subject(), loaded.issuerNames());
+        eventPublisher.publishEvent(new CaKeyMaterialReloadedEvent(previous, loaded));
+        return loaded;
+    }
+
+    private CaHierarchy load() throws Exception {
+        CaKeyMaterial root = loadMaterial(certificatePath, privateKeyPath);
+
+        List<X509Certificate> intermediateCertificates = new ArrayList<>();
+        Map<String, CaKeyMaterial> issuing = new LinkedHashMap<>();
+        Set<X500Principal> subjects = new HashSet<>(List.of(root.certificate().getSubjectX500Principal()));
+        for (Path certificateFile : listIntermediates()) {
+            String fileName = certificateFile.getFileName().toString();
+            String name = fileName.substring(0, fileName.length() - ".crt".length());
+            if (CaHierarchy.ROOT.equals(name)) {
+                throw new IllegalArgumentException("Intermediate file name '" + fileName + "' is reserved");
+            }
+            Path keyFile = certificateFile.resolveSibling(name + ".key");
+            X509Certificate certificate;
+            if (Files.exists(keyFile)) {
+                CaKeyMaterial material = loadMaterial(certificateFile, keyFile);
+                issuing.put(name, material);
+                certificate = material.certificate();
+            } else {
+                certificate = loadCertificate(certificateFile);
+            }
+            // Issuer names must identify one CA, or CRLs and OCSP responses would be ambiguous
+            if (!subjects.add(certificate.getSubjectX500Principal())) {
+                throw new IllegalArgumentException("Duplicate CA subject " + certificate.getSubjectX500Principal()
+                        + " in " + fileName);
+            }
+            intermediateCertificates.add(certificate);
+        }
+
+        CaChainIndex chainIndex = CaChainIndex.build(root.certificate(), intermediateCertificates);
+        return new CaHierarchy(root, Collections.unmodifiableMap(issuing), chainIndex, Instant.now());
+    }
+
+    private List<Path> listIntermediates() throws IOException {
+        if (intermediatesPath.isBlank() || !Files.isDirectory(Path.of(intermediatesPath))) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(Path.of(intermediatesPath))) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".crt"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private CaKeyMaterial loadMaterial(Path certificateFile, Path keyFile) throws Exception {
+        X509Certificate certificate = loadCertificate(certificateFile);
+        PrivateKey privateKey = loadPrivateKey(keyFile);
+        String signatureAlgorithm = configuredSignatureAlgorithm.isBlank()
+                ? KeyAlgorithms.signatureAlgorithm(privateKey)
+                : configuredSignatureAlgorithm;
+        assertKeyMatchesCertificate(certificate, privateKey, signatureAlgorithm);
+
+        return CaKeyMaterial.of(certificate, privateKey, signatureAlgorithm);
+    }
+
+    private X509Certificate loadCertificate(Path certificateFile) throws Exception {
+        CertificateFactory certificateFactory = CertificateFactory.getInstance("X.509");
+        try (InputStream in = Files.newInputStream(certificateFile)) {
+            X509Certificate certificate = (X509Certificate) certificateFactory.generateCertificate(in);
+            certificate.checkValidity();
+            return certificate;
+        }
+    }
+
+    private PrivateKey loadPrivateKey(Path keyFile) throws Exception {
+        try (Reader reader = new InputStreamReader(Files.newInputStream(keyFile), StandardCharsets.US_ASCII)) {
+            return KeyAlgorithms.readPrivateKey(reader);
+        }
+    }
+
+    private void assertKeyMatchesCertificate(X509Certificate certificate, PrivateKey privateKey,
+                                             String signatureAlgorithm) throws Exception {
+        byte[] probe = "ca-key-material-probe".getBytes(StandardCharsets.US_ASCII);
+
+        Signature signer = Signature.getInstance(signatureAlgorithm);
+        signer.initSign(privateKey);
+        signer.update(probe);
+        byte[] signature = signer.sign();
+
+        Signature verifier = Signature.getInstance(signatureAlgorithm);
+        verifier.initVerify(certificate.getPublicKey());
+        verifier.update(probe);
+        if (!verifier.verify(signature)) {
+            throw new IllegalArgumentException("CA private key does not match the CA certificate "
+                    + certificate.getSubjectX500Principal());
+        }
+    }
+
+    private void startWatcher() {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            Set<Path> directories = new HashSet<>(List.of(
+                    certificatePath.toAbsolutePath().getParent(),
+                    privateKeyPath.toAbsolutePath().getParent()));
+            if (!intermediatesPath.isBlank() && Files.isDirectory(Path.of(intermediatesPath))) {
+                intermediatesDirectory = Path.of(intermediatesPath).toAbsolutePath();
+                directories.add(intermediatesDirectory);
+            }
+            for (Path directory : directories) {
+                directory.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+            }
+        } catch (IOException e) {
+            log.warn("CA key material watcher disabled: {}", e.getMessage());
+            return;
+        }
+
+        Thread watcher = new Thread(this::watchLoop, "ca-material-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private void watchLoop() {
+        Set<Path> watchedFiles = new HashSet<>(List.of(certificatePath.getFileName(), privateKeyPath.getFileName()));
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean relevant = false;
+                boolean inIntermediates = intermediatesDirectory != null && intermediatesDirectory.equals(key.watchable());
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.context() instanceof Path changed
+                            && (watchedFiles.contains(changed) || inIntermediates && isCaFile(changed))) {
+                        relevant = true;
+                    }
+                }
+                key.reset();
+
+                if (relevant) {
+                    // Certificate and key are usually replaced together; let both writes land first.
+                    Thread.sleep(500);
+                    drainPendingEvents();
+                    try {
+                        reload();
+                    } catch (IllegalStateException e) {
+                        log.error("Keeping previous CA key material: {}", e.getMessage());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            log.debug("CA key material watcher stopped");
+        }
+    }
+
+    private static boolean isCaFile(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(".crt") || name.endsWith(".key");
+    }
+
+    private void drainPendingEvents() {
+        WatchKey pending;
+        while ((pending = watchService.poll()) != null) {
+            pending.pollEvents();
+            pending.reset();
+        }
+    }
+}
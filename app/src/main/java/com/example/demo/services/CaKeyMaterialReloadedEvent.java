@@ -0,0 +1,7 @@
+package com.example.demo.services;
+
+/**
+ * Published after the CA hierarchy has been swapped, so components holding derived state can refresh it.
+ */
+public record CaKeyMaterialReloadedEvent(CaHierarchy previous, CaHierarchy current) {
+}
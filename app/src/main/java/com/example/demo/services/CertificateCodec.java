@@ -0,0 +1,129 @@
+package com.example.demo.services;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.Base64;
+
+import org.bouncycastle.openssl.PEMParser;
+import org.bouncycastle.openssl.jcajce.JcaPEMWriter;
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+import org.bouncycastle.util.io.pem.PemObject;
+import org.bouncycastle.util.io.pem.PemReader;
+import org.bouncycastle.util.io.pem.PemWriter;
+
+/**
+ * Stateless PEM/DER parsing, encoding and verification steps shared by the issuance and validation paths.
+ * Kept free of Spring and database dependencies so the benchmarks can call the exact production code.
+ */
+public final class CertificateCodec {
+
+    private CertificateCodec() {
+    }
+
+    public static PKCS10CertificationRequest parseCsrPem(String csrPem) {
+        try (PEMParser pemParser = new PEMParser(new StringReader(csrPem))) {
+            Object parsedObject = pemParser.readObject();
+            if (parsedObject instanceof PKCS10CertificationRequest csr) {
+                return csr;
+            } else {
+                throw new IllegalArgumentException("Invalid CSR format");
+            }
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Failed to parse CSR: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Encodes a signed certificate as PEM
+     */
+    public static String signX509Certificate(X509Certificate certificate) {
+        try {
+            StringWriter stringWriter = new StringWriter();
+            try (JcaPEMWriter pemWriter = new JcaPEMWriter(stringWriter)) {
+                pemWriter.writeObject(certificate);
+            }
+            return stringWriter.toString();
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to convert certificate to PEM: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Wraps stored DER bytes as a PEM certificate, without parsing them
+     */
+    public static String encodeCertificatePem(byte[] der) {
+        try {
+            StringWriter stringWriter = new StringWriter(der.length * 4 / 3 + 128);
+            try (PemWriter pemWriter = new PemWriter(stringWriter)) {
+                pemWriter.writeObject(new PemObject("CERTIFICATE", der));
+            }
+            return stringWriter.toString();
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to convert certificate to PEM: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Extracts the DER bytes from a PEM certificate without parsing the ASN.1 structure
+     */
+    public static byte[] decodeCertificatePem(String certificatePem) {
+        try (PemReader pemReader = new PemReader(new StringReader(certificatePem))) {
+            PemObject pemObject = pemReader.readPemObject();
+            if (pemObject == null) {
+                throw new IllegalArgumentException("No PEM certificate found");
+            }
+            return pemObject.getContent();
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Failed to parse certificate from PEM: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Parses an X.509 certificate from its DER encoding
+     */
+    public static X509Certificate parseCertificate(byte[] der) {
+        try {
+            CertificateFactory certificateFactory = CertificateFactory.getInstance("X.509");
+            return (X509Certificate) certificateFactory.generateCertificate(new ByteArrayInputStream(der));
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Failed to parse certificate from PEM: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Verifies that a certificate was signed by the given CA certificate
+     */
+    public static boolean verifyCertificateChain(X509Certificate certificate, X509Certificate caCertificate) {
+        try {
+            certificate.verify(caCertificate.getPublicKey());
+
+            return certificate.getIssuerX500Principal().equals(caCertificate.getSubjectX500Principal());
+
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Verifies a digital signature using the provided public key, with the algorithm its key type implies
+     */
+    public static boolean verifySignature(String data, String signatureBase64, PublicKey publicKey) {
+        try {
+            Signature signature = Signature.getInstance(KeyAlgorithms.signatureAlgorithm(publicKey));
+            signature.initVerify(publicKey);
+            signature.update(data.getBytes(StandardCharsets.UTF_8));
+
+            byte[] signatureBytes = Base64.getDecoder().decode(signatureBase64);
+            return signature.verify(signatureBytes);
+
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
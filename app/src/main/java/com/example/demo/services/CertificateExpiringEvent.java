@@ -0,0 +1,10 @@
+package com.example.demo.services;
+
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+
+/**
+ * Published once per certificate when it comes within {@code ca.expiry.notice-window} of its notAfter.
+ */
+public record CertificateExpiringEvent(BigInteger serialNumber, String subjectCommonName, LocalDateTime notAfter) {
+}
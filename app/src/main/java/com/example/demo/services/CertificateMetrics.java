@@ -0,0 +1,74 @@
+package com.example.demo.services;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Per-stage timers and outcome counters for issuance and validation.
+ * Percentiles and histograms for every {@code ca.*} meter are configured under
+ * {@code management.metrics.distribution} in application.properties.
+ */
+@Component
+public class CertificateMetrics {
+
+    public static final String CSR_PARSE = "csr_parse";
+    public static final String CERT_BUILD = "cert_build";
+    public static final String SIGN = "sign";
+    public static final String PEM_ENCODE = "pem_encode";
+    public static final String DB_SAVE = "db_save";
+    public static final String DB_BATCH_SAVE = "db_batch_save";
+    public static final String JOURNAL_APPEND = "journal_append";
+    public static final String JOURNAL_DRAIN = "journal_drain";
+    public static final String LOG_APPEND = "log_append";
+
+    public static final String PEM_DECODE = "pem_decode";
+    public static final String CERT_PARSE = "cert_parse";
+    public static final String CHAIN_VERIFY = "chain_verify";
+    public static final String SIGNATURE_VERIFY = "signature_verify";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, Timer> issueTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> validateTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> outcomes = new ConcurrentHashMap<>();
+
+    public Timer issueStage(String stage) {
+        return issueTimers.computeIfAbsent(stage, s -> Timer.builder("ca.issue.stage")
+                .description("Time spent in each stage of certificate issuance")
+                .tag("stage", s)
+                .register(meterRegistry));
+    }
+
+    public Timer validateStage(String stage) {
+        return validateTimers.computeIfAbsent(stage, s -> Timer.builder("ca.validate.stage")
+                .description("Time spent in each stage of signature validation")
+                .tag("stage", s)
+                .register(meterRegistry));
+    }
+
+    /**
+     * Counts a validation result; {@code signatureValid} is null when the certificate check already failed
+     */
+    public void validationOutcome(boolean certificateValid, Boolean signatureValid) {
+        String key = certificateValid + "/" + signatureValid;
+        outcomes.computeIfAbsent(key, k -> Counter.builder("ca.validate.outcome")
+                .description("Signature validation results")
+                .tag("certificateValid", String.valueOf(certificateValid))
+                .tag("signatureValid", signatureValid == null ? "none" : String.valueOf(signatureValid))
+                .register(meterRegistry)).increment();
+    }
+
+    public void validationParseFailure() {
+        outcomes.computeIfAbsent("parse_failure", k -> Counter.builder("ca.validate.parse.failures")
+                .description("Validation requests whose certificate could not be decoded or parsed")
+                .register(meterRegistry)).increment();
+    }
+}
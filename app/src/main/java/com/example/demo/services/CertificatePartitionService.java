@@ -0,0 +1,101 @@
+package com.example.demo.services;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps monthly partitions of {@code certificates} (range-partitioned by {@code created_at}, see the V2 migration)
+ * created ahead of time, so inserts never fall through to the default partition. A month that already has rows in
+ * the default partition cannot be attached and is logged instead. Runs on one instance at a time; does nothing on
+ * databases other than Postgres.
+ */
+@Service
+@Slf4j
+public class CertificatePartitionService {
+
+    static final long LOCK_KEY = 0x6662_7061_7274_6974L;
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${ca.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @EventListener(ApplicationReadyEvent.class)
+    void onStartup() {
+        scheduledRun();
+    }
+
+    @Scheduled(fixedDelayString = "${ca.partitions.check-interval:12h}", initialDelayString = "${ca.partitions.check-interval:12h}")
+    void scheduledRun() {
+        try {
+            ensurePartitions();
+        } catch (SQLException | RuntimeException e) {
+            log.error("Creating certificate partitions failed, will retry on the next run", e);
+        }
+    }
+
+    /**
+     * Creates any missing partition from the current month up to {@code months-ahead} months from now
+     */
+    public void ensurePartitions() throws SQLException {
+        if (!isPostgres()) {
+            return;
+        }
+        try (AdvisoryLock lock = AdvisoryLock.tryAcquire(dataSource, LOCK_KEY)) {
+            if (lock == null) {
+                return;
+            }
+            YearMonth month = YearMonth.now();
+            for (int i = 0; i <= monthsAhead; i++, month = month.plusMonths(1)) {
+                try {
+                    createPartition(month);
+                } catch (DataAccessException e) {
+                    // Typically rows for that month already sit in the default partition and must be moved by hand
+                    log.error("Could not create the certificate partition for {}: {}", month, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void createPartition(YearMonth month) {
+        String name = "certificates_p" + month.format(SUFFIX);
+        Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name);
+        if (Boolean.TRUE.equals(exists)) {
+            return;
+        }
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        // Identifiers and bounds come from YearMonth, never from input
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF certificates FOR VALUES FROM ('"
+                + from + "') TO ('" + to + "')");
+        log.info("Created certificate partition {} for [{}, {})", name, from, to);
+    }
+
+    private boolean isPostgres() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+        }
+    }
+}
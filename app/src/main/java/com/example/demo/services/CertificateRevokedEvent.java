@@ -0,0 +1,9 @@
+package com.example.demo.services;
+
+import java.math.BigInteger;
+
+/**
+ * Published when a revocation becomes known to this instance, whether it was made here or picked up from the database.
+ */
+public record CertificateRevokedEvent(BigInteger serialNumber) {
+}
@@ -0,0 +1,137 @@
+package com.example.demo.services;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.DTOs.CertificatePageDTO;
+import com.example.demo.DTOs.CertificateResponseDTO;
+import com.example.demo.repositories.CertificateMetadata;
+import com.example.demo.repositories.CertificateRepository;
+import com.example.demo.repositories.CertificateSearchCriteria;
+import com.example.demo.repositories.CertificateSearchCriteria.SortKey;
+import com.example.demo.requests.CertificateSearchRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Keyset-paginated certificate search. The cursor handed back to clients encodes the sort key and the
+ * (sort value, id) of the last row returned, so the next page is a plain index range scan from that point.
+ */
+@Service
+public class CertificateSearchService {
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${ca.search.default-limit:100}")
+    private int defaultLimit;
+
+    @Value("${ca.search.max-limit:1000}")
+    private int maxLimit;
+
+    public CertificatePageDTO search(CertificateSearchRequest request) {
+        CertificateSearchCriteria criteria = toCriteria(request);
+        int limit = request.getLimit() == null ? defaultLimit : Math.min(Math.max(request.getLimit(), 1), maxLimit);
+
+        // One extra row tells us whether there is a next page without a count query
+        List<CertificateMetadata> rows = certificateRepository.search(criteria, limit + 1);
+        boolean hasMore = rows.size() > limit;
+        if (hasMore) {
+            rows = rows.subList(0, limit);
+        }
+
+        List<CertificateResponseDTO> items = rows.stream().map(CertificatesService::toResponseDTO).toList();
+        String nextCursor = hasMore ? encodeCursor(criteria.getSort(), rows.get(rows.size() - 1)) : null;
+        return new CertificatePageDTO(items, nextCursor);
+    }
+
+    /**
+     * Writes every matching certificate as NDJSON, walking the result page by page so neither the database
+     * nor this process holds more than one page at a time
+     */
+    public void export(CertificateSearchRequest request, OutputStream output) throws IOException {
+        CertificateSearchCriteria criteria = toCriteria(request);
+        ObjectWriter itemWriter = objectMapper.writerFor(CertificateResponseDTO.class);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+
+        List<CertificateMetadata> page;
+        do {
+            page = certificateRepository.search(criteria, maxLimit);
+            for (CertificateMetadata row : page) {
+                writer.write(itemWriter.writeValueAsString(CertificatesService.toResponseDTO(row)));
+                writer.write('\n');
+            }
+            writer.flush();
+
+            if (!page.isEmpty()) {
+                CertificateMetadata last = page.get(page.size() - 1);
+                criteria.setAfterValue(sortValue(criteria.getSort(), last));
+                criteria.setAfterId(last.getId());
+            }
+        } while (page.size() == maxLimit);
+    }
+
+    private CertificateSearchCriteria toCriteria(CertificateSearchRequest request) {
+        CertificateSearchCriteria criteria = new CertificateSearchCriteria();
+        criteria.setCommonName(request.getCommonName());
+        criteria.setOrganization(request.getOrganization());
+        criteria.setStatus(request.getStatus());
+        criteria.setNotAfterFrom(request.getNotAfterFrom());
+        criteria.setNotAfterTo(request.getNotAfterTo());
+        criteria.setCreatedFrom(request.getCreatedFrom());
+        criteria.setCreatedTo(request.getCreatedTo());
+        criteria.setSort(parseSort(request.getSort()));
+
+        if (request.getCursor() != null && !request.getCursor().isBlank()) {
+            decodeCursor(request.getCursor(), criteria);
+        }
+        return criteria;
+    }
+
+    private static SortKey parseSort(String sort) {
+        if (sort == null || sort.isBlank() || sort.equalsIgnoreCase("notAfter")) {
+            return SortKey.NOT_AFTER;
+        }
+        if (sort.equalsIgnoreCase("createdAt")) {
+            return SortKey.CREATED_AT;
+        }
+        throw new IllegalArgumentException("Unsupported sort: " + sort + " (expected notAfter or createdAt)");
+    }
+
+    private static LocalDateTime sortValue(SortKey sort, CertificateMetadata row) {
+        return sort == SortKey.CREATED_AT ? row.getCreatedAt() : row.getNotAfter();
+    }
+
+    private static String encodeCursor(SortKey sort, CertificateMetadata last) {
+        String cursor = sort.name() + "|" + sortValue(sort, last) + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void decodeCursor(String cursor, CertificateSearchCriteria criteria) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 3 || SortKey.valueOf(parts[0]) != criteria.getSort()) {
+                throw new IllegalArgumentException("cursor does not match the requested sort");
+            }
+            criteria.setAfterValue(LocalDateTime.parse(parts[1]));
+            criteria.setAfterId(Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + e.getMessage(), e);
+        }
+    }
+}
@@ -1,46 +1,25 @@
 package com.example.demo.services;
 
-import java.io.FileInputStream;
-import java.io.StringReader;
-import java.io.StringWriter;
-import java.math.BigInteger;
-import java.nio.charset.StandardCharsets;
-import java.security.KeyFactory;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.security.PrivateKey;
-import java.security.PublicKey;
-import java.security.SecureRandom;
-import java.security.Signature;
-import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
-import java.security.spec.PKCS8EncodedKeySpec;
 import java.time.ZoneId;
-import java.util.Base64;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.HexFormat;
-import java.util.Map;
+import java.util.List;
 import java.util.Optional;
 
-import com.example.demo.DTOs.CaCertificateInfoDTO;
+import com.example.demo.DTOs.CertificateResponseDTO;
+import com.example.demo.DTOs.SignatureValidationResponseDTO;
 import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.GeneralNames;
 import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
-import org.bouncycastle.cert.X509CertificateHolder;
 import org.bouncycastle.cert.X509v3CertificateBuilder;
-import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
-import org.bouncycastle.jce.PKCS10CertificationRequest;
-import org.bouncycastle.openssl.PEMParser;
-import org.bouncycastle.openssl.jcajce.JcaPEMWriter;
-import org.bouncycastle.operator.ContentSigner;
-import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
-import org.bouncycastle.util.io.pem.PemObject;
-import org.bouncycastle.util.io.pem.PemReader;
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.example.demo.entities.Certificate;
 import com.example.demo.exceptions.CertificateNotFoundException;
+import com.example.demo.exceptions.TooManyRequestsException;
+import com.example.demo.repositories.CertificateMetadata;
 import com.example.demo.repositories.CertificateRepository;
 import com.example.demo.requests.SignatureValidationRequest;
 
@@ -50,172 +29,240 @@ public class CertificatesService {
     @Autowired
     private CertificateRepository certificateRepository;
 
+    @Autowired
+    private CaKeyMaterialProvider caKeyMaterialProvider;
 
-    public Certificate getCertificateBySerialNumber(String serialNumber) {
-        Certificate certificate = certificateRepository.findBySerialNumber(serialNumber);
-        if (certificate == null) {
-            throw new CertificateNotFoundException("Certificate not found");
-        }
-        return certificate;
-    }
-
-    //    public Certificate saveCertificate(Certificate certificate) {
-    //        return certificateRepository.save(certificate);
-    //    }
+    @Autowired
+    private SigningEngine signingEngine;
 
-    public CaCertificateInfoDTO getCaCertificate() {
-        X509Certificate caCertificateInfo = loadCACertificate();
+    @Autowired
+    private ParsedCertificateCache parsedCertificateCache;
 
-        String issuerDN = caCertificateInfo.getIssuerX500Principal().getName();
-        String cn = issuerDN.replaceAll(".*CN=([^,]+).*", "$1");
+    @Autowired
+    private CertificateMetrics metrics;
 
-        CaCertificateInfoDTO caCertificateInfoDTO = new CaCertificateInfoDTO(
-                cn,
-                caCertificateInfo.getSerialNumber(),
-                caCertificateInfo.getNotBefore(),
-                caCertificateInfo.getNotAfter(),
-                caCertificateInfo.getSigAlgName()
-        );
-        return caCertificateInfoDTO;
-    }
+    @Autowired
+    private RevocationService revocationService;
 
-    public String issueCertificate(String csrPem) {
-        PKCS10CertificationRequest csr = parseCsrPem(csrPem);
+    @Autowired
+    private WriteBehindService writeBehindService;
 
-        X509Certificate x509Certificate = generateX509Certificate(csr);
+    @Autowired
+    private TransparencyLogService transparencyLogService;
 
-        String signedCertificate = signX509Certificate(x509Certificate);
+    @Autowired
+    private IssuanceProfiles issuanceProfiles;
 
-        saveCertificateToDatabase(x509Certificate, signedCertificate);
+    @Autowired
+    private AdaptiveConcurrencyLimiter signingLimiter;
 
-        return signedCertificate;
-    }
 
-    public Map<String, Object> validateSignature(SignatureValidationRequest request) {
-        X509Certificate clientCertificate = parseCertificateFromPem(request.getCertificatePem());
+    public CertificateResponseDTO getCertificateBySerialNumber(String serialNumber, boolean includePem) {
+        Optional<Certificate> pending = writeBehindService.findPending(serialNumber);
+        if (pending.isPresent()) {
+            CertificateResponseDTO certificateResponseDTO = toResponseDTO(pending.get());
+            if (includePem) {
+                certificateResponseDTO.setCertificatePem(CertificateCodec.encodeCertificatePem(pending.get().getCertificateDer()));
+            }
+            return certificateResponseDTO;
+        }
 
-        boolean isCertificateValid = verifyCertificateChain(clientCertificate);
+        CertificateMetadata metadata = certificateRepository.findMetadataBySerialNumber(serialNumber)
+                .orElseThrow(() -> new CertificateNotFoundException("Certificate not found"));
 
-        if (!isCertificateValid) {
-            Map<String, Object> certificateValidation = new HashMap<>();
-            certificateValidation.put("certificateValid", false);
-            certificateValidation.put("message", "Certificate was not issued by this CA");
-            return certificateValidation;
+        CertificateResponseDTO certificateResponseDTO = toResponseDTO(metadata);
+        if (includePem) {
+            byte[] der = certificateRepository.findDerBySerialNumber(serialNumber)
+                    .orElseThrow(() -> new CertificateNotFoundException("Certificate not found"));
+            certificateResponseDTO.setCertificatePem(CertificateCodec.encodeCertificatePem(der));
         }
+        return certificateResponseDTO;
+    }
 
+    static CertificateResponseDTO toResponseDTO(CertificateMetadata metadata) {
+        return new CertificateResponseDTO(
+                metadata.getSerialNumber(),
+                String.valueOf(metadata.getVersion()),
+                metadata.getSubjectCommonName(),
+                metadata.getSubjectOrganizationName(),
+                metadata.getSubjectOrganizationUnit(),
+                metadata.getSubjectCountry(),
+                metadata.getSubjectState(),
+                metadata.getSubjectLocality(),
+                metadata.getSubjectEmail(),
+                metadata.getNotBefore().toString(),
+                metadata.getNotAfter().toString(),
+                metadata.getStatus(),
+                null
+        );
+    }
 
-        boolean isSignatureValid = verifySignature(
-                request.getData(),
-                request.getSignature(),
-                clientCertificate.getPublicKey()
+    /**
+     * Same mapping for a certificate that is still only in the write-behind journal
+     */
+    private static CertificateResponseDTO toResponseDTO(Certificate certificate) {
+        return new CertificateResponseDTO(
+                certificate.getSerialNumber(),
+                String.valueOf(certificate.getVersion()),
+                certificate.getSubjectCommonName(),
+                certificate.getSubjectOrganizationName(),
+                certificate.getSubjectOrganizationUnit(),
+                certificate.getSubjectCountry(),
+                certificate.getSubjectState(),
+                certificate.getSubjectLocality(),
+                certificate.getSubjectEmail(),
+                certificate.getNotBefore().toString(),
+                certificate.getNotAfter().toString(),
+                certificate.getStatus(),
+                null
         );
+    }
 
-        if (!isSignatureValid) {
-            Map<String, Object> certificateValidation = new HashMap<>();
-            certificateValidation.put("certificateValid", true);
-            certificateValidation.put("signatureValid", false);
-            return certificateValidation;
+    public byte[] getCertificateDer(String serialNumber) {
+        Optional<Certificate> pending = writeBehindService.findPending(serialNumber);
+        if (pending.isPresent()) {
+            return pending.get().getCertificateDer();
         }
-
-        Map<String, Object> certificateValidation = new HashMap<>();
-        certificateValidation.put("certificateValid", true);
-        certificateValidation.put("signatureValid", true);
-        return certificateValidation;
+        return certificateRepository.findDerBySerialNumber(serialNumber)
+                .orElseThrow(() -> new CertificateNotFoundException("Certificate not found"));
     }
 
-    private PKCS10CertificationRequest parseCsrPem(String csrPem) {
-        try (PEMParser pemParser = new PEMParser(new StringReader(csrPem))) {
-            Object parsedObject = pemParser.readObject();
-            if (parsedObject instanceof PKCS10CertificationRequest csr) {
-                return csr;
-            } else {
-                throw new IllegalArgumentException("Invalid CSR format");
-            }
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to parse CSR: " + e.getMessage(), e);
-        }
+    /**
+     * Issues a certificate under the named profile ({@code null} for the default one)
+     */
+    public String issueCertificate(String csrPem, String profileName) {
+        Certificate certificate = issue(csrPem, issuanceProfiles.resolve(profileName));
+
+        return metrics.issueStage(CertificateMetrics.PEM_ENCODE)
+                .record(() -> CertificateCodec.encodeCertificatePem(certificate.getCertificateDer()));
     }
 
-    private X509Certificate loadCACertificate() {
-        try {
-            CertificateFactory certificateFactory = CertificateFactory.getInstance("X.509");
-            try (FileInputStream fis = new FileInputStream("/certs/rootCA.crt")) {
-                return (X509Certificate) certificateFactory.generateCertificate(fis);
-            }
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to load CA certificate: " + e.getMessage(), e);
+    /**
+     * Signs, logs and stores one certificate
+     */
+    Certificate issue(String csrPem, IssuanceProfile profile) {
+        // Batches are already bounded by the crypto executor; a single request sheds here with 429 once signing
+        // is saturated, rather than holding its request thread until a signing context frees up
+        Certificate certificate = signingLimiter.execute(() -> buildCertificate(csrPem, profile));
+
+        // Logged before it is stored: a certificate that fails to save is harmless in the log, an unlogged one is not
+        transparencyLogService.append(List.of(certificate));
+        if (writeBehindService.isEnabled()) {
+            metrics.issueStage(CertificateMetrics.JOURNAL_APPEND).record(() -> writeBehindService.append(List.of(certificate)));
+        } else {
+            metrics.issueStage(CertificateMetrics.DB_SAVE).record(() -> saveCertificateToDatabase(certificate));
         }
+        return certificate;
     }
 
-    private PrivateKey loadCAPrivateKey() {
-        try {
-            try (FileInputStream fis = new FileInputStream("/certs/rootCA.key");
-                 PemReader pemReader = new PemReader(new java.io.InputStreamReader(fis))) {
+    /**
+     * Parses the CSR, signs the certificate and maps it to an entity, without touching the database
+     */
+    Certificate buildCertificate(String csrPem, IssuanceProfile profile) {
+        PKCS10CertificationRequest csr = metrics.issueStage(CertificateMetrics.CSR_PARSE)
+                .record(() -> CertificateCodec.parseCsrPem(csrPem));
 
-                PemObject pemObject = pemReader.readPemObject();
-                byte[] keyBytes = pemObject.getContent();
+        // Decomposed and checked against the profile before signing, so a bad request never spends a signature
+        SubjectName subjectName = SubjectName.of(csr.getSubject());
+        GeneralNames subjectAltNames = profile.checkRequest(csr);
 
-                PKCS8EncodedKeySpec keySpec = new PKCS8EncodedKeySpec(keyBytes);
-                KeyFactory keyFactory = KeyFactory.getInstance("RSA");
-                return keyFactory.generatePrivate(keySpec);
-            }
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to load CA private key: " + e.getMessage(), e);
-        }
+        X509Certificate x509Certificate = generateX509Certificate(csr, profile, subjectAltNames);
+
+        return toCertificateEntity(x509Certificate, subjectName);
     }
 
-    private X509Certificate generateX509Certificate(PKCS10CertificationRequest csr) {
-        try {
-            X509Certificate caCertificate = loadCACertificate();
-            PrivateKey caPrivateKey = loadCAPrivateKey();
+    public SignatureValidationResponseDTO validateSignature(SignatureValidationRequest request) {
+        VerifiedCertificate clientCertificate = resolveCertificate(request.getCertificatePem());
+
+        return validateSignature(clientCertificate, request.getData(), request.getSignature());
+    }
 
-            X500Name subject = csr.getCertificationRequestInfo().getSubject();
+    SignatureValidationResponseDTO validateSignature(VerifiedCertificate clientCertificate, String data, String signature) {
+        boolean isCertificateValid = clientCertificate.issuedByCa()
+                && isWithinValidityPeriod(clientCertificate.chain());
 
-            SubjectPublicKeyInfo publicKeyInfo = csr.getCertificationRequestInfo().getSubjectPublicKeyInfo();
+        if (!isCertificateValid) {
+            metrics.validationOutcome(false, null);
+            return SignatureValidationResponseDTO.NOT_ISSUED_BY_CA;
+        }
 
-            BigInteger serialNumber = generateUniqueSerialNumber();
-            Date notBefore = new Date();
-            Date notAfter = new Date(notBefore.getTime() + 365 * 24 * 60 * 60 * 1000L);
+        if (revocationService.isRevoked(clientCertificate.certificate().getSerialNumber())) {
+            metrics.validationOutcome(false, null);
+            return SignatureValidationResponseDTO.REVOKED;
+        }
 
-            X500Name issuer = new X500Name(caCertificate.getSubjectX500Principal().getName());
-            X509v3CertificateBuilder certificateBuilder = new X509v3CertificateBuilder(
-                    issuer,
-                    serialNumber,
-                    notBefore,
-                    notAfter,
-                    subject,
-                    publicKeyInfo
-            );
+        boolean isSignatureValid = metrics.validateStage(CertificateMetrics.SIGNATURE_VERIFY)
+                .record(() -> CertificateCodec.verifySignature(
+                        data,
+                        signature,
+                        clientCertificate.certificate().getPublicKey()
+                ));
 
-            ContentSigner contentSigner = new JcaContentSignerBuilder("SHA256WithRSA")
-                    .build(caPrivateKey);
+        metrics.validationOutcome(true, isSignatureValid);
+        if (!isSignatureValid) {
+            return SignatureValidationResponseDTO.SIGNATURE_INVALID;
+        }
 
-            X509CertificateHolder certificateHolder = certificateBuilder.build(contentSigner);
+        return SignatureValidationResponseDTO.VALID;
+    }
 
-            JcaX509CertificateConverter certificateConverter = new JcaX509CertificateConverter();
-            return certificateConverter.getCertificate(certificateHolder);
+    /**
+     * Returns the parsed certificate and its CA signature check, from the cache when this exact
+     * certificate has been seen before
+     */
+    VerifiedCertificate resolveCertificate(String certificatePem) {
+        try {
+            byte[] der = metrics.validateStage(CertificateMetrics.PEM_DECODE)
+                    .record(() -> CertificateCodec.decodeCertificatePem(certificatePem));
 
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to generate certificate: " + e.getMessage(), e);
+            VerifiedCertificate verified = parsedCertificateCache.get(der, this::parseAndVerifyCertificate);
+            if (verified.verifiedAgainst() != caKeyMaterialProvider.hierarchy().chainIndex()) {
+                // The CA was reloaded after this entry was cached
+                verified = parseAndVerifyCertificate(der);
+            }
+            return verified;
+        } catch (RuntimeException e) {
+            metrics.validationParseFailure();
+            throw e;
         }
     }
 
-    private String signX509Certificate(X509Certificate certificate) {
+    private X509Certificate generateX509Certificate(PKCS10CertificationRequest csr, IssuanceProfile profile,
+                                                    GeneralNames subjectAltNames) {
+        X500Name subject = csr.getSubject();
+
+        SubjectPublicKeyInfo publicKeyInfo = csr.getSubjectPublicKeyInfo();
+
+        Date notBefore = new Date();
+
         try {
-            StringWriter stringWriter = new StringWriter();
-            try (JcaPEMWriter pemWriter = new JcaPEMWriter(stringWriter)) {
-                pemWriter.writeObject(certificate);
-            }
-            return stringWriter.toString();
+            return signingEngine.execute(signingContext -> {
+                // Never outlive the CA certificate
+                Date caNotAfter = signingContext.material().certificate().getNotAfter();
+                Date notAfter = new Date(Math.min(notBefore.getTime() + profile.validity().toMillis(), caNotAfter.getTime()));
+
+                X509v3CertificateBuilder certificateBuilder = metrics.issueStage(CertificateMetrics.CERT_BUILD)
+                        .recordCallable(() -> {
+                            X509v3CertificateBuilder builder = signingContext.newCertificateBuilder(subject, publicKeyInfo, notBefore, notAfter);
+                            profile.addExtensions(builder, signingContext, publicKeyInfo, subjectAltNames);
+                            return builder;
+                        });
+
+                return metrics.issueStage(CertificateMetrics.SIGN)
+                        .recordCallable(() -> signingContext.sign(certificateBuilder));
+            });
+        } catch (TooManyRequestsException e) {
+            // The signing pool shed the request; keep the 429 instead of turning it into a signing failure
+            throw e;
         } catch (Exception e) {
-            throw new RuntimeException("Failed to convert certificate to PEM: " + e.getMessage(), e);
+            throw new RuntimeException("Failed to generate certificate: " + e.getMessage(), e);
         }
     }
 
     /**
-     * Saves a certificate to the database as a blob
+     * Maps an issued certificate to its database row; the DER encoding is the only copy of the certificate kept
      */
-    private void saveCertificateToDatabase(X509Certificate x509Certificate, String certificatePem) {
+    private Certificate toCertificateEntity(X509Certificate x509Certificate, SubjectName subjectName) {
         try {
             Certificate certificate = new Certificate();
 
@@ -224,108 +271,54 @@ public class CertificatesService {
             // Set basic certificate information
             certificate.setVersion(x509Certificate.getVersion());
             certificate.setSerialNumber(x509Certificate.getSerialNumber().toString());
-            certificate.setSubjectCommonName(x509Certificate.getSubjectX500Principal().getName());
-            certificate.setSubjectOrganizationName(x509Certificate.getSubjectX500Principal().getName());
-            certificate.setSubjectOrganizationUnit(x509Certificate.getSubjectX500Principal().getName());
-            certificate.setSubjectCountry(x509Certificate.getSubjectX500Principal().getName());
-            certificate.setSubjectState(x509Certificate.getSubjectX500Principal().getName());
-            certificate.setSubjectLocality(x509Certificate.getSubjectX500Principal().getName());
-            certificate.setSubjectEmail(x509Certificate.getSubjectX500Principal().getName());
-            certificate.setCertificatePem(certificatePem);
+            subjectName.applyTo(certificate);
             certificate.setSignatureAlgorithm(x509Certificate.getSigAlgName());
             certificate.setPublicKeyAlgorithm(x509Certificate.getPublicKey().getAlgorithm());
-            certificate.setCertificateBlob(certificateDer);
+            certificate.setCertificateDer(certificateDer);
 
             certificate.setNotBefore(x509Certificate.getNotBefore().toInstant()
                     .atZone(ZoneId.systemDefault()).toLocalDateTime());
             certificate.setNotAfter(x509Certificate.getNotAfter().toInstant()
                     .atZone(ZoneId.systemDefault()).toLocalDateTime());
 
-            saveCertificate(certificate);
+            return certificate;
 
         } catch (Exception e) {
-            throw new RuntimeException("Failed to save certificate to database: " + e.getMessage(), e);
+            throw new RuntimeException("Failed to encode certificate: " + e.getMessage(), e);
         }
     }
 
     /**
-     * Parses an X.509 certificate from PEM format string
+     * Saves a certificate to the database
      */
-    private X509Certificate parseCertificateFromPem(String certificatePem) {
+    private void saveCertificateToDatabase(Certificate certificate) {
         try {
-            CertificateFactory certificateFactory = CertificateFactory.getInstance("X.509");
-            try (StringReader reader = new StringReader(certificatePem);
-                 java.io.ByteArrayInputStream bis = new java.io.ByteArrayInputStream(certificatePem.getBytes())) {
-                return (X509Certificate) certificateFactory.generateCertificate(bis);
-            }
+            certificateRepository.save(certificate);
         } catch (Exception e) {
-            throw new RuntimeException("Failed to parse certificate from PEM: " + e.getMessage(), e);
+            throw new RuntimeException("Failed to save certificate to database: " + e.getMessage(), e);
         }
     }
 
-
-    /**
-     * Verifies that a certificate was signed by our CA
-     */
-    private boolean verifyCertificateChain(X509Certificate certificate) {
-        try {
-            X509Certificate caCertificate = loadCACertificate();
-
-            certificate.verify(caCertificate.getPublicKey());
-
-            certificate.checkValidity();
-
-            return certificate.getIssuerX500Principal().equals(caCertificate.getSubjectX500Principal());
-
-        } catch (Exception e) {
-            return false;
-        }
+    private VerifiedCertificate parseAndVerifyCertificate(byte[] der) {
+        X509Certificate certificate = metrics.validateStage(CertificateMetrics.CERT_PARSE)
+                .record(() -> CertificateCodec.parseCertificate(der));
+        CaChainIndex chainIndex = caKeyMaterialProvider.hierarchy().chainIndex();
+        List<X509Certificate> chain = metrics.validateStage(CertificateMetrics.CHAIN_VERIFY)
+                .record(() -> chainIndex.buildChain(certificate).orElse(List.of()));
+        return new VerifiedCertificate(certificate, chain, chainIndex);
     }
 
     /**
-     * Verifies a digital signature using the provided public key
+     * The certificate and every CA above it must be valid now; an expired intermediate invalidates what it issued
      */
-    private boolean verifySignature(String data, String signatureBase64, PublicKey publicKey) {
+    private boolean isWithinValidityPeriod(List<X509Certificate> chain) {
         try {
-            Signature signature = Signature.getInstance("SHA256withRSA");
-            signature.initVerify(publicKey);
-            signature.update(data.getBytes(StandardCharsets.UTF_8));
-
-            byte[] signatureBytes = Base64.getDecoder().decode(signatureBase64);
-            return signature.verify(signatureBytes);
-
+            for (X509Certificate certificate : chain) {
+                certificate.checkValidity();
+            }
+            return true;
         } catch (Exception e) {
             return false;
         }
     }
-
-    private String calculateThumbprint(byte[] der, String algorithm) throws NoSuchAlgorithmException {
-        MessageDigest digest = MessageDigest.getInstance(algorithm);
-        byte[] hash = digest.digest(der);
-        return HexFormat.of().formatHex(hash);
-    }
-
-
-    /**
-     * Generates a cryptographically secure unique serial number for X.509 certificates.
-     * Uses SecureRandom to ensure uniqueness and security.
-     *
-     * @return A positive BigInteger serial number
-     */
-    private BigInteger generateUniqueSerialNumber() {
-        SecureRandom secureRandom = new SecureRandom();
-
-        byte[] serialBytes = new byte[8];
-        secureRandom.nextBytes(serialBytes);
-
-        serialBytes[0] &= 0x7F;
-
-        BigInteger serialNumber = new BigInteger(1, serialBytes);
-
-        if (serialNumber.equals(BigInteger.ZERO)) {
-            serialNumber = BigInteger.ONE;
-        }
-
-        return serialNumber;
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,166 @@
+package com.example.demo.services;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.bouncycastle.asn1.ASN1GeneralizedTime;
+import org.bouncycastle.asn1.x509.CRLNumber;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.cert.X509CRLHolder;
+import org.bouncycastle.cert.X509v2CRLBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps a signed CRL ready to serve for every CA of the hierarchy. They are rebuilt on a schedule, and only when a
+ * revocation came in or the current ones are halfway to their nextUpdate, so requests just hand out the cached bytes.
+ * Serial numbers are unique across all CAs, so each CRL simply lists every revoked serial; an entry for a serial
+ * its CA never issued matches no certificate. Certificates that expired more than {@code ca.crl.expired-retention}
+ * ago are left off, and the expiredCertsOnCRL extension (X.509 section 7.3.4) tells relying parties from which
+ * date on expired certificates are still listed.
+ */
+@Service
+@Slf4j
+public class CrlService {
+
+    /**
+     * A signed CRL with the metadata needed to serve it
+     */
+    public record PublishedCrl(byte[] der, BigInteger crlNumber, Instant thisUpdate, Instant nextUpdate) {
+
+        public String etag() {
+            return "\"" + crlNumber + "\"";
+        }
+    }
+
+    @Autowired
+    private RevocationService revocationService;
+
+    @Autowired
+    private IssuingCaSigningEngine signingEngine;
+
+    @Autowired
+    private CaKeyMaterialProvider caKeyMaterialProvider;
+
+    @Value("${ca.crl.validity:24h}")
+    private Duration validity;
+
+    @Value("${ca.crl.expired-retention:30d}")
+    private Duration expiredRetention;
+
+    // A lock rather than synchronized: rebuild waits on the signing pool, which would pin a virtual thread
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    // By CA name; replaced as a whole so readers never see a half-rebuilt set
+    private volatile Map<String, PublishedCrl> current = Map.of();
+    private volatile long builtFromVersion = -1;
+
+    @PostConstruct
+    void init() {
+        rebuild();
+    }
+
+    /**
+     * The root CA's CRL
+     */
+    public PublishedCrl current() {
+        return current.get(CaHierarchy.ROOT);
+    }
+
+    /**
+     * @return the CRL of the named CA, or null if there is no such CA
+     */
+    public PublishedCrl current(String caName) {
+        return current.get(caName);
+    }
+
+    @Scheduled(fixedDelayString = "${ca.crl.refresh-interval:60s}", initialDelayString = "${ca.crl.refresh-interval:60s}")
+    void refresh() {
+        try {
+            revocationService.syncFromDatabase();
+
+            PublishedCrl crl = current();
+            boolean halfwayToExpiry = Instant.now().isAfter(crl.thisUpdate().plus(validity.dividedBy(2)));
+            if (builtFromVersion != revocationService.version() || halfwayToExpiry) {
+                rebuild();
+            }
+        } catch (RuntimeException e) {
+            log.error("CRL refresh failed, keeping the current CRL", e);
+        }
+    }
+
+    @EventListener
+    public void onCaKeyMaterialReloaded(CaKeyMaterialReloadedEvent event) {
+        rebuild();
+    }
+
+    void rebuild() {
+        rebuildLock.lock();
+        try {
+            rebuildLocked();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void rebuildLocked() {
+        long version = revocationService.version();
+        Instant thisUpdate = Instant.now();
+        Instant nextUpdate = thisUpdate.plus(validity);
+        Instant expiredCertsOnCrl = thisUpdate.minus(expiredRetention);
+        List<RevocationService.Entry> entries = revocationService.entries(
+                LocalDateTime.ofInstant(expiredCertsOnCrl, ZoneId.systemDefault()));
+
+        // Time-based CRL numbers stay monotonic across restarts and instances without any shared state
+        BigInteger crlNumber = BigInteger.valueOf(thisUpdate.toEpochMilli());
+
+        Map<String, PublishedCrl> published = new LinkedHashMap<>();
+        for (String caName : caKeyMaterialProvider.hierarchy().signerNames()) {
+            published.put(caName, sign(caName, entries, crlNumber, thisUpdate, nextUpdate, expiredCertsOnCrl));
+        }
+        current = Collections.unmodifiableMap(published);
+        builtFromVersion = version;
+        log.info("Published CRL #{} with {} entries for {}", crlNumber, entries.size(), published.keySet());
+    }
+
+    private PublishedCrl sign(String caName, List<RevocationService.Entry> entries, BigInteger crlNumber,
+                              Instant thisUpdate, Instant nextUpdate, Instant expiredCertsOnCrl) {
+        X509CRLHolder crl = signingEngine.executeAs(caName, signingContext -> {
+            CaKeyMaterial material = signingContext.material();
+            X509v2CRLBuilder builder = new X509v2CRLBuilder(material.subject(), Date.from(thisUpdate));
+            builder.setNextUpdate(Date.from(nextUpdate));
+            for (RevocationService.Entry entry : entries) {
+                builder.addCRLEntry(
+                        entry.serialNumber(),
+                        Date.from(entry.revokedAt().atZone(ZoneId.systemDefault()).toInstant()),
+                        entry.reason().code()
+                );
+            }
+            builder.addExtension(Extension.cRLNumber, false, new CRLNumber(crlNumber));
+            builder.addExtension(Extension.expiredCertsOnCRL, false, new ASN1GeneralizedTime(Date.from(expiredCertsOnCrl)));
+            builder.addExtension(material.authorityKeyIdentifier());
+            return builder.build(signingContext.contentSigner());
+        });
+
+        try {
+            return new PublishedCrl(crl.getEncoded(), crlNumber, thisUpdate, nextUpdate);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to encode CRL: " + e.getMessage(), e);
+        }
+    }
+}
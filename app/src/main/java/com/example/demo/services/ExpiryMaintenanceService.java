@@ -0,0 +1,249 @@
+package com.example.demo.services;
+
+import java.math.BigInteger;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Periodically moves certificates past their notAfter from ACTIVE to EXPIRED, and publishes a
+ * {@link CertificateExpiringEvent} for each certificate entering the notice window. Both passes walk the
+ * status/notAfter indexes in small chunks and address rows by {@code (id, created_at)}, so each row touched is found
+ * in its own partition. Expiry runs each chunk in its own short transaction and locks only the rows of the chunk
+ * ({@code SKIP LOCKED}, so a concurrent revocation is never waited on). A certificate is only marked as notified once
+ * every listener (see {@link ExpiryNotifier}) took its event; if one fails, the certificate comes up again on the
+ * next run. A Postgres advisory lock keeps the job to one instance at a time; the others skip the run.
+ */
+@Service
+@Slf4j
+public class ExpiryMaintenanceService {
+
+    // Arbitrary, but must not collide with other advisory locks taken on the same database
+    static final long LOCK_KEY = 0x6662_6578_7069_7279L;
+
+    private static final String EXPIRE_CHUNK_SQL = """
+            UPDATE certificates SET status = 'EXPIRED'
+            WHERE (id, created_at) IN (
+                SELECT id, created_at FROM certificates
+                WHERE status = 'ACTIVE' AND not_after < ?
+                ORDER BY not_after
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED)
+            """;
+
+    // Keyset over (not_after, id), so certificates whose notification failed are passed over for the rest of the run
+    private static final String SELECT_EXPIRING_SQL = """
+            SELECT id, created_at, serial_number, subject_common_name, not_after FROM certificates
+            WHERE status = 'ACTIVE' AND expiry_notified_at IS NULL AND not_after < ?
+              AND (not_after > ? OR not_after = ? AND id > ?)
+            ORDER BY not_after, id
+            LIMIT ?
+            """;
+
+    private static final String MARK_NOTIFIED_SQL =
+            "UPDATE certificates SET expiry_notified_at = ? WHERE id = ? AND created_at = ? AND expiry_notified_at IS NULL";
+
+    private record Expiring(long id, Timestamp createdAt, CertificateExpiringEvent event) {
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${ca.expiry.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ca.expiry.notice-window:14d}")
+    private Duration noticeWindow;
+
+    @Value("${ca.expiry.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${ca.expiry.pause:50ms}")
+    private Duration pause;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong lastCompletedRun = new AtomicLong();
+
+    private volatile boolean stopping;
+
+    private Counter expired;
+    private Counter notified;
+    private Counter notificationFailures;
+    private Counter skipped;
+    private Timer runs;
+
+    @PostConstruct
+    void init() {
+        expired = Counter.builder("ca.expiry.expired")
+                .description("Certificates moved from ACTIVE to EXPIRED")
+                .register(meterRegistry);
+        notified = Counter.builder("ca.expiry.notified")
+                .description("Upcoming-expiry events taken by every listener")
+                .register(meterRegistry);
+        notificationFailures = Counter.builder("ca.expiry.notification.failures")
+                .description("Upcoming-expiry events a listener failed on, retried on the next run")
+                .register(meterRegistry);
+        skipped = Counter.builder("ca.expiry.skipped")
+                .description("Runs skipped because another instance held the lock")
+                .register(meterRegistry);
+        runs = Timer.builder("ca.expiry.run")
+                .description("Duration of completed expiry maintenance runs")
+                .register(meterRegistry);
+        Gauge.builder("ca.expiry.running", running, r -> r.get() ? 1 : 0)
+                .description("1 while this instance is running expiry maintenance")
+                .register(meterRegistry);
+        Gauge.builder("ca.expiry.last.completed", lastCompletedRun, AtomicLong::get)
+                .description("Epoch seconds of the last completed run on this instance")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${ca.expiry.interval:5m}", initialDelayString = "${ca.expiry.initial-delay:1m}")
+    void scheduledRun() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            run();
+        } catch (SQLException | RuntimeException e) {
+            log.error("Expiry maintenance failed, will retry on the next run", e);
+        }
+    }
+
+    /**
+     * Runs both passes to completion on the calling thread.
+     *
+     * @return false if another instance (or thread) is already running them
+     */
+    public boolean run() throws SQLException {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try (AdvisoryLock lock = AdvisoryLock.tryAcquire(dataSource, LOCK_KEY)) {
+            if (lock == null) {
+                skipped.increment();
+                log.debug("Expiry maintenance is running on another instance");
+                return false;
+            }
+            long start = System.nanoTime();
+            long expiredCount = expireAll();
+            long notifiedCount = notifyExpiring();
+            runs.record(Duration.ofNanos(System.nanoTime() - start));
+            lastCompletedRun.set(Instant.now().getEpochSecond());
+            if (expiredCount > 0 || notifiedCount > 0) {
+                log.info("Expiry maintenance: {} certificates expired, {} expiring within {}",
+                        expiredCount, notifiedCount, noticeWindow);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        stopping = true;
+    }
+
+    private long expireAll() throws InterruptedException {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        long total = 0;
+        int updated;
+        do {
+            updated = jdbcTemplate.update(EXPIRE_CHUNK_SQL, now, chunkSize);
+            total += updated;
+            expired.increment(updated);
+        } while (updated == chunkSize && pauseBetweenChunks());
+        return total;
+    }
+
+    private long notifyExpiring() throws InterruptedException {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp until = Timestamp.valueOf(now.plus(noticeWindow));
+        Timestamp notifiedAt = Timestamp.valueOf(now);
+        Timestamp afterNotAfter = notifiedAt;
+        long afterId = Long.MIN_VALUE;
+        long total = 0;
+        List<Expiring> chunk;
+        do {
+            chunk = jdbcTemplate.query(SELECT_EXPIRING_SQL, (rs, rowNum) -> new Expiring(
+                    rs.getLong("id"),
+                    rs.getTimestamp("created_at"),
+                    new CertificateExpiringEvent(
+                            new BigInteger(rs.getString("serial_number")),
+                            rs.getString("subject_common_name"),
+                            rs.getTimestamp("not_after").toLocalDateTime())),
+                    until, afterNotAfter, afterNotAfter, afterId, chunkSize);
+            if (chunk.isEmpty()) {
+                break;
+            }
+
+            // Delivered before the row is marked: a notice is sent again rather than lost
+            List<Object[]> delivered = new ArrayList<>(chunk.size());
+            for (Expiring expiring : chunk) {
+                try {
+                    eventPublisher.publishEvent(expiring.event());
+                    delivered.add(new Object[]{notifiedAt, expiring.id(), expiring.createdAt()});
+                } catch (RuntimeException e) {
+                    notificationFailures.increment();
+                    log.warn("Expiry notification for certificate {} failed, will retry on the next run: {}",
+                            expiring.event().serialNumber(), e.getMessage());
+                }
+            }
+            if (!delivered.isEmpty()) {
+                jdbcTemplate.batchUpdate(MARK_NOTIFIED_SQL, delivered);
+            }
+            total += delivered.size();
+            notified.increment(delivered.size());
+
+            Expiring last = chunk.get(chunk.size() - 1);
+            afterNotAfter = Timestamp.valueOf(last.event().notAfter());
+            afterId = last.id();
+        } while (chunk.size() == chunkSize && pauseBetweenChunks());
+        return total;
+    }
+
+    private boolean pauseBetweenChunks() throws InterruptedException {
+        if (stopping) {
+            return false;
+        }
+        if (!pause.isZero()) {
+            Thread.sleep(pause.toMillis());
+        }
+        return true;
+    }
+}
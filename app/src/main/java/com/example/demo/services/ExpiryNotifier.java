@@ -0,0 +1,73 @@
+package com.example.demo.services;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Delivers {@link CertificateExpiringEvent}s: to {@code ca.expiry.webhook-url} as a JSON POST when one is set,
+ * otherwise to the log. A webhook that does not answer 2xx fails the event, so {@link ExpiryMaintenanceService}
+ * leaves the certificate unmarked and offers it again on its next run.
+ */
+@Service
+@Slf4j
+public class ExpiryNotifier {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${ca.expiry.webhook-url:}")
+    private String webhookUrl;
+
+    @Value("${ca.expiry.webhook-timeout:5s}")
+    private Duration webhookTimeout;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @EventListener
+    public void onCertificateExpiring(CertificateExpiringEvent event) {
+        if (webhookUrl.isBlank()) {
+            log.info("Certificate {} ({}) expires at {}", event.serialNumber(), event.subjectCommonName(), event.notAfter());
+            return;
+        }
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("serialNumber", event.serialNumber().toString());
+        body.put("subjectCommonName", event.subjectCommonName());
+        body.put("notAfter", event.notAfter().toString());
+        HttpResponse<Void> response;
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(webhookUrl))
+                    .timeout(webhookTimeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+            response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Expiry webhook failed: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while calling the expiry webhook", e);
+        }
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException("Expiry webhook answered " + response.statusCode());
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.demo.services;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.entities.Certificate;
+import com.example.demo.entities.IssuanceRequest;
+import com.example.demo.exceptions.IssuanceInProgressException;
+import com.example.demo.repositories.IssuanceRequestRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Single issuance with retries in mind. A request carrying an Idempotency-Key, or with {@code csr-dedup-window}
+ * set any request, is keyed; a repeat of a key returns the certificate issued the first time instead of signing
+ * again. Lookups go through three levels, cheapest first:
+ * <ol>
+ *     <li>an in-memory index of recently completed keys</li>
+ *     <li>requests still signing on this instance, which duplicates wait for rather than race</li>
+ *     <li>the {@code issuance_requests} table, whose primary key is claimed before signing, so across instances
+ *     exactly one request signs and the others wait for its serial</li>
+ * </ol>
+ * A key is bound to the fingerprint of its CSR and profile; reusing it for a different request is rejected.
+ */
+@Service
+@Slf4j
+public class IssuanceDeduplicationService {
+
+    private static final int MAX_KEY_LENGTH = 128;
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    /**
+     * @param replayed true if the certificate was issued by an earlier request with the same key
+     */
+    public record Issued(String certificatePem, boolean replayed) {
+    }
+
+    private record Completed(String fingerprint, String serialNumber, LocalDateTime createdAt) {
+    }
+
+    private record InFlight(String fingerprint, CompletableFuture<String> serialNumber) {
+    }
+
+    @Autowired
+    private CertificatesService certificatesService;
+
+    @Autowired
+    private IssuanceProfiles issuanceProfiles;
+
+    @Autowired
+    private IssuanceRequestRepository issuanceRequestRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${ca.issuance.idempotency-key-ttl:24h}")
+    private Duration idempotencyKeyTtl;
+
+    // Zero turns CSR deduplication off; Idempotency-Key still applies
+    @Value("${ca.issuance.csr-dedup-window:0s}")
+    private Duration csrDedupWindow;
+
+    // How long a duplicate waits for the request that is signing, and after which an unfinished claim is abandoned
+    @Value("${ca.issuance.coalesce-timeout:10s}")
+    private Duration coalesceTimeout;
+
+    @Value("${ca.issuance.dedup-cache-size:100000}")
+    private long cacheSize;
+
+    private Cache<String, Completed> completed;
+
+    private final ConcurrentHashMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        Duration retention = idempotencyKeyTtl.compareTo(csrDedupWindow) > 0 ? idempotencyKeyTtl : csrDedupWindow;
+        completed = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(retention)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, completed, "issuanceRequests");
+    }
+
+    public Issued issue(String csrPem, String profileName, String idempotencyKey) {
+        IssuanceProfile profile = issuanceProfiles.resolve(profileName);
+        if (idempotencyKey == null && csrDedupWindow.isZero()) {
+            return new Issued(encode(certificatesService.issue(csrPem, profile)), false);
+        }
+
+        String fingerprint = fingerprint(csrPem, profile);
+        if (idempotencyKey != null) {
+            checkIdempotencyKey(idempotencyKey);
+            return issueOnce("key:" + idempotencyKey, fingerprint, idempotencyKeyTtl, csrPem, profile);
+        }
+        return issueOnce("csr:" + fingerprint, fingerprint, csrDedupWindow, csrPem, profile);
+    }
+
+    @Scheduled(fixedDelayString = "${ca.issuance.purge-interval:10m}", initialDelayString = "${ca.issuance.purge-interval:10m}")
+    void purge() {
+        Duration retention = idempotencyKeyTtl.compareTo(csrDedupWindow) > 0 ? idempotencyKeyTtl : csrDedupWindow;
+        try {
+            int deleted = issuanceRequestRepository.deleteCreatedBefore(LocalDateTime.now().minus(retention));
+            if (deleted > 0) {
+                log.info("Purged {} expired issuance requests", deleted);
+            }
+        } catch (RuntimeException e) {
+            log.error("Purging expired issuance requests failed", e);
+        }
+    }
+
+    private Issued issueOnce(String key, String fingerprint, Duration window, String csrPem, IssuanceProfile profile) {
+        LocalDateTime cutoff = LocalDateTime.now().minus(window);
+        Completed hit = completed.getIfPresent(key);
+        if (hit != null && hit.createdAt().isAfter(cutoff)) {
+            checkFingerprint(hit.fingerprint(), fingerprint);
+            return replay(hit.serialNumber(), "memory");
+        }
+
+        InFlight mine = new InFlight(fingerprint, new CompletableFuture<>());
+        InFlight running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            checkFingerprint(running.fingerprint(), fingerprint);
+            try {
+                return replay(running.serialNumber().join(), "coalesced");
+            } catch (CompletionException e) {
+                // The same request failed for the one that signed it
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        try {
+            return claimAndIssue(key, fingerprint, cutoff, csrPem, profile, mine.serialNumber());
+        } catch (RuntimeException e) {
+            mine.serialNumber().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private Issued claimAndIssue(String key, String fingerprint, LocalDateTime cutoff, String csrPem,
+                                 IssuanceProfile profile, CompletableFuture<String> result) {
+        long deadline = System.nanoTime() + coalesceTimeout.toNanos();
+        // Also identifies the claim, so a request whose claim was taken over cannot complete the new one
+        LocalDateTime claimedAt;
+        while (true) {
+            claimedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+            Optional<IssuanceRequest> existing = issuanceRequestRepository.findById(key);
+            if (existing.isEmpty()) {
+                try {
+                    issuanceRequestRepository.claim(key, fingerprint, claimedAt);
+                    break;
+                } catch (DataIntegrityViolationException e) {
+                    // Another instance claimed it in the meantime
+                    continue;
+                }
+            }
+
+            IssuanceRequest request = existing.get();
+            if (request.getCreatedAt().isBefore(cutoff)) {
+                issuanceRequestRepository.deleteExpired(key, cutoff);
+                continue;
+            }
+            checkFingerprint(request.getRequestFingerprint(), fingerprint);
+            if (request.getSerialNumber() != null) {
+                remember(key, request);
+                result.complete(request.getSerialNumber());
+                return replay(request.getSerialNumber(), "database");
+            }
+
+            // Claimed by a request that is still signing on another instance, or that died while signing
+            if (request.getCreatedAt().isBefore(claimedAt.minus(coalesceTimeout))) {
+                if (issuanceRequestRepository.releaseClaim(key, claimedAt.minus(coalesceTimeout)) > 0) {
+                    log.warn("Took over the abandoned issuance claim for {}", key);
+                }
+                continue;
+            }
+            if (System.nanoTime() - deadline > 0) {
+                throw new IssuanceInProgressException("A request with this key is still being processed, retry later");
+            }
+            LockSupport.parkNanos(POLL_NANOS);
+        }
+
+        Certificate certificate;
+        try {
+            certificate = certificatesService.issue(csrPem, profile);
+        } catch (RuntimeException e) {
+            // Nothing was issued, so a retry may sign
+            issuanceRequestRepository.deleteClaim(key, claimedAt);
+            throw e;
+        }
+        if (issuanceRequestRepository.complete(key, claimedAt, certificate.getSerialNumber()) == 0) {
+            log.warn("Issuance claim for {} was taken over while signing; serial {} was issued as well",
+                    key, certificate.getSerialNumber());
+        }
+        completed.put(key, new Completed(fingerprint, certificate.getSerialNumber(), claimedAt));
+        result.complete(certificate.getSerialNumber());
+        return new Issued(encode(certificate), false);
+    }
+
+    private Issued replay(String serialNumber, String source) {
+        Counter.builder("ca.issuance.deduplicated")
+                .description("Issuance requests answered with the certificate of an earlier request")
+                .tag("source", source)
+                .register(meterRegistry)
+                .increment();
+        return new Issued(CertificateCodec.encodeCertificatePem(certificatesService.getCertificateDer(serialNumber)), true);
+    }
+
+    private void remember(String key, IssuanceRequest request) {
+        completed.put(key, new Completed(request.getRequestFingerprint(), request.getSerialNumber(), request.getCreatedAt()));
+    }
+
+    private static String encode(Certificate certificate) {
+        return CertificateCodec.encodeCertificatePem(certificate.getCertificateDer());
+    }
+
+    private static void checkFingerprint(String expected, String actual) {
+        if (!expected.equals(actual)) {
+            throw new IllegalArgumentException("Idempotency-Key was already used for a different request");
+        }
+    }
+
+    private static void checkIdempotencyKey(String key) {
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH || !key.chars().allMatch(c -> c > 0x20 && c < 0x7f)) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " printable ASCII characters");
+        }
+    }
+
+    /**
+     * SHA-256 over the CSR's DER and the profile name, so the same CSR in different PEM layouts matches
+     */
+    private static String fingerprint(String csrPem, IssuanceProfile profile) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(CertificateCodec.parseCsrPem(csrPem).getEncoded());
+            digest.update((byte) 0);
+            digest.update(profile.name().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
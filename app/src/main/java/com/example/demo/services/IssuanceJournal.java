@@ -0,0 +1,386 @@
+package com.example.demo.services;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import com.example.demo.entities.Certificate;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only, fsync'd log of issued certificates, kept as numbered segment files in one directory.
+ * Each record is {@code [int length][int crc32c][payload]}; a record is durable once {@link #append} returns.
+ * Concurrent appenders share fsyncs: whoever syncs first covers everything written before it (group commit).
+ * <p>
+ * The active segment is sealed by {@link #roll()}, and a sealed segment is deleted once its entries are in the
+ * database. Segments left over from a previous run are returned by {@link #recover()}; a torn record at the tail
+ * of a segment was never acknowledged, so reading stops there.
+ */
+@Slf4j
+class IssuanceJournal implements Closeable {
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{16})\\.log");
+    private static final int HEADER_BYTES = 8;
+    // 2 dropped the PEM copy; format 1 records left by an older version are still read
+    private static final byte FORMAT = 2;
+    private static final byte FORMAT_WITH_PEM = 1;
+
+    /**
+     * A sealed segment and the certificates it holds, in append order
+     */
+    record Segment(long sequence, Path path, List<Certificate> certificates, boolean recovered) {
+    }
+
+    private final Path directory;
+    private final List<Segment> recovered;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    // Guarded by appendLock; swapped by roll() while also holding syncLock
+    private volatile FileChannel channel;
+    private long sequence;
+    private List<Certificate> entries = new ArrayList<>();
+
+    // Logical offsets across all segments of this run
+    private volatile long written;
+    private volatile long synced;
+    private volatile boolean failed;
+
+    IssuanceJournal(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        this.recovered = readSegments();
+        this.sequence = recovered.isEmpty() ? 1 : recovered.get(recovered.size() - 1).sequence() + 1;
+        this.channel = openSegment(sequence);
+    }
+
+    /**
+     * Segments found on disk at startup, oldest first. Their entries may or may not already be in the database.
+     */
+    List<Segment> recover() {
+        return recovered;
+    }
+
+    /**
+     * Writes the certificates as one contiguous run of records and returns once they are on disk
+     */
+    void append(List<Certificate> certificates) {
+        ByteBuffer buffer = encode(certificates);
+        int length = buffer.remaining();
+        long end;
+
+        appendLock.lock();
+        try {
+            ensureUsable();
+            long position = channel.size();
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                // Drop the partial write, or later records would sit behind garbage that recovery stops at
+                try {
+                    channel.truncate(position);
+                } catch (IOException truncateFailure) {
+                    failed = true;
+                }
+                throw new UncheckedIOException("Failed to append to the issuance journal", e);
+            }
+            entries.addAll(certificates);
+            written += length;
+            end = written;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to the issuance journal", e);
+        } finally {
+            appendLock.unlock();
+        }
+
+        sync(end);
+    }
+
+    /**
+     * Seals the active segment and starts a new one
+     *
+     * @return the sealed segment, or null if nothing was appended since the last roll
+     */
+    Segment roll() {
+        appendLock.lock();
+        syncLock.lock();
+        try {
+            if (entries.isEmpty()) {
+                return null;
+            }
+            ensureUsable();
+            FileChannel sealed = channel;
+            try {
+                sealed.force(false);
+                synced = written;
+                sealed.close();
+                Segment segment = new Segment(sequence, segmentPath(sequence), entries, false);
+
+                sequence++;
+                entries = new ArrayList<>();
+                channel = openSegment(sequence);
+                return segment;
+            } catch (IOException e) {
+                failed = true;
+                throw new UncheckedIOException("Failed to roll the issuance journal", e);
+            }
+        } finally {
+            syncLock.unlock();
+            appendLock.unlock();
+        }
+    }
+
+    void delete(Segment segment) {
+        try {
+            Files.deleteIfExists(segment.path());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete journal segment " + segment.path(), e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        appendLock.lock();
+        try {
+            channel.close();
+            if (entries.isEmpty()) {
+                Files.deleteIfExists(segmentPath(sequence));
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void sync(long upTo) {
+        if (synced >= upTo) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            if (synced >= upTo) {
+                return;
+            }
+            ensureUsable();
+            // Everything written so far rides along with this fsync
+            long target = written;
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                // After a failed fsync the page cache state is unknown; stop acknowledging anything
+                failed = true;
+                throw new UncheckedIOException("Failed to sync the issuance journal", e);
+            }
+            synced = target;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void ensureUsable() {
+        if (failed) {
+            throw new IllegalStateException("Issuance journal is unusable after an I/O failure");
+        }
+    }
+
+    private FileChannel openSegment(long segmentSequence) throws IOException {
+        FileChannel opened = FileChannel.open(segmentPath(segmentSequence),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        syncDirectory();
+        return opened;
+    }
+
+    // Makes a newly created segment file itself survive a crash; not supported on every platform
+    private void syncDirectory() {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            log.debug("Could not fsync journal directory {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private Path segmentPath(long segmentSequence) {
+        return directory.resolve(String.format("segment-%016d.log", segmentSequence));
+    }
+
+    private List<Segment> readSegments() throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(path -> SEGMENT_NAME.matcher(path.getFileName().toString()).matches())
+                    .sorted()
+                    .toList();
+        }
+
+        List<Segment> segments = new ArrayList<>();
+        for (Path path : paths) {
+            Matcher matcher = SEGMENT_NAME.matcher(path.getFileName().toString());
+            matcher.matches();
+            List<Certificate> certificates = readSegment(path);
+            if (certificates.isEmpty()) {
+                Files.delete(path);
+                continue;
+            }
+            segments.add(new Segment(Long.parseLong(matcher.group(1)), path, certificates, true));
+        }
+        return segments;
+    }
+
+    private static List<Certificate> readSegment(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        List<Certificate> certificates = new ArrayList<>();
+        CRC32C crc = new CRC32C();
+
+        while (buffer.remaining() >= HEADER_BYTES) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                buffer.position(start);
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                buffer.position(start);
+                break;
+            }
+            certificates.add(decode(payload));
+        }
+
+        if (buffer.hasRemaining()) {
+            log.warn("Ignoring {} bytes of torn writes at the end of journal segment {}", buffer.remaining(), path);
+        }
+        return certificates;
+    }
+
+    private static ByteBuffer encode(List<Certificate> certificates) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(certificates.size() * 3072);
+            DataOutputStream out = new DataOutputStream(bytes);
+            CRC32C crc = new CRC32C();
+            for (Certificate certificate : certificates) {
+                byte[] payload = encode(certificate);
+                crc.reset();
+                crc.update(payload);
+                out.writeInt(payload.length);
+                out.writeInt((int) crc.getValue());
+                out.write(payload);
+            }
+            return ByteBuffer.wrap(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] encode(Certificate certificate) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(3072);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(FORMAT);
+        writeString(out, certificate.getSerialNumber());
+        out.writeInt(certificate.getVersion() == null ? -1 : certificate.getVersion());
+        writeString(out, certificate.getSubjectCommonName());
+        writeString(out, certificate.getSubjectOrganizationName());
+        writeString(out, certificate.getSubjectOrganizationUnit());
+        writeString(out, certificate.getSubjectCountry());
+        writeString(out, certificate.getSubjectState());
+        writeString(out, certificate.getSubjectLocality());
+        writeString(out, certificate.getSubjectEmail());
+        writeString(out, certificate.getSignatureAlgorithm());
+        writeString(out, certificate.getPublicKeyAlgorithm());
+        writeBytes(out, certificate.getCertificateDer());
+        writeDateTime(out, certificate.getNotBefore());
+        writeDateTime(out, certificate.getNotAfter());
+        writeDateTime(out, certificate.getCreatedAt());
+        writeString(out, certificate.getStatus());
+        return bytes.toByteArray();
+    }
+
+    private static Certificate decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte format = in.readByte();
+        if (format != FORMAT && format != FORMAT_WITH_PEM) {
+            throw new IOException("Unsupported journal record format " + format);
+        }
+        Certificate certificate = new Certificate();
+        certificate.setSerialNumber(readString(in));
+        int version = in.readInt();
+        certificate.setVersion(version < 0 ? null : version);
+        certificate.setSubjectCommonName(readString(in));
+        certificate.setSubjectOrganizationName(readString(in));
+        certificate.setSubjectOrganizationUnit(readString(in));
+        certificate.setSubjectCountry(readString(in));
+        certificate.setSubjectState(readString(in));
+        certificate.setSubjectLocality(readString(in));
+        certificate.setSubjectEmail(readString(in));
+        certificate.setSignatureAlgorithm(readString(in));
+        certificate.setPublicKeyAlgorithm(readString(in));
+        if (format == FORMAT_WITH_PEM) {
+            readBytes(in);
+        }
+        certificate.setCertificateDer(readBytes(in));
+        certificate.setNotBefore(readDateTime(in));
+        certificate.setNotAfter(readDateTime(in));
+        certificate.setCreatedAt(readDateTime(in));
+        certificate.setStatus(readString(in));
+        return certificate;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        writeBytes(out, value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = readBytes(in);
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        return in.readNBytes(length);
+    }
+
+    private static void writeDateTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(value.getNano());
+    }
+
+    private static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+    }
+}
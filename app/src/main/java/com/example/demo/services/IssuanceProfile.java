@@ -0,0 +1,271 @@
+package com.example.demo.services;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bouncycastle.asn1.ASN1Encodable;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.pkcs.Attribute;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.CertificatePolicies;
+import org.bouncycastle.asn1.x509.ExtendedKeyUsage;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.asn1.x509.KeyPurposeId;
+import org.bouncycastle.asn1.x509.KeyUsage;
+import org.bouncycastle.asn1.x509.PolicyInformation;
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+
+import com.example.demo.config.IssuanceProfileProperties;
+
+/**
+ * A named issuance profile compiled from its configuration: validity, key usages, policies and which SANs a CSR may
+ * carry. Extensions that are the same in every certificate of the profile are DER-encoded once here; per request only
+ * the subject key identifier and the copied SANs are built. Immutable and shared across threads.
+ */
+public final class IssuanceProfile {
+
+    private static final Map<String, Integer> KEY_USAGES = Map.of(
+            "digitalSignature", KeyUsage.digitalSignature,
+            "nonRepudiation", KeyUsage.nonRepudiation,
+            "contentCommitment", KeyUsage.nonRepudiation,
+            "keyEncipherment", KeyUsage.keyEncipherment,
+            "dataEncipherment", KeyUsage.dataEncipherment,
+            "keyAgreement", KeyUsage.keyAgreement,
+            "encipherOnly", KeyUsage.encipherOnly,
+            "decipherOnly", KeyUsage.decipherOnly
+    );
+
+    private static final Map<String, KeyPurposeId> PURPOSES = Map.of(
+            "serverAuth", KeyPurposeId.id_kp_serverAuth,
+            "clientAuth", KeyPurposeId.id_kp_clientAuth,
+            "codeSigning", KeyPurposeId.id_kp_codeSigning,
+            "emailProtection", KeyPurposeId.id_kp_emailProtection,
+            "timeStamping", KeyPurposeId.id_kp_timeStamping,
+            "ocspSigning", KeyPurposeId.id_kp_OCSPSigning
+    );
+
+    private static final Map<String, Integer> SAN_TYPES = Map.of(
+            "dns", GeneralName.dNSName,
+            "ip", GeneralName.iPAddress,
+            "email", GeneralName.rfc822Name,
+            "uri", GeneralName.uniformResourceIdentifier
+    );
+
+    // RSA key transport only; meaningless for EC and EdDSA subject keys
+    private static final int RSA_ONLY_USAGES = KeyUsage.keyEncipherment | KeyUsage.dataEncipherment;
+
+    private final String name;
+    private final Duration validity;
+    private final int keyUsageBits;
+    private final Set<ASN1ObjectIdentifier> purposes;
+    private final Set<Integer> subjectAltNameTypes;
+    private final boolean requireSubjectAltName;
+
+    private final List<Extension> fixedExtensions;
+    private final Extension rsaKeyUsage;
+    private final Extension otherKeyUsage;
+
+    private IssuanceProfile(String name, Duration validity, int keyUsageBits, List<KeyPurposeId> purposes,
+                            List<ASN1ObjectIdentifier> policies, Set<Integer> subjectAltNameTypes,
+                            boolean requireSubjectAltName) throws Exception {
+        this.name = name;
+        this.validity = validity;
+        this.keyUsageBits = keyUsageBits;
+        this.subjectAltNameTypes = subjectAltNameTypes;
+        this.requireSubjectAltName = requireSubjectAltName;
+        this.purposes = new HashSet<>();
+        for (KeyPurposeId purpose : purposes) {
+            this.purposes.add(purpose.toOID());
+        }
+
+        List<Extension> extensions = new ArrayList<>();
+        extensions.add(new Extension(Extension.basicConstraints, true, new BasicConstraints(false).getEncoded()));
+        if (!purposes.isEmpty()) {
+            extensions.add(new Extension(Extension.extendedKeyUsage, false,
+                    new ExtendedKeyUsage(purposes.toArray(KeyPurposeId[]::new)).getEncoded()));
+        }
+        if (!policies.isEmpty()) {
+            PolicyInformation[] policyInformation = policies.stream()
+                    .map(PolicyInformation::new)
+                    .toArray(PolicyInformation[]::new);
+            extensions.add(new Extension(Extension.certificatePolicies, false,
+                    new CertificatePolicies(policyInformation).getEncoded()));
+        }
+        this.fixedExtensions = List.copyOf(extensions);
+        this.rsaKeyUsage = keyUsage(keyUsageBits);
+        this.otherKeyUsage = keyUsage(keyUsageBits & ~RSA_ONLY_USAGES);
+    }
+
+    /**
+     * Validates the configuration and pre-encodes the profile's constant extensions
+     */
+    public static IssuanceProfile compile(String name, IssuanceProfileProperties.Profile definition) {
+        if (definition.getValidity() == null || definition.getValidity().isNegative() || definition.getValidity().isZero()) {
+            throw new IllegalArgumentException("Profile " + name + ": validity must be positive");
+        }
+
+        int keyUsageBits = 0;
+        for (String usage : definition.getKeyUsage()) {
+            keyUsageBits |= lookup(KEY_USAGES, usage, name, "key usage");
+        }
+        List<KeyPurposeId> purposes = new ArrayList<>();
+        for (String purpose : definition.getExtendedKeyUsage()) {
+            purposes.add(lookup(PURPOSES, purpose, name, "extended key usage"));
+        }
+        List<ASN1ObjectIdentifier> policies = new ArrayList<>();
+        for (String policy : definition.getPolicies()) {
+            policies.add(new ASN1ObjectIdentifier(policy.trim()));
+        }
+        Set<Integer> subjectAltNameTypes = new HashSet<>();
+        for (String type : definition.getSubjectAltNames()) {
+            subjectAltNameTypes.add(lookup(SAN_TYPES, type, name, "subject alt name type"));
+        }
+        if (definition.isRequireSubjectAltName() && subjectAltNameTypes.isEmpty()) {
+            throw new IllegalArgumentException("Profile " + name + " requires SANs but allows no SAN type");
+        }
+
+        try {
+            return new IssuanceProfile(name, definition.getValidity(), keyUsageBits, purposes, policies,
+                    Set.copyOf(subjectAltNameTypes), definition.isRequireSubjectAltName());
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Profile " + name + ": " + e.getMessage(), e);
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public Duration validity() {
+        return validity;
+    }
+
+    /**
+     * Checks the extensions requested in the CSR against this profile and returns the SANs to copy, or null.
+     * Usages the profile grants anyway may be requested; anything beyond them, a CA flag, a disallowed SAN type
+     * or an unknown critical extension rejects the request. Unknown non-critical extensions are dropped.
+     */
+    public GeneralNames checkRequest(PKCS10CertificationRequest csr) {
+        Extensions requested = requestedExtensions(csr);
+        GeneralNames subjectAltNames = null;
+
+        if (requested != null) {
+            for (ASN1ObjectIdentifier oid : requested.getExtensionOIDs()) {
+                Extension extension = requested.getExtension(oid);
+                if (oid.equals(Extension.subjectAlternativeName)) {
+                    subjectAltNames = checkSubjectAltNames(GeneralNames.getInstance(extension.getParsedValue()));
+                } else if (oid.equals(Extension.keyUsage)) {
+                    int requestedBits = keyUsageBits(KeyUsage.getInstance(extension.getParsedValue()));
+                    if ((requestedBits & ~keyUsageBits) != 0) {
+                        throw new IllegalArgumentException("Requested key usage is not allowed by profile " + name);
+                    }
+                } else if (oid.equals(Extension.extendedKeyUsage)) {
+                    for (KeyPurposeId purpose : ExtendedKeyUsage.getInstance(extension.getParsedValue()).getUsages()) {
+                        if (!purposes.contains(purpose.toOID())) {
+                            throw new IllegalArgumentException("Extended key usage " + purpose.toOID()
+                                    + " is not allowed by profile " + name);
+                        }
+                    }
+                } else if (oid.equals(Extension.basicConstraints)) {
+                    if (BasicConstraints.getInstance(extension.getParsedValue()).isCA()) {
+                        throw new IllegalArgumentException("CA certificates cannot be requested");
+                    }
+                } else if (extension.isCritical() && !oid.equals(Extension.subjectKeyIdentifier)) {
+                    throw new IllegalArgumentException("Unsupported critical extension " + oid);
+                }
+            }
+        }
+
+        if (subjectAltNames == null && requireSubjectAltName) {
+            throw new IllegalArgumentException("Profile " + name + " requires a subjectAltName in the CSR");
+        }
+        return subjectAltNames;
+    }
+
+    /**
+     * Adds this profile's extensions to a certificate being built for {@code publicKeyInfo}
+     */
+    public void addExtensions(X509v3CertificateBuilder builder, SigningContext signingContext,
+                              SubjectPublicKeyInfo publicKeyInfo, GeneralNames subjectAltNames) throws Exception {
+        for (Extension extension : fixedExtensions) {
+            builder.addExtension(extension);
+        }
+        Extension keyUsage = isRsa(publicKeyInfo) ? rsaKeyUsage : otherKeyUsage;
+        if (keyUsage != null) {
+            builder.addExtension(keyUsage);
+        }
+        builder.addExtension(signingContext.material().authorityKeyIdentifier());
+        builder.addExtension(signingContext.subjectKeyIdentifier(publicKeyInfo));
+        if (subjectAltNames != null) {
+            builder.addExtension(Extension.subjectAlternativeName, false, subjectAltNames);
+        }
+    }
+
+    private GeneralNames checkSubjectAltNames(GeneralNames names) {
+        GeneralName[] entries = names.getNames();
+        if (entries.length == 0) {
+            return null;
+        }
+        for (GeneralName entry : entries) {
+            if (!subjectAltNameTypes.contains(entry.getTagNo())) {
+                throw new IllegalArgumentException("Subject alt name " + entry + " is not allowed by profile " + name);
+            }
+        }
+        return names;
+    }
+
+    private static Extensions requestedExtensions(PKCS10CertificationRequest csr) {
+        Attribute[] attributes = csr.getAttributes(PKCSObjectIdentifiers.pkcs_9_at_extensionRequest);
+        if (attributes.length == 0) {
+            return null;
+        }
+        ASN1Encodable value = attributes[0].getAttrValues().getObjectAt(0);
+        try {
+            return Extensions.getInstance(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed extension request in CSR", e);
+        }
+    }
+
+    private static int keyUsageBits(KeyUsage keyUsage) {
+        byte[] bytes = keyUsage.getBytes();
+        if (bytes.length == 0) {
+            return 0;
+        }
+        int bits = bytes[0] & 0xff;
+        if (bytes.length > 1) {
+            bits |= (bytes[1] & 0xff) << 8;
+        }
+        return bits;
+    }
+
+    private static Extension keyUsage(int bits) throws Exception {
+        if (bits == 0) {
+            return null;
+        }
+        return new Extension(Extension.keyUsage, true, new KeyUsage(bits).getEncoded());
+    }
+
+    private static boolean isRsa(SubjectPublicKeyInfo publicKeyInfo) {
+        return PKCSObjectIdentifiers.rsaEncryption.equals(publicKeyInfo.getAlgorithm().getAlgorithm());
+    }
+
+    private static <T> T lookup(Map<String, T> values, String key, String profile, String what) {
+        T value = values.get(key.trim());
+        if (value == null) {
+            throw new IllegalArgumentException("Profile " + profile + ": unknown " + what + " '" + key
+                    + "', expected one of " + values.keySet());
+        }
+        return value;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.demo.services;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.config.IssuanceProfileProperties;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The configured {@link IssuanceProfile}s, compiled once at startup so a bad profile fails the boot rather than
+ * the first request that uses it
+ */
+@Service
+@Slf4j
+public class IssuanceProfiles {
+
+    @Autowired
+    private IssuanceProfileProperties properties;
+
+    private Map<String, IssuanceProfile> profiles;
+
+    private IssuanceProfile defaultProfile;
+
+    @PostConstruct
+    void init() {
+        Map<String, IssuanceProfileProperties.Profile> definitions = new LinkedHashMap<>(properties.getProfiles());
+        // Without configuration, keep issuing 365-day certificates with no usage restrictions and no SANs
+        definitions.putIfAbsent(properties.getDefaultProfile(), new IssuanceProfileProperties.Profile());
+
+        Map<String, IssuanceProfile> compiled = new LinkedHashMap<>();
+        definitions.forEach((name, definition) -> compiled.put(name, IssuanceProfile.compile(name, definition)));
+        profiles = Collections.unmodifiableMap(compiled);
+        defaultProfile = profiles.get(properties.getDefaultProfile());
+        log.info("Issuance profiles {}, default {}", compiled.keySet(), defaultProfile.name());
+    }
+
+    /**
+     * The named profile, or the default one when {@code name} is blank
+     */
+    public IssuanceProfile resolve(String name) {
+        if (name == null || name.isBlank()) {
+            return defaultProfile;
+        }
+        IssuanceProfile profile = profiles.get(name);
+        if (profile == null) {
+            throw new IllegalArgumentException("Unknown profile '" + name + "', expected one of " + profiles.keySet());
+        }
+        return profile;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.demo.services;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * {@link SigningEngine} over one {@link PooledSigningEngine} per CA of the {@link CaHierarchy}. Issuance is spread
+ * round-robin across the issuing CAs, so several keys sign in parallel and each intermediate only ever signs its
+ * share of the certificates; {@link #executeAs} signs with a specific CA, for its CRL and OCSP responses.
+ * The pools follow the hierarchy and are rebuilt when a reload adds or removes a CA.
+ */
+public class IssuingCaSigningEngine implements SigningEngine {
+
+    private record Pools(CaHierarchy hierarchy, Map<String, PooledSigningEngine> byName,
+                         List<PooledSigningEngine> issuers) {
+    }
+
+    private final Supplier<CaHierarchy> hierarchySupplier;
+    private final Supplier<BigInteger> serialNumbers;
+    private final int coreSize;
+    private final int maxSize;
+    private final Duration borrowTimeout;
+    private final AtomicInteger next = new AtomicInteger();
+
+    // A lock rather than synchronized: building contexts is slow enough to matter to a pinned virtual thread
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private volatile Pools pools;
+
+    /**
+     * @param coreSize initial contexts per issuing CA; a root that only signs CRLs and OCSP responses starts with one
+     * @param maxSize  upper bound on contexts per CA
+     */
+    public IssuingCaSigningEngine(Supplier<CaHierarchy> hierarchySupplier, Supplier<BigInteger> serialNumbers,
+                                  int coreSize, int maxSize, Duration borrowTimeout) {
+        this.hierarchySupplier = hierarchySupplier;
+        this.serialNumbers = serialNumbers;
+        this.coreSize = coreSize;
+        this.maxSize = maxSize;
+        this.borrowTimeout = borrowTimeout;
+        this.pools = build(hierarchySupplier.get(), Map.of());
+    }
+
+    @Override
+    public <T> T execute(SigningOperation<T> operation) {
+        List<PooledSigningEngine> issuers = pools().issuers();
+        return issuers.get(Math.floorMod(next.getAndIncrement(), issuers.size())).execute(operation);
+    }
+
+    /**
+     * Runs the operation with a context of the named CA ({@link CaHierarchy#ROOT} or an intermediate)
+     */
+    public <T> T executeAs(String caName, SigningOperation<T> operation) {
+        PooledSigningEngine engine = pools().byName().get(caName);
+        if (engine == null) {
+            throw new IllegalArgumentException("No signing key for CA " + caName);
+        }
+        return engine.execute(operation);
+    }
+
+    public int idleCount() {
+        return pools.byName().values().stream().mapToInt(PooledSigningEngine::idleCount).sum();
+    }
+
+    public int createdCount() {
+        return pools.byName().values().stream().mapToInt(PooledSigningEngine::createdCount).sum();
+    }
+
+    public int maxSize() {
+        return pools.byName().values().stream().mapToInt(PooledSigningEngine::maxSize).sum();
+    }
+
+    private Pools pools() {
+        Pools current = pools;
+        CaHierarchy hierarchy = hierarchySupplier.get();
+        if (current.hierarchy() == hierarchy) {
+            return current;
+        }
+        rebuildLock.lock();
+        try {
+            if (pools.hierarchy() != hierarchy) {
+                pools = build(hierarchy, pools.byName());
+            }
+            return pools;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private Pools build(CaHierarchy hierarchy, Map<String, PooledSigningEngine> previous) {
+        List<String> issuerNames = hierarchy.issuerNames();
+        Map<String, PooledSigningEngine> byName = new LinkedHashMap<>();
+        for (String name : hierarchy.signerNames()) {
+            // Pools of CAs that are still there swap their contexts to the reloaded key themselves
+            PooledSigningEngine engine = previous.get(name);
+            if (engine == null) {
+                int core = issuerNames.contains(name) ? coreSize : 1;
+                engine = new PooledSigningEngine(() -> hierarchySupplier.get().signer(name), serialNumbers,
+                        core, Math.max(core, maxSize), borrowTimeout);
+            }
+            byName.put(name, engine);
+        }
+        List<PooledSigningEngine> issuers = new ArrayList<>(issuerNames.size());
+        for (String name : issuerNames) {
+            issuers.add(byName.get(name));
+        }
+        return new Pools(hierarchy, Map.copyOf(byName), List.copyOf(issuers));
+    }
+}
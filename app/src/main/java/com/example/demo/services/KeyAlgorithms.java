@@ -0,0 +1,67 @@
+package com.example.demo.services;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.security.Key;
+import java.security.PrivateKey;
+import java.security.interfaces.ECKey;
+import java.security.interfaces.EdECKey;
+
+import org.bouncycastle.asn1.pkcs.PrivateKeyInfo;
+import org.bouncycastle.openssl.PEMKeyPair;
+import org.bouncycastle.openssl.PEMParser;
+import org.bouncycastle.openssl.jcajce.JcaPEMKeyConverter;
+
+/**
+ * Maps key types to signature algorithms, so the CA key, not the code, decides how certificates, CRLs and OCSP
+ * responses are signed and how client signatures are checked. Supports RSA, ECDSA (hash sized to the curve) and
+ * EdDSA. Kept free of Spring so the benchmarks can use it.
+ */
+public final class KeyAlgorithms {
+
+    private KeyAlgorithms() {
+    }
+
+    /**
+     * The signature algorithm conventionally paired with the key: SHA256withRSA for RSA, SHA-256/384/512 with
+     * ECDSA for P-256/P-384/P-521, and pure Ed25519 or Ed448
+     */
+    public static String signatureAlgorithm(Key key) {
+        if (key instanceof EdECKey edKey) {
+            return edKey.getParams().getName();
+        }
+        if (key instanceof ECKey ecKey) {
+            int fieldSize = ecKey.getParams().getCurve().getField().getFieldSize();
+            if (fieldSize <= 256) {
+                return "SHA256withECDSA";
+            }
+            return fieldSize <= 384 ? "SHA384withECDSA" : "SHA512withECDSA";
+        }
+        return switch (key.getAlgorithm()) {
+            case "RSA" -> "SHA256withRSA";
+            case "EC", "ECDSA" -> "SHA256withECDSA";
+            case "Ed25519", "Ed448" -> key.getAlgorithm();
+            default -> throw new IllegalArgumentException("Unsupported key algorithm: " + key.getAlgorithm());
+        };
+    }
+
+    /**
+     * Reads a PEM private key of any supported type: PKCS#8 ({@code PRIVATE KEY}) as written by
+     * {@code openssl genpkey}, or the traditional {@code RSA PRIVATE KEY} / {@code EC PRIVATE KEY} forms
+     */
+    public static PrivateKey readPrivateKey(Reader pem) throws IOException {
+        try (PEMParser pemParser = new PEMParser(pem)) {
+            Object parsed = pemParser.readObject();
+            JcaPEMKeyConverter converter = new JcaPEMKeyConverter();
+            if (parsed instanceof PrivateKeyInfo privateKeyInfo) {
+                return converter.getPrivateKey(privateKeyInfo);
+            }
+            if (parsed instanceof PEMKeyPair keyPair) {
+                return converter.getPrivateKey(keyPair.getPrivateKeyInfo());
+            }
+            throw new IllegalArgumentException(parsed == null
+                    ? "No PEM private key found"
+                    : "Unsupported private key format: " + parsed.getClass().getSimpleName());
+        }
+    }
+}
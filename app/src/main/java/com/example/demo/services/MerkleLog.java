@@ -0,0 +1,587 @@
+package com.example.demo.services;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only Merkle tree over issued certificates, hashed as in RFC 6962 (leaf = SHA-256(0x00 || DER),
+ * node = SHA-256(0x01 || left || right)) and kept in segment files of 2^20 items under one directory:
+ * <ul>
+ *     <li>{@code entries/NNNNNNNN.log}: the leaves, {@code [int length][int crc32c][long timestamp][DER]}</li>
+ *     <li>{@code level-KK/NNNNNNNN.bin}: the hash of every complete subtree of 2^K leaves, 32 bytes each,
+ *     memory-mapped</li>
+ * </ul>
+ * Appending a leaf writes its hash plus the hash of each subtree it completes, so an append costs O(log n) hashing
+ * (amortised two hashes). Proofs read stored subtree hashes and only hash along the right edge of the tree.
+ * <p>
+ * Appends are not forced to disk. {@link #force(long)} makes the entries durable, with concurrent callers sharing one
+ * fsync (group commit); the subtree hashes can always be recomputed from the entries, so they are left to
+ * {@link #sync()}, which forces everything appended so far and records a checkpoint of the synced size and root. On
+ * open, subtree hashes up to the checkpoint are trusted once the root matches, and any leaves written after it are
+ * hashed again from the entries.
+ */
+@Slf4j
+final class MerkleLog implements Closeable {
+
+    static final int HASH_BYTES = 32;
+
+    private static final int SEGMENT_SHIFT = 20;
+    private static final int SEGMENT_ITEMS = 1 << SEGMENT_SHIFT;
+    private static final int ENTRY_HEADER_BYTES = 8;
+    private static final byte[] EMPTY_ROOT = sha256().digest();
+
+    private final Path directory;
+    private final Path entriesDirectory;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock forceLock = new ReentrantLock();
+
+    // levels.get(k).get(s) is segment s of level k; only ever grown, under appendLock
+    private final List<List<MappedByteBuffer>> levels = new CopyOnWriteArrayList<>();
+
+    // Leading 8 bytes of each leaf hash to its index; lookups confirm against the full stored hash
+    private final Map<Long, Long> leafIndex = new ConcurrentHashMap<>();
+
+    // Guarded by appendLock
+    private final Set<MappedByteBuffer> dirty = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final MessageDigest appendDigest = sha256();
+    private FileChannel entries;
+
+    private volatile long size;
+    private volatile long checkpointSize = -1;
+    // Leaves whose entries are known to be on disk; guarded by forceLock for writes
+    private volatile long durableSize;
+
+    MerkleLog(Path directory) throws IOException {
+        this.directory = directory;
+        this.entriesDirectory = directory.resolve("entries");
+        Files.createDirectories(entriesDirectory);
+
+        long entryCount = recoverEntries();
+        long trusted = trustedSize(entryCount);
+        size = trusted;
+        if (trusted < entryCount) {
+            log.info("Hashing {} transparency log leaves written after the last checkpoint", entryCount - trusted);
+            rehashFrom(trusted, entryCount);
+        }
+        for (long i = 0; i < size; i++) {
+            leafIndex.putIfAbsent(prefix(node(0, i)), i);
+        }
+        entries = openEntrySegment(size >>> SEGMENT_SHIFT);
+        durableSize = size;
+    }
+
+    static byte[] leafHash(byte[] der) {
+        MessageDigest digest = sha256();
+        digest.update((byte) 0);
+        return digest.digest(der);
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * Leaves whose entries have been forced to disk, and so survive a crash
+     */
+    long durableSize() {
+        return durableSize;
+    }
+
+    /**
+     * Appends the certificates as consecutive leaves
+     *
+     * @return the index of the first one
+     */
+    long append(List<byte[]> ders, long timestamp) throws IOException {
+        ByteBuffer records = encode(ders, timestamp);
+        appendLock.lock();
+        try {
+            long first = size;
+            // Leaves never straddle entry segments, so segment s holds exactly leaves [s * 2^20, (s + 1) * 2^20)
+            int written = 0;
+            while (written < ders.size()) {
+                long index = first + written;
+                if (index > 0 && (index & (SEGMENT_ITEMS - 1)) == 0 && entries.size() > 0) {
+                    rollEntries(index >>> SEGMENT_SHIFT);
+                }
+                int batch = (int) Math.min(ders.size() - written, SEGMENT_ITEMS - (index & (SEGMENT_ITEMS - 1)));
+                writeRecords(records, batch);
+                written += batch;
+            }
+            for (byte[] der : ders) {
+                appendDigest.update((byte) 0);
+                addLeaf(appendDigest.digest(der));
+            }
+            return first;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Returns once the entries of the first {@code upTo} leaves are on disk. Everything appended before the fsync
+     * rides along with it, so concurrent appenders mostly find their leaves already covered.
+     */
+    void force(long upTo) throws IOException {
+        if (durableSize >= upTo) {
+            return;
+        }
+        forceLock.lock();
+        try {
+            if (durableSize >= upTo) {
+                return;
+            }
+            long target;
+            FileChannel channel;
+            appendLock.lock();
+            try {
+                target = size;
+                channel = entries;
+            } finally {
+                appendLock.unlock();
+            }
+            try {
+                channel.force(false);
+            } catch (ClosedChannelException e) {
+                // Rolled in the meantime; a segment is forced before it is closed
+            }
+            durableSize = target;
+        } finally {
+            forceLock.unlock();
+        }
+    }
+
+    /**
+     * Forces every leaf appended so far to disk and checkpoints it
+     *
+     * @return the synced tree size
+     */
+    long sync() throws IOException {
+        long syncedSize;
+        List<MappedByteBuffer> toForce;
+        appendLock.lock();
+        try {
+            syncedSize = size;
+            toForce = new ArrayList<>(dirty);
+            dirty.clear();
+        } finally {
+            appendLock.unlock();
+        }
+        if (syncedSize == checkpointSize) {
+            return syncedSize;
+        }
+        force(syncedSize);
+        for (MappedByteBuffer buffer : toForce) {
+            buffer.force();
+        }
+        writeCheckpoint(syncedSize, rootHash(syncedSize));
+        checkpointSize = syncedSize;
+        return syncedSize;
+    }
+
+    /**
+     * Merkle tree hash of the first {@code treeSize} leaves
+     */
+    byte[] rootHash(long treeSize) {
+        checkTreeSize(treeSize);
+        return treeSize == 0 ? EMPTY_ROOT.clone() : subtreeHash(0, treeSize);
+    }
+
+    /**
+     * @return the index of the leaf with this hash, or -1 if it is not in the log
+     */
+    long findLeaf(byte[] leafHash) {
+        Long index = leafIndex.get(prefix(leafHash));
+        return index != null && index < size && Arrays.equals(node(0, index), leafHash) ? index : -1;
+    }
+
+    /**
+     * Audit path from the leaf to the root of the tree of {@code treeSize} leaves, bottom-up (RFC 6962 2.1.1)
+     */
+    List<byte[]> inclusionProof(long leafIndex, long treeSize) {
+        checkTreeSize(treeSize);
+        if (leafIndex < 0 || leafIndex >= treeSize) {
+            throw new IllegalArgumentException("Leaf " + leafIndex + " is not in a tree of size " + treeSize);
+        }
+        List<byte[]> proof = new ArrayList<>();
+        path(leafIndex, 0, treeSize, proof);
+        return proof;
+    }
+
+    /**
+     * Proof that the tree of {@code first} leaves is a prefix of the tree of {@code second} leaves (RFC 6962 2.1.2)
+     */
+    List<byte[]> consistencyProof(long first, long second) {
+        checkTreeSize(second);
+        if (first < 0 || first > second) {
+            throw new IllegalArgumentException("Tree size " + first + " is not between 0 and " + second);
+        }
+        List<byte[]> proof = new ArrayList<>();
+        if (first > 0 && first < second) {
+            subproof(first, 0, second, true, proof);
+        }
+        return proof;
+    }
+
+    @Override
+    public void close() throws IOException {
+        appendLock.lock();
+        try {
+            entries.close();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void addLeaf(byte[] leafHash) {
+        long index = size;
+        writeNode(0, index, leafHash);
+        leafIndex.putIfAbsent(prefix(leafHash), index);
+
+        // Every trailing 1 bit of the index is a subtree this leaf completes
+        byte[] hash = leafHash;
+        long position = index;
+        int level = 0;
+        while ((position & 1) == 1) {
+            hash = nodeHash(appendDigest, node(level, position - 1), hash);
+            position >>>= 1;
+            level++;
+            writeNode(level, position, hash);
+        }
+        // Published last: readers only look at nodes below size
+        size = index + 1;
+    }
+
+    private void path(long leaf, long lo, long hi, List<byte[]> proof) {
+        if (hi - lo == 1) {
+            return;
+        }
+        long k = Long.highestOneBit(hi - lo - 1);
+        if (leaf < lo + k) {
+            path(leaf, lo, lo + k, proof);
+            proof.add(subtreeHash(lo + k, hi));
+        } else {
+            path(leaf, lo + k, hi, proof);
+            proof.add(subtreeHash(lo, lo + k));
+        }
+    }
+
+    private void subproof(long first, long lo, long hi, boolean wholeTree, List<byte[]> proof) {
+        if (first == hi) {
+            if (!wholeTree) {
+                proof.add(subtreeHash(lo, hi));
+            }
+            return;
+        }
+        long k = Long.highestOneBit(hi - lo - 1);
+        if (first <= lo + k) {
+            subproof(first, lo, lo + k, wholeTree, proof);
+            proof.add(subtreeHash(lo + k, hi));
+        } else {
+            subproof(first, lo + k, hi, false, proof);
+            proof.add(subtreeHash(lo, lo + k));
+        }
+    }
+
+    /**
+     * Hash of leaves [lo, hi). In the RFC 6962 recursion lo is always a multiple of the left subtree's width, so
+     * the left half is a stored complete subtree and only the right edge is hashed here.
+     */
+    private byte[] subtreeHash(long lo, long hi) {
+        long width = hi - lo;
+        if (Long.bitCount(width) == 1 && lo % width == 0) {
+            int level = Long.numberOfTrailingZeros(width);
+            return node(level, lo >>> level);
+        }
+        long k = Long.highestOneBit(width - 1);
+        return nodeHash(sha256(), subtreeHash(lo, lo + k), subtreeHash(lo + k, hi));
+    }
+
+    private byte[] node(int level, long index) {
+        byte[] hash = new byte[HASH_BYTES];
+        segment(level, index >>> SEGMENT_SHIFT).get(offset(index), hash);
+        return hash;
+    }
+
+    private void writeNode(int level, long index, byte[] hash) {
+        MappedByteBuffer segment = segment(level, index >>> SEGMENT_SHIFT);
+        segment.put(offset(index), hash);
+        dirty.add(segment);
+    }
+
+    private MappedByteBuffer segment(int level, long segmentIndex) {
+        if (level < levels.size() && segmentIndex < levels.get(level).size()) {
+            return levels.get(level).get((int) segmentIndex);
+        }
+        appendLock.lock();
+        try {
+            while (levels.size() <= level) {
+                levels.add(new CopyOnWriteArrayList<>());
+            }
+            List<MappedByteBuffer> segments = levels.get(level);
+            while (segments.size() <= segmentIndex) {
+                segments.add(mapSegment(level, segments.size()));
+            }
+            return segments.get((int) segmentIndex);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private MappedByteBuffer mapSegment(int level, int segmentIndex) {
+        Path levelDirectory = directory.resolve(String.format("level-%02d", level));
+        try {
+            Files.createDirectories(levelDirectory);
+            // Mapping a region past the end grows the file; unwritten parts stay sparse
+            try (FileChannel channel = FileChannel.open(levelDirectory.resolve(String.format("%08d.bin", segmentIndex)),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) SEGMENT_ITEMS * HASH_BYTES);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to map transparency log segment " + levelDirectory + "/"
+                    + segmentIndex + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static int offset(long index) {
+        return (int) (index & (SEGMENT_ITEMS - 1)) * HASH_BYTES;
+    }
+
+    private void checkTreeSize(long treeSize) {
+        if (treeSize < 0 || treeSize > size) {
+            throw new IllegalArgumentException("Tree size " + treeSize + " is not between 0 and " + size);
+        }
+    }
+
+    private ByteBuffer encode(List<byte[]> ders, long timestamp) {
+        int length = 0;
+        for (byte[] der : ders) {
+            length += ENTRY_HEADER_BYTES + Long.BYTES + der.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        CRC32C crc = new CRC32C();
+        for (byte[] der : ders) {
+            ByteBuffer timestampBytes = ByteBuffer.allocate(Long.BYTES).putLong(0, timestamp);
+            crc.reset();
+            crc.update(timestampBytes.array());
+            crc.update(der);
+            buffer.putInt(Long.BYTES + der.length).putInt((int) crc.getValue()).putLong(timestamp).put(der);
+        }
+        return buffer.flip();
+    }
+
+    private void writeRecords(ByteBuffer records, int count) throws IOException {
+        ByteBuffer slice = records.slice();
+        int end = 0;
+        for (int i = 0; i < count; i++) {
+            end += ENTRY_HEADER_BYTES + slice.getInt(end);
+        }
+        slice.limit(end);
+        long position = entries.size();
+        try {
+            while (slice.hasRemaining()) {
+                entries.write(slice);
+            }
+        } catch (IOException e) {
+            // A half-written record would hide every later one from recovery
+            entries.truncate(position);
+            throw e;
+        }
+        records.position(records.position() + end);
+    }
+
+    private void rollEntries(long segmentIndex) throws IOException {
+        entries.force(false);
+        entries.close();
+        entries = openEntrySegment(segmentIndex);
+    }
+
+    private FileChannel openEntrySegment(long segmentIndex) throws IOException {
+        FileChannel opened = FileChannel.open(entrySegmentPath(segmentIndex),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        syncDirectory();
+        return opened;
+    }
+
+    // Makes a newly created entry segment itself survive a crash; not supported on every platform
+    private void syncDirectory() {
+        try (FileChannel dir = FileChannel.open(entriesDirectory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            log.debug("Could not fsync transparency log directory {}: {}", entriesDirectory, e.getMessage());
+        }
+    }
+
+    private Path entrySegmentPath(long segmentIndex) {
+        return entriesDirectory.resolve(String.format("%08d.log", segmentIndex));
+    }
+
+    /**
+     * Counts the leaves on disk. Sealed segments are full by construction; the last one is scanned and cut back
+     * to its last complete record.
+     */
+    private long recoverEntries() throws IOException {
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(entriesDirectory)) {
+            segments = files.filter(path -> path.getFileName().toString().matches("\\d{8}\\.log")).sorted().toList();
+        }
+        for (int i = 0; i < segments.size(); i++) {
+            if (!segments.get(i).equals(entrySegmentPath(i))) {
+                throw new IllegalStateException("Transparency log entry segment " + i + " is missing");
+            }
+        }
+        if (segments.isEmpty()) {
+            return 0;
+        }
+        long last = segments.size() - 1;
+        long[] validBytes = new long[1];
+        long count = scanEntries(entrySegmentPath(last), Long.MAX_VALUE, null, validBytes);
+        try (FileChannel channel = FileChannel.open(entrySegmentPath(last), StandardOpenOption.WRITE)) {
+            if (channel.size() > validBytes[0]) {
+                log.warn("Dropping {} bytes of torn writes at the end of {}", channel.size() - validBytes[0],
+                        entrySegmentPath(last));
+                channel.truncate(validBytes[0]);
+            }
+        }
+        return last * SEGMENT_ITEMS + count;
+    }
+
+    /**
+     * @return the number of leaves whose stored subtree hashes can be trusted
+     */
+    private long trustedSize(long entryCount) throws IOException {
+        Path checkpoint = directory.resolve("checkpoint");
+        if (!Files.exists(checkpoint)) {
+            return 0;
+        }
+        ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(checkpoint));
+        long checkpointed = content.getLong();
+        byte[] root = new byte[HASH_BYTES];
+        content.get(root);
+        if (checkpointed > entryCount) {
+            throw new IllegalStateException("Transparency log checkpoint covers " + checkpointed
+                    + " leaves but only " + entryCount + " entries are on disk");
+        }
+        size = checkpointed;
+        if (!Arrays.equals(rootHash(checkpointed), root)) {
+            log.warn("Transparency log tree does not match its checkpoint, rebuilding it from the entries");
+            return 0;
+        }
+        checkpointSize = checkpointed;
+        return checkpointed;
+    }
+
+    private void rehashFrom(long from, long to) throws IOException {
+        for (long segmentIndex = from >>> SEGMENT_SHIFT; segmentIndex <= (to - 1) >>> SEGMENT_SHIFT; segmentIndex++) {
+            long skip = Math.max(0, from - segmentIndex * SEGMENT_ITEMS);
+            scanEntries(entrySegmentPath(segmentIndex), skip, der -> {
+                appendDigest.update((byte) 0);
+                addLeaf(appendDigest.digest(der));
+            }, new long[1]);
+        }
+    }
+
+    /**
+     * Reads the complete records of one entry segment, handing each DER after the first {@code skip} to the
+     * consumer (when given)
+     *
+     * @return the number of complete records; {@code validBytes[0]} is set to the length they occupy
+     */
+    private static long scanEntries(Path segment, long skip, java.util.function.Consumer<byte[]> consumer,
+                                    long[] validBytes) throws IOException {
+        long count = 0;
+        long position = 0;
+        CRC32C crc = new CRC32C();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment), 1 << 16))) {
+            while (true) {
+                int length;
+                int checksum;
+                byte[] payload;
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+                    if (length <= Long.BYTES) {
+                        break;
+                    }
+                    payload = in.readNBytes(length);
+                } catch (EOFException e) {
+                    break;
+                }
+                if (payload.length < length) {
+                    break;
+                }
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                if (consumer != null && count >= skip) {
+                    consumer.accept(Arrays.copyOfRange(payload, Long.BYTES, payload.length));
+                }
+                count++;
+                position += ENTRY_HEADER_BYTES + length;
+            }
+        }
+        validBytes[0] = position;
+        return count;
+    }
+
+    private void writeCheckpoint(long treeSize, byte[] root) throws IOException {
+        Path checkpoint = directory.resolve("checkpoint");
+        Path temporary = directory.resolve("checkpoint.tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer content = ByteBuffer.allocate(Long.BYTES + HASH_BYTES).putLong(treeSize).put(root).flip();
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+            channel.force(false);
+        }
+        Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static byte[] nodeHash(MessageDigest digest, byte[] left, byte[] right) {
+        digest.update((byte) 1);
+        digest.update(left);
+        return digest.digest(right);
+    }
+
+    private static long prefix(byte[] hash) {
+        return ByteBuffer.wrap(hash).getLong();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
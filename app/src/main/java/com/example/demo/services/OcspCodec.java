@@ -0,0 +1,133 @@
+package com.example.demo.services;
+
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+
+import org.bouncycastle.asn1.nist.NISTObjectIdentifiers;
+import org.bouncycastle.asn1.ocsp.OCSPObjectIdentifiers;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.BasicOCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.CertificateID;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPReq;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.cert.ocsp.OCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.RespID;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateHolder;
+import org.bouncycastle.operator.DigestCalculatorProvider;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+
+/**
+ * Stateless OCSP request parsing and response signing (RFC 6960), kept free of Spring so the benchmarks
+ * can drive the same code as the responder endpoint.
+ */
+public final class OcspCodec {
+
+    public static final byte[] MALFORMED_REQUEST = unsigned(OCSPRespBuilder.MALFORMED_REQUEST);
+    public static final byte[] INTERNAL_ERROR = unsigned(OCSPRespBuilder.INTERNAL_ERROR);
+    public static final byte[] UNAUTHORIZED = unsigned(OCSPRespBuilder.UNAUTHORIZED);
+    public static final byte[] TRY_LATER = unsigned(OCSPRespBuilder.TRY_LATER);
+
+    public static final AlgorithmIdentifier HASH_SHA256 = new AlgorithmIdentifier(NISTObjectIdentifiers.id_sha256);
+
+    private static final DigestCalculatorProvider DIGESTS;
+
+    static {
+        try {
+            DIGESTS = new JcaDigestCalculatorProviderBuilder().build();
+        } catch (Exception e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Status of one certificate as it goes into a response
+     */
+    public record SingleStatus(CertificateID certificateId, CertificateStatus status, Instant thisUpdate,
+                               Instant nextUpdate) {
+    }
+
+    private OcspCodec() {
+    }
+
+    public static OCSPReq parseRequest(byte[] der) {
+        try {
+            return new OCSPReq(der);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Malformed OCSP request: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * A CertificateID for serial 1 under the given CA and hash algorithm, used as a template to recognize
+     * requests for this CA (same issuer name and key hashes) and to derive cache keys for other serials
+     */
+    public static CertificateID issuerTemplate(CaKeyMaterial material, AlgorithmIdentifier hashAlgorithm) {
+        try {
+            X509CertificateHolder caHolder = new JcaX509CertificateHolder(material.certificate());
+            return new CertificateID(DIGESTS.get(hashAlgorithm), caHolder, BigInteger.ONE);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to hash CA for OCSP: " + e.getMessage(), e);
+        }
+    }
+
+    public static boolean sameIssuer(CertificateID template, CertificateID requested) {
+        return template.getHashAlgOID().equals(requested.getHashAlgOID())
+                && MessageDigest.isEqual(template.getIssuerNameHash(), requested.getIssuerNameHash())
+                && MessageDigest.isEqual(template.getIssuerKeyHash(), requested.getIssuerKeyHash());
+    }
+
+    /**
+     * Builds and signs a successful response, echoing the request nonce when there is one
+     */
+    public static byte[] sign(SigningContext signingContext, List<SingleStatus> statuses, Extension nonce) {
+        try {
+            RespID responderId = new RespID(signingContext.material().subject());
+            BasicOCSPRespBuilder builder = new BasicOCSPRespBuilder(responderId);
+            for (SingleStatus single : statuses) {
+                builder.addResponse(single.certificateId(), single.status(),
+                        Date.from(single.thisUpdate()), Date.from(single.nextUpdate()), null);
+            }
+            if (nonce != null) {
+                builder.setResponseExtensions(new Extensions(nonce));
+            }
+
+            BasicOCSPResp basicResponse = builder.build(signingContext.contentSigner(), null, new Date());
+            return new OCSPRespBuilder().build(OCSPRespBuilder.SUCCESSFUL, basicResponse).getEncoded();
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to sign OCSP response: " + e.getMessage(), e);
+        }
+    }
+
+    public static Extension nonce(OCSPReq request) {
+        return request.getExtension(OCSPObjectIdentifiers.id_pkix_ocsp_nonce);
+    }
+
+    /**
+     * Strong validator for HTTP caching of a pre-signed response
+     */
+    public static String etag(byte[] response) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(response);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] unsigned(int status) {
+        try {
+            return new OCSPRespBuilder().build(status, null).getEncoded();
+        } catch (Exception e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
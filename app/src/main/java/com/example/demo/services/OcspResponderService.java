@@ -0,0 +1,240 @@
+package com.example.demo.services;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.cert.ocsp.CertificateID;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPReq;
+import org.bouncycastle.cert.ocsp.Req;
+import org.bouncycastle.cert.ocsp.RevokedStatus;
+import org.bouncycastle.cert.ocsp.UnknownStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.repositories.CertificateRepository;
+import com.example.demo.repositories.RevokedCertificate;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * OCSP responder (RFC 6960). Single-certificate requests without a nonce, which is what GET clients and
+ * caching proxies send, are answered from pre-signed responses cached per CertificateID until their nextUpdate.
+ * Entries that are still being asked for are re-signed in the background once they are past half their
+ * validity, so hot serials never hit the database or the signer on the request path.
+ * Requests carrying a nonce or several certificates are signed fresh.
+ * Each CA of the hierarchy that holds a key answers for itself: the issuer hashes in the request pick the CA, and the
+ * response is signed by that CA. The status is looked up by serial number alone, which is unique across all CAs.
+ */
+@Service
+@Slf4j
+public class OcspResponderService {
+
+    /**
+     * Encoded OCSPResponse with its validity window; thisUpdate/nextUpdate are null for error and nonce
+     * responses, which must not be cached
+     */
+    public record OcspResponse(byte[] der, Instant thisUpdate, Instant nextUpdate, String etag) {
+
+        static OcspResponse uncached(byte[] der) {
+            return new OcspResponse(der, null, null, null);
+        }
+
+        public boolean cacheable() {
+            return nextUpdate != null;
+        }
+    }
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private CaKeyMaterialProvider caKeyMaterialProvider;
+
+    @Autowired
+    private IssuingCaSigningEngine signingEngine;
+
+    @Autowired
+    private ThreadPoolTaskExecutor cryptoExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private WriteBehindService writeBehindService;
+
+    @Value("${ca.ocsp.validity:1h}")
+    private Duration validity;
+
+    @Value("${ca.ocsp.cache.max-size:100000}")
+    private long maxSize;
+
+    /**
+     * Requests are only answered once their issuer hashes match one of our CAs, so CA, hash algorithm and serial
+     * identify the response; AlgorithmIdentifier parameter encodings that differ between clients don't matter
+     */
+    private record ResponseKey(String caName, ASN1ObjectIdentifier hashAlgorithm, BigInteger serialNumber) {
+    }
+
+    /**
+     * CertID for serial 1 under the named CA
+     */
+    private record IssuerTemplate(String caName, CertificateID certificateId) {
+    }
+
+    // One per CA and supported hash algorithm
+    private volatile List<IssuerTemplate> issuerTemplates;
+
+    // Async so the database lookup and signing run on the crypto executor instead of inside the cache's map
+    // lock, where a blocking load would also pin the calling virtual thread
+    private AsyncLoadingCache<ResponseKey, OcspResponse> responses;
+
+    @PostConstruct
+    void init() {
+        issuerTemplates = buildIssuerTemplates(caKeyMaterialProvider.hierarchy());
+        responses = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(validity)
+                .refreshAfterWrite(validity.dividedBy(2))
+                .executor(cryptoExecutor)
+                .recordStats()
+                .buildAsync(this::signSingle);
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "ocspResponses");
+    }
+
+    public OcspResponse respond(byte[] requestDer) {
+        OCSPReq request;
+        try {
+            request = OcspCodec.parseRequest(requestDer);
+        } catch (IllegalArgumentException e) {
+            return OcspResponse.uncached(OcspCodec.MALFORMED_REQUEST);
+        }
+
+        Req[] singles = request.getRequestList();
+        if (singles.length == 0) {
+            return OcspResponse.uncached(OcspCodec.MALFORMED_REQUEST);
+        }
+        // One response has one signer, so every certificate in the request must be from the same CA
+        String caName = null;
+        for (Req single : singles) {
+            IssuerTemplate template = issuerTemplate(single.getCertID());
+            if (template == null || caName != null && !caName.equals(template.caName())) {
+                return OcspResponse.uncached(OcspCodec.UNAUTHORIZED);
+            }
+            caName = template.caName();
+        }
+
+        try {
+            Extension nonce = OcspCodec.nonce(request);
+            if (singles.length == 1 && nonce == null) {
+                CertificateID certificateId = singles[0].getCertID();
+                return responses.get(new ResponseKey(caName, certificateId.getHashAlgOID(),
+                        certificateId.getSerialNumber())).join();
+            }
+            return signFresh(caName, singles, nonce);
+        } catch (RuntimeException e) {
+            // CompletionException from the async cache is a RuntimeException too
+            log.error("Failed to build OCSP response", e);
+            return OcspResponse.uncached(OcspCodec.INTERNAL_ERROR);
+        }
+    }
+
+    @EventListener
+    public void onCertificateRevoked(CertificateRevokedEvent event) {
+        for (IssuerTemplate template : issuerTemplates) {
+            responses.synchronous().invalidate(new ResponseKey(template.caName(),
+                    template.certificateId().getHashAlgOID(), event.serialNumber()));
+        }
+    }
+
+    @EventListener
+    public void onCaKeyMaterialReloaded(CaKeyMaterialReloadedEvent event) {
+        issuerTemplates = buildIssuerTemplates(event.current());
+        responses.synchronous().invalidateAll();
+    }
+
+    private OcspResponse signSingle(ResponseKey key) {
+        CertificateID certificateId = null;
+        for (IssuerTemplate template : issuerTemplates) {
+            if (template.caName().equals(key.caName())
+                    && template.certificateId().getHashAlgOID().equals(key.hashAlgorithm())) {
+                certificateId = CertificateID.deriveCertificateID(template.certificateId(), key.serialNumber());
+            }
+        }
+        if (certificateId == null) {
+            throw new IllegalStateException("No issuer template for " + key.caName() + "/" + key.hashAlgorithm());
+        }
+
+        Instant thisUpdate = Instant.now();
+        Instant nextUpdate = thisUpdate.plus(validity);
+        OcspCodec.SingleStatus single = new OcspCodec.SingleStatus(certificateId, statusOf(certificateId.getSerialNumber()),
+                thisUpdate, nextUpdate);
+
+        byte[] der = signingEngine.executeAs(key.caName(),
+                signingContext -> OcspCodec.sign(signingContext, List.of(single), null));
+        return new OcspResponse(der, thisUpdate, nextUpdate, OcspCodec.etag(der));
+    }
+
+    private OcspResponse signFresh(String caName, Req[] requests, Extension nonce) {
+        Instant thisUpdate = Instant.now();
+        Instant nextUpdate = thisUpdate.plus(validity);
+        List<OcspCodec.SingleStatus> singles = new ArrayList<>(requests.length);
+        for (Req request : requests) {
+            CertificateID certificateId = request.getCertID();
+            singles.add(new OcspCodec.SingleStatus(certificateId, statusOf(certificateId.getSerialNumber()),
+                    thisUpdate, nextUpdate));
+        }
+
+        byte[] der = signingEngine.executeAs(caName, signingContext -> OcspCodec.sign(signingContext, singles, nonce));
+        // Nonce responses are one-off by definition; don't let proxies keep them
+        return nonce == null ? new OcspResponse(der, thisUpdate, nextUpdate, OcspCodec.etag(der)) : OcspResponse.uncached(der);
+    }
+
+    private CertificateStatus statusOf(BigInteger serialNumber) {
+        RevokedCertificate row = certificateRepository.findStatusBySerialNumber(serialNumber.toString()).orElse(null);
+        if (row == null) {
+            return writeBehindService.isPending(serialNumber.toString()) ? CertificateStatus.GOOD : new UnknownStatus();
+        }
+        if (row.getRevokedAt() == null) {
+            return CertificateStatus.GOOD;
+        }
+        return new RevokedStatus(
+                Date.from(row.getRevokedAt().atZone(ZoneId.systemDefault()).toInstant()),
+                RevocationReason.parse(row.getRevocationReason()).code()
+        );
+    }
+
+    private IssuerTemplate issuerTemplate(CertificateID requested) {
+        for (IssuerTemplate template : issuerTemplates) {
+            if (OcspCodec.sameIssuer(template.certificateId(), requested)) {
+                return template;
+            }
+        }
+        return null;
+    }
+
+    private static List<IssuerTemplate> buildIssuerTemplates(CaHierarchy hierarchy) {
+        List<IssuerTemplate> templates = new ArrayList<>();
+        for (String caName : hierarchy.signerNames()) {
+            CaKeyMaterial material = hierarchy.signer(caName);
+            templates.add(new IssuerTemplate(caName, OcspCodec.issuerTemplate(material, CertificateID.HASH_SHA1)));
+            templates.add(new IssuerTemplate(caName, OcspCodec.issuerTemplate(material, OcspCodec.HASH_SHA256)));
+        }
+        return List.copyOf(templates);
+    }
+}
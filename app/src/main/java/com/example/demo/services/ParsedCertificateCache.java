@@ -0,0 +1,108 @@
+package com.example.demo.services;
+
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Bounded cache of parsed client certificates and the chain built for them, keyed by the SHA-256 thumbprint
+ * of the DER encoding. Entries expire after the configured TTL or at the certificate's notAfter, whichever
+ * comes first. A revoked certificate's entries are dropped at once, and the whole cache when the CA key material
+ * is reloaded.
+ */
+@Component
+public class ParsedCertificateCache {
+
+    @Value("${ca.validation.cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${ca.validation.cache.ttl:10m}")
+    private Duration ttl;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, VerifiedCertificate> cache;
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new NotAfterBoundedExpiry(ttl.toNanos()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "parsedCertificates");
+    }
+
+    public VerifiedCertificate get(byte[] der, Function<byte[], VerifiedCertificate> loader) {
+        return cache.get(calculateThumbprint(der), thumbprint -> loader.apply(der));
+    }
+
+    /**
+     * Drops every cached entry for the given serial number, e.g. after the certificate is revoked
+     */
+    public void evictSerialNumber(BigInteger serialNumber) {
+        cache.asMap().values().removeIf(entry -> entry.certificate().getSerialNumber().equals(serialNumber));
+    }
+
+    @EventListener
+    public void onCertificateRevoked(CertificateRevokedEvent event) {
+        evictSerialNumber(event.serialNumber());
+    }
+
+    @EventListener
+    public void onCaKeyMaterialReloaded(CaKeyMaterialReloadedEvent event) {
+        cache.invalidateAll();
+    }
+
+    private static String calculateThumbprint(byte[] der) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(der));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class NotAfterBoundedExpiry implements Expiry<String, VerifiedCertificate> {
+
+        private final long ttlNanos;
+
+        private NotAfterBoundedExpiry(long ttlNanos) {
+            this.ttlNanos = ttlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedCertificate value, long currentTime) {
+            long untilNotAfter = Duration.ofMillis(
+                    value.certificate().getNotAfter().getTime() - System.currentTimeMillis()).toNanos();
+            return Math.max(0, Math.min(ttlNanos, untilNotAfter));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedCertificate value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedCertificate value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.demo.services;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import com.example.demo.exceptions.TooManyRequestsException;
+
+/**
+ * {@link SigningEngine} backed by a bounded pool of {@link SigningContext}s.
+ * The pool is pre-filled with {@code coreSize} contexts and grows on demand up to {@code maxSize};
+ * callers wait up to {@code borrowTimeout} for a free context once the limit is reached, and are then shed with a
+ * {@link TooManyRequestsException}.
+ * Contexts built for a CA key that has since been reloaded are discarded instead of being reused.
+ */
+public class PooledSigningEngine implements SigningEngine {
+
+    private final Supplier<CaKeyMaterial> materialSupplier;
+    private final Supplier<BigInteger> serialNumbers;
+    private final BlockingQueue<SigningContext> idle;
+    private final AtomicInteger created = new AtomicInteger();
+    private final int maxSize;
+    private final Duration borrowTimeout;
+
+    public PooledSigningEngine(Supplier<CaKeyMaterial> materialSupplier, Supplier<BigInteger> serialNumbers,
+                               int coreSize, int maxSize, Duration borrowTimeout) {
+        if (coreSize < 1 || maxSize < coreSize) {
+            throw new IllegalArgumentException("Signing pool needs 1 <= coreSize <= maxSize");
+        }
+        this.materialSupplier = materialSupplier;
+        this.serialNumbers = serialNumbers;
+        this.idle = new ArrayBlockingQueue<>(maxSize);
+        this.maxSize = maxSize;
+        this.borrowTimeout = borrowTimeout;
+
+        for (int i = 0; i < coreSize; i++) {
+            idle.add(create(materialSupplier.get()));
+            created.incrementAndGet();
+        }
+    }
+
+    @Override
+    public <T> T execute(SigningOperation<T> operation) {
+        SigningContext context = borrow();
+        try {
+            return operation.apply(context);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Signing failed: " + e.getMessage(), e);
+        } finally {
+            release(context);
+        }
+    }
+
+    public int idleCount() {
+        return idle.size();
+    }
+
+    public int createdCount() {
+        return created.get();
+    }
+
+    public int maxSize() {
+        return maxSize;
+    }
+
+    private SigningContext borrow() {
+        CaKeyMaterial material = materialSupplier.get();
+
+        SigningContext context = idle.poll();
+        if (context == null && tryReserveSlot()) {
+            try {
+                return create(material);
+            } catch (RuntimeException e) {
+                created.decrementAndGet();
+                throw e;
+            }
+        }
+        if (context == null) {
+            // Both are overload on our side, not a bad request: shed with 429 so the client retries
+            try {
+                context = idle.poll(borrowTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TooManyRequestsException("Interrupted while waiting for a signing context", borrowTimeout);
+            }
+            if (context == null) {
+                throw new TooManyRequestsException("No signing context available within " + borrowTimeout, borrowTimeout);
+            }
+        }
+
+        if (context.material() != material) {
+            // CA key was reloaded: rebuild in place so the pool keeps its size.
+            try {
+                return create(material);
+            } catch (RuntimeException e) {
+                created.decrementAndGet();
+                throw e;
+            }
+        }
+        return context;
+    }
+
+    private void release(SigningContext context) {
+        if (context.material() != materialSupplier.get() || !idle.offer(context)) {
+            created.decrementAndGet();
+        }
+    }
+
+    private boolean tryReserveSlot() {
+        int current;
+        do {
+            current = created.get();
+            if (current >= maxSize) {
+                return false;
+            }
+        } while (!created.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private SigningContext create(CaKeyMaterial material) {
+        try {
+            return new SigningContext(material, serialNumbers);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to build signing context: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.demo.services;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps this instance's revocation state in step with the others: LISTENs on the channel the V3 migration's trigger
+ * notifies whenever a certificate is revoked, by any instance, and pulls the new revocations in. That raises the
+ * usual {@link CertificateRevokedEvent}, so cached OCSP responses for the serial are dropped within moments of the
+ * commit instead of at the next CRL refresh.
+ * <p>
+ * Uses a connection of its own rather than one from the pool, as it holds it for as long as the instance runs.
+ * After a lost connection it reconnects and syncs once, which covers whatever was notified in between.
+ * Does nothing on databases other than Postgres; the periodic sync in {@link CrlService} still applies there.
+ */
+@Service
+@Slf4j
+public class RevocationNotificationListener {
+
+    static final String CHANNEL = "certificate_revoked";
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Autowired
+    private RevocationService revocationService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${ca.cluster.notifications.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ca.cluster.notifications.reconnect-delay:5s}")
+    private Duration reconnectDelay;
+
+    private Counter received;
+
+    private volatile Thread listener;
+    private volatile boolean closed;
+
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        String url = dataSourceProperties.determineUrl();
+        if (!enabled || url == null || !url.startsWith("jdbc:postgresql:")) {
+            return;
+        }
+        received = Counter.builder("ca.cluster.revocation-notifications")
+                .description("Revocation notifications received from Postgres, this instance's own included")
+                .register(meterRegistry);
+
+        Thread thread = new Thread(this::run, "revocation-listener");
+        thread.setDaemon(true);
+        listener = thread;
+        thread.start();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        closed = true;
+        Thread thread = listener;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void run() {
+        while (!closed) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                log.info("Listening for revocations from other instances on '{}'", CHANNEL);
+                revocationService.syncFromDatabase();
+                listen(connection.unwrap(PGConnection.class));
+            } catch (SQLException | RuntimeException e) {
+                if (closed) {
+                    return;
+                }
+                log.warn("Revocation listener lost its connection, reconnecting in {}: {}", reconnectDelay, e.getMessage());
+                LockSupport.parkNanos(reconnectDelay.toNanos());
+            }
+        }
+    }
+
+    private void listen(PGConnection connection) throws SQLException {
+        while (!closed) {
+            // Blocks until something arrives; a burst of revocations is drained and synced once
+            PGNotification[] notifications = connection.getNotifications((int) TimeUnit.SECONDS.toMillis(10));
+            if (notifications != null && notifications.length > 0) {
+                received.increment(notifications.length);
+                revocationService.syncFromDatabase();
+            }
+        }
+    }
+}
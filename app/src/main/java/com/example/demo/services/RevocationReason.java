@@ -0,0 +1,46 @@
+package com.example.demo.services;
+
+import org.bouncycastle.asn1.x509.CRLReason;
+
+/**
+ * Reasons accepted by the revoke endpoint, with their RFC 5280 CRLReason codes.
+ * certificateHold is left out on purpose: revocation here is final.
+ */
+public enum RevocationReason {
+    UNSPECIFIED(CRLReason.unspecified),
+    KEY_COMPROMISE(CRLReason.keyCompromise),
+    CA_COMPROMISE(CRLReason.cACompromise),
+    AFFILIATION_CHANGED(CRLReason.affiliationChanged),
+    SUPERSEDED(CRLReason.superseded),
+    CESSATION_OF_OPERATION(CRLReason.cessationOfOperation),
+    PRIVILEGE_WITHDRAWN(CRLReason.privilegeWithdrawn),
+    AA_COMPROMISE(CRLReason.aACompromise);
+
+    private final int code;
+
+    RevocationReason(int code) {
+        this.code = code;
+    }
+
+    public int code() {
+        return code;
+    }
+
+    /**
+     * Accepts both the RFC spelling ({@code keyCompromise}) and the constant name ({@code KEY_COMPROMISE});
+     * null or blank means unspecified
+     */
+    public static RevocationReason parse(String reason) {
+        if (reason == null || reason.isBlank()) {
+            return UNSPECIFIED;
+        }
+        // Without underscores and case the two spellings agree, including cACompromise and CA_COMPROMISE
+        String normalized = reason.trim().replace("_", "");
+        for (RevocationReason candidate : values()) {
+            if (candidate.name().replace("_", "").equalsIgnoreCase(normalized)) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException("Unknown revocation reason: " + reason);
+    }
+}
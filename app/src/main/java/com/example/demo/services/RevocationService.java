@@ -0,0 +1,162 @@
+package com.example.demo.services;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.exceptions.CertificateAlreadyRevokedException;
+import com.example.demo.exceptions.CertificateNotFoundException;
+import com.example.demo.repositories.CertificateRepository;
+import com.example.demo.repositories.RevokedCertificate;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Revokes certificates and keeps every revoked serial in memory, so the validation path can check revocation
+ * without a database round-trip. Revocations made by other instances are picked up by {@link #syncFromDatabase()}.
+ */
+@Service
+@Slf4j
+public class RevocationService {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    /**
+     * A revoked entry as it appears on the CRL, with the certificate's expiry to tell when it may leave the CRL
+     */
+    public record Entry(BigInteger serialNumber, LocalDateTime revokedAt, RevocationReason reason,
+                        LocalDateTime notAfter) {
+    }
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private WriteBehindService writeBehindService;
+
+    // Rows revoked by another instance can carry a slightly older timestamp than the newest one seen here
+    @Value("${ca.revocation.sync-lookback:5m}")
+    private Duration syncLookback;
+
+    private final RevokedSerialSet revokedSerials = new RevokedSerialSet();
+    private final List<Entry> entries = new ArrayList<>();
+    private final AtomicLong version = new AtomicLong();
+
+    private LocalDateTime watermark = EPOCH;
+
+    // No events for the initial load: nothing has cached a status yet
+    private volatile boolean loaded;
+
+    @PostConstruct
+    void init() {
+        syncFromDatabase();
+        loaded = true;
+        log.info("Loaded {} revoked serial numbers", revokedSerials.size());
+
+        Gauge.builder("ca.revocation.revoked", revokedSerials, RevokedSerialSet::size)
+                .description("Revoked serial numbers held in memory")
+                .register(meterRegistry);
+    }
+
+    public boolean isRevoked(BigInteger serialNumber) {
+        return revokedSerials.contains(serialNumber);
+    }
+
+    public Entry revoke(String serialNumber, RevocationReason reason) {
+        LocalDateTime revokedAt = LocalDateTime.now();
+        int updated = certificateRepository.revoke(serialNumber, revokedAt, reason.name());
+        if (updated == 0 && writeBehindService.isPending(serialNumber)) {
+            // Issued moments ago and still only journaled: push it to the database first
+            writeBehindService.flush();
+            updated = certificateRepository.revoke(serialNumber, revokedAt, reason.name());
+        }
+        if (updated == 0) {
+            if (!certificateRepository.existsBySerialNumber(serialNumber)) {
+                throw new CertificateNotFoundException("Certificate not found");
+            }
+            throw new CertificateAlreadyRevokedException("Certificate " + serialNumber + " is already revoked");
+        }
+
+        LocalDateTime notAfter = certificateRepository.findStatusBySerialNumber(serialNumber)
+                .map(RevokedCertificate::getNotAfter)
+                .orElse(LocalDateTime.MAX);
+        Entry entry = new Entry(new BigInteger(serialNumber), revokedAt, reason, notAfter);
+        add(entry);
+        log.info("Revoked certificate {} ({})", serialNumber, reason);
+        return entry;
+    }
+
+    /**
+     * Pulls rows revoked since the last sync into memory
+     *
+     * @return true if anything new was found
+     */
+    public boolean syncFromDatabase() {
+        LocalDateTime since;
+        synchronized (this) {
+            since = watermark == EPOCH ? EPOCH : watermark.minus(syncLookback);
+        }
+
+        boolean changed = false;
+        for (RevokedCertificate revoked : certificateRepository.findRevokedSince(since)) {
+            changed |= add(new Entry(
+                    new BigInteger(revoked.getSerialNumber()),
+                    revoked.getRevokedAt(),
+                    RevocationReason.parse(revoked.getRevocationReason()),
+                    revoked.getNotAfter()
+            ));
+        }
+        return changed;
+    }
+
+    /**
+     * Copy of the revoked entries a CRL still has to list: those whose certificate had not expired by
+     * {@code expiredBefore}. Older entries are dropped for good, so the CRL stops growing with the CA's age; their
+     * serials stay in the revoked set, so validation and OCSP keep answering revoked for them.
+     */
+    public synchronized List<Entry> entries(LocalDateTime expiredBefore) {
+        entries.removeIf(entry -> entry.notAfter().isBefore(expiredBefore));
+        return new ArrayList<>(entries);
+    }
+
+    /**
+     * Bumped on every new revocation, so callers can tell whether anything changed since they last looked
+     */
+    public long version() {
+        return version.get();
+    }
+
+    private boolean add(Entry entry) {
+        synchronized (this) {
+            if (!revokedSerials.add(entry.serialNumber())) {
+                return false;
+            }
+            entries.add(entry);
+            if (entry.revokedAt().isAfter(watermark)) {
+                watermark = entry.revokedAt();
+            }
+            version.incrementAndGet();
+        }
+        if (loaded) {
+            eventPublisher.publishEvent(new CertificateRevokedEvent(entry.serialNumber()));
+        }
+        return true;
+    }
+}
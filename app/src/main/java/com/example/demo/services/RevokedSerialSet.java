@@ -0,0 +1,92 @@
+package com.example.demo.services;
+
+import java.math.BigInteger;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Set of revoked serial numbers, answering {@link #contains} without locks or allocation for serials that are not in it.
+ * The low 64 bits of each serial (random in everything this CA issues) go into an open-addressing table of
+ * primitive longs; only a hit there is confirmed against the full serials. Writers are serialized; readers never block.
+ */
+class RevokedSerialSet {
+
+    private static final long EMPTY = 0L;
+
+    private volatile AtomicLongArray table = new AtomicLongArray(1024);
+    private int size;
+
+    private final Set<BigInteger> serials = ConcurrentHashMap.newKeySet();
+
+    boolean contains(BigInteger serialNumber) {
+        return contains(table, fingerprint(serialNumber)) && serials.contains(serialNumber);
+    }
+
+    /**
+     * @return true if the serial was not in the set yet
+     */
+    synchronized boolean add(BigInteger serialNumber) {
+        // Full serial first, so a reader that hits the fingerprint always finds it
+        if (!serials.add(serialNumber)) {
+            return false;
+        }
+        long fingerprint = fingerprint(serialNumber);
+        if (!contains(table, fingerprint)) {
+            if ((size + 1) * 2 > table.length()) {
+                table = grow(table);
+            }
+            insert(table, fingerprint);
+            size++;
+        }
+        return true;
+    }
+
+    int size() {
+        return serials.size();
+    }
+
+    private static long fingerprint(BigInteger serialNumber) {
+        long fingerprint = serialNumber.longValue();
+        return fingerprint == EMPTY ? 1L : fingerprint;
+    }
+
+    private static boolean contains(AtomicLongArray slots, long fingerprint) {
+        int mask = slots.length() - 1;
+        for (int i = index(fingerprint, mask); ; i = (i + 1) & mask) {
+            long slot = slots.get(i);
+            if (slot == fingerprint) {
+                return true;
+            }
+            if (slot == EMPTY) {
+                return false;
+            }
+        }
+    }
+
+    private static void insert(AtomicLongArray slots, long fingerprint) {
+        int mask = slots.length() - 1;
+        int i = index(fingerprint, mask);
+        while (slots.get(i) != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        slots.set(i, fingerprint);
+    }
+
+    private static AtomicLongArray grow(AtomicLongArray slots) {
+        AtomicLongArray grown = new AtomicLongArray(slots.length() * 2);
+        for (int i = 0; i < slots.length(); i++) {
+            long fingerprint = slots.get(i);
+            if (fingerprint != EMPTY) {
+                insert(grown, fingerprint);
+            }
+        }
+        return grown;
+    }
+
+    private static int index(long fingerprint, int mask) {
+        // Low fingerprint bits are random already; the mix only guards against clustered ones
+        long h = fingerprint * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
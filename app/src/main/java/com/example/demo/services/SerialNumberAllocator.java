@@ -0,0 +1,199 @@
+package com.example.demo.services;
+
+import java.io.Closeable;
+import java.math.BigInteger;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Hands out certificate serial numbers that are unique by construction, from a queue a background thread keeps
+ * topped up. A serial is {@code [block id: 31 bits][counter: 32 bits][random: 88 bits]}, at most 19 octets and
+ * always positive, within the 20 octets RFC 5280 allows. Block ids come from {@code blockReserver}, which must
+ * never return the same id twice (in the service, one database row per block), so no two instances and no two
+ * calls can produce the same serial and nothing has to be checked per issuance. The random part keeps serials
+ * unpredictable.
+ * <p>
+ * {@link #get()} is a queue poll; if the refill thread falls behind, the caller generates its serial inline.
+ */
+public class SerialNumberAllocator implements Supplier<BigInteger>, Closeable {
+
+    private static final int RANDOM_BYTES = 11;
+    private static final int SERIAL_BYTES = 4 + 4 + RANDOM_BYTES;
+    private static final long COUNTER_LIMIT = 1L << 32;
+
+    private final LongSupplier blockReserver;
+    private final int prefetch;
+    private final long blockSize;
+    private final SecureRandom secureRandom;
+
+    private final Queue<BigInteger> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong misses = new AtomicLong();
+
+    // A lock rather than synchronized: reserving a block is a database call, which would pin a virtual thread
+    private final ReentrantLock generateLock = new ReentrantLock();
+
+    // Guarded by generateLock
+    private int block;
+    private long counter;
+
+    private volatile Thread refiller;
+    private volatile boolean closed;
+
+    public SerialNumberAllocator(LongSupplier blockReserver, int prefetch) {
+        this(blockReserver, prefetch, COUNTER_LIMIT);
+    }
+
+    /**
+     * With fewer than 2^32 serials per block, so tests can cross block boundaries
+     */
+    SerialNumberAllocator(LongSupplier blockReserver, int prefetch, long blockSize) {
+        if (prefetch < 1) {
+            throw new IllegalArgumentException("Serial prefetch must be at least 1");
+        }
+        if (blockSize < 1 || blockSize > COUNTER_LIMIT) {
+            throw new IllegalArgumentException("Serial block size must be between 1 and " + COUNTER_LIMIT);
+        }
+        this.blockReserver = blockReserver;
+        this.prefetch = prefetch;
+        this.blockSize = blockSize;
+        this.counter = blockSize;
+        try {
+            this.secureRandom = SecureRandom.getInstance("DRBG");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("DRBG SecureRandom not available", e);
+        }
+    }
+
+    /**
+     * Fills the queue once and starts the background refill thread
+     */
+    public void start() {
+        refill();
+        Thread thread = new Thread(this::run, "serial-allocator");
+        thread.setDaemon(true);
+        refiller = thread;
+        thread.start();
+    }
+
+    @Override
+    public BigInteger get() {
+        BigInteger serialNumber = queue.poll();
+        if (serialNumber == null) {
+            misses.incrementAndGet();
+            return generate(1).get(0);
+        }
+        if (queued.decrementAndGet() < prefetch / 2) {
+            Thread thread = refiller;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+        return serialNumber;
+    }
+
+    public int available() {
+        return queued.get();
+    }
+
+    /**
+     * Calls to {@link #get()} that found the queue empty
+     */
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * The block a serial number was allocated from, or -1 for serials not laid out by this class (issued before
+     * serial blocks existed)
+     */
+    public static long blockOf(BigInteger serialNumber) {
+        int suffixBits = (SERIAL_BYTES - 4) * Byte.SIZE;
+        if (serialNumber.signum() <= 0 || serialNumber.bitLength() <= suffixBits
+                || serialNumber.bitLength() > SERIAL_BYTES * Byte.SIZE - 1) {
+            return -1;
+        }
+        return serialNumber.shiftRight(suffixBits).longValue();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Thread thread = refiller;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void run() {
+        while (!closed) {
+            try {
+                refill();
+            } catch (RuntimeException e) {
+                // Typically the block reservation failed; callers still get serials inline (or the same error)
+                LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+        }
+    }
+
+    private void refill() {
+        int missing = prefetch - queued.get();
+        if (missing > 0) {
+            List<BigInteger> serialNumbers = generate(missing);
+            queue.addAll(serialNumbers);
+            queued.addAndGet(serialNumbers.size());
+        }
+    }
+
+    private List<BigInteger> generate(int count) {
+        generateLock.lock();
+        try {
+            // One call into the DRBG for the whole block
+            byte[] random = new byte[count * RANDOM_BYTES];
+            secureRandom.nextBytes(random);
+
+            List<BigInteger> serialNumbers = new ArrayList<>(count);
+            byte[] serial = new byte[SERIAL_BYTES];
+            for (int i = 0; i < count; i++) {
+                if (counter == blockSize) {
+                    block = reserveBlock();
+                    counter = 0;
+                }
+                writeInt(serial, 0, block);
+                writeInt(serial, 4, (int) counter++);
+                System.arraycopy(random, i * RANDOM_BYTES, serial, 8, RANDOM_BYTES);
+                serialNumbers.add(new BigInteger(1, serial));
+            }
+            return serialNumbers;
+        } finally {
+            generateLock.unlock();
+        }
+    }
+
+    private int reserveBlock() {
+        long reserved = blockReserver.getAsLong();
+        if (reserved < 1 || reserved > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Serial number block id out of range: " + reserved);
+        }
+        return (int) reserved;
+    }
+
+    private static void writeInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) (value >>> 24);
+        target[offset + 1] = (byte) (value >>> 16);
+        target[offset + 2] = (byte) (value >>> 8);
+        target[offset + 3] = (byte) value;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.demo.services;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.function.Supplier;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509ExtensionUtils;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+
+/**
+ * Signer, certificate converter and random source built once for a given CA key and reused across issuances.
+ * Not thread-safe: a context is only ever used by the thread that borrowed it from the {@link SigningEngine}.
+ */
+public class SigningContext {
+
+    private final CaKeyMaterial material;
+    private final Supplier<BigInteger> serialNumbers;
+    private final SecureRandom secureRandom;
+    private final ContentSigner contentSigner;
+    private final JcaX509CertificateConverter certificateConverter;
+    private final JcaX509ExtensionUtils extensionUtils;
+
+    SigningContext(CaKeyMaterial material, Supplier<BigInteger> serialNumbers) throws Exception {
+        this.material = material;
+        this.serialNumbers = serialNumbers;
+        this.secureRandom = SecureRandom.getInstance("DRBG");
+        this.contentSigner = new JcaContentSignerBuilder(material.signatureAlgorithm())
+                .setSecureRandom(secureRandom)
+                .build(material.privateKey());
+        this.certificateConverter = new JcaX509CertificateConverter();
+        this.extensionUtils = new JcaX509ExtensionUtils();
+    }
+
+    public CaKeyMaterial material() {
+        return material;
+    }
+
+    public ContentSigner contentSigner() {
+        return contentSigner;
+    }
+
+    /**
+     * Builds and signs a certificate for the given subject, issued by this context's CA with a fresh serial number
+     */
+    public X509Certificate issue(X500Name subject, SubjectPublicKeyInfo publicKeyInfo, Date notBefore, Date notAfter)
+            throws Exception {
+        return sign(newCertificateBuilder(subject, publicKeyInfo, notBefore, notAfter));
+    }
+
+    public X509v3CertificateBuilder newCertificateBuilder(X500Name subject, SubjectPublicKeyInfo publicKeyInfo,
+                                                          Date notBefore, Date notAfter) {
+        return new X509v3CertificateBuilder(
+                material.subject(),
+                nextSerialNumber(),
+                notBefore,
+                notAfter,
+                subject,
+                publicKeyInfo
+        );
+    }
+
+    public X509Certificate sign(X509v3CertificateBuilder certificateBuilder) throws Exception {
+        return certificateConverter.getCertificate(certificateBuilder.build(contentSigner));
+    }
+
+    /**
+     * SubjectKeyIdentifier extension for the certified key (SHA-1 of the key bits, RFC 5280 method 1)
+     */
+    public Extension subjectKeyIdentifier(SubjectPublicKeyInfo publicKeyInfo) throws IOException {
+        return new Extension(Extension.subjectKeyIdentifier, false,
+                extensionUtils.createSubjectKeyIdentifier(publicKeyInfo).getEncoded());
+    }
+
+    /**
+     * Next serial number from the shared {@link SerialNumberAllocator}: unique across instances and at least
+     * 88 bits of it random
+     */
+    public BigInteger nextSerialNumber() {
+        return serialNumbers.get();
+    }
+}
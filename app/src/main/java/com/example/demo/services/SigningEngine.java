@@ -0,0 +1,15 @@
+package com.example.demo.services;
+
+/**
+ * Runs certificate signing work against reusable signer state.
+ * The {@link SigningContext} handed to an operation is confined to the calling thread until it returns.
+ */
+public interface SigningEngine {
+
+    <T> T execute(SigningOperation<T> operation);
+
+    @FunctionalInterface
+    interface SigningOperation<T> {
+        T apply(SigningContext context) throws Exception;
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.demo.services;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.entities.JobCheckpoint;
+import com.example.demo.repositories.JobCheckpointRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Re-derives the subject columns of existing rows from their stored DER, walking the table by id in small
+ * chunks. Each chunk is its own short transaction that only touches the rows it rewrites, and the last id
+ * done is checkpointed in the same transaction, so the job can be stopped at any point and picks up from
+ * there on the next start.
+ */
+@Service
+@Slf4j
+public class SubjectBackfillService {
+
+    static final String JOB_NAME = "subject-backfill";
+
+    private static final String SELECT_CHUNK_SQL = """
+            SELECT id, certificate_der,
+                   subject_common_name, subject_organization_name, subject_organization_unit,
+                   subject_country, subject_state, subject_locality, subject_email
+            FROM certificates
+            WHERE id > ?
+            ORDER BY id
+            LIMIT ?
+            """;
+
+    private static final String UPDATE_SQL = """
+            UPDATE certificates
+            SET subject_common_name = ?, subject_organization_name = ?, subject_organization_unit = ?,
+                subject_country = ?, subject_state = ?, subject_locality = ?, subject_email = ?
+            WHERE id = ?
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JobCheckpointRepository checkpointRepository;
+
+    @Value("${ca.backfill.subject.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${ca.backfill.subject.pause:100ms}")
+    private Duration pause;
+
+    @Value("${ca.backfill.subject.run-on-startup:false}")
+    private boolean runOnStartup;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile Thread worker;
+
+    @EventListener(ApplicationReadyEvent.class)
+    void startOnBoot() {
+        if (runOnStartup) {
+            start(false);
+        }
+    }
+
+    /**
+     * Starts the backfill in the background. Returns false if it is already running.
+     * A completed backfill is not run again unless {@code restart} is set.
+     */
+    public boolean start(boolean restart) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        worker = new Thread(() -> run(restart), "subject-backfill");
+        worker.setDaemon(true);
+        worker.start();
+        return true;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public Optional<JobCheckpoint> checkpoint() {
+        return checkpointRepository.findById(JOB_NAME);
+    }
+
+    @PreDestroy
+    void stop() {
+        Thread current = worker;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
+
+    private void run(boolean restart) {
+        try {
+            JobCheckpoint checkpoint = checkpointRepository.findById(JOB_NAME)
+                    .orElseGet(() -> new JobCheckpoint(JOB_NAME));
+            if (restart) {
+                checkpoint = new JobCheckpoint(JOB_NAME);
+            }
+            if (checkpoint.isCompleted()) {
+                log.info("Subject backfill already completed, nothing to do");
+                return;
+            }
+            log.info("Subject backfill starting after id {}", checkpoint.getLastId());
+
+            while (!checkpoint.isCompleted()) {
+                JobCheckpoint previous = checkpoint;
+                checkpoint = transactionTemplate.execute(status -> processChunk(previous));
+                if (!pause.isZero()) {
+                    Thread.sleep(pause.toMillis());
+                }
+            }
+            log.info("Subject backfill completed: {} rows checked, {} updated",
+                    checkpoint.getProcessed(), checkpoint.getUpdated());
+        } catch (InterruptedException e) {
+            log.info("Subject backfill interrupted, will resume from the last checkpoint");
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Subject backfill stopped", e);
+        } finally {
+            worker = null;
+            running.set(false);
+        }
+    }
+
+    private JobCheckpoint processChunk(JobCheckpoint checkpoint) {
+        List<StoredSubject> rows = jdbcTemplate.query(SELECT_CHUNK_SQL, this::mapRow, checkpoint.getLastId(), chunkSize);
+        if (rows.isEmpty()) {
+            checkpoint.setCompleted(true);
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+            return checkpointRepository.save(checkpoint);
+        }
+
+        List<Object[]> updates = new ArrayList<>();
+        for (StoredSubject row : rows) {
+            SubjectName derived;
+            try {
+                derived = SubjectName.of(org.bouncycastle.asn1.x509.Certificate.getInstance(row.der()).getSubject());
+            } catch (RuntimeException e) {
+                log.warn("Skipping certificate id {}: {}", row.id(), e.getMessage());
+                continue;
+            }
+            // Only rewrite rows that actually change, to keep write amplification down
+            if (!derived.equals(row.current())) {
+                updates.add(new Object[]{
+                        derived.commonName(), derived.organization(), derived.organizationalUnit(),
+                        derived.country(), derived.state(), derived.locality(), derived.email(),
+                        row.id()
+                });
+            }
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+        }
+
+        checkpoint.setLastId(rows.get(rows.size() - 1).id());
+        checkpoint.setProcessed(checkpoint.getProcessed() + rows.size());
+        checkpoint.setUpdated(checkpoint.getUpdated() + updates.size());
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        return checkpointRepository.save(checkpoint);
+    }
+
+    private StoredSubject mapRow(ResultSet rs, int rowNum) throws SQLException {
+        SubjectName current = new SubjectName(
+                rs.getString("subject_common_name"),
+                rs.getString("subject_organization_name"),
+                rs.getString("subject_organization_unit"),
+                rs.getString("subject_country"),
+                rs.getString("subject_state"),
+                rs.getString("subject_locality"),
+                rs.getString("subject_email")
+        );
+        return new StoredSubject(rs.getLong("id"), rs.getBytes("certificate_der"), current);
+    }
+
+    private record StoredSubject(long id, byte[] der, SubjectName current) {
+    }
+}
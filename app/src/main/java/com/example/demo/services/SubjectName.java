@@ -0,0 +1,75 @@
+package com.example.demo.services;
+
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.ASN1String;
+import org.bouncycastle.asn1.x500.AttributeTypeAndValue;
+import org.bouncycastle.asn1.x500.RDN;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x500.style.BCStyle;
+import org.bouncycastle.asn1.x500.style.IETFUtils;
+
+import com.example.demo.entities.Certificate;
+
+/**
+ * The subject attributes stored in their own columns, read straight from the RDNs of an {@link X500Name}.
+ * When an attribute occurs more than once (e.g. several OUs) the first one in the DN is kept.
+ */
+public record SubjectName(String commonName, String organization, String organizationalUnit, String country,
+                          String state, String locality, String email) {
+
+    public static SubjectName of(X500Name name) {
+        String commonName = null, organization = null, organizationalUnit = null, country = null,
+                state = null, locality = null, email = null;
+
+        // Single pass over the RDNs instead of one getRDNs(type) scan per attribute
+        for (RDN rdn : name.getRDNs()) {
+            for (AttributeTypeAndValue attribute : rdn.getTypesAndValues()) {
+                ASN1ObjectIdentifier type = attribute.getType();
+                if (type.equals(BCStyle.CN)) {
+                    commonName = first(commonName, attribute);
+                } else if (type.equals(BCStyle.O)) {
+                    organization = first(organization, attribute);
+                } else if (type.equals(BCStyle.OU)) {
+                    organizationalUnit = first(organizationalUnit, attribute);
+                } else if (type.equals(BCStyle.C)) {
+                    country = first(country, attribute);
+                } else if (type.equals(BCStyle.ST)) {
+                    state = first(state, attribute);
+                } else if (type.equals(BCStyle.L)) {
+                    locality = first(locality, attribute);
+                } else if (type.equals(BCStyle.EmailAddress)) {
+                    email = first(email, attribute);
+                }
+            }
+        }
+
+        if (country != null && country.length() != 2) {
+            throw new IllegalArgumentException("Subject country must be a two-letter code, got: " + country);
+        }
+        if (commonName == null) {
+            // subject_common_name is NOT NULL; keep the whole DN there so the row stays identifiable
+            commonName = name.toString();
+        }
+        return new SubjectName(commonName, organization, organizationalUnit, country, state, locality, email);
+    }
+
+    public void applyTo(Certificate certificate) {
+        certificate.setSubjectCommonName(commonName);
+        certificate.setSubjectOrganizationName(organization);
+        certificate.setSubjectOrganizationUnit(organizationalUnit);
+        certificate.setSubjectCountry(country);
+        certificate.setSubjectState(state);
+        certificate.setSubjectLocality(locality);
+        certificate.setSubjectEmail(email);
+    }
+
+    private static String first(String current, AttributeTypeAndValue attribute) {
+        if (current != null) {
+            return current;
+        }
+        // The value itself, not its RFC 4514 form: "Acme, Inc." must not be stored as "Acme\, Inc."
+        return attribute.getValue() instanceof ASN1String value
+                ? value.getString()
+                : IETFUtils.valueToString(attribute.getValue());
+    }
+}
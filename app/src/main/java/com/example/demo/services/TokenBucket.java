@@ -0,0 +1,77 @@
+package com.example.demo.services;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free token bucket in its GCRA form: each stripe keeps only the time at which its bucket will be full again,
+ * so taking a token is one compare-and-set and nothing refills in the background.
+ * <p>
+ * A bucket shared by many threads is split into stripes, each with its share of the rate and burst, and a caller
+ * takes from the stripe its thread maps to, so concurrent callers rarely contend on the same slot. A caller turned
+ * away by its stripe tries the next one before giving up, so a stripe running dry alone does not reject requests
+ * while the others still have tokens.
+ */
+public class TokenBucket {
+
+    // Slots are this many longs apart, so neighbouring stripes do not share a cache line
+    private static final int PADDING = 8;
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final int stripeMask;
+    private final AtomicLongArray theoreticalArrival;
+
+    /**
+     * @param ratePerSecond sustained rate across all stripes
+     * @param burst         tokens available at once across all stripes
+     * @param stripes       rounded down to a power of two no larger than the burst; 1 for buckets that see little
+     *                      concurrency
+     */
+    public TokenBucket(double ratePerSecond, int burst, int stripes) {
+        if (ratePerSecond <= 0 || burst < 1 || stripes < 1) {
+            throw new IllegalArgumentException("Token bucket needs a positive rate, burst and stripe count");
+        }
+        // Rounded down: every stripe holds at least one token and together they never exceed the burst
+        int count = Integer.highestOneBit(Math.min(stripes, burst));
+        this.emissionIntervalNanos = Math.max(1, (long) (1e9 * count / ratePerSecond));
+        this.burstToleranceNanos = emissionIntervalNanos * (Math.max(1, burst / count) - 1);
+        this.stripeMask = count - 1;
+        this.theoreticalArrival = new AtomicLongArray(count * PADDING);
+    }
+
+    /**
+     * Takes a token if one is available
+     *
+     * @return 0 if a token was taken, otherwise the nanoseconds until one will be
+     */
+    public long tryAcquire(long nowNanos) {
+        int stripe = (int) mix(Thread.currentThread().threadId()) & stripeMask;
+        long wait = tryAcquire(stripe, nowNanos);
+        if (wait > 0 && stripeMask > 0) {
+            long other = tryAcquire((stripe + 1) & stripeMask, nowNanos);
+            wait = other == 0 ? 0 : Math.min(wait, other);
+        }
+        return wait;
+    }
+
+    private long tryAcquire(int stripe, long nowNanos) {
+        int slot = stripe * PADDING;
+        while (true) {
+            long arrival = theoreticalArrival.get(slot);
+            // Zero means never used, which also covers nanoTime values below the first arrival
+            long start = arrival == 0 || arrival - nowNanos < 0 ? nowNanos : arrival;
+            long wait = start - nowNanos - burstToleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(slot, arrival, start + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        return value ^ (value >>> 33);
+    }
+}
@@ -0,0 +1,262 @@
+package com.example.demo.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bouncycastle.operator.ContentSigner;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.entities.Certificate;
+import com.example.demo.entities.SerialBlock;
+import com.example.demo.exceptions.CertificateNotFoundException;
+import com.example.demo.repositories.SerialBlockRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only issuance log ({@code ca.transparency.enabled}): every issued certificate becomes a leaf of a
+ * {@link MerkleLog} before it is stored, so nothing is handed out without being logged.
+ * An append returns once its entries are fsync'd, concurrent appends sharing one fsync as in {@link IssuanceJournal}.
+ * Every {@code sth-interval} the subtree hashes are synced and, if the log grew, a new tree head is signed with the
+ * root CA key, so a burst of issuance costs one signature.
+ * Proofs are only served against signed tree heads, which never cover leaves that are not on disk.
+ * <p>
+ * Each node keeps its own log of what it issued, identified by {@code ca.node-id}. The serial number of a
+ * certificate tells which node issued it (see {@link #issuingNode}), so a proof request can be sent on to that node.
+ */
+@Service
+@Slf4j
+public class TransparencyLogService {
+
+    /**
+     * A tree head signed over the RFC 6962 TreeHeadSignature structure
+     */
+    public record SignedTreeHead(long treeSize, Instant timestamp, byte[] rootHash, byte[] signature,
+                                 String signatureAlgorithm) {
+    }
+
+    public record InclusionProof(long leafIndex, long treeSize, List<byte[]> auditPath) {
+    }
+
+    public record ConsistencyProof(long firstTreeSize, long secondTreeSize, List<byte[]> proof) {
+    }
+
+    @Autowired
+    private IssuingCaSigningEngine signingEngine;
+
+    @Autowired
+    private CertificateMetrics metrics;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private SerialBlockRepository serialBlockRepository;
+
+    @Value("${ca.node-id:local}")
+    private String nodeId;
+
+    @Value("${ca.transparency.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ca.transparency.directory:/var/lib/fake-bry/transparency}")
+    private Path directory;
+
+    // A tree head is signed again after this long even if nothing was issued, so clients can tell the log is alive
+    @Value("${ca.transparency.sth-max-age:1h}")
+    private Duration sthMaxAge;
+
+    private MerkleLog merkleLog;
+
+    private volatile SignedTreeHead current;
+
+    // Blocks never change owner
+    private final Map<Long, String> blockNodes = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        merkleLog = new MerkleLog(directory);
+        log.info("Opened transparency log at {} with {} leaves", directory, merkleLog.size());
+        publish();
+
+        Gauge.builder("ca.transparency.tree-size", () -> current.treeSize())
+                .description("Leaves covered by the latest signed tree head")
+                .register(meterRegistry);
+        Gauge.builder("ca.transparency.unsigned-leaves", () -> merkleLog.size() - current.treeSize())
+                .description("Leaves appended since the latest signed tree head")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The node whose log this is
+     */
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /**
+     * The node that issued a certificate, and so the one whose log holds it; empty when that cannot be told, e.g. for
+     * serials from before serial blocks, which are taken to be this node's
+     */
+    public Optional<String> issuingNode(String serialNumber) {
+        long block;
+        try {
+            block = SerialNumberAllocator.blockOf(new BigInteger(serialNumber));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+        if (block < 0) {
+            return Optional.empty();
+        }
+        String node = blockNodes.get(block);
+        if (node == null) {
+            node = serialBlockRepository.findById(block).map(SerialBlock::getNodeId).orElse(null);
+            if (node == null) {
+                return Optional.empty();
+            }
+            blockNodes.put(block, node);
+        }
+        return Optional.of(node);
+    }
+
+    /**
+     * Logs the certificates as consecutive leaves, durably; they are covered by the next signed tree head
+     */
+    public void append(List<Certificate> certificates) {
+        if (!enabled) {
+            return;
+        }
+        List<byte[]> ders = new ArrayList<>(certificates.size());
+        for (Certificate certificate : certificates) {
+            ders.add(certificate.getCertificateDer());
+        }
+        metrics.issueStage(CertificateMetrics.LOG_APPEND).record(() -> {
+            try {
+                long first = merkleLog.append(ders, System.currentTimeMillis());
+                merkleLog.force(first + ders.size());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to append to the transparency log", e);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${ca.transparency.sth-interval:1s}", initialDelayString = "${ca.transparency.sth-interval:1s}")
+    void refresh() {
+        if (!enabled) {
+            return;
+        }
+        SignedTreeHead head = current;
+        if (merkleLog.size() == head.treeSize() && Instant.now().isBefore(head.timestamp().plus(sthMaxAge))) {
+            return;
+        }
+        try {
+            publish();
+        } catch (IOException | RuntimeException e) {
+            log.error("Signing a transparency log tree head failed, keeping the current one", e);
+        }
+    }
+
+    public SignedTreeHead signedTreeHead() {
+        checkEnabled();
+        return current;
+    }
+
+    /**
+     * @param treeSize a signed tree size, or null for the latest signed tree head
+     */
+    public InclusionProof inclusionProof(byte[] leafHash, Long treeSize) {
+        long size = signedSize(treeSize);
+        long leafIndex = merkleLog.findLeaf(leafHash);
+        if (leafIndex < 0 || leafIndex >= size) {
+            throw new CertificateNotFoundException("Leaf is not in the transparency log tree of size " + size);
+        }
+        return new InclusionProof(leafIndex, size, merkleLog.inclusionProof(leafIndex, size));
+    }
+
+    public InclusionProof inclusionProofForCertificate(byte[] certificateDer, Long treeSize) {
+        return inclusionProof(MerkleLog.leafHash(certificateDer), treeSize);
+    }
+
+    public ConsistencyProof consistencyProof(long first, Long second) {
+        long secondSize = signedSize(second);
+        if (first < 0 || first > secondSize) {
+            throw new IllegalArgumentException("First tree size must be between 0 and " + secondSize);
+        }
+        return new ConsistencyProof(first, secondSize, merkleLog.consistencyProof(first, secondSize));
+    }
+
+    @PreDestroy
+    void shutdown() throws IOException {
+        if (merkleLog == null) {
+            return;
+        }
+        merkleLog.sync();
+        merkleLog.close();
+    }
+
+    private long signedSize(Long treeSize) {
+        checkEnabled();
+        long signed = current.treeSize();
+        if (treeSize == null) {
+            return signed;
+        }
+        if (treeSize < 0 || treeSize > signed) {
+            throw new IllegalArgumentException("Tree size must be between 0 and the signed tree size " + signed);
+        }
+        return treeSize;
+    }
+
+    private void checkEnabled() {
+        if (!enabled) {
+            throw new CertificateNotFoundException("The transparency log is disabled");
+        }
+    }
+
+    private void publish() throws IOException {
+        long treeSize = merkleLog.sync();
+        byte[] rootHash = merkleLog.rootHash(treeSize);
+        // Strictly increasing, as clients order tree heads by timestamp
+        long timestamp = Math.max(System.currentTimeMillis(), current == null ? 0 : current.timestamp().toEpochMilli() + 1);
+
+        ByteBuffer treeHeadSignature = ByteBuffer.allocate(2 + 2 * Long.BYTES + MerkleLog.HASH_BYTES)
+                .put((byte) 0)      // version v1
+                .put((byte) 1)      // signature_type tree_hash
+                .putLong(timestamp)
+                .putLong(treeSize)
+                .put(rootHash);
+        current = signingEngine.executeAs(CaHierarchy.ROOT, signingContext -> {
+            ContentSigner signer = signingContext.contentSigner();
+            try (OutputStream out = signer.getOutputStream()) {
+                out.write(treeHeadSignature.array());
+            }
+            return new SignedTreeHead(treeSize, Instant.ofEpochMilli(timestamp), rootHash, signer.getSignature(),
+                    signingContext.material().signatureAlgorithm());
+        });
+        log.debug("Signed transparency log tree head of size {}", treeSize);
+    }
+}
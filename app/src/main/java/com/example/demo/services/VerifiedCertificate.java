@@ -0,0 +1,20 @@
+package com.example.demo.services;
+
+import java.security.cert.X509Certificate;
+import java.util.List;
+
+/**
+ * A parsed client certificate together with the chain built for it against a given CA hierarchy.
+ * {@code chain} runs from the certificate itself to the root and is empty when no CA of the hierarchy issued it.
+ * Validity dates and revocation are deliberately not part of this result; they are checked on every use.
+ */
+public record VerifiedCertificate(
+        X509Certificate certificate,
+        List<X509Certificate> chain,
+        CaChainIndex verifiedAgainst
+) {
+
+    public boolean issuedByCa() {
+        return !chain.isEmpty();
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.demo.services;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.entities.Certificate;
+import com.example.demo.exceptions.TooManyRequestsException;
+import com.example.demo.repositories.CertificateRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Optional write-behind persistence for issued certificates ({@code ca.write-behind.enabled}).
+ * Issuance appends to the local {@link IssuanceJournal} and returns as soon as the fsync completes; a background
+ * writer seals the journal every {@code flush-interval} and inserts the sealed segments into Postgres in JDBC
+ * batches, deleting each segment once it is committed. Segments left by a crash are replayed on startup.
+ * Until a certificate is flushed it is served from an in-memory index, so lookups never miss it.
+ */
+@Service
+@Slf4j
+public class WriteBehindService {
+
+    private static final int EXISTS_QUERY_CHUNK = 1000;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private CertificateMetrics metrics;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${ca.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${ca.write-behind.directory:/var/lib/fake-bry/journal}")
+    private Path directory;
+
+    @Value("${ca.write-behind.flush-interval:200ms}")
+    private Duration flushInterval;
+
+    // Bounds memory (and replay time) when Postgres is unreachable for a long time
+    @Value("${ca.write-behind.max-pending:100000}")
+    private int maxPending;
+
+    private IssuanceJournal journal;
+
+    private final Map<String, Certificate> pending = new ConcurrentHashMap<>();
+
+    // Guarded by drainLock
+    private final Deque<IssuanceJournal.Segment> sealed = new ArrayDeque<>();
+    private final ReentrantLock drainLock = new ReentrantLock();
+
+    private volatile Thread writer;
+
+    @PostConstruct
+    void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        journal = new IssuanceJournal(directory);
+        for (IssuanceJournal.Segment segment : journal.recover()) {
+            index(segment.certificates());
+            sealed.add(segment);
+        }
+        if (!sealed.isEmpty()) {
+            log.info("Replaying {} journaled certificates from {} segments", pending.size(), sealed.size());
+        }
+
+        Gauge.builder("ca.write-behind.pending", pending, Map::size)
+                .description("Issued certificates journaled but not yet in the database")
+                .register(meterRegistry);
+
+        writer = new Thread(this::run, "journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Durably journals the certificates; they reach the database on the next flush
+     */
+    public void append(List<Certificate> certificates) {
+        if (pending.size() + certificates.size() > maxPending) {
+            // Overload, not a bad request: a 429 the client retries once the writer has drained a flush or two
+            throw new TooManyRequestsException("Write-behind backlog is full, try again later", flushInterval.multipliedBy(2));
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (Certificate certificate : certificates) {
+            if (certificate.getCreatedAt() == null) {
+                certificate.setCreatedAt(now);
+            }
+        }
+        // Indexed first: once appended, a concurrent drain may persist the segment and unindex it at any moment
+        index(certificates);
+        try {
+            journal.append(certificates);
+        } catch (RuntimeException e) {
+            for (Certificate certificate : certificates) {
+                pending.remove(certificate.getSerialNumber(), certificate);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * A journaled certificate that has not reached the database yet
+     */
+    public Optional<Certificate> findPending(String serialNumber) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(pending.get(serialNumber));
+    }
+
+    public boolean isPending(String serialNumber) {
+        return enabled && pending.containsKey(serialNumber);
+    }
+
+    /**
+     * Writes everything journaled so far to the database before returning
+     */
+    public void flush() {
+        if (enabled) {
+            drain();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws IOException {
+        Thread current = writer;
+        if (current == null) {
+            return;
+        }
+        current.interrupt();
+        try {
+            current.join(flushInterval.toMillis() * 10);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            log.warn("Final flush failed, {} certificates stay journaled for the next start", pending.size(), e);
+        }
+        journal.close();
+    }
+
+    private void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                boolean flushed;
+                try {
+                    flushed = drain();
+                } catch (RuntimeException e) {
+                    log.error("Journal flush failed", e);
+                    flushed = false;
+                }
+                if (!flushed) {
+                    // Database trouble: keep everything journaled and back off
+                    Thread.sleep(Math.max(flushInterval.toMillis() * 10, 1000));
+                }
+                Thread.sleep(flushInterval.toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return false if a segment could not be written and is still pending
+     */
+    private boolean drain() {
+        drainLock.lock();
+        try {
+            IssuanceJournal.Segment rolled = journal.roll();
+            if (rolled != null) {
+                sealed.add(rolled);
+            }
+            while (!sealed.isEmpty()) {
+                IssuanceJournal.Segment segment = sealed.peek();
+                if (!persist(segment)) {
+                    return false;
+                }
+                journal.delete(segment);
+                for (Certificate certificate : segment.certificates()) {
+                    pending.remove(certificate.getSerialNumber(), certificate);
+                }
+                sealed.poll();
+            }
+            return true;
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private boolean persist(IssuanceJournal.Segment segment) {
+        try {
+            try {
+                insert(segment.certificates(), segment.recovered());
+            } catch (DataIntegrityViolationException e) {
+                if (segment.recovered()) {
+                    throw e;
+                }
+                // Part of it is already there, e.g. a commit whose acknowledgement was lost: skip those rows
+                insert(segment.certificates(), true);
+            }
+            return true;
+        } catch (DataAccessException e) {
+            log.warn("Flushing journal segment {} failed, will retry: {}", segment.path(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void insert(List<Certificate> certificates, boolean skipExisting) {
+        // Rows of a replayed segment may already be in from before the crash
+        List<Certificate> batch = skipExisting ? withoutExisting(certificates) : certificates;
+        if (!batch.isEmpty()) {
+            metrics.issueStage(CertificateMetrics.JOURNAL_DRAIN).record(() -> certificateRepository.insertAll(batch));
+        }
+    }
+
+    private List<Certificate> withoutExisting(List<Certificate> certificates) {
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < certificates.size(); from += EXISTS_QUERY_CHUNK) {
+            List<String> serialNumbers = new ArrayList<>(EXISTS_QUERY_CHUNK);
+            for (Certificate certificate : certificates.subList(from, Math.min(from + EXISTS_QUERY_CHUNK, certificates.size()))) {
+                serialNumbers.add(certificate.getSerialNumber());
+            }
+            existing.addAll(certificateRepository.findExistingSerialNumbers(serialNumbers));
+        }
+        if (existing.isEmpty()) {
+            return certificates;
+        }
+        List<Certificate> missing = new ArrayList<>(certificates.size());
+        for (Certificate certificate : certificates) {
+            if (!existing.contains(certificate.getSerialNumber())) {
+                missing.add(certificate);
+            }
+        }
+        return missing;
+    }
+
+    private void index(List<Certificate> certificates) {
+        for (Certificate certificate : certificates) {
+            pending.put(certificate.getSerialNumber(), certificate);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+-- Schema as created by hibernate.ddl-auto=update from the original Certificate entity, before migrations were
+-- introduced. Databases created that way are baselined at this version (spring.flyway.baseline-on-migrate) and
+-- continue with V2, which also brings databases created by later ddl-auto versions to the same point.
+
+CREATE TABLE certificates (
+    id                        bigint GENERATED BY DEFAULT AS IDENTITY,
+    certificate_blob          oid          NOT NULL,
+    certificate_pem           text         NOT NULL,
+    created_at                timestamp(6) NOT NULL,
+    not_after                 timestamp(6) NOT NULL,
+    not_before                timestamp(6) NOT NULL,
+    public_key_algorithm      varchar(128),
+    serial_number             varchar(64)  NOT NULL,
+    signature_algorithm       varchar(128),
+    status                    varchar(32)  NOT NULL,
+    subject_common_name       varchar(512) NOT NULL,
+    subject_country           varchar(2),
+    subject_email             varchar(512),
+    subject_locality          varchar(512),
+    subject_organization_name varchar(512),
+    subject_organization_unit varchar(512),
+    subject_state             varchar(512),
+    version                   integer,
+    PRIMARY KEY (id)
+);
+
+ALTER TABLE certificates ADD CONSTRAINT ukfhimy9jsw510b0ga7b2wo2nw2 UNIQUE (serial_number);
@@ -0,0 +1,107 @@
+-- Certificates keep a single encoding, DER as bytea (PEM is rendered on demand), in a table range-partitioned by
+-- created_at with one partition per month, so old months can be detached and archived without touching the rest.
+-- Existing rows are copied in this migration's transaction; their large objects are read with lo_get and unlinked.
+
+-- Databases baselined at V1 were created by ddl-auto=update from whichever entity version was deployed: the
+-- original one lacks the revocation and expiry columns and the job_checkpoints and serial_blocks tables.
+ALTER TABLE certificates
+    ADD COLUMN IF NOT EXISTS revoked_at         timestamp(6),
+    ADD COLUMN IF NOT EXISTS revocation_reason  varchar(32),
+    ADD COLUMN IF NOT EXISTS expiry_notified_at timestamp(6);
+
+CREATE TABLE IF NOT EXISTS job_checkpoints (
+    job_name   varchar(64)  PRIMARY KEY,
+    last_id    bigint       NOT NULL,
+    processed  bigint       NOT NULL,
+    updated    bigint       NOT NULL,
+    completed  boolean      NOT NULL,
+    updated_at timestamp(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS serial_blocks (
+    id          bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    reserved_at timestamp(6) NOT NULL
+);
+
+ALTER TABLE certificates RENAME TO certificates_legacy;
+ALTER TABLE certificates_legacy RENAME CONSTRAINT certificates_pkey TO certificates_legacy_pkey;
+DROP INDEX IF EXISTS idx_certificates_not_after_id;
+DROP INDEX IF EXISTS idx_certificates_created_at_id;
+DROP INDEX IF EXISTS idx_certificates_status_not_after;
+DROP INDEX IF EXISTS idx_certificates_cn_not_after;
+DROP INDEX IF EXISTS idx_certificates_org_not_after;
+DROP INDEX IF EXISTS idx_certificates_revoked_at;
+DROP INDEX IF EXISTS idx_certificates_status_notified_not_after;
+
+-- Unique keys of a partitioned table must include the partition key. Serial numbers are unique by construction
+-- (serial_blocks); the key still catches the same row being written twice.
+CREATE TABLE certificates (
+    id                        bigint GENERATED BY DEFAULT AS IDENTITY,
+    serial_number             varchar(64)  NOT NULL,
+    version                   integer,
+    subject_common_name       varchar(512) NOT NULL,
+    subject_organization_name varchar(512),
+    subject_organization_unit varchar(512),
+    subject_country           varchar(2),
+    subject_state             varchar(512),
+    subject_locality          varchar(512),
+    subject_email             varchar(512),
+    signature_algorithm       varchar(128),
+    public_key_algorithm      varchar(128),
+    certificate_der           bytea        NOT NULL,
+    not_before                timestamp(6) NOT NULL,
+    not_after                 timestamp(6) NOT NULL,
+    created_at                timestamp(6) NOT NULL,
+    status                    varchar(32)  NOT NULL,
+    revoked_at                timestamp(6),
+    revocation_reason         varchar(32),
+    expiry_notified_at        timestamp(6),
+    CONSTRAINT certificates_pkey PRIMARY KEY (id, created_at),
+    CONSTRAINT uk_certificates_serial_number UNIQUE (serial_number, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Safety net for rows outside every monthly partition; CertificatePartitionService creates months ahead of time
+CREATE TABLE certificates_default PARTITION OF certificates DEFAULT;
+
+DO $$
+DECLARE
+    month date := date_trunc('month', coalesce((SELECT min(created_at) FROM certificates_legacy), now()));
+    last  date := date_trunc('month', now()) + interval '3 months';
+BEGIN
+    WHILE month <= last LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF certificates FOR VALUES FROM (%L) TO (%L)',
+                       'certificates_p' || to_char(month, 'YYYYMM'), month, month + interval '1 month');
+        month := month + interval '1 month';
+    END LOOP;
+END $$;
+
+CREATE INDEX idx_certificates_not_after_id ON certificates (not_after, id);
+CREATE INDEX idx_certificates_created_at_id ON certificates (created_at, id);
+CREATE INDEX idx_certificates_status_not_after ON certificates (status, not_after, id);
+CREATE INDEX idx_certificates_cn_not_after ON certificates (subject_common_name, not_after, id);
+CREATE INDEX idx_certificates_org_not_after ON certificates (subject_organization_name, not_after, id);
+CREATE INDEX idx_certificates_revoked_at ON certificates (revoked_at);
+CREATE INDEX idx_certificates_status_notified_not_after ON certificates (status, expiry_notified_at, not_after);
+
+INSERT INTO certificates (
+    id, serial_number, version,
+    subject_common_name, subject_organization_name, subject_organization_unit,
+    subject_country, subject_state, subject_locality, subject_email,
+    signature_algorithm, public_key_algorithm,
+    certificate_der,
+    not_before, not_after, created_at, status,
+    revoked_at, revocation_reason, expiry_notified_at
+)
+SELECT id, serial_number, version,
+       subject_common_name, subject_organization_name, subject_organization_unit,
+       subject_country, subject_state, subject_locality, subject_email,
+       signature_algorithm, public_key_algorithm,
+       lo_get(certificate_blob),
+       not_before, not_after, created_at, status,
+       revoked_at, revocation_reason, expiry_notified_at
+FROM certificates_legacy;
+
+SELECT setval(pg_get_serial_sequence('certificates', 'id'), coalesce((SELECT max(id) FROM certificates), 0) + 1, false);
+
+SELECT lo_unlink(certificate_blob) FROM certificates_legacy;
+DROP TABLE certificates_legacy;
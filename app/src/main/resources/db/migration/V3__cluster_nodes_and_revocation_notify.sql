@@ -0,0 +1,20 @@
+-- Multi-node deployments: record which instance reserved each serial block, and tell every instance about a
+-- revocation as soon as it commits. The trigger sits on the partitioned table, so it covers every partition
+-- and every code path that revokes; the notification is only delivered if the transaction commits.
+
+ALTER TABLE serial_blocks ADD COLUMN node_id varchar(64);
+
+CREATE FUNCTION notify_certificate_revoked() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    PERFORM pg_notify('certificate_revoked', NEW.serial_number);
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER certificates_revoked_notify
+    AFTER UPDATE OF status ON certificates
+    FOR EACH ROW
+    WHEN (NEW.status = 'REVOKED' AND OLD.status IS DISTINCT FROM 'REVOKED')
+EXECUTE FUNCTION notify_certificate_revoked();
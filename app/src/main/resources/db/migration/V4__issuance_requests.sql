@@ -0,0 +1,12 @@
+-- Issuance deduplication: one row per Idempotency-Key or CSR fingerprint, claimed before signing. The primary key
+-- is what makes a retry on another instance find the first request's certificate instead of signing again;
+-- certificates itself is partitioned and cannot carry a global unique constraint on anything but its partition key.
+
+CREATE TABLE issuance_requests (
+    request_key         varchar(160) PRIMARY KEY,
+    request_fingerprint varchar(64)  NOT NULL,
+    serial_number       varchar(64),
+    created_at          timestamp(6) NOT NULL
+);
+
+CREATE INDEX idx_issuance_requests_created_at ON issuance_requests (created_at);
@@ -0,0 +1,33 @@
+-- Serial numbers must be unique across all of certificates, but since V2 the only unique key there is
+-- (serial_number, created_at): a partitioned table's unique keys have to include the partition key, so it only
+-- catches the same row being written twice. This unpartitioned table holds every serial ever stored, and the
+-- trigger below inserts into it for each new certificate, whatever path the row comes in by (JPA save, the batch
+-- insert of the write-behind drain, a manual INSERT). A duplicate fails the insert with a unique violation on
+-- serial_numbers_pkey, which the write-behind drain already treats as "part of this batch is in".
+--
+-- Trade-off: one more index insert per certificate, in a table that is never partitioned and is not emptied when an
+-- old certificates partition is detached and dropped. That is on purpose, as a serial must not come back after its
+-- certificate was archived, and it costs around 100 bytes per certificate ever issued. The alternative, checking
+-- for the serial before every insert, would cost a probe of every partition's index per certificate and still
+-- race with another instance.
+
+CREATE TABLE serial_numbers (
+    serial_number varchar(64) PRIMARY KEY
+);
+
+-- Rows from before this migration; a serial that is already duplicated is kept once rather than failing the upgrade
+INSERT INTO serial_numbers (serial_number)
+SELECT serial_number FROM certificates
+ON CONFLICT DO NOTHING;
+
+CREATE FUNCTION certificates_reserve_serial_number() RETURNS trigger
+    LANGUAGE plpgsql AS $$
+BEGIN
+    INSERT INTO serial_numbers (serial_number) VALUES (NEW.serial_number);
+    RETURN NEW;
+END $$;
+
+-- Defined on the partitioned parent, so every current and future partition inherits it
+CREATE TRIGGER trg_certificates_reserve_serial_number
+    BEFORE INSERT ON certificates
+    FOR EACH ROW EXECUTE FUNCTION certificates_reserve_serial_number();
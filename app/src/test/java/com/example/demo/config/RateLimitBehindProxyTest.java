@@ -0,0 +1,61 @@
+package com.example.demo.config;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.demo.services.OcspCodec;
+
+/**
+ * Runs on a real Tomcat, whose RemoteIpValve (server.forward-headers-strategy=native) is what turns nginx's
+ * X-Forwarded-For into the remote address the per-client buckets are keyed on. The test client connects from
+ * 127.0.0.1, which the valve trusts as a proxy, just as it trusts nginx on the private Docker network.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "ca.rate-limit.enabled=true",
+        "ca.rate-limit.endpoints.ocsp.per-client-rate=0.001",
+        "ca.rate-limit.endpoints.ocsp.per-client-burst=1",
+        "ca.transparency.directory=target/transparency-rate-limit-proxy-test"
+})
+@ActiveProfiles("test")
+class RateLimitBehindProxyTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void keysOcspBucketOnForwardedClientAddress() throws Exception {
+        assertFalse(isTryLater(ocspPost("203.0.113.7")));
+        assertTrue(isTryLater(ocspPost("203.0.113.7")));
+
+        // Another client behind the same proxy connection still has its own bucket
+        assertFalse(isTryLater(ocspPost("198.51.100.20")));
+        // A client-supplied address in front of nginx's own entry does not buy a fresh bucket
+        assertTrue(isTryLater(ocspPost("192.0.2.1, 203.0.113.7")));
+    }
+
+    private static boolean isTryLater(HttpResponse<byte[]> response) {
+        return response.statusCode() == 200 && Arrays.equals(OcspCodec.TRY_LATER, response.body());
+    }
+
+    private HttpResponse<byte[]> ocspPost(String forwardedFor) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/ocsp"))
+                .header("Content-Type", "application/ocsp-request")
+                .header("X-Forwarded-For", forwardedFor)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(new byte[] {0x30, 0x00}))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.demo.config;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import java.util.Arrays;
+
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import com.example.demo.services.OcspCodec;
+
+@SpringBootTest(properties = {
+        "ca.rate-limit.enabled=true",
+        "ca.rate-limit.endpoints.ocsp.per-client-rate=0.001",
+        "ca.rate-limit.endpoints.ocsp.per-client-burst=2"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RateLimitInterceptorTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void limitsOcspPostAndGetPerClient() throws Exception {
+        assertFalse(isTryLater(perform(ocspPost("127.0.0.1"))));
+        assertFalse(isTryLater(perform(get("/ocsp/MAA="))));
+
+        // Rejected inside the OCSP protocol: HTTP 200 with a tryLater response an OCSP client can parse
+        MockHttpServletResponse rejected = perform(ocspPost("127.0.0.1"));
+        assertEquals(200, rejected.getStatus());
+        assertEquals("application/ocsp-response", rejected.getContentType());
+        assertArrayEquals(OcspCodec.TRY_LATER, rejected.getContentAsByteArray());
+        assertEquals(OCSPResp.TRY_LATER, new OCSPResp(rejected.getContentAsByteArray()).getStatus());
+        assertTrue(Long.parseLong(rejected.getHeader("Retry-After")) >= 1);
+        assertEquals("no-store", rejected.getHeader("Cache-Control"));
+        assertTrue(isTryLater(perform(get("/ocsp/MAA="))));
+
+        // Buckets are per client address
+        assertFalse(isTryLater(perform(ocspPost("10.0.0.2"))));
+    }
+
+    @Test
+    void otherEndpointsStillAnswer429() throws Exception {
+        RequestBuilder request = post("/api/issue-certificates/batch").contentType("text/plain").content("x")
+                .with(r -> {
+                    r.setRemoteAddr("10.0.0.3");
+                    return r;
+                });
+        MockHttpServletResponse response = null;
+        // The batch group's per-client burst is 5
+        for (int i = 0; i < 10 && (response == null || response.getStatus() != 429); i++) {
+            response = perform(request);
+        }
+        assertEquals(429, response.getStatus());
+        assertTrue(response.getContentAsString().contains("Too many batch requests"));
+    }
+
+    private static boolean isTryLater(MockHttpServletResponse response) {
+        return response.getStatus() == 200 && Arrays.equals(OcspCodec.TRY_LATER, response.getContentAsByteArray());
+    }
+
+    private static RequestBuilder ocspPost(String remoteAddr) {
+        return post("/ocsp").contentType("application/ocsp-request").content(new byte[] {0x30, 0x00})
+                .with(request -> {
+                    request.setRemoteAddr(remoteAddr);
+                    return request;
+                });
+    }
+
+    private MockHttpServletResponse perform(RequestBuilder request) throws Exception {
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.demo.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.demo.entities.SerialBlock;
+import com.example.demo.repositories.SerialBlockRepository;
+
+@SpringBootTest(properties = {
+        "ca.node-id=fake-bry-springboot-1",
+        "ca.transparency.directory=target/transparency-controller-test"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class TransparencyControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SerialBlockRepository serialBlockRepository;
+
+    @Test
+    void namesTheNodeWhoseLogAnswered() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/api/transparency/sth")).andReturn().getResponse();
+
+        assertEquals(200, response.getStatus());
+        assertEquals("fake-bry-springboot-1", response.getHeader("X-CA-Node"));
+    }
+
+    @Test
+    void redirectsCertificateProofToIssuingNode() throws Exception {
+        String serialNumber = serialFromBlockOf("fake-bry-springboot-2");
+
+        MockHttpServletResponse response = mockMvc.perform(
+                get("/api/transparency/certificates/" + serialNumber + "/proof?tree_size=0"))
+                .andReturn().getResponse();
+
+        assertEquals(307, response.getStatus());
+        assertEquals("http://localhost/api/transparency/certificates/" + serialNumber
+                + "/proof?tree_size=0&node=fake-bry-springboot-2", response.getRedirectedUrl());
+    }
+
+    @Test
+    void answersLocallyWhenNodeIsNamedOrIssuerIsThisNode() throws Exception {
+        String elsewhere = serialFromBlockOf("fake-bry-springboot-2");
+        String here = serialFromBlockOf("fake-bry-springboot-1");
+
+        // Neither certificate exists; what matters is that no redirect comes back
+        assertEquals(404, mockMvc.perform(get("/api/transparency/certificates/" + elsewhere + "/proof")
+                .param("node", "fake-bry-springboot-2")).andReturn().getResponse().getStatus());
+        assertEquals(404, mockMvc.perform(get("/api/transparency/certificates/" + here + "/proof"))
+                .andReturn().getResponse().getStatus());
+        // Random serials from before serial blocks carry no node
+        assertEquals(404, mockMvc.perform(get("/api/transparency/certificates/" + BigInteger.ONE.shiftLeft(158) + "/proof"))
+                .andReturn().getResponse().getStatus());
+    }
+
+    /**
+     * A serial laid out as the allocator does: block id, then a 32-bit counter and 88 random bits
+     */
+    private String serialFromBlockOf(String nodeId) {
+        long block = serialBlockRepository.save(new SerialBlock(LocalDateTime.now(), nodeId)).getId();
+        return BigInteger.valueOf(block).shiftLeft(120).add(BigInteger.valueOf(12345)).toString();
+    }
+}
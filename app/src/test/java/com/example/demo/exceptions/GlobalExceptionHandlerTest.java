@@ -0,0 +1,123 @@
+package com.example.demo.exceptions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import java.io.StringWriter;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.openssl.jcajce.JcaPEMWriter;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.pkcs.jcajce.JcaPKCS10CertificationRequestBuilder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.demo.services.CertificateCodec;
+import com.example.demo.services.IssuanceDeduplicationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest(properties = "ca.transparency.directory=target/transparency-exception-handler-test")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class GlobalExceptionHandlerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoSpyBean
+    private IssuanceDeduplicationService issuanceDeduplicationService;
+
+    @Test
+    void malformedInputIsABadRequest() throws Exception {
+        assertEquals(400, issue("not a CSR").getStatus());
+        assertEquals(400, mockMvc.perform(get("/api/certificates?sort=serialNumber"))
+                .andReturn().getResponse().getStatus());
+        assertEquals(400, mockMvc.perform(get("/api/certificates?cursor=bm90LWEtY3Vyc29y"))
+                .andReturn().getResponse().getStatus());
+        assertEquals(400, mockMvc.perform(get("/api/transparency/consistency?first=abc"))
+                .andReturn().getResponse().getStatus());
+        assertEquals(400, mockMvc.perform(get("/api/transparency/consistency"))
+                .andReturn().getResponse().getStatus());
+    }
+
+    @Test
+    void revokingTwiceIsAConflict() throws Exception {
+        MockHttpServletResponse issued = issue(csr());
+        assertEquals(200, issued.getStatus(), issued.getContentAsString());
+        String certificatePem = objectMapper.readTree(issued.getContentAsString()).get("certificate").asText();
+        String serialNumber = CertificateCodec.parseCertificate(CertificateCodec.decodeCertificatePem(certificatePem))
+                .getSerialNumber().toString();
+
+        assertEquals(200, revoke(serialNumber).getStatus());
+        MockHttpServletResponse again = revoke(serialNumber);
+
+        assertEquals(409, again.getStatus());
+        assertTrue(again.getContentAsString().contains("already revoked"), again.getContentAsString());
+        assertEquals(404, revoke("123456789").getStatus());
+    }
+
+    @Test
+    void serverFailuresAreInternalErrorsWithoutDetails() throws Exception {
+        doThrow(new IllegalStateException("journal on /var/lib/fake-bry is unusable"))
+                .when(issuanceDeduplicationService).issue(any(), isNull(), isNull());
+
+        MockHttpServletResponse response = issue(csr());
+
+        assertEquals(500, response.getStatus());
+        assertFalse(response.getContentAsString().contains("/var/lib/fake-bry"), response.getContentAsString());
+    }
+
+    @Test
+    void springMvcErrorsKeepTheirStatus() throws Exception {
+        assertEquals(404, mockMvc.perform(get("/api/no-such-endpoint")).andReturn().getResponse().getStatus());
+        assertEquals(405, mockMvc.perform(get("/api/issue-certificate")).andReturn().getResponse().getStatus());
+        assertEquals(415, mockMvc.perform(post("/api/issue-certificates/batch")
+                        .contentType(MediaType.APPLICATION_XML).content("<csrs/>"))
+                .andReturn().getResponse().getStatus());
+    }
+
+    private MockHttpServletResponse issue(String csrPem) throws Exception {
+        return mockMvc.perform(post("/api/issue-certificate")
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .content(csrPem))
+                .andReturn().getResponse();
+    }
+
+    private MockHttpServletResponse revoke(String serialNumber) throws Exception {
+        return mockMvc.perform(post("/api/certificates/" + serialNumber + "/revoke")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"reason\":\"keyCompromise\"}"))
+                .andReturn().getResponse();
+    }
+
+    private static String csr() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(256);
+        KeyPair keyPair = generator.generateKeyPair();
+        StringWriter pem = new StringWriter();
+        try (JcaPEMWriter writer = new JcaPEMWriter(pem)) {
+            writer.writeObject(new JcaPKCS10CertificationRequestBuilder(
+                    new X500Name("CN=device-1,O=Acme,C=BR"), keyPair.getPublic())
+                    .build(new JcaContentSignerBuilder("SHA256withECDSA").build(keyPair.getPrivate())));
+        }
+        return pem.toString();
+    }
+}
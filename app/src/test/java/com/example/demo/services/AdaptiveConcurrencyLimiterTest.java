@@ -0,0 +1,169 @@
+package com.example.demo.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.exceptions.TooManyRequestsException;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void stop() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void rejectsAtOnceWhenQueueIsFull() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1, Duration.ofSeconds(30));
+        occupy(limiter, 1);
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> limiter.execute(() -> "queued"), executor);
+        awaitWaiting(limiter, 1);
+
+        long start = System.nanoTime();
+        TooManyRequestsException rejected = assertThrows(TooManyRequestsException.class,
+                () -> limiter.execute(() -> "rejected"));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), "rejected without waiting for a slot");
+        assertTrue(rejected.getRetryAfter().compareTo(Duration.ofSeconds(1)) >= 0);
+        assertEquals(1, limiter.rejectedCount());
+
+        release.countDown();
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+        assertEquals(1, limiter.queuedCount());
+    }
+
+    @Test
+    void rejectsWithRetryAfterWhenMaxWaitExpires() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 10, Duration.ofMillis(100));
+        occupy(limiter, 1);
+
+        long start = System.nanoTime();
+        TooManyRequestsException rejected = assertThrows(TooManyRequestsException.class,
+                () -> limiter.execute(() -> "late"));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+        // Becomes the Retry-After header of the 429; never below what the header can express
+        assertTrue(rejected.getRetryAfter().compareTo(Duration.ofSeconds(1)) >= 0);
+        assertEquals(0, limiter.waiting());
+        assertEquals(1, limiter.inFlight());
+    }
+
+    @Test
+    void admitsUpToLimitWithoutQueueing() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(3, 0, Duration.ZERO);
+        occupy(limiter, 3);
+
+        assertThrows(TooManyRequestsException.class, () -> limiter.execute(() -> "fourth"));
+        assertEquals(3, limiter.admittedCount());
+
+        release.countDown();
+        awaitInFlight(limiter, 0);
+        assertEquals("again", limiter.execute(() -> "again"));
+    }
+
+    @Test
+    void releasesSlotWhenWorkFails() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 0, Duration.ZERO);
+
+        assertThrows(IllegalStateException.class, () -> limiter.execute(() -> {
+            throw new IllegalStateException("signing failed");
+        }));
+        assertEquals(0, limiter.inFlight());
+        assertEquals("next", limiter.execute(() -> "next"));
+    }
+
+    @Test
+    void shrinksLimitWhenLatencyRises() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(16, 2, 64, 0, Duration.ZERO,
+                Duration.ofMillis(1), 1.5);
+
+        // Establish the unloaded baseline over several windows
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        while (System.nanoTime() < end) {
+            limiter.execute(() -> {
+                sleep(1);
+                return null;
+            });
+        }
+        assertTrue(limiter.limit() > 2, "steady latency keeps the limit up, was " + limiter.limit());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (limiter.limit() > 2 && System.nanoTime() < deadline) {
+            limiter.execute(() -> {
+                sleep(10);
+                return null;
+            });
+        }
+        assertEquals(2, limiter.limit(), "sustained slow work pushes the limit down to its minimum");
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new AdaptiveConcurrencyLimiter(1, 0, 1, 0, Duration.ZERO, Duration.ofSeconds(1), 1.5));
+        assertThrows(IllegalArgumentException.class,
+                () -> new AdaptiveConcurrencyLimiter(4, 2, 3, 0, Duration.ZERO, Duration.ofSeconds(1), 1.5));
+        assertThrows(IllegalArgumentException.class,
+                () -> new AdaptiveConcurrencyLimiter(2, 2, 2, 0, Duration.ZERO, Duration.ofSeconds(1), 0.9));
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter(int limit, int maxQueue, Duration maxWait) {
+        return new AdaptiveConcurrencyLimiter(limit, limit, limit, maxQueue, maxWait, Duration.ofSeconds(1), 1.5);
+    }
+
+    /**
+     * Holds {@code count} slots until the test releases them
+     */
+    private void occupy(AdaptiveConcurrencyLimiter limiter, int count) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(count);
+        for (int i = 0; i < count; i++) {
+            CompletableFuture.runAsync(() -> limiter.execute(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }), executor);
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+    }
+
+    private static void awaitWaiting(AdaptiveConcurrencyLimiter limiter, int waiting) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (limiter.waiting() != waiting && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(waiting, limiter.waiting());
+    }
+
+    private static void awaitInFlight(AdaptiveConcurrencyLimiter limiter, int inFlight) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (limiter.inFlight() != inFlight && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(inFlight, limiter.inFlight());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
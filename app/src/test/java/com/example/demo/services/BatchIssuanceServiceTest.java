@@ -0,0 +1,103 @@
+package com.example.demo.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import com.example.demo.DTOs.BatchIssuanceItemDTO;
+import com.example.demo.DTOs.BatchIssuanceResponseDTO;
+import com.example.demo.repositories.CertificateRepository;
+
+@SpringBootTest(properties = {
+        "ca.batch.max-size=10",
+        "ca.transparency.directory=target/transparency-batch-test"
+})
+@ActiveProfiles("test")
+class BatchIssuanceServiceTest {
+
+    @Autowired
+    private BatchIssuanceService batchIssuanceService;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @MockitoSpyBean
+    private TransparencyLogService transparencyLogService;
+
+    @Test
+    void issuesTheGoodCsrsAndReportsEachBadOneAtItsIndex() throws Exception {
+        Extensions caRequest = new Extensions(new Extension(Extension.basicConstraints, true,
+                new BasicConstraints(true).getEncoded()));
+        List<String> csrs = List.of(
+                csr("CN=batch-1,O=Acme,C=BR"),
+                "-----BEGIN CERTIFICATE REQUEST-----\nnot base64\n-----END CERTIFICATE REQUEST-----",
+                TestCertificates.pem(TestCertificates.csr("CN=batch-ca,O=Acme,C=BR", TestCertificates.keyPair(), caRequest)),
+                csr("CN=batch-4,O=Acme,C=BR"));
+
+        BatchIssuanceResponseDTO response = batchIssuanceService.issueCertificates(csrs, null);
+
+        assertEquals(4, response.getTotal());
+        assertEquals(2, response.getIssued());
+        assertEquals(2, response.getFailed());
+        List<BatchIssuanceItemDTO> results = response.getResults();
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+        }
+        for (int i : List.of(0, 3)) {
+            BatchIssuanceItemDTO issued = results.get(i);
+            assertTrue(issued.isSuccess());
+            assertNull(issued.getError());
+            assertTrue(certificateRepository.existsBySerialNumber(issued.getSerialNumber()), issued.getSerialNumber());
+            assertEquals(issued.getSerialNumber(), CertificateCodec.parseCertificate(
+                    CertificateCodec.decodeCertificatePem(issued.getCertificate())).getSerialNumber().toString());
+        }
+        assertFalse(results.get(1).isSuccess());
+        assertTrue(results.get(1).getError().startsWith("Failed to parse CSR"), results.get(1).getError());
+        assertFalse(results.get(2).isSuccess());
+        assertEquals("CA certificates cannot be requested", results.get(2).getError());
+        assertNull(results.get(2).getSerialNumber());
+    }
+
+    @Test
+    void failsOnlyTheSignedItemsWhenSavingTheBatchFails() throws Exception {
+        doThrow(new UncheckedIOException(new IOException("disk full"))).when(transparencyLogService).append(any());
+
+        BatchIssuanceResponseDTO response = batchIssuanceService.issueCertificates(
+                List.of(csr("CN=batch-5,O=Acme,C=BR"), "garbage"), null);
+
+        assertEquals(0, response.getIssued());
+        assertEquals("Failed to save certificate to database", response.getResults().get(0).getError());
+        assertTrue(response.getResults().get(1).getError().startsWith("Failed to parse CSR"));
+    }
+
+    @Test
+    void rejectsEmptyAndOversizedBatchesAsAWhole() {
+        assertThrows(IllegalArgumentException.class, () -> batchIssuanceService.issueCertificates(List.of(), null));
+        List<String> oversized = new ArrayList<>(Collections.nCopies(11, "garbage"));
+        assertThrows(IllegalArgumentException.class, () -> batchIssuanceService.issueCertificates(oversized, null));
+    }
+
+    private static String csr(String subject) {
+        return TestCertificates.pem(TestCertificates.csr(subject, TestCertificates.keyPair(), null));
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.demo.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest(properties = {
+        // Smaller than the input, so results are written while later lines are still being read
+        "ca.validation.stream.window=2",
+        "ca.transparency.directory=target/transparency-bulk-validation-test"
+})
+@ActiveProfiles("test")
+class BulkValidationServiceTest {
+
+    @Autowired
+    private BulkValidationService bulkValidationService;
+
+    @Autowired
+    private CertificatesService certificatesService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void answersEveryLineInOrderAndIsolatesBadOnes() throws Exception {
+        KeyPair keys = TestCertificates.keyPair();
+        String certificatePem = certificatesService.issueCertificate(
+                TestCertificates.pem(TestCertificates.csr("CN=bulk-1,O=Acme,C=BR", keys, null)), null);
+        KeyPair strangerKeys = TestCertificates.keyPair();
+        String strangerPem = TestCertificates.pem(TestCertificates.rootCa("CN=Stranger", strangerKeys, -1));
+
+        String input = String.join("\n",
+                line(certificatePem, "hello", sign(keys, "hello")),
+                "{\"certificatePem\": ",
+                line("-----BEGIN CERTIFICATE-----\nAAAA\n-----END CERTIFICATE-----", "hello", sign(keys, "hello")),
+                "",
+                line(certificatePem, "hello", sign(keys, "tampered")),
+                line(strangerPem, "hello", sign(strangerKeys, "hello")),
+                line(certificatePem, "again", sign(keys, "again")));
+
+        List<JsonNode> results = validate(input);
+
+        assertEquals(6, results.size());
+        assertTrue(results.get(0).get("signatureValid").asBoolean(), results.get(0).toString());
+        assertTrue(results.get(1).has("error"), results.get(1).toString());
+        assertTrue(results.get(2).get("error").asText().startsWith("Failed to parse certificate"), results.get(2).toString());
+        assertTrue(results.get(3).get("certificateValid").asBoolean());
+        assertFalse(results.get(3).get("signatureValid").asBoolean());
+        assertEquals("Certificate was not issued by this CA", results.get(4).get("message").asText());
+        assertTrue(results.get(5).get("signatureValid").asBoolean(), results.get(5).toString());
+    }
+
+    private List<JsonNode> validate(String input) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        bulkValidationService.validateStream(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output);
+        return output.toString(StandardCharsets.UTF_8).lines()
+                .map(resultLine -> {
+                    try {
+                        return objectMapper.readTree(resultLine);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .toList();
+    }
+
+    private String line(String certificatePem, String data, String signature) throws Exception {
+        return objectMapper.writeValueAsString(Map.of("certificatePem", certificatePem, "data", data,
+                "signature", signature));
+    }
+
+    private static String sign(KeyPair keys, String data) throws Exception {
+        Signature signature = Signature.getInstance("SHA256withECDSA");
+        signature.initSign(keys.getPrivate());
+        signature.update(data.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(signature.sign());
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.demo.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.security.KeyPair;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.junit.jupiter.api.Test;
+
+class CaChainIndexTest {
+
+    private final KeyPair rootKeys = TestCertificates.keyPair();
+    private final X509Certificate root = TestCertificates.rootCa("CN=Test Root,O=Acme,C=BR", rootKeys, -1);
+
+    @Test
+    void buildsChainOfLeafIssuedByIntermediate() {
+        KeyPair intermediateKeys = TestCertificates.keyPair();
+        X509Certificate intermediate = TestCertificates.intermediateCa("CN=Test Issuing,O=Acme,C=BR", intermediateKeys,
+                root, rootKeys.getPrivate(), 0);
+        X509Certificate leaf = TestCertificates.leaf("CN=device-1", TestCertificates.keyPair(), intermediate,
+                intermediateKeys.getPrivate());
+
+        CaChainIndex index = CaChainIndex.build(root, List.of(intermediate));
+
+        assertEquals(Optional.of(List.of(leaf, intermediate, root)), index.buildChain(leaf));
+        assertEquals(Optional.of(List.of(intermediate, root)), index.buildChain(intermediate));
+        assertEquals(List.of(intermediate), index.intermediates());
+    }
+
+    @Test
+    void linksIntermediatesGivenChildFirst() {
+        KeyPair policyKeys = TestCertificates.keyPair();
+        X509Certificate policy = TestCertificates.intermediateCa("CN=Test Policy", policyKeys, root,
+                rootKeys.getPrivate(), 1);
+        X509Certificate issuing = TestCertificates.intermediateCa("CN=Test Issuing", TestCertificates.keyPair(),
+                policy, policyKeys.getPrivate(), -1);
+
+        CaChainIndex index = CaChainIndex.build(root, List.of(issuing, policy));
+
+        assertEquals(List.of(policy, issuing), index.intermediates());
+        assertEquals(Optional.of(List.of(issuing, policy, root)), index.buildChain(issuing));
+    }
+
+    @Test
+    void findsNoChainForUnknownIssuer() {
+        KeyPair otherRootKeys = TestCertificates.keyPair();
+        X509Certificate otherRoot = TestCertificates.rootCa("CN=Other Root", otherRootKeys, -1);
+        X509Certificate stranger = TestCertificates.leaf("CN=device-2", TestCertificates.keyPair(), otherRoot,
+                otherRootKeys.getPrivate());
+        // Same issuer name as the indexed root, signed by a different key
+        KeyPair impostorKeys = TestCertificates.keyPair();
+        X509Certificate impostorRoot = TestCertificates.rootCa("CN=Test Root,O=Acme,C=BR", impostorKeys, -1);
+        X509Certificate forged = TestCertificates.leaf("CN=device-3", TestCertificates.keyPair(), impostorRoot,
+                impostorKeys.getPrivate());
+
+        CaChainIndex index = CaChainIndex.build(root, List.of());
+
+        assertTrue(index.buildChain(stranger).isEmpty());
+        assertTrue(index.buildChain(forged).isEmpty());
+        IllegalArgumentException rejected = assertThrows(IllegalArgumentException.class,
+                () -> CaChainIndex.build(root, List.of(TestCertificates.intermediateCa("CN=Orphan",
+                        TestCertificates.keyPair(), otherRoot, otherRootKeys.getPrivate(), 0))));
+        assertTrue(rejected.getMessage().contains("does not chain"), rejected.getMessage());
+    }
+
+    @Test
+    void rejectsPathLengthViolation() {
+        KeyPair issuingKeys = TestCertificates.keyPair();
+        X509Certificate issuing = TestCertificates.intermediateCa("CN=Test Issuing", issuingKeys, root,
+                rootKeys.getPrivate(), 0);
+        // pathLen 0 on the issuing CA forbids any CA below it
+        X509Certificate nested = TestCertificates.intermediateCa("CN=Nested", TestCertificates.keyPair(), issuing,
+                issuingKeys.getPrivate(), 0);
+
+        IllegalArgumentException rejected = assertThrows(IllegalArgumentException.class,
+                () -> CaChainIndex.build(root, List.of(issuing, nested)));
+        assertTrue(rejected.getMessage().contains("path length constraint"), rejected.getMessage());
+
+        // Same rule on the anchor: pathLen 0 allows it to issue only end-entity certificates
+        KeyPair leafOnlyRootKeys = TestCertificates.keyPair();
+        X509Certificate leafOnlyRoot = TestCertificates.rootCa("CN=Leaf-only Root", leafOnlyRootKeys, 0);
+        X509Certificate belowLeafOnly = TestCertificates.intermediateCa("CN=Below Leaf-only",
+                TestCertificates.keyPair(), leafOnlyRoot, leafOnlyRootKeys.getPrivate(), 0);
+        assertThrows(IllegalArgumentException.class, () -> CaChainIndex.build(leafOnlyRoot, List.of(belowLeafOnly)));
+    }
+
+    @Test
+    void rejectsExpiredIntermediate() {
+        X509Certificate expired = TestCertificates.caCertificate("CN=Expired Issuing", TestCertificates.keyPair(),
+                X500Name.getInstance(root.getSubjectX500Principal().getEncoded()), rootKeys.getPrivate(), root, 0,
+                Duration.ofDays(1));
+
+        IllegalArgumentException rejected = assertThrows(IllegalArgumentException.class,
+                () -> CaChainIndex.build(root, List.of(expired)));
+        assertTrue(rejected.getMessage().contains("not valid now"), rejected.getMessage());
+    }
+
+    @Test
+    void tellsApartCasSharingASubjectByKey() {
+        // A re-keyed issuing CA keeps its name; certificates from both keys must still chain
+        KeyPair oldKeys = TestCertificates.keyPair();
+        KeyPair newKeys = TestCertificates.keyPair();
+        X509Certificate oldIssuing = TestCertificates.intermediateCa("CN=Test Issuing", oldKeys, root,
+                rootKeys.getPrivate(), 0);
+        X509Certificate newIssuing = TestCertificates.intermediateCa("CN=Test Issuing", newKeys, root,
+                rootKeys.getPrivate(), 0);
+        X509Certificate oldLeaf = TestCertificates.leaf("CN=device-old", TestCertificates.keyPair(), oldIssuing,
+                oldKeys.getPrivate());
+        X509Certificate newLeaf = TestCertificates.leaf("CN=device-new", TestCertificates.keyPair(), newIssuing,
+                newKeys.getPrivate());
+
+        CaChainIndex index = CaChainIndex.build(root, List.of(oldIssuing, newIssuing));
+
+        assertEquals(Optional.of(List.of(oldLeaf, oldIssuing, root)), index.buildChain(oldLeaf));
+        assertEquals(Optional.of(List.of(newLeaf, newIssuing, root)), index.buildChain(newLeaf));
+    }
+}
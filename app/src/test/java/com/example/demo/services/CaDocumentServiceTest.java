@@ -0,0 +1,55 @@
+package com.example.demo.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.security.KeyPair;
+import java.security.cert.X509Certificate;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class CaDocumentServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void namesTheIssuerByCommonName() throws Exception {
+        assertEquals("Fake Bry Root", issuer("CN=Fake Bry Root,O=Acme,C=BR"));
+    }
+
+    @Test
+    void fallsBackToTheDnForIssuersSubjectNameRejects() throws Exception {
+        // Three-letter country: fine in a CA certificate from elsewhere, rejected for issued subjects
+        assertEquals("C=BRA,O=Acme,CN=Odd Root", issuer("CN=Odd Root,O=Acme,C=BRA"));
+    }
+
+    @Test
+    void fallsBackToTheDnForIssuersWithoutCommonName() throws Exception {
+        assertEquals("C=BR,O=Acme Root Authority", issuer("O=Acme Root Authority,C=BR"));
+    }
+
+    private String issuer(String rootSubject) throws Exception {
+        KeyPair keys = TestCertificates.keyPair();
+        X509Certificate root = TestCertificates.rootCa(rootSubject, keys, -1);
+        CaKeyMaterial material = CaKeyMaterial.of(root, keys.getPrivate(), "SHA256withECDSA");
+        CaHierarchy hierarchy = new CaHierarchy(material, Map.of(), CaChainIndex.build(root, List.of()), Instant.now());
+
+        CaKeyMaterialProvider provider = mock(CaKeyMaterialProvider.class);
+        when(provider.hierarchy()).thenReturn(hierarchy);
+        CaDocumentService service = new CaDocumentService();
+        ReflectionTestUtils.setField(service, "caKeyMaterialProvider", provider);
+        ReflectionTestUtils.setField(service, "objectMapper", objectMapper);
+        service.init();
+
+        JsonNode info = objectMapper.readTree(service.info().body());
+        return info.get("issuer").asText();
+    }
+}
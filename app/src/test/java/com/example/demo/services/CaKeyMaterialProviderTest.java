@@ -0,0 +1,94 @@
+package com.example.demo.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.cert.X509Certificate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CaKeyMaterialProviderTest {
+
+    @TempDir
+    Path directory;
+
+    private final KeyPair rootKeys = TestCertificates.keyPair();
+    private final X509Certificate root = TestCertificates.rootCa("CN=Provider Root", rootKeys, -1);
+
+    private Path intermediates;
+
+    @BeforeEach
+    void writeRoot() throws Exception {
+        Files.writeString(directory.resolve("rootCA.crt"), TestCertificates.pem(root));
+        Files.writeString(directory.resolve("rootCA.key"), TestCertificates.privateKeyPem(rootKeys.getPrivate()));
+        intermediates = Files.createDirectory(directory.resolve("intermediates"));
+    }
+
+    @Test
+    void loadsIssuingIntermediateWithItsKey() throws Exception {
+        KeyPair issuingKeys = TestCertificates.keyPair();
+        X509Certificate issuing = TestCertificates.intermediateCa("CN=Provider Issuing", issuingKeys, root,
+                rootKeys.getPrivate(), 0);
+        write("issuing", issuing, issuingKeys);
+
+        CaKeyMaterialProvider provider = provider();
+
+        assertEquals(List.of("issuing"), provider.hierarchy().issuerNames());
+        assertEquals(List.of(issuing), provider.hierarchy().chainIndex().intermediates());
+    }
+
+    @Test
+    void rejectsTwoIntermediatesWithTheSameSubject() throws Exception {
+        // Both chain to the root, but CRLs and OCSP responses name their issuer by subject
+        KeyPair firstKeys = TestCertificates.keyPair();
+        KeyPair secondKeys = TestCertificates.keyPair();
+        write("first", TestCertificates.intermediateCa("CN=Provider Issuing", firstKeys, root, rootKeys.getPrivate(), 0),
+                firstKeys);
+        write("second", TestCertificates.intermediateCa("CN=Provider Issuing", secondKeys, root, rootKeys.getPrivate(), 0),
+                secondKeys);
+
+        IllegalStateException rejected = assertThrows(IllegalStateException.class, this::provider);
+
+        assertTrue(rejected.getMessage().contains("Duplicate CA subject CN=Provider Issuing in second.crt"),
+                rejected.getMessage());
+    }
+
+    @Test
+    void rejectsIntermediateNamedLikeTheRoot() throws Exception {
+        KeyPair issuingKeys = TestCertificates.keyPair();
+        X509Certificate issuing = TestCertificates.intermediateCa("CN=Provider Root", issuingKeys, root,
+                rootKeys.getPrivate(), 0);
+        write("issuing", issuing, issuingKeys);
+
+        IllegalStateException rejected = assertThrows(IllegalStateException.class, this::provider);
+
+        assertTrue(rejected.getMessage().contains("Duplicate CA subject"), rejected.getMessage());
+    }
+
+    private void write(String name, X509Certificate certificate, KeyPair keys) throws Exception {
+        Files.writeString(intermediates.resolve(name + ".crt"), TestCertificates.pem(certificate));
+        Files.writeString(intermediates.resolve(name + ".key"), TestCertificates.privateKeyPem(keys.getPrivate()));
+    }
+
+    private CaKeyMaterialProvider provider() {
+        CaKeyMaterialProvider provider = new CaKeyMaterialProvider();
+        ReflectionTestUtils.setField(provider, "certificatePath", directory.resolve("rootCA.crt"));
+        ReflectionTestUtils.setField(provider, "privateKeyPath", directory.resolve("rootCA.key"));
+        ReflectionTestUtils.setField(provider, "intermediatesPath", intermediates.toString());
+        ReflectionTestUtils.setField(provider, "watchEnabled", false);
+        ReflectionTestUtils.setField(provider, "configuredSignatureAlgorithm", "");
+        ReflectionTestUtils.setField(provider, "meterRegistry", new SimpleMeterRegistry());
+        provider.init();
+        return provider;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.demo.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.demo.DTOs.CertificatePageDTO;
+import com.example.demo.DTOs.CertificateResponseDTO;
+import com.example.demo.entities.Certificate;
+import com.example.demo.repositories.CertificateRepository;
+import com.example.demo.requests.CertificateSearchRequest;
+
+@SpringBootTest(properties = "ca.transparency.directory=target/transparency-search-test")
+@ActiveProfiles("test")
+class CertificateSearchServiceTest {
+
+    @Autowired
+    private CertificateSearchService certificateSearchService;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+    @BeforeEach
+    void reset() {
+        jdbcTemplate.update("DELETE FROM certificates");
+    }
+
+    @Test
+    void pagesThroughEqualCreatedAtInIdOrder() {
+        // Inserted in this order, so ids ascend with the serials; three rows share one created_at
+        certificateRepository.insertAll(List.of(
+                certificate("3001", now.minusDays(2), now.plusDays(10)),
+                certificate("3002", now.minusDays(1), now.plusDays(40)),
+                certificate("3003", now.minusDays(1), now.plusDays(20)),
+                certificate("3004", now.minusDays(1), now.plusDays(30)),
+                certificate("3005", now, now.plusDays(50))));
+
+        assertEquals(List.of("3001", "3002", "3003", "3004", "3005"), pageThrough("createdAt", 2));
+    }
+
+    @Test
+    void cursorRoundTripsOnNotAfter() {
+        certificateRepository.insertAll(List.of(
+                certificate("4001", now, now.plusDays(30)),
+                certificate("4002", now, now.plusDays(10)),
+                certificate("4003", now, now.plusDays(30)),
+                certificate("4004", now, now.plusDays(20))));
+
+        assertEquals(List.of("4002", "4004", "4001", "4003"), pageThrough(null, 1));
+        assertEquals(List.of("4002", "4004", "4001", "4003"), pageThrough("notAfter", 3));
+    }
+
+    @Test
+    void rejectsACursorFromAnotherSort() {
+        certificateRepository.insertAll(List.of(
+                certificate("5001", now, now.plusDays(10)),
+                certificate("5002", now, now.plusDays(20))));
+        CertificateSearchRequest request = new CertificateSearchRequest();
+        request.setLimit(1);
+        String cursor = certificateSearchService.search(request).getNextCursor();
+        assertNotNull(cursor);
+
+        request.setSort("createdAt");
+        request.setCursor(cursor);
+        assertThrows(IllegalArgumentException.class, () -> certificateSearchService.search(request));
+
+        request.setSort(null);
+        request.setCursor("not-a-cursor");
+        assertThrows(IllegalArgumentException.class, () -> certificateSearchService.search(request));
+    }
+
+    /**
+     * Follows nextCursor until the last page, collecting serial numbers in the order they come back
+     */
+    private List<String> pageThrough(String sort, int limit) {
+        List<String> serials = new ArrayList<>();
+        CertificateSearchRequest request = new CertificateSearchRequest();
+        request.setSort(sort);
+        request.setLimit(limit);
+        CertificatePageDTO page;
+        do {
+            page = certificateSearchService.search(request);
+            page.getItems().stream().map(CertificateResponseDTO::getSerialNumber).forEach(serials::add);
+            request.setCursor(page.getNextCursor());
+        } while (page.getNextCursor() != null);
+        return serials;
+    }
+
+    private static Certificate certificate(String serialNumber, LocalDateTime createdAt, LocalDateTime notAfter) {
+        Certificate certificate = new Certificate();
+        certificate.setSerialNumber(serialNumber);
+        certificate.setVersion(3);
+        certificate.setSubjectCommonName("device-" + serialNumber);
+        certificate.setSubjectCountry("BR");
+        certificate.setCertificateDer(new byte[] {1, 2, 3});
+        certificate.setNotBefore(notAfter.minusDays(365));
+        certificate.setNotAfter(notAfter);
+        certificate.setCreatedAt(createdAt);
+        return certificate;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.demo.services;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+import org.bouncycastle.asn1.ASN1GeneralizedTime;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.cert.X509CRLHolder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.demo.entities.Certificate;
+import com.example.demo.repositories.CertificateRepository;
+
+@SpringBootTest(properties = {
+        "ca.crl.expired-retention=30d",
+        "ca.transparency.directory=target/transparency-crl-test"
+})
+@ActiveProfiles("test")
+class CrlServiceTest {
+
+    @Autowired
+    private CrlService crlService;
+
+    @Autowired
+    private RevocationService revocationService;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Test
+    void dropsCertificatesExpiredBeyondRetentionFromTheCrl() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        save("7001", now.plusDays(90));
+        save("7002", now.minusDays(10));
+        save("7003", now.minusDays(60));
+        for (String serialNumber : new String[] {"7001", "7002", "7003"}) {
+            revocationService.revoke(serialNumber, RevocationReason.KEY_COMPROMISE);
+        }
+
+        crlService.rebuild();
+
+        X509CRLHolder crl = new X509CRLHolder(crlService.current().der());
+        assertNotNull(crl.getRevokedCertificate(new BigInteger("7001")));
+        assertNotNull(crl.getRevokedCertificate(new BigInteger("7002")));
+        assertNull(crl.getRevokedCertificate(new BigInteger("7003")));
+        Instant cutoff = ASN1GeneralizedTime.getInstance(crl.getExtension(Extension.expiredCertsOnCRL).getParsedValue())
+                .getDate().toInstant();
+        assertTrue(Duration.between(cutoff, Instant.now().minus(Duration.ofDays(30))).abs().toMinutes() < 1, cutoff.toString());
+
+        // Still revoked for validation and OCSP, and not brought back by a sync
+        assertTrue(revocationService.isRevoked(new BigInteger("7003")));
+        revocationService.syncFromDatabase();
+        crlService.rebuild();
+        assertNull(new X509CRLHolder(crlService.current().der()).getRevokedCertificate(new BigInteger("7003")));
+    }
+
+    private void save(String serialNumber, LocalDateTime notAfter) {
+        Certificate certificate = new Certificate();
+        certificate.setSerialNumber(serialNumber);
+        certificate.setVersion(3);
+        certificate.setSubjectCommonName("device-" + serialNumber);
+        certificate.setSubjectCountry("BR");
+        certificate.setCertificateDer(new byte[] {1, 2, 3});
+        certificate.setNotBefore(notAfter.minusDays(365));
+        certificate.setNotAfter(notAfter);
+        certificateRepository.save(certificate);
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.demo.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.example.demo.entities.Certificate;
+import com.example.demo.repositories.CertificateRepository;
+import com.sun.net.httpserver.HttpServer;
+
+@SpringBootTest(properties = {
+        "ca.expiry.chunk-size=2",
+        "ca.expiry.pause=0ms",
+        "ca.expiry.notice-window=14d",
+        "ca.transparency.directory=target/transparency-expiry-test"
+})
+@ActiveProfiles("test")
+class ExpiryMaintenanceServiceTest {
+
+    private static final HttpServer WEBHOOK;
+    // Request bodies the webhook accepted, and serials it answers 500 for
+    private static final List<String> DELIVERED = new CopyOnWriteArrayList<>();
+    private static final Set<String> FAILING = ConcurrentHashMap.newKeySet();
+
+    static {
+        try {
+            WEBHOOK = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        } catch (IOException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+        WEBHOOK.createContext("/expiring", exchange -> {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            boolean fail = FAILING.stream().anyMatch(serial -> body.contains("\"" + serial + "\""));
+            if (!fail) {
+                DELIVERED.add(body);
+            }
+            exchange.sendResponseHeaders(fail ? 500 : 204, -1);
+            exchange.close();
+        });
+        WEBHOOK.start();
+    }
+
+    @DynamicPropertySource
+    static void webhook(DynamicPropertyRegistry registry) {
+        registry.add("ca.expiry.webhook-url",
+                () -> "http://127.0.0.1:" + WEBHOOK.getAddress().getPort() + "/expiring");
+    }
+
+    @AfterAll
+    static void stopWebhook() {
+        WEBHOOK.stop(0);
+    }
+
+    @Autowired
+    private ExpiryMaintenanceService expiryMaintenanceService;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void reset() {
+        jdbcTemplate.update("DELETE FROM certificates");
+        DELIVERED.clear();
+        FAILING.clear();
+    }
+
+    @Test
+    void expiresPastNotAfterAndNotifiesOnceWithinWindow() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        save("1001", now.minusDays(1));
+        save("1002", now.plusDays(2));
+        save("1003", now.plusDays(30));
+
+        assertTrue(expiryMaintenanceService.run());
+
+        assertEquals("EXPIRED", status("1001"));
+        assertEquals("ACTIVE", status("1002"));
+        assertEquals(1, DELIVERED.size());
+        assertTrue(DELIVERED.get(0).contains("\"serialNumber\":\"1002\""), DELIVERED.get(0));
+        assertNotNull(notifiedAt("1002"));
+        assertNull(notifiedAt("1003"));
+
+        assertTrue(expiryMaintenanceService.run());
+        assertEquals(1, DELIVERED.size());
+    }
+
+    @Test
+    void marksOnlyDeliveredNotificationsAndRetriesTheRest() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 1; i <= 5; i++) {
+            save("200" + i, now.plusDays(i));
+        }
+        FAILING.add("2002");
+
+        assertTrue(expiryMaintenanceService.run());
+
+        // The failure does not hold up later chunks, and is not marked as notified
+        assertEquals(4, DELIVERED.size());
+        assertNull(notifiedAt("2002"));
+        for (String serial : List.of("2001", "2003", "2004", "2005")) {
+            assertNotNull(notifiedAt(serial), serial);
+        }
+
+        FAILING.clear();
+        assertTrue(expiryMaintenanceService.run());
+        assertEquals(5, DELIVERED.size());
+        assertTrue(DELIVERED.get(4).contains("\"serialNumber\":\"2002\""), DELIVERED.get(4));
+        assertNotNull(notifiedAt("2002"));
+    }
+
+    private void save(String serialNumber, LocalDateTime notAfter) {
+        Certificate certificate = new Certificate();
+        certificate.setSerialNumber(serialNumber);
+        certificate.setVersion(3);
+        certificate.setSubjectCommonName("device-" + serialNumber);
+        certificate.setSubjectCountry("BR");
+        certificate.setCertificateDer(new byte[] {1, 2, 3});
+        certificate.setNotBefore(notAfter.minusDays(365));
+        certificate.setNotAfter(notAfter);
+        certificateRepository.save(certificate);
+    }
+
+    private String status(String serialNumber) {
+        return jdbcTemplate.queryForObject("SELECT status FROM certificates WHERE serial_number = ?", String.class,
+                serialNumber);
+    }
+
+    private LocalDateTime notifiedAt(String serialNumber) {
+        return jdbcTemplate.queryForObject("SELECT expiry_notified_at FROM certificates WHERE serial_number = ?",
+                LocalDateTime.class, serialNumber);
+    }
+}
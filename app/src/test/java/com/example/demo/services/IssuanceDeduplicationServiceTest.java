@@ -0,0 +1,177 @@
+package com.example.demo.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import java.io.StringWriter;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.openssl.jcajce.JcaPEMWriter;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.pkcs.jcajce.JcaPKCS10CertificationRequestBuilder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.demo.entities.IssuanceRequest;
+import com.example.demo.repositories.IssuanceRequestRepository;
+
+@SpringBootTest(properties = {
+        "ca.issuance.coalesce-timeout=10s",
+        "ca.transparency.directory=target/transparency-deduplication-test"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class IssuanceDeduplicationServiceTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private IssuanceRequestRepository issuanceRequestRepository;
+
+    @MockitoSpyBean
+    private CertificatesService certificatesService;
+
+    @Test
+    void coalescesConcurrentDuplicatesOntoOneSigning() throws Exception {
+        String csrPem = csr();
+        // Slow enough that every duplicate arrives while the first request is still signing
+        doAnswer(invocation -> {
+            Thread.sleep(300);
+            return invocation.callRealMethod();
+        }).when(certificatesService).issue(any(), any());
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<MockHttpServletResponse>> responses = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                responses.add(executor.submit(() -> issue(csrPem, "coalesce-1")));
+            }
+
+            Set<String> certificates = new HashSet<>();
+            int replayed = 0;
+            for (Future<MockHttpServletResponse> response : responses) {
+                MockHttpServletResponse result = response.get(30, TimeUnit.SECONDS);
+                assertEquals(200, result.getStatus(), result.getContentAsString());
+                certificates.add(certificate(result));
+                if ("true".equals(result.getHeader("Idempotent-Replayed"))) {
+                    replayed++;
+                }
+            }
+            assertEquals(1, certificates.size());
+            assertEquals(7, replayed);
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(certificatesService, times(1)).issue(any(), any());
+
+        // A later retry is answered from memory, without signing
+        MockHttpServletResponse retry = issue(csrPem, "coalesce-1");
+        assertEquals("true", retry.getHeader("Idempotent-Replayed"));
+        verify(certificatesService, times(1)).issue(any(), any());
+    }
+
+    @Test
+    void rejectsKeyReusedForDifferentRequest() throws Exception {
+        assertEquals(200, issue(csr(), "mismatch-1").getStatus());
+
+        MockHttpServletResponse response = issue(csr(), "mismatch-1");
+
+        assertEquals(400, response.getStatus());
+        assertTrue(response.getContentAsString().contains("Idempotency-Key was already used for a different request"));
+        verify(certificatesService, times(1)).issue(any(), any());
+    }
+
+    @Test
+    void takesOverAbandonedClaim() throws Exception {
+        String csrPem = csr();
+        assertEquals(200, issue(csrPem, "takeover-1").getStatus());
+        String fingerprint = issuanceRequestRepository.findById("key:takeover-1").orElseThrow().getRequestFingerprint();
+        // Claimed by an instance that died while signing, well past the coalesce timeout
+        issuanceRequestRepository.claim("key:takeover-2", fingerprint,
+                LocalDateTime.now().minusMinutes(1).truncatedTo(ChronoUnit.MICROS));
+
+        long start = System.nanoTime();
+        MockHttpServletResponse response = issue(csrPem, "takeover-2");
+
+        assertEquals(200, response.getStatus(), response.getContentAsString());
+        assertNull(response.getHeader("Idempotent-Replayed"));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), "did not wait out the coalesce timeout");
+        verify(certificatesService, times(2)).issue(any(), any());
+        IssuanceRequest claim = issuanceRequestRepository.findById("key:takeover-2").orElseThrow();
+        assertNotNull(claim.getSerialNumber());
+        assertTrue(claim.getCreatedAt().isAfter(LocalDateTime.now().minusSeconds(30)));
+    }
+
+    @Test
+    void deletesClaimWhenSigningFails() throws Exception {
+        String csrPem = csr();
+        doThrow(new IllegalStateException("HSM unavailable")).doCallRealMethod()
+                .when(certificatesService).issue(any(), any());
+
+        MockHttpServletResponse failed = issue(csrPem, "failure-1");
+
+        assertEquals(500, failed.getStatus());
+        assertTrue(issuanceRequestRepository.findById("key:failure-1").isEmpty());
+
+        // Nothing was issued, so the retry signs rather than waiting on a dead claim
+        MockHttpServletResponse retry = issue(csrPem, "failure-1");
+        assertEquals(200, retry.getStatus(), retry.getContentAsString());
+        assertNull(retry.getHeader("Idempotent-Replayed"));
+        assertNotNull(issuanceRequestRepository.findById("key:failure-1").orElseThrow().getSerialNumber());
+        verify(certificatesService, times(2)).issue(any(), any());
+    }
+
+    private MockHttpServletResponse issue(String csrPem, String idempotencyKey) throws Exception {
+        return mockMvc.perform(post("/api/issue-certificate")
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .header("Idempotency-Key", idempotencyKey)
+                        .content(csrPem))
+                .andReturn().getResponse();
+    }
+
+    private static String certificate(MockHttpServletResponse response) throws Exception {
+        String body = response.getContentAsString();
+        return body.substring(body.indexOf("-----BEGIN CERTIFICATE-----"), body.indexOf("-----END CERTIFICATE-----"));
+    }
+
+    private static String csr() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(256);
+        KeyPair keyPair = generator.generateKeyPair();
+        StringWriter pem = new StringWriter();
+        try (JcaPEMWriter writer = new JcaPEMWriter(pem)) {
+            writer.writeObject(new JcaPKCS10CertificationRequestBuilder(
+                    new X500Name("CN=device-1,O=Acme,C=BR"), keyPair.getPublic())
+                    .build(new JcaContentSignerBuilder("SHA256withECDSA").build(keyPair.getPrivate())));
+        }
+        return pem.toString();
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.demo.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.demo.entities.Certificate;
+
+class IssuanceJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoversSealedAndActiveSegmentsInOrder() throws IOException {
+        IssuanceJournal journal = new IssuanceJournal(directory);
+        journal.append(List.of(certificate("1"), certificate("2")));
+        IssuanceJournal.Segment sealed = journal.roll();
+        journal.append(List.of(certificate("3")));
+        journal.close();
+
+        assertEquals(List.of("1", "2"), serialNumbers(sealed.certificates()));
+        assertFalse(sealed.recovered());
+
+        List<IssuanceJournal.Segment> recovered = new IssuanceJournal(directory).recover();
+        assertEquals(2, recovered.size());
+        assertEquals(List.of("1", "2"), serialNumbers(recovered.get(0).certificates()));
+        assertEquals(List.of("3"), serialNumbers(recovered.get(1).certificates()));
+        assertTrue(recovered.get(0).recovered());
+
+        Certificate restored = recovered.get(1).certificates().get(0);
+        Certificate original = certificate("3");
+        assertEquals(original, restored);
+        assertArrayEquals(original.getCertificateDer(), restored.getCertificateDer());
+    }
+
+    @Test
+    void rollWithoutAppendsSealsNothing() throws IOException {
+        IssuanceJournal journal = new IssuanceJournal(directory);
+        assertNull(journal.roll());
+        journal.close();
+        assertTrue(new IssuanceJournal(directory).recover().isEmpty());
+    }
+
+    @Test
+    void stopsAtTornTail() throws IOException {
+        IssuanceJournal journal = new IssuanceJournal(directory);
+        journal.append(List.of(certificate("1"), certificate("2")));
+        journal.close();
+        // A crash mid-write: a header claiming more payload than made it to disk
+        appendBytes(segment(1), new byte[] {0, 0, 1, 0, 9, 9, 9, 9, 42});
+
+        List<IssuanceJournal.Segment> recovered = new IssuanceJournal(directory).recover();
+        assertEquals(1, recovered.size());
+        assertEquals(List.of("1", "2"), serialNumbers(recovered.get(0).certificates()));
+    }
+
+    @Test
+    void stopsAtChecksumMismatch() throws IOException {
+        IssuanceJournal journal = new IssuanceJournal(directory);
+        journal.append(List.of(certificate("1")));
+        long firstRecordEnd = Files.size(segment(1));
+        journal.append(List.of(certificate("2"), certificate("3")));
+        journal.close();
+
+        byte[] bytes = Files.readAllBytes(segment(1));
+        bytes[(int) firstRecordEnd + 20] ^= 0x5a;
+        Files.write(segment(1), bytes);
+
+        List<IssuanceJournal.Segment> recovered = new IssuanceJournal(directory).recover();
+        assertEquals(1, recovered.size());
+        assertEquals(List.of("1"), serialNumbers(recovered.get(0).certificates()));
+    }
+
+    @Test
+    void deletesSegmentsWithNothingReadable() throws IOException {
+        Files.write(segment(7), new byte[] {0, 0, 0});
+
+        IssuanceJournal journal = new IssuanceJournal(directory);
+        assertTrue(journal.recover().isEmpty());
+        assertFalse(Files.exists(segment(7)));
+        journal.close();
+    }
+
+    @Test
+    void continuesNumberingAfterRecoveredSegments() throws IOException {
+        IssuanceJournal journal = new IssuanceJournal(directory);
+        journal.append(List.of(certificate("1")));
+        journal.close();
+
+        IssuanceJournal reopened = new IssuanceJournal(directory);
+        reopened.append(List.of(certificate("2")));
+        IssuanceJournal.Segment sealed = reopened.roll();
+        reopened.close();
+
+        assertEquals(2, sealed.sequence());
+        assertEquals(segment(2), sealed.path());
+    }
+
+    @Test
+    void readsBothRecordFormats() throws IOException {
+        Certificate withPem = certificate("1");
+        Certificate current = certificate("2");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writeRecord(bytes, formatOnePayload(withPem));
+        Files.write(segment(1), bytes.toByteArray());
+        IssuanceJournal journal = new IssuanceJournal(directory);
+        journal.append(List.of(current));
+        journal.close();
+
+        List<IssuanceJournal.Segment> recovered = new IssuanceJournal(directory).recover();
+        assertEquals(2, recovered.size());
+        Certificate first = recovered.get(0).certificates().get(0);
+        assertEquals(withPem, first);
+        assertArrayEquals(withPem.getCertificateDer(), first.getCertificateDer());
+        assertEquals(current, recovered.get(1).certificates().get(0));
+    }
+
+    static Certificate certificate(String serialNumber) {
+        LocalDateTime notBefore = LocalDateTime.of(2026, 1, 1, 12, 0, 0, 123_000_000);
+        Certificate certificate = new Certificate();
+        certificate.setSerialNumber(serialNumber);
+        certificate.setVersion(3);
+        certificate.setSubjectCommonName("cn-" + serialNumber);
+        certificate.setSubjectOrganizationName("Acme, Inc.");
+        certificate.setSubjectCountry("BR");
+        certificate.setSignatureAlgorithm("SHA256WITHRSA");
+        certificate.setPublicKeyAlgorithm("RSA");
+        certificate.setCertificateDer(("der-" + serialNumber).getBytes(StandardCharsets.US_ASCII));
+        certificate.setNotBefore(notBefore);
+        certificate.setNotAfter(notBefore.plusYears(1));
+        certificate.setCreatedAt(notBefore);
+        return certificate;
+    }
+
+    /**
+     * A record as written before the PEM copy was dropped from the journal
+     */
+    static byte[] formatOnePayload(Certificate certificate) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(1);
+        writeString(out, certificate.getSerialNumber());
+        out.writeInt(certificate.getVersion());
+        writeString(out, certificate.getSubjectCommonName());
+        writeString(out, certificate.getSubjectOrganizationName());
+        writeString(out, certificate.getSubjectOrganizationUnit());
+        writeString(out, certificate.getSubjectCountry());
+        writeString(out, certificate.getSubjectState());
+        writeString(out, certificate.getSubjectLocality());
+        writeString(out, certificate.getSubjectEmail());
+        writeString(out, certificate.getSignatureAlgorithm());
+        writeString(out, certificate.getPublicKeyAlgorithm());
+        writeString(out, "-----BEGIN CERTIFICATE-----\n-----END CERTIFICATE-----\n");
+        out.writeInt(certificate.getCertificateDer().length);
+        out.write(certificate.getCertificateDer());
+        for (LocalDateTime value : List.of(certificate.getNotBefore(), certificate.getNotAfter(), certificate.getCreatedAt())) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+        writeString(out, certificate.getStatus());
+        return bytes.toByteArray();
+    }
+
+    static void writeRecord(ByteArrayOutputStream bytes, byte[] payload) throws IOException {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(payload.length);
+        out.writeInt((int) crc.getValue());
+        out.write(payload);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void appendBytes(Path path, byte[] bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(bytes));
+        }
+    }
+
+    private Path segment(long sequence) {
+        return directory.resolve(String.format("segment-%016d.log", sequence));
+    }
+
+    private static List<String> serialNumbers(List<Certificate> certificates) {
+        return certificates.stream().map(Certificate::getSerialNumber).toList();
+    }
+}
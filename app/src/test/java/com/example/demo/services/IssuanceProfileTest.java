@@ -0,0 +1,202 @@
+package com.example.demo.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.bouncycastle.asn1.ASN1Object;
+import org.bouncycastle.asn1.DERSequence;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.ExtendedKeyUsage;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.asn1.x509.KeyPurposeId;
+import org.bouncycastle.asn1.x509.KeyUsage;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+
+import com.example.demo.config.IssuanceProfileProperties;
+
+/**
+ * The profiles shipped in application.properties, compiled the way {@link IssuanceProfiles} does at startup
+ */
+class IssuanceProfileTest {
+
+    private static IssuanceProfile clientAuth;
+    private static IssuanceProfile tlsServer;
+    private static IssuanceProfile codeSigning;
+
+    @BeforeAll
+    static void compileBuiltInProfiles() throws Exception {
+        Map<String, IssuanceProfileProperties.Profile> profiles = new Binder(new MapConfigurationPropertySource(
+                PropertiesLoaderUtils.loadProperties(new ClassPathResource("application.properties"))))
+                .bind("ca", IssuanceProfileProperties.class)
+                .get()
+                .getProfiles();
+        clientAuth = IssuanceProfile.compile("client-auth", profiles.get("client-auth"));
+        tlsServer = IssuanceProfile.compile("tls-server", profiles.get("tls-server"));
+        codeSigning = IssuanceProfile.compile("code-signing", profiles.get("code-signing"));
+    }
+
+    @Test
+    void acceptsOnlyKeyUsagesTheProfileGrants() {
+        Extension signing = keyUsage(KeyUsage.digitalSignature);
+        Extension keyTransport = keyUsage(KeyUsage.digitalSignature | KeyUsage.keyEncipherment);
+        // decipherOnly is bit 8, in the second byte of the BIT STRING
+        Extension decipherOnly = keyUsage(KeyUsage.keyAgreement | KeyUsage.decipherOnly);
+
+        for (IssuanceProfile profile : List.of(clientAuth, tlsServer, codeSigning)) {
+            profile.checkRequest(request(profile, signing));
+            assertThrows(IllegalArgumentException.class, () -> profile.checkRequest(request(profile, decipherOnly)),
+                    profile.name());
+        }
+        tlsServer.checkRequest(request(tlsServer, keyTransport));
+        assertThrows(IllegalArgumentException.class, () -> clientAuth.checkRequest(request(clientAuth, keyTransport)));
+        assertThrows(IllegalArgumentException.class, () -> codeSigning.checkRequest(request(codeSigning, keyTransport)));
+    }
+
+    @Test
+    void issuesTheProfileKeyUsageDroppingRsaOnlyBitsForOtherKeys() throws Exception {
+        boolean[] rsa = issue(tlsServer, TestCertificates.keyPair("RSA")).getKeyUsage();
+        boolean[] ec = issue(tlsServer, TestCertificates.keyPair("EC")).getKeyUsage();
+        boolean[] clientAuthEc = issue(clientAuth, TestCertificates.keyPair("EC")).getKeyUsage();
+
+        // digitalSignature(0), nonRepudiation(1), keyEncipherment(2), ...
+        assertArrayEquals(new boolean[] {true, false, true}, Arrays.copyOf(rsa, 3));
+        assertArrayEquals(new boolean[] {true, false, false}, Arrays.copyOf(ec, 3));
+        assertArrayEquals(new boolean[] {true, false, false}, Arrays.copyOf(clientAuthEc, 3));
+    }
+
+    @Test
+    void acceptsOnlyExtendedKeyUsagesTheProfileGrants() {
+        Map<IssuanceProfile, KeyPurposeId> granted = Map.of(clientAuth, KeyPurposeId.id_kp_clientAuth,
+                codeSigning, KeyPurposeId.id_kp_codeSigning);
+
+        granted.forEach((profile, purpose) -> {
+            profile.checkRequest(request(profile, extendedKeyUsage(purpose)));
+            assertThrows(IllegalArgumentException.class,
+                    () -> profile.checkRequest(request(profile, extendedKeyUsage(KeyPurposeId.id_kp_serverAuth))),
+                    profile.name());
+        });
+        tlsServer.checkRequest(request(tlsServer, extendedKeyUsage(KeyPurposeId.id_kp_serverAuth)));
+        assertThrows(IllegalArgumentException.class,
+                () -> tlsServer.checkRequest(request(tlsServer, extendedKeyUsage(KeyPurposeId.id_kp_codeSigning))));
+    }
+
+    @Test
+    void copiesOnlyAllowedSubjectAltNameTypes() {
+        GeneralName dns = new GeneralName(GeneralName.dNSName, "device-1.example.com");
+        GeneralName ip = new GeneralName(GeneralName.iPAddress, "10.0.0.1");
+        GeneralName email = new GeneralName(GeneralName.rfc822Name, "device-1@example.com");
+
+        GeneralNames copied = tlsServer.checkRequest(csr(sans(dns, ip)));
+        assertEquals(2, copied.getNames().length);
+        assertEquals(1, clientAuth.checkRequest(csr(sans(email))).getNames().length);
+
+        // tls-server takes no email SAN, client-auth no IP, code-signing none at all
+        assertThrows(IllegalArgumentException.class, () -> tlsServer.checkRequest(csr(sans(dns, email))));
+        assertThrows(IllegalArgumentException.class, () -> clientAuth.checkRequest(csr(sans(ip))));
+        assertThrows(IllegalArgumentException.class, () -> codeSigning.checkRequest(csr(sans(dns))));
+    }
+
+    @Test
+    void requiresSubjectAltNameOnlyForTlsServer() {
+        PKCS10CertificationRequest bare = csr(null);
+
+        IllegalArgumentException rejected = assertThrows(IllegalArgumentException.class, () -> tlsServer.checkRequest(bare));
+        assertTrue(rejected.getMessage().contains("requires a subjectAltName"), rejected.getMessage());
+        assertNull(clientAuth.checkRequest(bare));
+        assertNull(codeSigning.checkRequest(bare));
+    }
+
+    @Test
+    void rejectsCaRequestsAndUnknownCriticalExtensions() {
+        Extension ca = new Extension(Extension.basicConstraints, true, encoded(new BasicConstraints(0)));
+        Extension notCa = new Extension(Extension.basicConstraints, true, encoded(new BasicConstraints(false)));
+        Extension unknownCritical = new Extension(Extension.nameConstraints, true, encoded(new DERSequence()));
+
+        for (IssuanceProfile profile : List.of(clientAuth, tlsServer, codeSigning)) {
+            IllegalArgumentException rejected = assertThrows(IllegalArgumentException.class,
+                    () -> profile.checkRequest(request(profile, ca)), profile.name());
+            assertEquals("CA certificates cannot be requested", rejected.getMessage());
+            assertThrows(IllegalArgumentException.class, () -> profile.checkRequest(request(profile, unknownCritical)),
+                    profile.name());
+            // Asking to be an end entity is harmless
+            profile.checkRequest(request(profile, notCa));
+        }
+    }
+
+    private static X509Certificate issue(IssuanceProfile profile, KeyPair keys) throws Exception {
+        SigningContext context = new SigningContext(TestCertificates.caKeyMaterial("CN=Profile CA"),
+                () -> BigInteger.valueOf(System.nanoTime()));
+        PKCS10CertificationRequest csr = csr(keys, null);
+        Date notBefore = new Date();
+        X509v3CertificateBuilder builder = context.newCertificateBuilder(new X500Name("CN=device-1"),
+                csr.getSubjectPublicKeyInfo(), notBefore, new Date(notBefore.getTime() + Duration.ofDays(1).toMillis()));
+        profile.addExtensions(builder, context, csr.getSubjectPublicKeyInfo(), null);
+        return context.sign(builder);
+    }
+
+    /**
+     * A CSR with the given extensions, plus the DNS SAN that tls-server insists on so only the extensions under
+     * test decide the outcome
+     */
+    private static PKCS10CertificationRequest request(IssuanceProfile profile, Extension... extensions) {
+        List<Extension> all = new ArrayList<>(List.of(extensions));
+        if (profile == tlsServer) {
+            all.add(sans(new GeneralName(GeneralName.dNSName, "www.example.com"))
+                    .getExtension(Extension.subjectAlternativeName));
+        }
+        return csr(new Extensions(all.toArray(Extension[]::new)));
+    }
+
+    private static PKCS10CertificationRequest csr(Extensions extensions) {
+        return csr(TestCertificates.keyPair(), extensions);
+    }
+
+    private static PKCS10CertificationRequest csr(KeyPair keys, Extensions extensions) {
+        return TestCertificates.csr("CN=device-1,O=Acme,C=BR", keys, extensions);
+    }
+
+    private static Extension keyUsage(int bits) {
+        return new Extension(Extension.keyUsage, true, encoded(new KeyUsage(bits)));
+    }
+
+    private static Extension extendedKeyUsage(KeyPurposeId purpose) {
+        return new Extension(Extension.extendedKeyUsage, false, encoded(new ExtendedKeyUsage(purpose)));
+    }
+
+    private static Extensions sans(GeneralName... names) {
+        return new Extensions(new Extension(Extension.subjectAlternativeName, false,
+                encoded(new GeneralNames(names))));
+    }
+
+    private static byte[] encoded(ASN1Object object) {
+        try {
+            return object.getEncoded();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
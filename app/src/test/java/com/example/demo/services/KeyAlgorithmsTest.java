@@ -0,0 +1,88 @@
+package com.example.demo.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.cert.X509Certificate;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.junit.jupiter.api.Test;
+
+class KeyAlgorithmsTest {
+
+    @Test
+    void picksTheSignatureAlgorithmFromTheKey() {
+        assertEquals("SHA256withRSA", KeyAlgorithms.signatureAlgorithm(TestCertificates.keyPair("RSA").getPrivate()));
+        assertEquals("SHA256withECDSA", KeyAlgorithms.signatureAlgorithm(ecKeyPair("secp256r1").getPrivate()));
+        assertEquals("SHA384withECDSA", KeyAlgorithms.signatureAlgorithm(ecKeyPair("secp384r1").getPublic()));
+        assertEquals("SHA512withECDSA", KeyAlgorithms.signatureAlgorithm(ecKeyPair("secp521r1").getPrivate()));
+        assertEquals("Ed25519", KeyAlgorithms.signatureAlgorithm(TestCertificates.keyPair("Ed25519").getPublic()));
+    }
+
+    @Test
+    void issuesAndVerifiesWithEcAndEd25519CaKeys() throws Exception {
+        Map<String, KeyPair> caKeys = Map.of(
+                "SHA384withECDSA", ecKeyPair("secp384r1"),
+                "Ed25519", TestCertificates.keyPair("Ed25519"));
+
+        caKeys.forEach((expectedAlgorithm, keys) -> {
+            try {
+                // Loaded from PKCS#8 PEM the way CA key files are
+                PrivateKey caKey = KeyAlgorithms.readPrivateKey(
+                        new StringReader(TestCertificates.privateKeyPem(keys.getPrivate())));
+                String algorithm = KeyAlgorithms.signatureAlgorithm(caKey);
+                assertEquals(expectedAlgorithm, algorithm);
+
+                X509Certificate caCertificate = TestCertificates.rootCa("CN=" + algorithm + " CA", keys, -1);
+                SigningContext context = new SigningContext(CaKeyMaterial.of(caCertificate, caKey, algorithm),
+                        () -> BigInteger.valueOf(System.nanoTime()));
+                KeyPair subjectKeys = TestCertificates.keyPair(keys.getPublic().getAlgorithm());
+                Date notBefore = new Date();
+                X509Certificate issued = context.issue(new X500Name("CN=device-1"),
+                        SubjectPublicKeyInfo.getInstance(subjectKeys.getPublic().getEncoded()), notBefore,
+                        new Date(notBefore.getTime() + Duration.ofDays(1).toMillis()));
+
+                assertTrue(CertificateCodec.verifyCertificateChain(issued, caCertificate), algorithm);
+                assertFalse(CertificateCodec.verifyCertificateChain(issued,
+                        TestCertificates.rootCa("CN=" + algorithm + " CA", TestCertificates.keyPair(
+                                keys.getPublic().getAlgorithm()), -1)), algorithm);
+
+                // Client signatures made with the issued key check out against the certificate's public key
+                String data = "challenge-" + algorithm;
+                Signature signature = Signature.getInstance(KeyAlgorithms.signatureAlgorithm(subjectKeys.getPrivate()));
+                signature.initSign(subjectKeys.getPrivate());
+                signature.update(data.getBytes(StandardCharsets.UTF_8));
+                String signatureBase64 = Base64.getEncoder().encodeToString(signature.sign());
+                assertTrue(CertificateCodec.verifySignature(data, signatureBase64, issued.getPublicKey()), algorithm);
+                assertFalse(CertificateCodec.verifySignature(data + "!", signatureBase64, issued.getPublicKey()),
+                        algorithm);
+            } catch (Exception e) {
+                throw new AssertionError(expectedAlgorithm, e);
+            }
+        });
+    }
+
+    private static KeyPair ecKeyPair(String curve) {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec(curve));
+            return generator.generateKeyPair();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,403 @@
+package com.example.demo.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MerkleLogTest {
+
+    private static final HexFormat HEX = HexFormat.of();
+    private static final int SEGMENT_ITEMS = 1 << 20;
+
+    // The leaf inputs and expected hashes used by the RFC 6962 reference implementations
+    private static final List<byte[]> RFC_LEAVES = Stream.of("", "00", "10", "2021", "3031", "40414243",
+            "5051525354555657", "606162636465666768696a6b6c6d6e6f").map(HEX::parseHex).toList();
+
+    private static final List<String> RFC_ROOTS = List.of(
+            "6e340b9cffb37a989ca544e6bb780a2c78901d3fb33738768511a30617afa01d",
+            "fac54203e7cc696cf0dfcb42c92a1d9dbaf70ad9e621f4bd8d98662f00e3c125",
+            "aeb6bcfe274b70a14fb067a5e5578264db0fa9b51af5e0ba159158f329e06e77",
+            "d37ee418976dd95753c1c73862b9398fa2a2cf9b4ff0fdfe8b30cd95209614b7",
+            "4e3bbb1f7b478dcfe71fb631631519a3bca12c9aefca1612bfce4c13a86264d4",
+            "76e67dadbcdf1e10e1b74ddc608abd2f98dfb16fbce75277b5232a127f2087ef",
+            "ddb89be403809e325750d3d263cd78929c2942b7942a34b77e122c9594a74c8c",
+            "5dc9da79a70659a9ad559cb701ded9a2ab9d823aad2f4960cfe370eff4604328");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void hashesLeavesAndNodesAsRfc6962() throws IOException {
+        assertEquals(RFC_ROOTS.get(0), HEX.formatHex(MerkleLog.leafHash(new byte[0])));
+
+        try (MerkleLog merkleLog = new MerkleLog(directory)) {
+            assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855",
+                    HEX.formatHex(merkleLog.rootHash(0)));
+            for (byte[] leaf : RFC_LEAVES) {
+                merkleLog.append(List.of(leaf), 0);
+            }
+            for (int size = 1; size <= RFC_LEAVES.size(); size++) {
+                assertEquals(RFC_ROOTS.get(size - 1), HEX.formatHex(merkleLog.rootHash(size)), "root of " + size);
+            }
+        }
+    }
+
+    @Test
+    void producesRfc6962Proofs() throws IOException {
+        try (MerkleLog merkleLog = new MerkleLog(directory)) {
+            merkleLog.append(RFC_LEAVES, 0);
+
+            assertEquals(List.of(
+                    "96a296d224f285c67bee93c30f8a309157f0daa35dc5b87e410b78630a09cfc7",
+                    "5f083f0a1a33ca076a95279832580db3e0ef4584bdff1f54c8a360f50de3031e",
+                    "6b47aaf29ee3c2af9af889bc1fb9254dabd31177f16232dd6aab035ca39bf6e4"),
+                    hex(merkleLog.inclusionProof(0, 8)));
+            assertEquals(List.of(
+                    "bc1a0643b12e4d2d7c77918f44e0f4f79a838b6cf9ec5b5c283e1f4d88599e6b",
+                    "ca854ea128ed050b41b35ffc1b87b8eb2bde461e9e3b5596ece6b9d5975a0ae0",
+                    "d37ee418976dd95753c1c73862b9398fa2a2cf9b4ff0fdfe8b30cd95209614b7"),
+                    hex(merkleLog.inclusionProof(5, 8)));
+            assertEquals(List.of("fac54203e7cc696cf0dfcb42c92a1d9dbaf70ad9e621f4bd8d98662f00e3c125"),
+                    hex(merkleLog.inclusionProof(2, 3)));
+            assertEquals(List.of(), hex(merkleLog.inclusionProof(0, 1)));
+
+            assertEquals(List.of(
+                    "96a296d224f285c67bee93c30f8a309157f0daa35dc5b87e410b78630a09cfc7",
+                    "5f083f0a1a33ca076a95279832580db3e0ef4584bdff1f54c8a360f50de3031e",
+                    "6b47aaf29ee3c2af9af889bc1fb9254dabd31177f16232dd6aab035ca39bf6e4"),
+                    hex(merkleLog.consistencyProof(1, 8)));
+            assertEquals(List.of(
+                    "0ebc5d3437fbe2db158b9f126a1d118e308181031d0a949f8dededebc558ef6a",
+                    "ca854ea128ed050b41b35ffc1b87b8eb2bde461e9e3b5596ece6b9d5975a0ae0",
+                    "d37ee418976dd95753c1c73862b9398fa2a2cf9b4ff0fdfe8b30cd95209614b7"),
+                    hex(merkleLog.consistencyProof(6, 8)));
+            assertEquals(List.of(
+                    "5f083f0a1a33ca076a95279832580db3e0ef4584bdff1f54c8a360f50de3031e",
+                    "bc1a0643b12e4d2d7c77918f44e0f4f79a838b6cf9ec5b5c283e1f4d88599e6b"),
+                    hex(merkleLog.consistencyProof(2, 5)));
+            assertEquals(List.of(), hex(merkleLog.consistencyProof(8, 8)));
+        }
+    }
+
+    @Test
+    void proofsVerifyForEverySizeAndLeaf() throws IOException {
+        List<byte[]> leaves = leaves(0, 37);
+        try (MerkleLog merkleLog = new MerkleLog(directory)) {
+            // Batches of varying size, so subtrees are completed both within and across appends
+            for (int from = 0, batch = 1; from < leaves.size(); from += batch, batch = batch % 5 + 1) {
+                assertEquals(from, merkleLog.append(leaves.subList(from, Math.min(from + batch, leaves.size())), 0));
+            }
+
+            for (int size = 1; size <= leaves.size(); size++) {
+                byte[] root = merkleLog.rootHash(size);
+                assertArrayEquals(referenceRoot(leafHashes(leaves), 0, size), root);
+                for (int leaf = 0; leaf < size; leaf++) {
+                    assertTrue(verifyInclusion(leaf, size, MerkleLog.leafHash(leaves.get(leaf)),
+                            merkleLog.inclusionProof(leaf, size), root), "leaf " + leaf + " of " + size);
+                }
+                for (int first = 1; first <= size; first++) {
+                    assertTrue(verifyConsistency(first, size, merkleLog.rootHash(first), root,
+                            merkleLog.consistencyProof(first, size)), first + " to " + size);
+                }
+            }
+            assertEquals(20, merkleLog.findLeaf(MerkleLog.leafHash(leaves.get(20))));
+            assertEquals(-1, merkleLog.findLeaf(new byte[MerkleLog.HASH_BYTES]));
+        }
+    }
+
+    @Test
+    void spansSegmentBoundaries() throws IOException {
+        int size = SEGMENT_ITEMS + 5;
+        List<byte[]> leaves = leaves(0, size);
+        byte[][] leafHashes = leafHashes(leaves);
+
+        try (MerkleLog merkleLog = new MerkleLog(directory)) {
+            // The last batch straddles the boundary between the first and second entry segment
+            merkleLog.append(leaves.subList(0, SEGMENT_ITEMS - 3), 0);
+            merkleLog.append(leaves.subList(SEGMENT_ITEMS - 3, size), 0);
+            assertEquals(size, merkleLog.size());
+            merkleLog.sync();
+        }
+        assertEquals(2, Files.list(directory.resolve("entries")).count());
+
+        try (MerkleLog merkleLog = new MerkleLog(directory)) {
+            assertEquals(size, merkleLog.size());
+            byte[] root = referenceRoot(leafHashes, 0, size);
+            assertArrayEquals(root, merkleLog.rootHash(size));
+
+            for (int leaf : new int[] {0, SEGMENT_ITEMS - 1, SEGMENT_ITEMS, size - 1}) {
+                assertTrue(verifyInclusion(leaf, size, leafHashes[leaf], merkleLog.inclusionProof(leaf, size), root),
+                        "leaf " + leaf);
+                assertEquals(leaf, merkleLog.findLeaf(leafHashes[leaf]));
+            }
+            for (int first : new int[] {1, 5, SEGMENT_ITEMS - 1, SEGMENT_ITEMS, SEGMENT_ITEMS + 1}) {
+                assertTrue(verifyConsistency(first, size, referenceRoot(leafHashes, 0, first), root,
+                        merkleLog.consistencyProof(first, size)), first + " to " + size);
+            }
+        }
+    }
+
+    @Test
+    void forceCoversEveryConcurrentAppend() throws Exception {
+        try (MerkleLog merkleLog = new MerkleLog(directory)) {
+            merkleLog.append(leaves(0, 3), 0);
+            assertEquals(0, merkleLog.durableSize());
+            merkleLog.force(3);
+            assertEquals(3, merkleLog.durableSize());
+
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            try {
+                List<Future<?>> appenders = new ArrayList<>();
+                for (int t = 0; t < 8; t++) {
+                    int thread = t;
+                    appenders.add(executor.submit(() -> {
+                        for (int i = 0; i < 200; i++) {
+                            int leaf = 1000 + thread * 200 + i;
+                            long first = merkleLog.append(leaves(leaf, leaf + 1), 0);
+                            merkleLog.force(first + 1);
+                            assertTrue(merkleLog.durableSize() > first, "leaf " + first + " acknowledged before forced");
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> appender : appenders) {
+                    appender.get();
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            assertEquals(3 + 8 * 200, merkleLog.durableSize());
+            // Forcing writes no checkpoint; that is still sync's job
+            assertTrue(Files.notExists(directory.resolve("checkpoint")));
+        }
+
+        try (MerkleLog merkleLog = new MerkleLog(directory)) {
+            assertEquals(3 + 8 * 200, merkleLog.size());
+            assertEquals(merkleLog.size(), merkleLog.durableSize());
+        }
+    }
+
+    @Test
+    void rehashesLeavesAppendedAfterLastCheckpoint() throws IOException {
+        List<byte[]> leaves = leaves(0, 50);
+        try (MerkleLog merkleLog = new MerkleLog(directory)) {
+            merkleLog.append(leaves.subList(0, 20), 0);
+            assertEquals(20, merkleLog.sync());
+            // On disk, but never checkpointed
+            merkleLog.append(leaves.subList(20, 50), 0);
+        }
+        wipeLevels();
+
+        try (MerkleLog merkleLog = new MerkleLog(directory)) {
+            assertEquals(50, merkleLog.size());
+            assertArrayEquals(referenceRoot(leafHashes(leaves), 0, 50), merkleLog.rootHash(50));
+            assertEquals(42, merkleLog.findLeaf(MerkleLog.leafHash(leaves.get(42))));
+        }
+    }
+
+    @Test
+    void rebuildsWithoutAnyCheckpoint() throws IOException {
+        List<byte[]> leaves = leaves(0, 9);
+        try (MerkleLog merkleLog = new MerkleLog(directory)) {
+            merkleLog.append(leaves, 0);
+        }
+        wipeLevels();
+
+        try (MerkleLog merkleLog = new MerkleLog(directory)) {
+            assertEquals(9, merkleLog.size());
+            assertArrayEquals(referenceRoot(leafHashes(leaves), 0, 9), merkleLog.rootHash(9));
+        }
+    }
+
+    @Test
+    void dropsTornTailOfEntries() throws IOException {
+        List<byte[]> leaves = leaves(0, 5);
+        try (MerkleLog merkleLog = new MerkleLog(directory)) {
+            merkleLog.append(leaves, 0);
+            merkleLog.sync();
+        }
+        Path segment = directory.resolve("entries/00000000.log");
+        long length = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 50, 1, 2, 3, 4, 5}));
+        }
+
+        try (MerkleLog merkleLog = new MerkleLog(directory)) {
+            assertEquals(5, merkleLog.size());
+            assertEquals(length, Files.size(segment));
+            assertEquals(5, merkleLog.append(leaves(5, 6), 0));
+            assertArrayEquals(referenceRoot(leafHashes(leaves(0, 6)), 0, 6), merkleLog.rootHash(6));
+        }
+    }
+
+    @Test
+    void rebuildsTreeThatDoesNotMatchCheckpointRoot() throws IOException {
+        List<byte[]> leaves = leaves(0, 16);
+        try (MerkleLog merkleLog = new MerkleLog(directory)) {
+            merkleLog.append(leaves, 0);
+            merkleLog.sync();
+        }
+        // A stored subtree hash that was lost; the checkpointed root no longer matches the tree
+        try (FileChannel channel = FileChannel.open(directory.resolve("level-02/00000000.bin"), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[MerkleLog.HASH_BYTES]), MerkleLog.HASH_BYTES);
+        }
+
+        try (MerkleLog merkleLog = new MerkleLog(directory)) {
+            assertEquals(16, merkleLog.size());
+            assertArrayEquals(referenceRoot(leafHashes(leaves), 0, 16), merkleLog.rootHash(16));
+        }
+    }
+
+    @Test
+    void refusesCheckpointBeyondEntries() throws IOException {
+        try (MerkleLog merkleLog = new MerkleLog(directory)) {
+            merkleLog.append(leaves(0, 4), 0);
+            merkleLog.sync();
+        }
+        ByteBuffer checkpoint = ByteBuffer.wrap(Files.readAllBytes(directory.resolve("checkpoint")));
+        checkpoint.putLong(0, 5);
+        Files.write(directory.resolve("checkpoint"), checkpoint.array());
+
+        assertThrows(IllegalStateException.class, () -> new MerkleLog(directory));
+    }
+
+    private void wipeLevels() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.filter(path -> path.toString().endsWith(".bin")).toList()) {
+                Files.write(file, new byte[0]);
+            }
+        }
+    }
+
+    private static List<byte[]> leaves(int from, int to) {
+        List<byte[]> leaves = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            leaves.add(ByteBuffer.allocate(Integer.BYTES).putInt(i).array());
+        }
+        return leaves;
+    }
+
+    private static byte[][] leafHashes(List<byte[]> leaves) {
+        byte[][] hashes = new byte[leaves.size()][];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = MerkleLog.leafHash(leaves.get(i));
+        }
+        return hashes;
+    }
+
+    private static List<String> hex(List<byte[]> hashes) {
+        return hashes.stream().map(HEX::formatHex).toList();
+    }
+
+    /**
+     * MTH of RFC 6962 2.1, straight from the definition
+     */
+    private static byte[] referenceRoot(byte[][] leafHashes, int lo, int hi) {
+        if (hi - lo == 1) {
+            return leafHashes[lo];
+        }
+        int k = Integer.highestOneBit(hi - lo - 1);
+        return nodeHash(referenceRoot(leafHashes, lo, lo + k), referenceRoot(leafHashes, lo + k, hi));
+    }
+
+    /**
+     * Inclusion proof verification of RFC 9162 2.1.3.2
+     */
+    private static boolean verifyInclusion(long index, long size, byte[] leafHash, List<byte[]> path, byte[] root) {
+        if (index >= size) {
+            return false;
+        }
+        long fn = index;
+        long sn = size - 1;
+        byte[] r = leafHash;
+        for (byte[] p : path) {
+            if (sn == 0) {
+                return false;
+            }
+            if ((fn & 1) == 1 || fn == sn) {
+                r = nodeHash(p, r);
+                while ((fn & 1) == 0 && fn != 0) {
+                    fn >>= 1;
+                    sn >>= 1;
+                }
+            } else {
+                r = nodeHash(r, p);
+            }
+            fn >>= 1;
+            sn >>= 1;
+        }
+        return sn == 0 && Arrays.equals(r, root);
+    }
+
+    /**
+     * Consistency proof verification of RFC 9162 2.1.4.2
+     */
+    private static boolean verifyConsistency(long first, long second, byte[] firstRoot, byte[] secondRoot,
+                                             List<byte[]> proof) {
+        if (first == second) {
+            return proof.isEmpty() && Arrays.equals(firstRoot, secondRoot);
+        }
+        List<byte[]> path = new ArrayList<>(proof);
+        if (Long.bitCount(first) == 1) {
+            path.add(0, firstRoot);
+        }
+        long fn = first - 1;
+        long sn = second - 1;
+        while ((fn & 1) == 1) {
+            fn >>= 1;
+            sn >>= 1;
+        }
+        byte[] fr = path.get(0);
+        byte[] sr = path.get(0);
+        for (byte[] c : path.subList(1, path.size())) {
+            if (sn == 0) {
+                return false;
+            }
+            if ((fn & 1) == 1 || fn == sn) {
+                fr = nodeHash(c, fr);
+                sr = nodeHash(c, sr);
+                while ((fn & 1) == 0 && fn != 0) {
+                    fn >>= 1;
+                    sn >>= 1;
+                }
+            } else {
+                sr = nodeHash(sr, c);
+            }
+            fn >>= 1;
+            sn >>= 1;
+        }
+        return sn == 0 && Arrays.equals(fr, firstRoot) && Arrays.equals(sr, secondRoot);
+    }
+
+    private static byte[] nodeHash(byte[] left, byte[] right) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((byte) 1);
+            digest.update(left);
+            return digest.digest(right);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.demo.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+
+import org.bouncycastle.asn1.DEROctetString;
+import org.bouncycastle.asn1.ocsp.OCSPObjectIdentifiers;
+import org.bouncycastle.asn1.x509.CRLReason;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.CertificateID;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPReqBuilder;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.cert.ocsp.RevokedStatus;
+import org.bouncycastle.cert.ocsp.SingleResp;
+import org.bouncycastle.cert.ocsp.UnknownStatus;
+import org.bouncycastle.operator.jcajce.JcaContentVerifierProviderBuilder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.demo.entities.Certificate;
+import com.example.demo.repositories.CertificateRepository;
+
+@SpringBootTest(properties = "ca.transparency.directory=target/transparency-ocsp-test")
+@ActiveProfiles("test")
+class OcspResponderServiceTest {
+
+    @Autowired
+    private OcspResponderService ocspResponderService;
+
+    @Autowired
+    private RevocationService revocationService;
+
+    @Autowired
+    private CaKeyMaterialProvider caKeyMaterialProvider;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Test
+    void answersGoodRevokedAndUnknownSignedByTheIssuingCa() throws Exception {
+        save("8001");
+        save("8002");
+        revocationService.revoke("8002", RevocationReason.KEY_COMPROMISE);
+        Extension nonce = new Extension(OCSPObjectIdentifiers.id_pkix_ocsp_nonce, false,
+                new DEROctetString(new byte[] {8, 0, 0, 1}));
+
+        OCSPReqBuilder request = new OCSPReqBuilder()
+                .addRequest(certificateId("8001"))
+                .addRequest(certificateId("8002"))
+                .addRequest(certificateId("8999"));
+        request.setRequestExtensions(new Extensions(nonce));
+        OcspResponderService.OcspResponse response = ocspResponderService.respond(request.build().getEncoded());
+
+        // Nonce responses are signed for this request only
+        assertFalse(response.cacheable());
+        BasicOCSPResp basic = basicResponse(response);
+        assertArrayEquals(nonce.getExtnValue().getOctets(),
+                basic.getExtension(OCSPObjectIdentifiers.id_pkix_ocsp_nonce).getExtnValue().getOctets());
+
+        SingleResp[] singles = basic.getResponses();
+        assertEquals(3, singles.length);
+        assertEquals(CertificateStatus.GOOD, singles[0].getCertStatus());
+        RevokedStatus revoked = assertInstanceOf(RevokedStatus.class, singles[1].getCertStatus());
+        assertEquals(CRLReason.keyCompromise, revoked.getRevocationReason());
+        assertInstanceOf(UnknownStatus.class, singles[2].getCertStatus());
+    }
+
+    @Test
+    void cachedResponseTurnsRevokedOnRevocation() throws Exception {
+        save("8101");
+        byte[] request = new OCSPReqBuilder().addRequest(certificateId("8101")).build().getEncoded();
+
+        OcspResponderService.OcspResponse good = ocspResponderService.respond(request);
+        assertTrue(good.cacheable());
+        assertEquals(CertificateStatus.GOOD, basicResponse(good).getResponses()[0].getCertStatus());
+        assertEquals(good.etag(), ocspResponderService.respond(request).etag());
+
+        revocationService.revoke("8101", RevocationReason.KEY_COMPROMISE);
+
+        assertInstanceOf(RevokedStatus.class, basicResponse(ocspResponderService.respond(request))
+                .getResponses()[0].getCertStatus());
+    }
+
+    @Test
+    void refusesForeignIssuersAndMalformedRequests() throws Exception {
+        CaKeyMaterial foreign = TestCertificates.caKeyMaterial("CN=Foreign CA");
+        byte[] request = new OCSPReqBuilder()
+                .addRequest(CertificateID.deriveCertificateID(
+                        OcspCodec.issuerTemplate(foreign, OcspCodec.HASH_SHA256), new BigInteger("8001")))
+                .build().getEncoded();
+
+        assertArrayEquals(OcspCodec.UNAUTHORIZED, ocspResponderService.respond(request).der());
+        assertArrayEquals(OcspCodec.MALFORMED_REQUEST, ocspResponderService.respond(new byte[] {1, 2, 3}).der());
+    }
+
+    /**
+     * Parses a successful response and checks it is signed by the CA the request was built against
+     */
+    private BasicOCSPResp basicResponse(OcspResponderService.OcspResponse response) throws Exception {
+        OCSPResp ocspResponse = new OCSPResp(response.der());
+        assertEquals(OCSPResp.SUCCESSFUL, ocspResponse.getStatus());
+        BasicOCSPResp basic = (BasicOCSPResp) ocspResponse.getResponseObject();
+        assertTrue(basic.isSignatureValid(new JcaContentVerifierProviderBuilder().build(issuer().publicKey())));
+        return basic;
+    }
+
+    private CertificateID certificateId(String serialNumber) {
+        return CertificateID.deriveCertificateID(OcspCodec.issuerTemplate(issuer(), OcspCodec.HASH_SHA256),
+                new BigInteger(serialNumber));
+    }
+
+    private CaKeyMaterial issuer() {
+        CaHierarchy hierarchy = caKeyMaterialProvider.hierarchy();
+        return hierarchy.signer(hierarchy.issuerNames().get(0));
+    }
+
+    private void save(String serialNumber) {
+        LocalDateTime notAfter = LocalDateTime.now().plusDays(90);
+        Certificate certificate = new Certificate();
+        certificate.setSerialNumber(serialNumber);
+        certificate.setVersion(3);
+        certificate.setSubjectCommonName("device-" + serialNumber);
+        certificate.setSubjectCountry("BR");
+        certificate.setCertificateDer(new byte[] {1, 2, 3});
+        certificate.setNotBefore(notAfter.minusDays(365));
+        certificate.setNotAfter(notAfter);
+        certificateRepository.save(certificate);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.demo.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.security.KeyPair;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ParsedCertificateCacheTest {
+
+    private final KeyPair caKeys = TestCertificates.keyPair();
+    private final X509Certificate ca = TestCertificates.rootCa("CN=Cache CA", caKeys, -1);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void expiresAnEntryAtNotAfterBeforeTheTtl() throws Exception {
+        ParsedCertificateCache cache = cache(Duration.ofMinutes(10));
+        // X.509 times have whole seconds; at least one second ahead of now
+        X509Certificate certificate = leaf(Instant.now().plusSeconds(2).truncatedTo(ChronoUnit.SECONDS));
+        byte[] der = certificate.getEncoded();
+
+        cache.get(der, loader(certificate));
+        cache.get(der, loader(certificate));
+        assertEquals(1, loads.get());
+
+        Thread.sleep(Math.max(0, certificate.getNotAfter().getTime() - System.currentTimeMillis()) + 100);
+        cache.get(der, loader(certificate));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void neverKeepsAnAlreadyExpiredCertificate() throws Exception {
+        ParsedCertificateCache cache = cache(Duration.ofMinutes(10));
+        X509Certificate expired = leaf(Instant.now().minus(Duration.ofDays(1)));
+
+        cache.get(expired.getEncoded(), loader(expired));
+        cache.get(expired.getEncoded(), loader(expired));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void expiresAfterTheTtlWhenNotAfterIsLater() throws Exception {
+        ParsedCertificateCache cache = cache(Duration.ofMillis(200));
+        X509Certificate certificate = leaf(Instant.now().plus(Duration.ofDays(30)));
+        byte[] der = certificate.getEncoded();
+
+        cache.get(der, loader(certificate));
+        cache.get(der, loader(certificate));
+        assertEquals(1, loads.get());
+
+        Thread.sleep(300);
+        cache.get(der, loader(certificate));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void dropsRevokedSerialsAndEverythingOnCaReload() throws Exception {
+        ParsedCertificateCache cache = cache(Duration.ofMinutes(10));
+        X509Certificate first = leaf(Instant.now().plus(Duration.ofDays(30)));
+        X509Certificate second = leaf(Instant.now().plus(Duration.ofDays(30)));
+        cache.get(first.getEncoded(), loader(first));
+        cache.get(second.getEncoded(), loader(second));
+
+        cache.onCertificateRevoked(new CertificateRevokedEvent(first.getSerialNumber()));
+        cache.get(first.getEncoded(), loader(first));
+        cache.get(second.getEncoded(), loader(second));
+        assertEquals(3, loads.get());
+
+        cache.onCaKeyMaterialReloaded(new CaKeyMaterialReloadedEvent(null, null));
+        cache.get(second.getEncoded(), loader(second));
+        assertEquals(4, loads.get());
+    }
+
+    private ParsedCertificateCache cache(Duration ttl) {
+        ParsedCertificateCache cache = new ParsedCertificateCache();
+        ReflectionTestUtils.setField(cache, "maxSize", 100L);
+        ReflectionTestUtils.setField(cache, "ttl", ttl);
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        cache.init();
+        return cache;
+    }
+
+    private X509Certificate leaf(Instant notAfter) {
+        return TestCertificates.leaf("CN=cached", TestCertificates.keyPair(), ca, caKeys.getPrivate(), notAfter);
+    }
+
+    private Function<byte[], VerifiedCertificate> loader(X509Certificate certificate) {
+        return der -> {
+            loads.incrementAndGet();
+            return new VerifiedCertificate(certificate, List.of(certificate, ca), null);
+        };
+    }
+}
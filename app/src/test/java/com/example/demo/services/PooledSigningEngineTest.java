@@ -0,0 +1,59 @@
+package com.example.demo.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.exceptions.TooManyRequestsException;
+
+class PooledSigningEngineTest {
+
+    private final AtomicReference<CaKeyMaterial> material = new AtomicReference<>(TestCertificates.caKeyMaterial("CN=Pool CA"));
+
+    @Test
+    void shedsWith429WhenNoContextFreesUpInTime() throws Exception {
+        PooledSigningEngine engine = new PooledSigningEngine(material::get, () -> BigInteger.ONE, 1, 1,
+                Duration.ofMillis(50));
+        CountDownLatch borrowed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> engine.execute(context -> {
+            borrowed.countDown();
+            release.await();
+            return null;
+        }));
+        assertTrue(borrowed.await(5, TimeUnit.SECONDS));
+
+        // Overload on the server, answered with 429 and Retry-After rather than the 400 of a bad request
+        TooManyRequestsException rejected = assertThrows(TooManyRequestsException.class,
+                () -> engine.execute(context -> "second"));
+        assertEquals(Duration.ofMillis(50), rejected.getRetryAfter());
+
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        assertEquals("second", engine.execute(context -> "second"));
+    }
+
+    @Test
+    void rebuildsContextsAfterKeyReload() {
+        PooledSigningEngine engine = new PooledSigningEngine(material::get, () -> BigInteger.ONE, 1, 2,
+                Duration.ofMillis(50));
+        CaKeyMaterial before = engine.execute(SigningContext::material);
+
+        material.set(TestCertificates.caKeyMaterial("CN=Reloaded Pool CA"));
+
+        assertSame(material.get(), engine.execute(SigningContext::material));
+        assertNotSame(before, material.get());
+        assertEquals(1, engine.createdCount());
+    }
+}
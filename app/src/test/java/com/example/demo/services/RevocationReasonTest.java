@@ -0,0 +1,50 @@
+package com.example.demo.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+
+class RevocationReasonTest {
+
+    @Test
+    void parsesRfcNames() {
+        assertEquals(RevocationReason.UNSPECIFIED, RevocationReason.parse("unspecified"));
+        assertEquals(RevocationReason.KEY_COMPROMISE, RevocationReason.parse("keyCompromise"));
+        assertEquals(RevocationReason.CA_COMPROMISE, RevocationReason.parse("cACompromise"));
+        assertEquals(RevocationReason.AFFILIATION_CHANGED, RevocationReason.parse("affiliationChanged"));
+        assertEquals(RevocationReason.SUPERSEDED, RevocationReason.parse("superseded"));
+        assertEquals(RevocationReason.CESSATION_OF_OPERATION, RevocationReason.parse("cessationOfOperation"));
+        assertEquals(RevocationReason.PRIVILEGE_WITHDRAWN, RevocationReason.parse("privilegeWithdrawn"));
+        assertEquals(RevocationReason.AA_COMPROMISE, RevocationReason.parse("aACompromise"));
+    }
+
+    @Test
+    void keepsRfc5280Codes() {
+        assertEquals(2, RevocationReason.CA_COMPROMISE.code());
+        assertEquals(10, RevocationReason.AA_COMPROMISE.code());
+    }
+
+    @Test
+    void parsesConstantNamesInAnyCase() {
+        for (RevocationReason reason : RevocationReason.values()) {
+            assertEquals(reason, RevocationReason.parse(reason.name()));
+            assertEquals(reason, RevocationReason.parse(" " + reason.name().toLowerCase(Locale.ROOT) + " "));
+        }
+    }
+
+    @Test
+    void treatsMissingReasonAsUnspecified() {
+        assertEquals(RevocationReason.UNSPECIFIED, RevocationReason.parse(null));
+        assertEquals(RevocationReason.UNSPECIFIED, RevocationReason.parse(" "));
+    }
+
+    @Test
+    void rejectsUnknownAndNonFinalReasons() {
+        assertThrows(IllegalArgumentException.class, () -> RevocationReason.parse("certificateHold"));
+        assertThrows(IllegalArgumentException.class, () -> RevocationReason.parse("removeFromCRL"));
+        assertThrows(IllegalArgumentException.class, () -> RevocationReason.parse("compromised"));
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.demo.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class RevokedSerialSetTest {
+
+    private final RevokedSerialSet set = new RevokedSerialSet();
+
+    @Test
+    void answersAbsentSerialsAndIgnoresDuplicates() {
+        BigInteger serial = new BigInteger("123456789012345678901234567890");
+
+        assertFalse(set.contains(serial));
+        assertTrue(set.add(serial));
+        assertFalse(set.add(serial));
+
+        assertTrue(set.contains(serial));
+        assertFalse(set.contains(serial.add(BigInteger.ONE)));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    void confirmsFingerprintHitsAgainstTheFullSerial() {
+        // Same low 64 bits, so the same fingerprint in the table
+        BigInteger low = BigInteger.valueOf(42);
+        BigInteger high = BigInteger.ONE.shiftLeft(64).add(low);
+        // 0 is the empty slot marker, so serial 0 shares its fingerprint with 1
+        BigInteger zero = BigInteger.ZERO;
+        BigInteger one = BigInteger.ONE;
+
+        assertTrue(set.add(high));
+        assertTrue(set.add(zero));
+
+        assertFalse(set.contains(low));
+        assertFalse(set.contains(one));
+
+        assertTrue(set.add(low));
+        assertTrue(set.add(one));
+        for (BigInteger serial : List.of(low, high, zero, one)) {
+            assertTrue(set.contains(serial), serial.toString());
+        }
+        assertEquals(4, set.size());
+    }
+
+    @Test
+    void keepsEverySerialAcrossResizes() {
+        Random random = new Random(7);
+        List<BigInteger> added = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            BigInteger serial = new BigInteger(128, random);
+            added.add(serial);
+            assertTrue(set.add(serial));
+        }
+
+        AtomicLongArray table = (AtomicLongArray) ReflectionTestUtils.getField(set, "table");
+        // Grown from 1024 slots and kept at most half full
+        assertTrue(table.length() >= 2 * added.size(), String.valueOf(table.length()));
+        for (BigInteger serial : added) {
+            assertTrue(set.contains(serial), serial.toString());
+        }
+        for (int i = 0; i < 5000; i++) {
+            assertFalse(set.contains(new BigInteger(128, random)));
+        }
+        assertEquals(added.size(), set.size());
+    }
+}
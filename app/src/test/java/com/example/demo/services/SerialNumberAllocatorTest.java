@@ -0,0 +1,84 @@
+package com.example.demo.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class SerialNumberAllocatorTest {
+
+    @Test
+    void allocatesUniqueSerialsConcurrentlyAcrossBlocks() throws Exception {
+        AtomicLong blocks = new AtomicLong();
+        Set<Long> reserved = ConcurrentHashMap.newKeySet();
+        int threads = 16;
+        int perThread = 2_000;
+
+        try (SerialNumberAllocator allocator = new SerialNumberAllocator(() -> {
+            long block = blocks.incrementAndGet();
+            reserved.add(block);
+            return block;
+        }, 8, 64)) {
+            allocator.start();
+
+            // Virtual threads too, which is what the signing path runs on
+            ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<List<BigInteger>>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    List<BigInteger> serials = new ArrayList<>(perThread);
+                    for (int i = 0; i < perThread; i++) {
+                        serials.add(allocator.get());
+                    }
+                    return serials;
+                }));
+            }
+            start.countDown();
+
+            Set<BigInteger> unique = new HashSet<>();
+            Map<Long, Integer> perBlock = new HashMap<>();
+            for (Future<List<BigInteger>> result : results) {
+                for (BigInteger serial : result.get()) {
+                    assertTrue(unique.add(serial), "duplicate serial " + serial.toString(16));
+                    assertTrue(serial.signum() > 0 && serial.bitLength() <= 19 * 8 - 1, serial.toString(16));
+                    perBlock.merge(SerialNumberAllocator.blockOf(serial), 1, Integer::sum);
+                }
+            }
+            executor.shutdown();
+
+            assertEquals(threads * perThread, unique.size());
+            // Every serial came from a reserved block, and no block handed out more than its 64 counters
+            assertTrue(reserved.containsAll(perBlock.keySet()), perBlock.keySet().toString());
+            assertTrue(perBlock.values().stream().allMatch(count -> count <= 64), perBlock.toString());
+            assertTrue(perBlock.size() >= threads * perThread / 64, String.valueOf(perBlock.size()));
+        }
+    }
+
+    @Test
+    void placesBlockAndCounterInTheHighBits() {
+        try (SerialNumberAllocator allocator = new SerialNumberAllocator(new AtomicLong(41)::incrementAndGet, 1, 2)) {
+            List<Long> blocks = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                blocks.add(SerialNumberAllocator.blockOf(allocator.get()));
+            }
+
+            assertEquals(List.of(42L, 42L, 43L, 43L, 44L), blocks);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.demo.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x500.X500NameBuilder;
+import org.bouncycastle.asn1.x500.style.BCStyle;
+import org.junit.jupiter.api.Test;
+
+class SubjectNameTest {
+
+    @Test
+    void storesAttributeValuesUnescaped() {
+        X500Name name = new X500NameBuilder(BCStyle.INSTANCE)
+                .addRDN(BCStyle.CN, "Doe, John+Jr. \"JD\"")
+                .addRDN(BCStyle.O, "Acme, Inc.")
+                .addRDN(BCStyle.OU, "R&D; #1")
+                .addRDN(BCStyle.C, "BR")
+                .addRDN(BCStyle.EmailAddress, "jd@example.com")
+                .build();
+
+        SubjectName subject = SubjectName.of(name);
+
+        assertEquals("Doe, John+Jr. \"JD\"", subject.commonName());
+        assertEquals("Acme, Inc.", subject.organization());
+        assertEquals("R&D; #1", subject.organizationalUnit());
+        assertEquals("BR", subject.country());
+        assertEquals("jd@example.com", subject.email());
+        assertNull(subject.state());
+    }
+
+    @Test
+    void keepsFirstOfRepeatedAttributes() {
+        SubjectName subject = SubjectName.of(new X500Name("CN=host,OU=first,OU=second"));
+
+        assertEquals("first", subject.organizationalUnit());
+    }
+
+    @Test
+    void keepsWholeDnWithoutCommonName() {
+        SubjectName subject = SubjectName.of(new X500Name("O=Acme,C=BR"));
+
+        assertEquals("O=Acme,C=BR", subject.commonName());
+    }
+
+    @Test
+    void rejectsCountryThatIsNotTwoLetters() {
+        assertThrows(IllegalArgumentException.class, () -> SubjectName.of(new X500Name("CN=host,C=BRA")));
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.demo.services;
+
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.asn1.x509.KeyUsage;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509ExtensionUtils;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.openssl.jcajce.JcaPEMWriter;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+import org.bouncycastle.pkcs.PKCS10CertificationRequestBuilder;
+import org.bouncycastle.pkcs.jcajce.JcaPKCS10CertificationRequestBuilder;
+import org.bouncycastle.util.io.pem.PemObject;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+
+/**
+ * Keys, CA certificates and CSRs for tests that need real ones, all EC P-256 unless asked otherwise
+ */
+final class TestCertificates {
+
+    private static final AtomicLong SERIALS = new AtomicLong(1000);
+
+    private TestCertificates() {
+    }
+
+    static KeyPair keyPair(String algorithm) {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm);
+            if ("EC".equals(algorithm)) {
+                generator.initialize(256);
+            } else if ("RSA".equals(algorithm)) {
+                generator.initialize(2048);
+            }
+            return generator.generateKeyPair();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static KeyPair keyPair() {
+        return keyPair("EC");
+    }
+
+    /**
+     * A self-signed CA certificate, without a path length constraint when {@code pathLen} is negative
+     */
+    static X509Certificate rootCa(String subject, KeyPair keys, int pathLen) {
+        return caCertificate(subject, keys, new X500Name(subject), keys.getPrivate(), null, pathLen, Duration.ZERO);
+    }
+
+    /**
+     * A CA certificate for {@code keys} issued by {@code issuer}
+     */
+    static X509Certificate intermediateCa(String subject, KeyPair keys, X509Certificate issuer, PrivateKey issuerKey,
+                                          int pathLen) {
+        return caCertificate(subject, keys, X500Name.getInstance(issuer.getSubjectX500Principal().getEncoded()),
+                issuerKey, issuer, pathLen, Duration.ZERO);
+    }
+
+    /**
+     * An end-entity certificate for {@code keys} issued by {@code issuer}
+     */
+    static X509Certificate leaf(String subject, KeyPair keys, X509Certificate issuer, PrivateKey issuerKey) {
+        return leaf(subject, keys, issuer, issuerKey, Instant.now().plus(Duration.ofDays(30)));
+    }
+
+    static X509Certificate leaf(String subject, KeyPair keys, X509Certificate issuer, PrivateKey issuerKey,
+                                Instant notAfter) {
+        try {
+            X509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(issuer, nextSerial(),
+                    Date.from(notAfter.minus(Duration.ofDays(1))), Date.from(notAfter),
+                    new X500Name(subject), keys.getPublic());
+            builder.addExtension(Extension.authorityKeyIdentifier, false,
+                    new JcaX509ExtensionUtils().createAuthorityKeyIdentifier(issuer));
+            return sign(builder, issuerKey);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static X509Certificate caCertificate(String subject, KeyPair keys, X500Name issuerName, PrivateKey issuerKey,
+                                         X509Certificate issuer, int pathLen, Duration expiredFor) {
+        try {
+            JcaX509ExtensionUtils extensionUtils = new JcaX509ExtensionUtils();
+            Instant notAfter = expiredFor.isZero()
+                    ? Instant.now().plus(Duration.ofDays(365))
+                    : Instant.now().minus(expiredFor);
+            X509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(issuerName, nextSerial(),
+                    Date.from(notAfter.minus(Duration.ofDays(730))), Date.from(notAfter), new X500Name(subject),
+                    keys.getPublic());
+            builder.addExtension(Extension.basicConstraints, true,
+                    pathLen < 0 ? new BasicConstraints(true) : new BasicConstraints(pathLen));
+            builder.addExtension(Extension.keyUsage, true, new KeyUsage(KeyUsage.keyCertSign | KeyUsage.cRLSign));
+            builder.addExtension(Extension.subjectKeyIdentifier, false,
+                    extensionUtils.createSubjectKeyIdentifier(keys.getPublic()));
+            if (issuer != null) {
+                builder.addExtension(Extension.authorityKeyIdentifier, false,
+                        extensionUtils.createAuthorityKeyIdentifier(issuer));
+            }
+            return sign(builder, issuerKey);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static CaKeyMaterial caKeyMaterial(String subject) {
+        KeyPair keys = keyPair();
+        return CaKeyMaterial.of(rootCa(subject, keys, -1), keys.getPrivate(), "SHA256withECDSA");
+    }
+
+    static PKCS10CertificationRequest csr(String subject, KeyPair keys, Extensions extensions) {
+        try {
+            PKCS10CertificationRequestBuilder builder = new JcaPKCS10CertificationRequestBuilder(new X500Name(subject),
+                    keys.getPublic());
+            if (extensions != null) {
+                builder.addAttribute(PKCSObjectIdentifiers.pkcs_9_at_extensionRequest, extensions);
+            }
+            return builder.build(new JcaContentSignerBuilder(signatureAlgorithm(keys.getPrivate()))
+                    .build(keys.getPrivate()));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * PKCS#8, which is what CA key files are expected to hold
+     */
+    static String privateKeyPem(PrivateKey key) {
+        return pem(new PemObject("PRIVATE KEY", key.getEncoded()));
+    }
+
+    static String pem(Object object) {
+        StringWriter pem = new StringWriter();
+        try (JcaPEMWriter writer = new JcaPEMWriter(pem)) {
+            writer.writeObject(object);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return pem.toString();
+    }
+
+    private static X509Certificate sign(X509v3CertificateBuilder builder, PrivateKey key) throws Exception {
+        return new JcaX509CertificateConverter().getCertificate(
+                builder.build(new JcaContentSignerBuilder(signatureAlgorithm(key)).build(key)));
+    }
+
+    private static String signatureAlgorithm(PrivateKey key) {
+        return switch (key.getAlgorithm()) {
+            case "RSA" -> "SHA256withRSA";
+            case "Ed25519", "EdDSA" -> "Ed25519";
+            default -> "SHA256withECDSA";
+        };
+    }
+
+    private static BigInteger nextSerial() {
+        return BigInteger.valueOf(SERIALS.incrementAndGet());
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.demo.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+
+    private static final long START = TimeUnit.SECONDS.toNanos(1000);
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void allowsBurstThenReportsWaitForNextToken() {
+        TokenBucket bucket = new TokenBucket(10, 5, 1);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryAcquire(START), "token " + i + " of the burst");
+        }
+        assertEquals(100 * MILLIS, bucket.tryAcquire(START));
+        assertEquals(40 * MILLIS, bucket.tryAcquire(START + 60 * MILLIS));
+
+        assertEquals(0, bucket.tryAcquire(START + 100 * MILLIS));
+        assertEquals(100 * MILLIS, bucket.tryAcquire(START + 100 * MILLIS));
+    }
+
+    @Test
+    void enforcesSustainedRate() {
+        TokenBucket bucket = new TokenBucket(10, 5, 1);
+
+        int admitted = 0;
+        for (long now = START; now < START + TimeUnit.SECONDS.toNanos(10); now += MILLIS) {
+            if (bucket.tryAcquire(now) == 0) {
+                admitted++;
+            }
+        }
+        // The burst up front, then one token every 100ms
+        assertEquals(5 + 10 * 10 - 1, admitted, 1);
+    }
+
+    @Test
+    void doesNotSaveUpMoreThanTheBurstWhileIdle() {
+        TokenBucket bucket = new TokenBucket(10, 5, 1);
+        assertEquals(0, bucket.tryAcquire(START));
+
+        long later = START + TimeUnit.HOURS.toNanos(1);
+        int admitted = 0;
+        while (bucket.tryAcquire(later) == 0) {
+            admitted++;
+        }
+        assertEquals(5, admitted);
+    }
+
+    @Test
+    void stripedBucketNeverExceedsConfiguredBurst() throws InterruptedException {
+        for (int burst : new int[] {1, 5, 7, 100}) {
+            TokenBucket bucket = new TokenBucket(1, burst, 8);
+            AtomicInteger admitted = new AtomicInteger();
+
+            // Distinct threads spread over the stripes; the clock stands still, so only the burst is available
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 64; t++) {
+                threads.add(Thread.ofPlatform().start(() -> {
+                    for (int i = 0; i < burst; i++) {
+                        if (bucket.tryAcquire(START) == 0) {
+                            admitted.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertTrue(admitted.get() >= 1 && admitted.get() <= burst,
+                    "burst " + burst + " admitted " + admitted.get());
+        }
+    }
+
+    @Test
+    void stripedBucketKeepsConfiguredRate() {
+        TokenBucket bucket = new TokenBucket(100, 8, 8);
+
+        int admitted = 0;
+        for (long now = START; now < START + TimeUnit.SECONDS.toNanos(1); now += MILLIS) {
+            if (bucket.tryAcquire(now) == 0) {
+                admitted++;
+            }
+        }
+        // One thread reaches two of the stripes, so it gets a quarter of the rate and burst
+        assertEquals((8 + 100) / 4, admitted, 2);
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 1, 0));
+    }
+}
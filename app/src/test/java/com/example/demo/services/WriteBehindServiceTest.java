@@ -0,0 +1,152 @@
+package com.example.demo.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.demo.entities.Certificate;
+import com.example.demo.exceptions.TooManyRequestsException;
+import com.example.demo.repositories.CertificateRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class WriteBehindServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private final CertificateRepository repository = mock(CertificateRepository.class);
+    private WriteBehindService service;
+
+    @AfterEach
+    void shutdown() throws IOException {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void keepsSegmentPendingUntilPersistSucceeds() throws Exception {
+        start();
+        Certificate first = IssuanceJournalTest.certificate("1");
+        Certificate second = IssuanceJournalTest.certificate("2");
+        service.append(List.of(first, second));
+        assertTrue(service.isPending("1"));
+
+        doThrow(new DataAccessResourceFailureException("database down"))
+                .doNothing()
+                .when(repository).insertAll(anyList());
+
+        service.flush();
+        assertTrue(service.isPending("1"));
+        assertTrue(service.isPending("2"));
+        assertEquals(first, service.findPending("1").orElseThrow());
+        assertEquals(2, segmentCount(), "the sealed segment stays on disk next to the new active one");
+
+        service.flush();
+        assertFalse(service.isPending("1"));
+        assertFalse(service.isPending("2"));
+        assertEquals(1, segmentCount());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Certificate>> batches = ArgumentCaptor.forClass(List.class);
+        verify(repository, times(2)).insertAll(batches.capture());
+        assertEquals(batches.getAllValues().get(0), batches.getAllValues().get(1));
+        assertEquals(List.of(first, second), batches.getValue());
+    }
+
+    @Test
+    void replaysBothRecordFormatsSkippingRowsAlreadyInserted() throws Exception {
+        Certificate withPem = IssuanceJournalTest.certificate("1");
+        Certificate current = IssuanceJournalTest.certificate("2");
+        Certificate inserted = IssuanceJournalTest.certificate("3");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        IssuanceJournalTest.writeRecord(bytes, IssuanceJournalTest.formatOnePayload(withPem));
+        Files.write(directory.resolve("segment-0000000000000001.log"), bytes.toByteArray());
+        IssuanceJournal journal = new IssuanceJournal(directory);
+        journal.append(List.of(current, inserted));
+        journal.close();
+
+        // The crash came after "3" was committed but before its segment was deleted
+        when(repository.findExistingSerialNumbers(anyCollection())).thenReturn(List.of("3"));
+        start();
+        assertTrue(service.isPending("1"));
+        assertTrue(service.isPending("2"));
+        assertTrue(service.isPending("3"));
+
+        service.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Certificate>> batches = ArgumentCaptor.forClass(List.class);
+        verify(repository, times(2)).insertAll(batches.capture());
+        assertEquals(List.of(withPem), batches.getAllValues().get(0));
+        assertEquals(List.of(current), batches.getAllValues().get(1));
+        assertFalse(service.isPending("1"));
+        assertFalse(service.isPending("3"));
+        assertEquals(1, segmentCount());
+    }
+
+    @Test
+    void rejectsAppendsBeyondMaxPending() throws Exception {
+        start();
+        service.append(List.of(IssuanceJournalTest.certificate("1"), IssuanceJournalTest.certificate("2")));
+
+        // Overload, answered with 429 and a Retry-After, not the 400 of a malformed request
+        TooManyRequestsException rejected = assertThrows(TooManyRequestsException.class, () -> service.append(
+                List.of(IssuanceJournalTest.certificate("3"), IssuanceJournalTest.certificate("4"))));
+        assertFalse(rejected.getRetryAfter().isZero());
+        assertFalse(service.isPending("3"));
+    }
+
+    /**
+     * Starts the service with its background writer stopped, so each test decides when a drain happens
+     */
+    private void start() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CertificateMetrics metrics = new CertificateMetrics();
+        ReflectionTestUtils.setField(metrics, "meterRegistry", meterRegistry);
+
+        service = new WriteBehindService();
+        ReflectionTestUtils.setField(service, "certificateRepository", repository);
+        ReflectionTestUtils.setField(service, "metrics", metrics);
+        ReflectionTestUtils.setField(service, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "directory", directory);
+        ReflectionTestUtils.setField(service, "flushInterval", Duration.ofHours(1));
+        ReflectionTestUtils.setField(service, "maxPending", 3);
+        service.init();
+
+        Thread writer = (Thread) ReflectionTestUtils.getField(service, "writer");
+        writer.interrupt();
+        writer.join();
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
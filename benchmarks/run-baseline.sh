@@ -0,0 +1,19 @@
+#!/usr/bin/env sh
+# Builds the app and benchmark jars, then runs every benchmark at 1, 2, 4 and all-core thread counts.
+# Results land in benchmarks/results/<commit>/threads-<n>.json.
+set -eu
+
+cd "$(dirname "$0")/.."
+
+./app/mvnw -q -f pom.xml -DskipTests install
+
+commit=$(git rev-parse --short HEAD 2>/dev/null || echo local)
+out="benchmarks/results/$commit"
+mkdir -p "$out"
+
+cores=$(nproc 2>/dev/null || sysctl -n hw.ncpu)
+for threads in 1 2 4 "$cores"; do
+    java -jar benchmarks/target/benchmarks.jar -t "$threads" -rf json -rff "$out/threads-$threads.json" "$@"
+done
+
+echo "Results written to $out"
@@ -0,0 +1,82 @@
+package com.example.demo.benchmarks;
+
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.Signature;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.openssl.jcajce.JcaPEMWriter;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+import org.bouncycastle.pkcs.jcajce.JcaPKCS10CertificationRequestBuilder;
+
+import com.example.demo.services.CaKeyMaterial;
+import com.example.demo.services.KeyAlgorithms;
+import com.example.demo.services.PooledSigningEngine;
+import com.example.demo.services.SerialNumberAllocator;
+
+/**
+ * In-memory CA, CSRs and signatures, so the benchmarks need neither the /certs volume nor Postgres.
+ */
+final class Fixtures {
+
+    static final X500Name CA_SUBJECT = new X500Name("C=BR,O=Fake BRy Organization,CN=Fake BRy Benchmark CA");
+    static final X500Name DEVICE_SUBJECT = new X500Name("C=BR,ST=SP,L=Sao Paulo,O=Acme,OU=Devices,CN=device-0001");
+    static final String SIGNED_DATA = "benchmark payload";
+
+    private Fixtures() {
+    }
+
+    static CaKeyMaterial caKeyMaterial(KeyType keyType) throws Exception {
+        KeyPair keyPair = keyType.generate();
+        Instant now = Instant.now();
+        X509Certificate certificate = new JcaX509CertificateConverter().getCertificate(
+                new JcaX509v3CertificateBuilder(CA_SUBJECT, BigInteger.ONE,
+                        Date.from(now.minus(Duration.ofDays(1))), Date.from(now.plus(Duration.ofDays(3650))),
+                        CA_SUBJECT, keyPair.getPublic())
+                        .build(new JcaContentSignerBuilder(keyType.signatureAlgorithm()).build(keyPair.getPrivate())));
+        return CaKeyMaterial.of(certificate, keyPair.getPrivate(), KeyAlgorithms.signatureAlgorithm(keyPair.getPrivate()));
+    }
+
+    static PooledSigningEngine signingEngine(CaKeyMaterial material) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return new PooledSigningEngine(() -> material, serialNumbers(), cores, cores * 2, Duration.ofSeconds(30));
+    }
+
+    /**
+     * Allocator with an in-memory block counter in place of the database table
+     */
+    static SerialNumberAllocator serialNumbers() {
+        AtomicLong blocks = new AtomicLong();
+        SerialNumberAllocator allocator = new SerialNumberAllocator(blocks::incrementAndGet, 4096);
+        allocator.start();
+        return allocator;
+    }
+
+    static String csrPem(KeyPair subjectKeys, KeyType keyType) throws Exception {
+        PKCS10CertificationRequest csr = new JcaPKCS10CertificationRequestBuilder(DEVICE_SUBJECT, subjectKeys.getPublic())
+                .build(new JcaContentSignerBuilder(keyType.signatureAlgorithm()).build(subjectKeys.getPrivate()));
+        StringWriter writer = new StringWriter();
+        try (JcaPEMWriter pemWriter = new JcaPEMWriter(writer)) {
+            pemWriter.writeObject(csr);
+        }
+        return writer.toString();
+    }
+
+    static String sign(KeyPair keyPair, KeyType keyType) throws Exception {
+        Signature signature = Signature.getInstance(keyType.signatureAlgorithm());
+        signature.initSign(keyPair.getPrivate());
+        signature.update(SIGNED_DATA.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(signature.sign());
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.demo.benchmarks;
+
+import java.security.KeyPair;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.demo.config.IssuanceProfileProperties;
+import com.example.demo.services.CertificateCodec;
+import com.example.demo.services.IssuanceProfile;
+import com.example.demo.services.PooledSigningEngine;
+
+/**
+ * CSR parsing, certificate signing and PEM encoding, as run by {@code CertificatesService.issueCertificate}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IssuanceBenchmark {
+
+    /** Key of the issuing CA; it decides the signature algorithm. */
+    @Param({"RSA_2048", "RSA_4096", "EC_P256", "ED25519"})
+    public KeyType caKey;
+
+    /** Key in the CSR being certified. */
+    @Param({"RSA_2048", "RSA_4096", "EC_P256", "ED25519"})
+    public KeyType subjectKey;
+
+    private PooledSigningEngine signingEngine;
+    private String csrPem;
+    private PKCS10CertificationRequest csr;
+    private X509Certificate issued;
+    private IssuanceProfile profile;
+
+    @Setup
+    public void setup() throws Exception {
+        signingEngine = Fixtures.signingEngine(Fixtures.caKeyMaterial(caKey));
+        KeyPair subjectKeys = subjectKey.generate();
+        csrPem = Fixtures.csrPem(subjectKeys, subjectKey);
+        csr = CertificateCodec.parseCsrPem(csrPem);
+        issued = generateX509Certificate();
+
+        IssuanceProfileProperties.Profile definition = new IssuanceProfileProperties.Profile();
+        definition.setKeyUsage(List.of("digitalSignature", "keyEncipherment"));
+        definition.setExtendedKeyUsage(List.of("clientAuth"));
+        definition.setSubjectAltNames(List.of("dns", "email"));
+        profile = IssuanceProfile.compile("client-auth", definition);
+    }
+
+    @Benchmark
+    public PKCS10CertificationRequest parseCsrPem() {
+        return CertificateCodec.parseCsrPem(csrPem);
+    }
+
+    @Benchmark
+    public X509Certificate generateX509Certificate() {
+        Date notBefore = new Date();
+        Date notAfter = new Date(notBefore.getTime() + 365 * 24 * 60 * 60 * 1000L);
+        return signingEngine.execute(signingContext ->
+                signingContext.issue(csr.getSubject(), csr.getSubjectPublicKeyInfo(), notBefore, notAfter));
+    }
+
+    /** As above plus the profile's CSR check and extensions (KU, EKU, basic constraints, AKI, SKI). */
+    @Benchmark
+    public X509Certificate generateX509CertificateWithProfile() {
+        Date notBefore = new Date();
+        Date notAfter = new Date(notBefore.getTime() + profile.validity().toMillis());
+        GeneralNames subjectAltNames = profile.checkRequest(csr);
+        return signingEngine.execute(signingContext -> {
+            X509v3CertificateBuilder builder = signingContext.newCertificateBuilder(
+                    csr.getSubject(), csr.getSubjectPublicKeyInfo(), notBefore, notAfter);
+            profile.addExtensions(builder, signingContext, csr.getSubjectPublicKeyInfo(), subjectAltNames);
+            return signingContext.sign(builder);
+        });
+    }
+
+    @Benchmark
+    public String signX509Certificate() {
+        return CertificateCodec.signX509Certificate(issued);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.benchmarks;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+
+/**
+ * Key shapes the benchmarks are parameterised over.
+ */
+public enum KeyType {
+    RSA_2048("RSA", "SHA256withRSA"),
+    RSA_4096("RSA", "SHA256withRSA"),
+    EC_P256("EC", "SHA256withECDSA"),
+    ED25519("Ed25519", "Ed25519");
+
+    private final String keyAlgorithm;
+    private final String signatureAlgorithm;
+
+    KeyType(String keyAlgorithm, String signatureAlgorithm) {
+        this.keyAlgorithm = keyAlgorithm;
+        this.signatureAlgorithm = signatureAlgorithm;
+    }
+
+    public String signatureAlgorithm() {
+        return signatureAlgorithm;
+    }
+
+    public KeyPair generate() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(keyAlgorithm);
+        switch (this) {
+            case RSA_2048 -> generator.initialize(2048);
+            case RSA_4096 -> generator.initialize(4096);
+            case EC_P256 -> generator.initialize(new ECGenParameterSpec("secp256r1"));
+            case ED25519 -> {
+                // Fixed parameter set, nothing to initialise
+            }
+        }
+        return generator.generateKeyPair();
+    }
+}
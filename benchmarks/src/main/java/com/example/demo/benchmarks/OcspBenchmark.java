@@ -0,0 +1,114 @@
+package com.example.demo.benchmarks;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.cert.jcajce.JcaX509CertificateHolder;
+import org.bouncycastle.cert.ocsp.CertificateID;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPReq;
+import org.bouncycastle.cert.ocsp.OCSPReqBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.demo.services.CaKeyMaterial;
+import com.example.demo.services.OcspCodec;
+import com.example.demo.services.PooledSigningEngine;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * OCSP request handling as done by {@code OcspResponderService}, without the database lookup:
+ * a cold request parses, checks the issuer and signs a response; a warm one parses, checks the issuer and
+ * returns the pre-signed bytes from a Caffeine cache keyed the same way as the responder's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OcspBenchmark {
+
+    private static final int SERIALS = 4096;
+
+    /** Key of the issuing CA, which also signs the OCSP responses. */
+    @Param({"RSA_2048", "RSA_4096", "EC_P256", "ED25519"})
+    public KeyType caKey;
+
+    private PooledSigningEngine signingEngine;
+    private CertificateID issuerTemplate;
+    private byte[][] requests;
+    private Cache<BigInteger, byte[]> responses;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int nextIndex() {
+            next = (next + 1) & (SERIALS - 1);
+            return next;
+        }
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        CaKeyMaterial material = Fixtures.caKeyMaterial(caKey);
+        signingEngine = Fixtures.signingEngine(material);
+        issuerTemplate = OcspCodec.issuerTemplate(material, CertificateID.HASH_SHA1);
+
+        JcaX509CertificateHolder caHolder = new JcaX509CertificateHolder(material.certificate());
+        Random random = new Random(42);
+        requests = new byte[SERIALS][];
+        responses = Caffeine.newBuilder().maximumSize(SERIALS).build();
+        for (int i = 0; i < SERIALS; i++) {
+            BigInteger serial = new BigInteger(63, random).add(BigInteger.ONE);
+            CertificateID id = new CertificateID(new JcaDigestCalculatorProviderBuilder().build()
+                    .get(CertificateID.HASH_SHA1), caHolder, serial);
+            requests[i] = new OCSPReqBuilder().addRequest(id).build().getEncoded();
+            responses.put(serial, sign(id));
+        }
+    }
+
+    @Benchmark
+    public byte[] coldSign(Cursor cursor) {
+        CertificateID id = parseAndCheck(requests[cursor.nextIndex()]);
+        return sign(id);
+    }
+
+    @Benchmark
+    public byte[] warmCached(Cursor cursor) {
+        CertificateID id = parseAndCheck(requests[cursor.nextIndex()]);
+        return responses.getIfPresent(id.getSerialNumber());
+    }
+
+    private CertificateID parseAndCheck(byte[] request) {
+        OCSPReq ocspReq = OcspCodec.parseRequest(request);
+        CertificateID id = ocspReq.getRequestList()[0].getCertID();
+        if (!OcspCodec.sameIssuer(issuerTemplate, id)) {
+            throw new IllegalStateException("issuer mismatch");
+        }
+        return id;
+    }
+
+    private byte[] sign(CertificateID id) {
+        Instant now = Instant.now();
+        OcspCodec.SingleStatus single = new OcspCodec.SingleStatus(id, CertificateStatus.GOOD, now,
+                now.plus(Duration.ofHours(1)));
+        return signingEngine.execute(signingContext -> OcspCodec.sign(signingContext, List.of(single), null));
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.demo.benchmarks;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.demo.services.PooledSigningEngine;
+import com.example.demo.services.SerialNumberAllocator;
+
+/**
+ * Serial number allocation: a poll from the prefetched queue, generation inline when the queue is empty, and the
+ * original new-SecureRandom-per-call approach.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerialNumberBenchmark {
+
+    private PooledSigningEngine signingEngine;
+    private SerialNumberAllocator unstarted;
+
+    @Setup
+    public void setup() throws Exception {
+        signingEngine = Fixtures.signingEngine(Fixtures.caKeyMaterial(KeyType.RSA_2048));
+        // Never refilled, so every call takes the inline path
+        AtomicLong blocks = new AtomicLong();
+        unstarted = new SerialNumberAllocator(blocks::incrementAndGet, 1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        unstarted.close();
+    }
+
+    @Benchmark
+    public BigInteger prefetchedSerialNumber() {
+        return signingEngine.execute(signingContext -> signingContext.nextSerialNumber());
+    }
+
+    @Benchmark
+    public BigInteger inlineSerialNumber() {
+        return unstarted.get();
+    }
+
+    @Benchmark
+    public BigInteger newSecureRandomPerCall() {
+        SecureRandom secureRandom = new SecureRandom();
+        byte[] serialBytes = new byte[8];
+        secureRandom.nextBytes(serialBytes);
+        serialBytes[0] &= 0x7F;
+        return new BigInteger(1, serialBytes);
+    }
+}
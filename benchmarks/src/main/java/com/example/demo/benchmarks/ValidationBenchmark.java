@@ -0,0 +1,108 @@
+package com.example.demo.benchmarks;
+
+import java.security.KeyPair;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.demo.services.CaKeyMaterial;
+import com.example.demo.services.CertificateCodec;
+import com.example.demo.services.PooledSigningEngine;
+
+/**
+ * Certificate parsing, CA signature check and client signature check, as run by
+ * {@code CertificatesService.validateSignature} on a cache miss.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+
+    @Param({"RSA_2048", "RSA_4096", "EC_P256", "ED25519"})
+    public KeyType caKey;
+
+    /** Client key; the verifier picks its algorithm from it. */
+    @Param({"RSA_2048", "RSA_4096", "EC_P256", "ED25519"})
+    public KeyType subjectKey;
+
+    private X509Certificate caCertificate;
+    private static final int DISTINCT_CERTIFICATES = 1024;
+
+    private String certificatePem;
+    private byte[][] distinctCertificateDers;
+    private X509Certificate certificate;
+    private String signature;
+
+    @Setup
+    public void setup() throws Exception {
+        CaKeyMaterial material = Fixtures.caKeyMaterial(caKey);
+        PooledSigningEngine signingEngine = Fixtures.signingEngine(material);
+        KeyPair subjectKeys = subjectKey.generate();
+
+        Date notBefore = new Date();
+        Date notAfter = new Date(notBefore.getTime() + 365 * 24 * 60 * 60 * 1000L);
+        certificate = signingEngine.execute(signingContext -> signingContext.issue(Fixtures.DEVICE_SUBJECT,
+                SubjectPublicKeyInfo.getInstance(subjectKeys.getPublic().getEncoded()),
+                notBefore, notAfter));
+
+        caCertificate = material.certificate();
+        certificatePem = CertificateCodec.signX509Certificate(certificate);
+
+        SubjectPublicKeyInfo publicKeyInfo = SubjectPublicKeyInfo.getInstance(subjectKeys.getPublic().getEncoded());
+        distinctCertificateDers = new byte[DISTINCT_CERTIFICATES][];
+        for (int i = 0; i < DISTINCT_CERTIFICATES; i++) {
+            distinctCertificateDers[i] = signingEngine.execute(signingContext -> signingContext.issue(
+                    Fixtures.DEVICE_SUBJECT, publicKeyInfo, notBefore, notAfter)).getEncoded();
+        }
+        signature = Fixtures.sign(subjectKeys, subjectKey);
+    }
+
+    @Benchmark
+    public X509Certificate parseCertificateFromPem() {
+        return CertificateCodec.parseCertificate(CertificateCodec.decodeCertificatePem(certificatePem));
+    }
+
+    /**
+     * A certificate object remembers the last key it verified against, and the JDK certificate factory
+     * hands back cached objects for encodings it has seen (up to 750). Each invocation therefore parses
+     * the next of {@link #DISTINCT_CERTIFICATES} different certificates, so the CA check is really performed.
+     */
+    @State(Scope.Thread)
+    public static class FreshCertificate {
+        X509Certificate certificate;
+        int next;
+
+        @Setup(Level.Invocation)
+        public void parse(ValidationBenchmark benchmark) {
+            byte[][] ders = benchmark.distinctCertificateDers;
+            certificate = CertificateCodec.parseCertificate(ders[next++ % ders.length]);
+        }
+    }
+
+    @Benchmark
+    public boolean verifyCertificateChain(FreshCertificate fresh) {
+        return CertificateCodec.verifyCertificateChain(fresh.certificate, caCertificate);
+    }
+
+    @Benchmark
+    public boolean verifySignature() {
+        return CertificateCodec.verifySignature(Fixtures.SIGNED_DATA, signature, certificate.getPublicKey());
+    }
+}
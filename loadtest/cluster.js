@@ -0,0 +1,42 @@
+// k6 scenario for replica scaling: a fixed number of clients, each issuing certificates, validating signatures and
+// looking certificates up through nginx. Run through loadtest/cluster.sh, once per replica count.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const fixture = JSON.parse(open('./fixture.json'));
+const csrs = JSON.parse(open('./csrs.json'));
+const baseUrl = __ENV.BASE_URL || 'http://localhost';
+
+export const options = {
+    scenarios: {
+        clients: {
+            executor: 'constant-vus',
+            vus: Number(__ENV.VUS || 200),
+            duration: __ENV.DURATION || '1m',
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(90)', 'p(99)', 'max'],
+    discardResponseBodies: true,
+};
+
+const validateBody = JSON.stringify({
+    certificatePem: fixture.certificatePem,
+    data: fixture.data,
+    signature: fixture.signature,
+});
+const jsonHeaders = { headers: { 'Content-Type': 'application/json' } };
+const pemHeaders = { headers: { 'Content-Type': 'text/plain' } };
+
+export default function () {
+    const pick = Math.random();
+    let res;
+    if (pick < 0.5) {
+        const csr = csrs[Math.floor(Math.random() * csrs.length)];
+        res = http.post(`${baseUrl}/api/issue-certificate`, csr, { ...pemHeaders, tags: { name: 'issue' } });
+    } else if (pick < 0.8) {
+        res = http.post(`${baseUrl}/api/validate-signature`, validateBody, { ...jsonHeaders, tags: { name: 'validate' } });
+    } else {
+        res = http.get(`${baseUrl}/api/certificates/${fixture.serialNumber}`, { tags: { name: 'lookup' } });
+    }
+    check(res, { 'status is 200': (r) => r.status === 200 });
+}
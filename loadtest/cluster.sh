@@ -0,0 +1,64 @@
+#!/usr/bin/env sh
+# Runs loadtest/cluster.js through nginx against 1, 2 and 4 springboot replicas (compose.cluster.yaml) and prints
+# throughput per replica count relative to a single replica. Summaries land in loadtest/results/<commit>/cluster-<n>.json.
+# Needs Docker Compose, k6, openssl, curl and jq. Extra environment: REPLICAS, VUS, DURATION, CSRS, DB_POOL_SIZE.
+set -eu
+
+cd "$(dirname "$0")/.."
+BASE_URL=${BASE_URL:-http://localhost}
+REPLICAS=${REPLICAS:-1 2 4}
+commit=$(git rev-parse --short HEAD 2>/dev/null || echo local)
+out="loadtest/results/$commit"
+mkdir -p "$out"
+
+# k6 sends everything from one address, which the per-client rate limits would throttle
+export RATE_LIMIT=false
+
+compose="docker compose -f compose.yaml -f compose.cluster.yaml"
+
+wait_for_replicas() {
+    for _ in $(seq 1 90); do
+        ready=0
+        for i in $(seq 1 "$1"); do
+            $compose exec -T --index "$i" springboot wget -qO /dev/null http://localhost:8080/readyz 2>/dev/null \
+                && ready=$((ready + 1))
+        done
+        [ "$ready" -eq "$1" ] && curl -sf "$BASE_URL/api/ca-info" > /dev/null && return 0
+        sleep 2
+    done
+    echo "$1 replicas did not come up" >&2
+    exit 1
+}
+
+# A pool of CSRs to issue from; k6 cannot generate keys itself
+if [ ! -f loadtest/csrs.json ]; then
+    work=$(mktemp -d)
+    for i in $(seq 1 "${CSRS:-50}"); do
+        openssl req -new -newkey rsa:2048 -nodes -keyout "$work/key.pem" -out "$work/$i.csr" \
+            -subj "/C=BR/O=Load Test/CN=cluster-client-$i" 2>/dev/null
+    done
+    for csr in "$work"/*.csr; do jq -Rs . "$csr"; done | jq -s . > loadtest/csrs.json
+    rm -rf "$work"
+fi
+
+$compose up -d --build postgres certificates nginx
+
+for n in $REPLICAS; do
+    $compose up -d --build --scale springboot="$n" springboot
+    wait_for_replicas "$n"
+
+    [ -f loadtest/fixture.json ] || BASE_URL=$BASE_URL loadtest/prepare.sh
+
+    k6 run --summary-export "$out/cluster-$n.json" -e BASE_URL="$BASE_URL" loadtest/cluster.js
+done
+
+first=$(echo "$REPLICAS" | cut -d' ' -f1)
+base=$(jq '.metrics.http_reqs.rate' "$out/cluster-$first.json")
+for n in $REPLICAS; do
+    jq -r --arg n "$n" --argjson base "$base" '
+        .metrics as $m
+        | "\($n) replicas: \($m.http_reqs.rate | floor) req/s (x\($m.http_reqs.rate / $base * 100 | floor / 100)), "
+          + "failed \($m.http_req_failed.value * 100 | floor)%, "
+          + "p50 \($m.http_req_duration["p(50)"] | floor) ms, p99 \($m.http_req_duration["p(99)"] | floor) ms"' \
+        "$out/cluster-$n.json"
+done
@@ -0,0 +1,28 @@
+#!/usr/bin/env bash
+# Issues one certificate from a throwaway key and writes loadtest/fixture.json for scenario.js.
+# Needs openssl, curl and jq, and the API reachable at BASE_URL.
+set -eu
+
+cd "$(dirname "$0")"
+BASE_URL=${BASE_URL:-http://localhost:8080}
+work=$(mktemp -d)
+trap 'rm -rf "$work"' EXIT
+
+openssl req -new -newkey rsa:2048 -nodes -keyout "$work/key.pem" -out "$work/csr.pem" \
+    -subj "/C=BR/ST=SP/L=Sao Paulo/O=Load Test/OU=Clients/CN=loadtest-client" 2>/dev/null
+
+curl -sf -X POST -H 'Content-Type: text/plain' --data-binary @"$work/csr.pem" "$BASE_URL/api/issue-certificate" \
+    | jq -r '.certificate' > "$work/cert.pem"
+
+data="load test payload"
+signature=$(printf '%s' "$data" | openssl dgst -sha256 -sign "$work/key.pem" | base64 | tr -d '\n')
+serial_hex=$(openssl x509 -in "$work/cert.pem" -noout -serial | cut -d= -f2)
+
+jq -n \
+    --rawfile certificatePem "$work/cert.pem" \
+    --arg data "$data" \
+    --arg signature "$signature" \
+    --arg serialNumber "$((16#$serial_hex))" \
+    '{certificatePem: $certificatePem, data: $data, signature: $signature, serialNumber: $serialNumber}' > fixture.json
+
+echo "Wrote $(pwd)/fixture.json for serial $((16#$serial_hex))"
@@ -0,0 +1,45 @@
+#!/usr/bin/env sh
+# Runs loadtest/scenario.js against the API once on platform threads and once on virtual threads,
+# restarting the springboot container in between. Summaries land in loadtest/results/<commit>/<mode>.json.
+# Needs Docker Compose, k6, openssl, curl and jq. Extra environment: VUS, RAMP, DURATION, DB_POOL_SIZE.
+set -eu
+
+cd "$(dirname "$0")/.."
+BASE_URL=${BASE_URL:-http://localhost:8080}
+commit=$(git rev-parse --short HEAD 2>/dev/null || echo local)
+out="loadtest/results/$commit"
+mkdir -p "$out"
+
+# k6 sends everything from one address, which the per-client rate limits would throttle
+export RATE_LIMIT=false
+
+compose="docker compose -f compose.yaml -f compose.override.yaml"
+
+wait_for_api() {
+    for _ in $(seq 1 60); do
+        curl -sf "$BASE_URL/api/ca-info" > /dev/null && return 0
+        sleep 2
+    done
+    echo "API did not come up at $BASE_URL" >&2
+    exit 1
+}
+
+$compose up -d --build postgres certificates
+
+for mode in platform virtual; do
+    if [ "$mode" = virtual ]; then virtual=true; else virtual=false; fi
+    VIRTUAL_THREADS=$virtual $compose up -d --build --force-recreate springboot
+    wait_for_api
+
+    [ -f loadtest/fixture.json ] || BASE_URL=$BASE_URL loadtest/prepare.sh
+
+    k6 run --summary-export "$out/$mode.json" -e BASE_URL="$BASE_URL" loadtest/scenario.js
+done
+
+for mode in platform virtual; do
+    jq -r --arg mode "$mode" '
+        .metrics as $m
+        | "\($mode): \($m.http_reqs.rate | floor) req/s, failed \($m.http_req_failed.value * 100 | floor)%, "
+          + "p50 \($m.http_req_duration["p(50)"] | floor) ms, p99 \($m.http_req_duration["p(99)"] | floor) ms, "
+          + "p99.9 \($m.http_req_duration["p(99.9)"] | floor) ms"' "$out/$mode.json"
+done
@@ -0,0 +1,43 @@
+// k6 scenario: a few thousand concurrent clients mixing metadata lookups, signature validations and CA info.
+// Run through loadtest/run.sh, which prepares the fixture and exports a summary per threading mode.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const fixture = JSON.parse(open('./fixture.json'));
+const baseUrl = __ENV.BASE_URL || 'http://localhost:8080';
+
+export const options = {
+    scenarios: {
+        clients: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            stages: [
+                { duration: __ENV.RAMP || '30s', target: Number(__ENV.VUS || 3000) },
+                { duration: __ENV.DURATION || '2m', target: Number(__ENV.VUS || 3000) },
+            ],
+            gracefulRampDown: '10s',
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(90)', 'p(99)', 'p(99.9)', 'max'],
+    discardResponseBodies: true,
+};
+
+const validateBody = JSON.stringify({
+    certificatePem: fixture.certificatePem,
+    data: fixture.data,
+    signature: fixture.signature,
+});
+const jsonHeaders = { headers: { 'Content-Type': 'application/json' } };
+
+export default function () {
+    const pick = Math.random();
+    let res;
+    if (pick < 0.6) {
+        res = http.get(`${baseUrl}/api/certificates/${fixture.serialNumber}`, { tags: { name: 'lookup' } });
+    } else if (pick < 0.9) {
+        res = http.post(`${baseUrl}/api/validate-signature`, validateBody, { ...jsonHeaders, tags: { name: 'validate' } });
+    } else {
+        res = http.get(`${baseUrl}/api/ca-info`, { tags: { name: 'ca-info' } });
+    }
+    check(res, { 'status is 200': (r) => r.status === 200 });
+}